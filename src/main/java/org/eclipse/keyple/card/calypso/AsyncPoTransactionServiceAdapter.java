@@ -0,0 +1,234 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import org.eclipse.keyple.card.calypso.transaction.AsyncPoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link AsyncPoTransactionService}.
+ *
+ * <p>The steps are queued and handed over to the executor one at a time: no executor thread is
+ * used by a transaction while it has no step to execute.
+ *
+ * @since 2.0
+ */
+final class AsyncPoTransactionServiceAdapter implements AsyncPoTransactionService {
+
+  private final PoTransactionService poTransactionService;
+  private final Executor executor;
+  private final LinkedList<FutureTask<Void>> pendingSteps = new LinkedList<FutureTask<Void>>();
+  private boolean isStepRunning;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param poTransactionService The transaction service to drive.
+   * @param executor The executor running the steps.
+   * @since 2.0
+   */
+  AsyncPoTransactionServiceAdapter(PoTransactionService poTransactionService, Executor executor) {
+    this.poTransactionService = poTransactionService;
+    this.executor = executor;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionService getPoTransactionService() {
+    return poTransactionService;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Future<Void> processOpening(
+      final PoTransactionService.SessionAccessLevel sessionAccessLevel, Callback callback) {
+    return submit(
+        new Runnable() {
+          @Override
+          public void run() {
+            poTransactionService.processOpening(sessionAccessLevel);
+          }
+        },
+        callback);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Future<Void> processPoCommands(Callback callback) {
+    return submit(
+        new Runnable() {
+          @Override
+          public void run() {
+            poTransactionService.processPoCommands();
+          }
+        },
+        callback);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Future<Void> processClosing(Callback callback) {
+    return submit(
+        new Runnable() {
+          @Override
+          public void run() {
+            poTransactionService.processClosing();
+          }
+        },
+        callback);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Future<Void> processCancel(Callback callback) {
+    return submit(
+        new Runnable() {
+          @Override
+          public void run() {
+            poTransactionService.processCancel();
+          }
+        },
+        callback);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Future<Void> processVerifyPin(final byte[] pin, Callback callback) {
+    return submit(
+        new Runnable() {
+          @Override
+          public void run() {
+            poTransactionService.processVerifyPin(pin);
+          }
+        },
+        callback);
+  }
+
+  /**
+   * (private)<br>
+   * Queues a step and starts it if no other step is in progress.
+   *
+   * @param step The step.
+   * @param callback The callback to notify (may be null).
+   * @return The future of the step.
+   */
+  private Future<Void> submit(final Runnable step, final Callback callback) {
+    FutureTask<Void> task =
+        new FutureTask<Void>(
+            new Callable<Void>() {
+              @Override
+              public Void call() {
+                try {
+                  step.run();
+                } catch (RuntimeException e) {
+                  cancelPendingSteps();
+                  if (callback != null) {
+                    callback.onFailure(poTransactionService, e);
+                  }
+                  throw e;
+                }
+                if (callback != null) {
+                  callback.onSuccess(poTransactionService);
+                }
+                return null;
+              }
+            });
+    synchronized (pendingSteps) {
+      pendingSteps.add(task);
+      if (!isStepRunning) {
+        startNextStep();
+      }
+    }
+    return task;
+  }
+
+  /**
+   * (private)<br>
+   * Hands the next pending step over to the executor. Must be called with the queue lock held.
+   *
+   * @throws RejectedExecutionException If the executor rejected the step (the pending steps are
+   *     then cancelled).
+   */
+  private void startNextStep() {
+    final FutureTask<Void> task = pendingSteps.poll();
+    if (task == null) {
+      isStepRunning = false;
+      return;
+    }
+    isStepRunning = true;
+    try {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                task.run();
+              } finally {
+                synchronized (pendingSteps) {
+                  startNextStep();
+                }
+              }
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      isStepRunning = false;
+      task.cancel(false);
+      cancelPendingSteps();
+      throw e;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Cancels the steps not yet started.
+   */
+  private void cancelPendingSteps() {
+    synchronized (pendingSteps) {
+      for (FutureTask<Void> task : pendingSteps) {
+        task.cancel(false);
+      }
+      pendingSteps.clear();
+    }
+  }
+}
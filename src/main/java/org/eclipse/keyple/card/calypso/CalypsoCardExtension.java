@@ -11,11 +11,29 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
+import java.io.IOException;
+import java.util.concurrent.Executor;
 import org.eclipse.keyple.card.calypso.po.PoCardSelection;
+import org.eclipse.keyple.card.calypso.po.PoImageCache;
+import org.eclipse.keyple.card.calypso.po.PoImageCodec;
+import org.eclipse.keyple.card.calypso.po.PoMultiApplicationSelection;
 import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamReader;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamServer;
 import org.eclipse.keyple.card.calypso.sam.SamCardResourceProfileExtension;
+import org.eclipse.keyple.card.calypso.sam.SamEventCounterMonitor;
+import org.eclipse.keyple.card.calypso.sam.SamScheduler;
+import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.sam.SamTransport;
+import org.eclipse.keyple.card.calypso.transaction.AsyncPoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.ClearingRecordWriter;
+import org.eclipse.keyple.card.calypso.transaction.MappedDenyList;
 import org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting;
 import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionServiceProvider;
+import org.eclipse.keyple.card.calypso.transaction.SearchCommandData;
+import org.eclipse.keyple.card.calypso.transaction.SvJournal;
+import org.eclipse.keyple.card.calypso.transaction.TransactionPlanBuilder;
 import org.eclipse.keyple.core.common.KeypleCardExtension;
 import org.eclipse.keyple.core.service.Reader;
 import org.eclipse.keyple.core.service.selection.CardSelector;
@@ -38,6 +56,88 @@ public interface CalypsoCardExtension extends KeypleCardExtension {
    */
   PoCardSelection createPoCardSelection(CardSelector poCardSelector, boolean acceptInvalidatedPo);
 
+  /**
+   * Creates an instance of {@link PoMultiApplicationSelection} to select several applications of
+   * a same card in a single selection scenario.
+   *
+   * @param acceptInvalidatedPo true if invalidated applications must be accepted, false if not.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoMultiApplicationSelection createPoMultiApplicationSelection(boolean acceptInvalidatedPo);
+
+  /**
+   * Creates an instance of {@link PoImageCache} keeping the files of the last POs processed.
+   *
+   * <p>The same instance is meant to be shared by the transactions of a terminal.
+   *
+   * @param maxEntries The maximum number of POs kept in the cache (&gt;= 1).
+   * @param timeToLiveMillis The time to live of an entry, in milliseconds (&gt; 0).
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  PoImageCache createPoImageCache(int maxEntries, long timeToLiveMillis);
+
+  /**
+   * Creates an instance of {@link PoImageCodec} to serialize PO images.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoImageCodec createPoImageCodec();
+
+  /**
+   * Creates an instance of {@link MappedDenyList}, initially empty, to be provided to the {@link
+   * PoSecuritySetting} of the transactions.
+   *
+   * @param isBloomFilterEnabled true if the lookups must be prefiltered by a Bloom filter, which
+   *     speeds up the rejection of the serial numbers that are not in the list at the cost of about
+   *     1.25 bytes of memory per entry.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  MappedDenyList createMappedDenyList(boolean isBloomFilterEnabled);
+
+  /**
+   * Opens the {@link SvJournal} stored in the provided directory, to be provided to the {@link
+   * PoSecuritySetting} of the transactions.
+   *
+   * <p>The directory is created if needed. The intents left incomplete by the previous executions
+   * are available through {@link SvJournal#getIncompleteEntries()}.
+   *
+   * @param directoryName The name of the directory of the journal.
+   * @param segmentCapacity The number of records of a segment file (&gt;= 64), a record taking 64
+   *     bytes.
+   * @param isSyncEnabled true if each intent must be flushed to the storage device before the PO
+   *     is involved, false if the protection against a crash of the process is sufficient.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If directoryName is null or empty or if segmentCapacity is
+   *     out of range.
+   * @throws IOException If the journal cannot be read or written.
+   * @since 2.0
+   */
+  SvJournal openSvJournal(String directoryName, int segmentCapacity, boolean isSyncEnabled)
+      throws IOException;
+
+  /**
+   * Creates a {@link ClearingRecordWriter} writing to the provided directory, to be provided to
+   * the {@link PoSecuritySetting} of the transactions.
+   *
+   * <p>The writer thread is started immediately.
+   *
+   * @param directoryName The name of the directory of the clearing files, created if needed.
+   * @param queueCapacity The maximum number of records waiting to be written (&gt;= 1).
+   * @param maxFileSize The maximum size of a clearing file, in bytes (&gt;= 192).
+   * @return A not null reference.
+   * @throws IllegalArgumentException If directoryName is null or empty or if one of the other
+   *     arguments is out of range.
+   * @throws IOException If the directory cannot be created.
+   * @since 2.0
+   */
+  ClearingRecordWriter createClearingRecordWriter(
+      String directoryName, int queueCapacity, long maxFileSize) throws IOException;
+
   /**
    * Creates an instance of {@link SamCardResourceProfileExtension} to be provided to the {@link
    * org.eclipse.keyple.core.service.CardResourceService}.
@@ -47,6 +147,99 @@ public interface CalypsoCardExtension extends KeypleCardExtension {
    */
   SamCardResourceProfileExtension createSamCardResourceProfileExtension();
 
+  /**
+   * Creates an instance of {@link SamEventCounterMonitor} to be provided to the {@link
+   * PoSecuritySetting} of the transactions to monitor.
+   *
+   * <p>The counter numbers are those of the SAM event counters associated with the session keys
+   * and the SV keys, as defined by the SAM personalization.
+   *
+   * @param sessionCounterNumber The number of the event counter incremented at each session
+   *     closing (in range [0..26]).
+   * @param svCounterNumber The number of the event counter incremented at each SV operation (in
+   *     range [0..26]).
+   * @param exhaustionThreshold The number of remaining events below which a SAM is reported as
+   *     near exhaustion.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  SamEventCounterMonitor createSamEventCounterMonitor(
+      int sessionCounterNumber, int svCounterNumber, int exhaustionThreshold);
+
+  /**
+   * Gets the {@link SamScheduler} serializing the accesses to the SAM inserted in the provided
+   * reader.
+   *
+   * <p>The scheduler is shared by all the PO transactions using this SAM reader.
+   *
+   * @param samReader The SAM reader.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If samReader is null.
+   * @since 2.0
+   */
+  SamScheduler getSamScheduler(Reader samReader);
+
+  /**
+   * Removes the {@link SamScheduler} of the SAM inserted in the provided reader.
+   *
+   * <p>Should be called when the SAM card resource is released for good, so that the scheduler and
+   * its statistics do not outlive the SAM. The scheduler is kept if a transaction is still using
+   * the SAM; a new one is created the next time the SAM is used.
+   *
+   * @param samReader The SAM reader.
+   * @throws IllegalArgumentException If samReader is null.
+   * @since 2.0
+   */
+  void removeSamScheduler(Reader samReader);
+
+  /**
+   * Creates a {@link RemoteSamReader} exchanging with a {@link RemoteSamServer} over the provided
+   * transport.
+   *
+   * <p>The receiving thread is started immediately.
+   *
+   * @param name The name of the remote SAM reader (also identifies its {@link SamScheduler}).
+   * @param samTransport The transport connected to the server.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is null or if the name is empty.
+   * @throws IllegalStateException If the streams of the transport cannot be opened.
+   * @since 2.0
+   */
+  RemoteSamReader createRemoteSamReader(String name, SamTransport samTransport);
+
+  /**
+   * Creates a {@link RemoteSamServer} serving the SAM inserted in the provided reader over the
+   * provided transport.
+   *
+   * @param samReader The reader in which the SAM is inserted.
+   * @param samSmartCard The SAM data provided by the selection process.
+   * @param samTransport The transport connected to the client.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @since 2.0
+   */
+  RemoteSamServer createRemoteSamServer(
+      Reader samReader, SamSmartCard samSmartCard, SamTransport samTransport);
+
+  /**
+   * Creates a {@link RemoteSamReader} connected through an in-process loopback transport to a
+   * {@link RemoteSamServer} serving a simulated SAM.
+   *
+   * <p>The simulated SAM answers with data of the expected length but without any cryptographic
+   * meaning, its signatures are therefore rejected by a real PO. It is intended for tests and for
+   * benchmarking the latency of the remote SAM exchanges; the server runs in a daemon thread until
+   * the reader is closed.
+   *
+   * @param name The name of the remote SAM reader (also identifies its {@link SamScheduler}).
+   * @param responseDelayMillis The time spent by the simulated SAM on each card request, in
+   *     milliseconds.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the name is null or empty or if the delay is negative.
+   * @since 2.0
+   */
+  RemoteSamReader createSimulatedRemoteSamReader(String name, int responseDelayMillis);
+
   /**
    * Creates a PO transaction service to handle operations secured with a SAM.
    *
@@ -72,4 +265,58 @@ PoTransactionService createPoSecuredTransaction(
    * @since 2.0
    */
   PoTransactionService createPoUnsecuredTransaction(Reader reader, PoSmartCard poSmartCard);
+
+  /**
+   * Creates an {@link AsyncPoTransactionService} executing the "process" methods of the provided
+   * transaction service on the provided executor.
+   *
+   * <p>The executor may be shared by the transactions of many readers.
+   *
+   * @param poTransactionService The transaction service to drive.
+   * @param executor The executor running the processing steps.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @since 2.0
+   */
+  AsyncPoTransactionService createAsyncPoTransactionService(
+      PoTransactionService poTransactionService, Executor executor);
+
+  /**
+   * Creates a {@link PoTransactionServiceProvider} providing reusable secure transaction services,
+   * one per PO reader.
+   *
+   * @param poSecuritySetting The security settings.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If poSecuritySetting is null.
+   * @since 2.0
+   */
+  PoTransactionServiceProvider createPoSecuredTransactionProvider(
+      PoSecuritySetting poSecuritySetting);
+
+  /**
+   * Creates a {@link PoTransactionServiceProvider} providing reusable non secured transaction
+   * services, one per PO reader.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoTransactionServiceProvider createPoUnsecuredTransactionProvider();
+
+  /**
+   * Creates a {@link TransactionPlanBuilder} to describe a transaction scenario executed on many
+   * PO.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  TransactionPlanBuilder createTransactionPlanBuilder();
+
+  /**
+   * Creates a {@link SearchCommandData} to be used with {@link
+   * PoTransactionService#prepareSearchRecordMultiple(SearchCommandData)}.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  SearchCommandData createSearchCommandData();
 }
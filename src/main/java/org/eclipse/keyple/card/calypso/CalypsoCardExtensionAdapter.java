@@ -11,17 +11,37 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
+import java.io.IOException;
+import java.util.concurrent.Executor;
 import org.eclipse.keyple.card.calypso.po.PoCardSelection;
+import org.eclipse.keyple.card.calypso.po.PoImageCache;
+import org.eclipse.keyple.card.calypso.po.PoImageCodec;
+import org.eclipse.keyple.card.calypso.po.PoMultiApplicationSelection;
 import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamReader;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamServer;
 import org.eclipse.keyple.card.calypso.sam.SamCardResourceProfileExtension;
+import org.eclipse.keyple.card.calypso.sam.SamEventCounterMonitor;
+import org.eclipse.keyple.card.calypso.sam.SamScheduler;
+import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.sam.SamTransport;
+import org.eclipse.keyple.card.calypso.transaction.AsyncPoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.ClearingRecordWriter;
+import org.eclipse.keyple.card.calypso.transaction.MappedDenyList;
 import org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting;
 import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionServiceProvider;
+import org.eclipse.keyple.card.calypso.transaction.SearchCommandData;
+import org.eclipse.keyple.card.calypso.transaction.SvJournal;
+import org.eclipse.keyple.card.calypso.transaction.TransactionPlanBuilder;
 import org.eclipse.keyple.core.card.CardApiProperties;
+import org.eclipse.keyple.core.card.ProxyReader;
 import org.eclipse.keyple.core.card.spi.CardExtensionSpi;
 import org.eclipse.keyple.core.common.CommonsApiProperties;
 import org.eclipse.keyple.core.service.Reader;
 import org.eclipse.keyple.core.service.ServiceApiProperties;
 import org.eclipse.keyple.core.service.selection.CardSelector;
+import org.eclipse.keyple.core.util.Assert;
 
 /**
  * (package-private)<br>
@@ -90,6 +110,69 @@ public PoCardSelection createPoCardSelection(
     return new PoCardSelectionAdapter(poCardSelector, acceptInvalidatedPo);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoMultiApplicationSelection createPoMultiApplicationSelection(
+      boolean acceptInvalidatedPo) {
+    return new PoMultiApplicationSelectionAdapter(acceptInvalidatedPo);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoImageCache createPoImageCache(int maxEntries, long timeToLiveMillis) {
+    return new PoImageCacheAdapter(maxEntries, timeToLiveMillis);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoImageCodec createPoImageCodec() {
+    return new PoImageCodecAdapter();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public MappedDenyList createMappedDenyList(boolean isBloomFilterEnabled) {
+    return new MappedDenyListAdapter(isBloomFilterEnabled);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SvJournal openSvJournal(String directoryName, int segmentCapacity, boolean isSyncEnabled)
+      throws IOException {
+    return new SvJournalAdapter(directoryName, segmentCapacity, isSyncEnabled);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public ClearingRecordWriter createClearingRecordWriter(
+      String directoryName, int queueCapacity, long maxFileSize) throws IOException {
+    return new ClearingRecordWriterAdapter(directoryName, queueCapacity, maxFileSize);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -100,6 +183,94 @@ public SamCardResourceProfileExtension createSamCardResourceProfileExtension() {
     return new SamCardResourceProfileExtensionAdapter();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SamEventCounterMonitor createSamEventCounterMonitor(
+      int sessionCounterNumber, int svCounterNumber, int exhaustionThreshold) {
+    return new SamEventCounterMonitorAdapter(
+        sessionCounterNumber, svCounterNumber, exhaustionThreshold);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SamScheduler getSamScheduler(Reader samReader) {
+    Assert.getInstance().notNull(samReader, "samReader");
+    return SamSchedulerAdapter.getInstance(samReader.getName());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void removeSamScheduler(Reader samReader) {
+    Assert.getInstance().notNull(samReader, "samReader");
+    SamSchedulerAdapter.removeInstance(samReader.getName());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public RemoteSamReader createRemoteSamReader(String name, SamTransport samTransport) {
+    Assert.getInstance().notEmpty(name, "name").notNull(samTransport, "samTransport");
+    return new RemoteSamReaderAdapter(name, samTransport);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public RemoteSamServer createRemoteSamServer(
+      Reader samReader, SamSmartCard samSmartCard, SamTransport samTransport) {
+    Assert.getInstance()
+        .notNull(samReader, "samReader")
+        .notNull(samSmartCard, "samSmartCard")
+        .notNull(samTransport, "samTransport");
+    return new RemoteSamServerAdapter(
+        (ProxyReader) samReader,
+        samReader.getName(),
+        (SamSmartCardAdapter) samSmartCard,
+        samTransport);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public RemoteSamReader createSimulatedRemoteSamReader(String name, int responseDelayMillis) {
+    Assert.getInstance()
+        .notEmpty(name, "name")
+        .greaterOrEqual(responseDelayMillis, 0, "responseDelayMillis");
+    LoopbackSamTransport[] transports = LoopbackSamTransport.createPair();
+    Thread server =
+        new Thread(
+            new RemoteSamServerAdapter(
+                new SimulatedSamReaderAdapter(responseDelayMillis),
+                name,
+                new SamSmartCardAdapter(null, SimulatedSamReaderAdapter.ATR),
+                transports[1]),
+            "RemoteSamServer-" + name);
+    server.setDaemon(true);
+    server.start();
+    return new RemoteSamReaderAdapter(name, transports[0]);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -120,4 +291,60 @@ public PoTransactionService createPoSecuredTransaction(
   public PoTransactionService createPoUnsecuredTransaction(Reader reader, PoSmartCard poSmartCard) {
     return new PoTransactionServiceAdapter(reader, poSmartCard);
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public AsyncPoTransactionService createAsyncPoTransactionService(
+      PoTransactionService poTransactionService, Executor executor) {
+    Assert.getInstance()
+        .notNull(poTransactionService, "poTransactionService")
+        .notNull(executor, "executor");
+    return new AsyncPoTransactionServiceAdapter(poTransactionService, executor);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionServiceProvider createPoSecuredTransactionProvider(
+      PoSecuritySetting poSecuritySetting) {
+    Assert.getInstance().notNull(poSecuritySetting, "poSecuritySetting");
+    return new PoTransactionServiceProviderAdapter(poSecuritySetting);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionServiceProvider createPoUnsecuredTransactionProvider() {
+    return new PoTransactionServiceProviderAdapter(null);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder createTransactionPlanBuilder() {
+    return new TransactionPlanBuilderAdapter();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData createSearchCommandData() {
+    return new SearchCommandDataAdapter();
+  }
 }
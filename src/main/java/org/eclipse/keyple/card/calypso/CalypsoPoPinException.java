@@ -14,7 +14,8 @@
 /**
  * (package-private)<br>
  * Indicates that the input PIN provided is not valid. <br>
- * This can occur during the PIN verification.
+ * This can occur during the PIN verification.<br>
+ * As it is an expected outcome, its stack trace is not filled in.
  *
  * @since 2.0
  */
@@ -31,4 +32,14 @@ final class CalypsoPoPinException extends CalypsoPoCommandException {
   CalypsoPoPinException(String message, PoCommand command, Integer statusCode) {
     super(message, command, statusCode);
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
 }
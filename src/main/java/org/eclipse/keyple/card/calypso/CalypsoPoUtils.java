@@ -11,7 +11,9 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +56,16 @@ final class CalypsoPoUtils {
   public static final int CNT_VALUE_MIN = 0;
   public static final int CNT_VALUE_MAX = 16777215;
 
+  // Offset in a record
+  public static final int OFFSET_MIN = 0;
+  public static final int OFFSET_MAX = 249;
+
+  // Record size
+  public static final int RECORD_SIZE_MAX = 250;
+
+  // Offset in a binary file
+  public static final int OFFSET_BINARY_MAX = 32767;
+
   // Le max
   public static final int LE_MAX = 255;
 
@@ -87,6 +99,7 @@ final class CalypsoPoUtils {
   public static final int SEL_LID_OFFSET = 21;
 
   public static final int PIN_LENGTH = 4;
+  public static final int PIN_ATTEMPTS_MAX = 3;
 
   public static final byte STORED_VALUE_FILE_STRUCTURE_ID = (byte) 0x20;
   public static final byte SV_RELOAD_LOG_FILE_SFI = (byte) 0x14;
@@ -95,12 +108,6 @@ final class CalypsoPoUtils {
   public static final int SV_DEBIT_LOG_FILE_NB_REC = 3;
   public static final int SV_LOG_FILE_REC_LENGTH = 29;
 
-  private static byte[] poChallenge;
-  private static byte svKvc;
-  private static byte[] svGetHeader;
-  private static byte[] svGetData;
-  private static byte[] svOperationSignature;
-
   /** Private constructor */
   private CalypsoPoUtils() {}
 
@@ -156,6 +163,95 @@ private static PoCloseSessionParser updateCalypsoPoCloseSession(
     return poCloseSessionParser;
   }
 
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to a Read Binary command
+   * received from the PO <br>
+   * The bytes read are placed in record #1 of the {@link PoSmartCardAdapter} file structure, at
+   * the offset of the command.
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poReadBinaryBuilder the Read Binary command builder.
+   * @param apduResponse the response received.
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoReadBinaryParser updateCalypsoPoReadBinary(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoReadBinaryBuilder poReadBinaryBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoReadBinaryParser poReadBinaryParser = poReadBinaryBuilder.createResponseParser(apduResponse);
+
+    poReadBinaryParser.checkStatus();
+
+    calypsoPoSmartCard.setContent(
+        (byte) poReadBinaryBuilder.getSfi(),
+        1,
+        apduResponse.getDataOut(),
+        poReadBinaryBuilder.getOffset());
+
+    return poReadBinaryParser;
+  }
+
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to an Update Binary command
+   * sent and received from the PO <br>
+   * The data written replaces the content of record #1 of the {@link PoSmartCardAdapter} file
+   * structure, at the offset of the command.
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poUpdateBinaryBuilder the Update Binary command builder.
+   * @param apduResponse the response received.
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoUpdateBinaryParser updateCalypsoPoUpdateBinary(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoUpdateBinaryBuilder poUpdateBinaryBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoUpdateBinaryParser poUpdateBinaryParser =
+        poUpdateBinaryBuilder.createResponseParser(apduResponse);
+
+    poUpdateBinaryParser.checkStatus();
+
+    calypsoPoSmartCard.setContent(
+        (byte) poUpdateBinaryBuilder.getSfi(),
+        1,
+        poUpdateBinaryBuilder.getData(),
+        poUpdateBinaryBuilder.getOffset());
+
+    return poUpdateBinaryParser;
+  }
+
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to a Write Binary command sent
+   * and received from the PO <br>
+   * The data written is combined with the content of record #1 of the {@link PoSmartCardAdapter}
+   * file structure using the dedicated {@link PoSmartCardAdapter#fillContent } method.
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poWriteBinaryBuilder the Write Binary command builder.
+   * @param apduResponse the response received.
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoWriteBinaryParser updateCalypsoPoWriteBinary(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoWriteBinaryBuilder poWriteBinaryBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoWriteBinaryParser poWriteBinaryParser =
+        poWriteBinaryBuilder.createResponseParser(apduResponse);
+
+    poWriteBinaryParser.checkStatus();
+
+    calypsoPoSmartCard.fillContent(
+        (byte) poWriteBinaryBuilder.getSfi(),
+        1,
+        poWriteBinaryBuilder.getData(),
+        poWriteBinaryBuilder.getOffset());
+
+    return poWriteBinaryParser;
+  }
+
   /**
    * Updates the {@link PoSmartCardAdapter} object with the response to a Read Records command
    * received from the PO <br>
@@ -186,6 +282,77 @@ private static PoReadRecordsParser updateCalypsoPoReadRecords(
     return poReadRecordsParser;
   }
 
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to a Read Record Multiple
+   * command received from the PO <br>
+   * The parts of records read are placed at their offset in the records of the {@link
+   * PoSmartCardAdapter} file structure
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poReadRecordMultipleBuilder the Read Record Multiple command builder.
+   * @param apduResponse the response received.
+   * @return the created response parser
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoReadRecordMultipleParser updateCalypsoPoReadRecordMultiple(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoReadRecordMultipleBuilder poReadRecordMultipleBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoReadRecordMultipleParser poReadRecordMultipleParser =
+        poReadRecordMultipleBuilder.createResponseParser(apduResponse);
+
+    poReadRecordMultipleParser.checkStatus();
+
+    for (Map.Entry<Integer, byte[]> entry :
+        poReadRecordMultipleParser.getRecordParts().entrySet()) {
+      calypsoPoSmartCard.setContent(
+          (byte) poReadRecordMultipleBuilder.getSfi(),
+          entry.getKey(),
+          entry.getValue(),
+          poReadRecordMultipleBuilder.getOffset());
+    }
+    return poReadRecordMultipleParser;
+  }
+
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to a Search Record Multiple
+   * command received from the PO <br>
+   * The numbers of the matching records are placed in the search data and the content of the first
+   * matching record, if requested, is added to the {@link PoSmartCardAdapter} file structure
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poSearchRecordMultipleBuilder the Search Record Multiple command builder.
+   * @param apduResponse the response received.
+   * @return the created response parser
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoSearchRecordMultipleParser updateCalypsoPoSearchRecordMultiple(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoSearchRecordMultipleBuilder poSearchRecordMultipleBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoSearchRecordMultipleParser poSearchRecordMultipleParser =
+        poSearchRecordMultipleBuilder.createResponseParser(apduResponse);
+
+    poSearchRecordMultipleParser.checkStatus();
+
+    SearchCommandDataAdapter searchCommandData =
+        poSearchRecordMultipleBuilder.getSearchCommandData();
+    List<Integer> matchingRecordNumbers =
+        poSearchRecordMultipleParser.getMatchingRecordNumbers();
+    searchCommandData.getMatchingRecordNumbers().clear();
+    searchCommandData.getMatchingRecordNumbers().addAll(matchingRecordNumbers);
+
+    byte[] firstMatchingRecordContent =
+        poSearchRecordMultipleParser.getFirstMatchingRecordContent();
+    if (firstMatchingRecordContent != null) {
+      calypsoPoSmartCard.setContent(
+          searchCommandData.getSfi(), matchingRecordNumbers.get(0), firstMatchingRecordContent);
+    }
+    return poSearchRecordMultipleParser;
+  }
+
   /**
    * Updates the {@link PoSmartCardAdapter} object with the response to a Select File command
    * received from the PO <br>
@@ -327,11 +494,10 @@ private static PoDecreaseParser updateCalypsoPoDecrease(
 
     poDecreaseParser.checkStatus();
 
-    calypsoPoSmartCard.setContent(
+    calypsoPoSmartCard.setCounter(
         (byte) poDecreaseBuilder.getSfi(),
-        1,
-        apduResponse.getDataOut(),
-        3 * (poDecreaseBuilder.getCounterNumber() - 1));
+        poDecreaseBuilder.getCounterNumber(),
+        apduResponse.getDataOut());
 
     return poDecreaseParser;
   }
@@ -355,33 +521,113 @@ private static PoIncreaseParser updateCalypsoPoIncrease(
 
     poIncreaseParser.checkStatus();
 
-    calypsoPoSmartCard.setContent(
+    calypsoPoSmartCard.setCounter(
         (byte) poIncreaseBuilder.getSfi(),
-        1,
-        apduResponse.getDataOut(),
-        3 * (poIncreaseBuilder.getCounterNumber() - 1));
+        poIncreaseBuilder.getCounterNumber(),
+        apduResponse.getDataOut());
 
     return poIncreaseParser;
   }
 
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to a Decrease Multiple command
+   * received from the PO <br>
+   * The counter values are updated in the {@link PoSmartCardAdapter} file structure
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poDecreaseMultipleBuilder the Decrease Multiple command builder.
+   * @param apduResponse the response received.
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoDecreaseMultipleParser updateCalypsoPoDecreaseMultiple(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoDecreaseMultipleBuilder poDecreaseMultipleBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoDecreaseMultipleParser poDecreaseMultipleParser =
+        poDecreaseMultipleBuilder.createResponseParser(apduResponse);
+
+    poDecreaseMultipleParser.checkStatus();
+
+    setCounterValues(
+        calypsoPoSmartCard,
+        (byte) poDecreaseMultipleBuilder.getSfi(),
+        poDecreaseMultipleParser.getNewCounterValues());
+
+    return poDecreaseMultipleParser;
+  }
+
+  /**
+   * Updates the {@link PoSmartCardAdapter} object with the response to an Increase Multiple
+   * command received from the PO <br>
+   * The counter values are updated in the {@link PoSmartCardAdapter} file structure
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param poIncreaseMultipleBuilder the Increase Multiple command builder.
+   * @param apduResponse the response received.
+   * @throws CalypsoPoCommandException if a response from the PO was unexpected
+   */
+  private static PoIncreaseMultipleParser updateCalypsoPoIncreaseMultiple(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoIncreaseMultipleBuilder poIncreaseMultipleBuilder,
+      ApduResponse apduResponse)
+      throws CalypsoPoCommandException {
+    PoIncreaseMultipleParser poIncreaseMultipleParser =
+        poIncreaseMultipleBuilder.createResponseParser(apduResponse);
+
+    poIncreaseMultipleParser.checkStatus();
+
+    setCounterValues(
+        calypsoPoSmartCard,
+        (byte) poIncreaseMultipleBuilder.getSfi(),
+        poIncreaseMultipleParser.getNewCounterValues());
+
+    return poIncreaseMultipleParser;
+  }
+
+  /**
+   * (private)<br>
+   * Sets the provided counter values in the {@link PoSmartCardAdapter} file structure.
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param sfi the SFI of the Counters EF.
+   * @param counterValues the counter values by counter number.
+   */
+  private static void setCounterValues(
+      PoSmartCardAdapter calypsoPoSmartCard, byte sfi, Map<Integer, Integer> counterValues) {
+    for (Map.Entry<Integer, Integer> entry : counterValues.entrySet()) {
+      int counterValue = entry.getValue();
+      calypsoPoSmartCard.setCounter(
+          sfi,
+          entry.getKey(),
+          new byte[] {
+            (byte) ((counterValue >> 16) & 0xFF),
+            (byte) ((counterValue >> 8) & 0xFF),
+            (byte) (counterValue & 0xFF)
+          });
+    }
+  }
+
   /**
    * Parses the response to a Get Challenge command received from the PO <br>
-   * The PO challenge value is stored in {@link CalypsoPoUtils} and made available through a
-   * dedicated getters for later use
+   * The PO challenge value is stored in the {@link PoSmartCardAdapter} for later use
    *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
    * @param poGetChallengeBuilder the Get Challenge command builder.
    * @param apduResponse the response received.
    * @throws CalypsoPoCommandException if a response from the PO was unexpected
    */
   private static PoGetChallengeRespPars updateCalypsoPoGetChallenge(
-      PoGetChallengeBuilder poGetChallengeBuilder, ApduResponse apduResponse)
+      PoSmartCardAdapter calypsoPoSmartCard,
+      PoGetChallengeBuilder poGetChallengeBuilder,
+      ApduResponse apduResponse)
       throws CalypsoPoCommandException {
     PoGetChallengeRespPars poGetChallengeRespPars =
         poGetChallengeBuilder.createResponseParser(apduResponse);
 
     poGetChallengeRespPars.checkStatus();
 
-    poChallenge = apduResponse.getDataOut();
+    calypsoPoSmartCard.setPoChallenge(apduResponse.getDataOut());
 
     return poGetChallengeRespPars;
   }
@@ -391,7 +637,7 @@ private static PoGetChallengeRespPars updateCalypsoPoGetChallenge(
    * received from the PO <br>
    * The PIN attempt counter value is stored in the {@link PoSmartCardAdapter}<br>
    * CalypsoPoPinException are filtered when the initial command targets the reading of the attempt
-   * counter.
+   * counter or when the PIN statuses are expected; in this case the exception is not even built.
    *
    * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
    * @param poVerifyPinBuilder the Verify PIN command builder.
@@ -407,15 +653,10 @@ private static PoVerifyPinParser updateCalypsoVerifyPin(
 
     calypsoPoSmartCard.setPinAttemptRemaining(poVerifyPinParser.getRemainingAttemptCounter());
 
-    try {
+    // at this point, the status is either a success or a PIN status (the attempt counter would
+    // have been rejected otherwise)
+    if (!poVerifyPinBuilder.isReadCounterOnly() && !poVerifyPinBuilder.isPinStatusExpected()) {
       poVerifyPinParser.checkStatus();
-    } catch (CalypsoPoPinException ex) {
-      // forward the exception if the operation do not target the reading of the attempt
-      // counter.
-      // catch it silently otherwise
-      if (!poVerifyPinBuilder.isReadCounterOnly()) {
-        throw ex;
-      }
     }
 
     return poVerifyPinParser;
@@ -424,8 +665,8 @@ private static PoVerifyPinParser updateCalypsoVerifyPin(
   /**
    * Updates the {@link PoSmartCardAdapter} object with the response to an SV Get command received
    * from the PO <br>
-   * The SV Data values (KVC, command header, response data) are stored in {@link CalypsoPoUtils}
-   * and made available through a dedicated getters for later use<br>
+   * The SV Data values (KVC, command header, response data) are stored in the {@link
+   * PoSmartCardAdapter} for later use<br>
    *
    * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
    * @param poSvGetBuilder the SV Get command builder.
@@ -447,9 +688,10 @@ private static PoSvGetParser updateCalypsoPoSvGet(
         poSvGetParser.getLoadLog(),
         poSvGetParser.getDebitLog());
 
-    svKvc = poSvGetParser.getCurrentKVC();
-    svGetHeader = poSvGetParser.getSvGetCommandHeader();
-    svGetData = poSvGetParser.getApduResponse().getBytes();
+    calypsoPoSmartCard.setSvGetResponse(
+        poSvGetParser.getCurrentKVC(),
+        poSvGetParser.getSvGetCommandHeader(),
+        poSvGetParser.getApduResponse().getBytes());
 
     return poSvGetParser;
   }
@@ -459,12 +701,14 @@ private static PoSvGetParser updateCalypsoPoSvGet(
    * the PO<br>
    * Keep the PO SV signature if any (command executed outside a secure session).
    *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
    * @param svOperationCmdBuild the SV Operation command builder (PoSvReloadBuilder,
    *     PoSvDebitBuilder or PoSvUndebitBuilder)
    * @param apduResponse the response received.
    * @throws CalypsoPoCommandException if a response from the PO was unexpected
    */
   private static AbstractPoResponseParser updateCalypsoPoSvOperation(
+      PoSmartCardAdapter calypsoPoSmartCard,
       AbstractPoCommandBuilder<? extends AbstractPoResponseParser> svOperationCmdBuild,
       ApduResponse apduResponse)
       throws CalypsoPoCommandException {
@@ -473,7 +717,7 @@ private static AbstractPoResponseParser updateCalypsoPoSvOperation(
 
     svOperationRespPars.checkStatus();
 
-    svOperationSignature = svOperationRespPars.getApduResponse().getDataOut();
+    calypsoPoSmartCard.setSvOperationSignature(svOperationRespPars.getApduResponse().getDataOut());
 
     return svOperationRespPars;
   }
@@ -646,9 +890,24 @@ static AbstractPoResponseParser updateCalypsoPo(
       case READ_RECORDS:
         return updateCalypsoPoReadRecords(
             calypsoPoSmartCard, (PoReadRecordsBuilder) commandBuilder, apduResponse);
+      case READ_RECORD_MULTIPLE:
+        return updateCalypsoPoReadRecordMultiple(
+            calypsoPoSmartCard, (PoReadRecordMultipleBuilder) commandBuilder, apduResponse);
+      case SEARCH_RECORD_MULTIPLE:
+        return updateCalypsoPoSearchRecordMultiple(
+            calypsoPoSmartCard, (PoSearchRecordMultipleBuilder) commandBuilder, apduResponse);
       case SELECT_FILE:
         return updateCalypsoPoSelectFile(
             calypsoPoSmartCard, (PoSelectFileBuilder) commandBuilder, apduResponse);
+      case READ_BINARY:
+        return updateCalypsoPoReadBinary(
+            calypsoPoSmartCard, (PoReadBinaryBuilder) commandBuilder, apduResponse);
+      case UPDATE_BINARY:
+        return updateCalypsoPoUpdateBinary(
+            calypsoPoSmartCard, (PoUpdateBinaryBuilder) commandBuilder, apduResponse);
+      case WRITE_BINARY:
+        return updateCalypsoPoWriteBinary(
+            calypsoPoSmartCard, (PoWriteBinaryBuilder) commandBuilder, apduResponse);
       case UPDATE_RECORD:
         return updateCalypsoPoUpdateRecord(
             calypsoPoSmartCard, (PoUpdateRecordBuilder) commandBuilder, apduResponse);
@@ -664,6 +923,12 @@ static AbstractPoResponseParser updateCalypsoPo(
       case INCREASE:
         return updateCalypsoPoIncrease(
             calypsoPoSmartCard, (PoIncreaseBuilder) commandBuilder, apduResponse);
+      case DECREASE_MULTIPLE:
+        return updateCalypsoPoDecreaseMultiple(
+            calypsoPoSmartCard, (PoDecreaseMultipleBuilder) commandBuilder, apduResponse);
+      case INCREASE_MULTIPLE:
+        return updateCalypsoPoIncreaseMultiple(
+            calypsoPoSmartCard, (PoIncreaseMultipleBuilder) commandBuilder, apduResponse);
       case OPEN_SESSION_10:
       case OPEN_SESSION_24:
       case OPEN_SESSION_31:
@@ -675,7 +940,8 @@ static AbstractPoResponseParser updateCalypsoPo(
       case CLOSE_SESSION:
         return updateCalypsoPoCloseSession((PoCloseSessionBuilder) commandBuilder, apduResponse);
       case GET_CHALLENGE:
-        return updateCalypsoPoGetChallenge((PoGetChallengeBuilder) commandBuilder, apduResponse);
+        return updateCalypsoPoGetChallenge(
+            calypsoPoSmartCard, (PoGetChallengeBuilder) commandBuilder, apduResponse);
       case VERIFY_PIN:
         return updateCalypsoVerifyPin(
             calypsoPoSmartCard, (PoVerifyPinBuilder) commandBuilder, apduResponse);
@@ -685,7 +951,7 @@ static AbstractPoResponseParser updateCalypsoPo(
       case SV_RELOAD:
       case SV_DEBIT:
       case SV_UNDEBIT:
-        return updateCalypsoPoSvOperation(commandBuilder, apduResponse);
+        return updateCalypsoPoSvOperation(calypsoPoSmartCard, commandBuilder, apduResponse);
       case INVALIDATE:
       case REHABILITATE:
         return updateCalypsoInvalidateRehabilitate(commandBuilder, apduResponse);
@@ -716,6 +982,7 @@ static void updateCalypsoPo(
     Iterator<ApduResponse> responseIterator = apduResponses.iterator();
 
     if (commandBuilders != null && !commandBuilders.isEmpty()) {
+      reserveBinaryContent(calypsoPoSmartCard, commandBuilders, apduResponses);
       for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
           commandBuilders) {
         ApduResponse apduResponse = responseIterator.next();
@@ -724,6 +991,67 @@ static void updateCalypsoPo(
     }
   }
 
+  /**
+   * Extends the content of the binary files accessed by the provided commands to the size they
+   * will have once all the successful responses have been processed.
+   *
+   * <p>The chunks of a large binary transfer are then copied in place into a single buffer instead
+   * of reallocating the content of the file for each chunk.
+   *
+   * @param calypsoPoSmartCard the {@link PoSmartCardAdapter} object to update.
+   * @param commandBuilders the list of builders that get the responses.
+   * @param apduResponses the APDU responses returned by the PO to all commands.
+   */
+  private static void reserveBinaryContent(
+      PoSmartCardAdapter calypsoPoSmartCard,
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> commandBuilders,
+      List<ApduResponse> apduResponses) {
+    Map<Byte, Integer> binaryFileLengths = new HashMap<Byte, Integer>();
+    Iterator<ApduResponse> responseIterator = apduResponses.iterator();
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
+        commandBuilders) {
+      if (!responseIterator.hasNext()) {
+        break;
+      }
+      ApduResponse apduResponse = responseIterator.next();
+      int sfi;
+      int length;
+      switch (commandBuilder.getCommandRef()) {
+        case READ_BINARY:
+          sfi = ((PoReadBinaryBuilder) commandBuilder).getSfi();
+          length =
+              ((PoReadBinaryBuilder) commandBuilder).getOffset()
+                  + apduResponse.getDataOut().length;
+          break;
+        case UPDATE_BINARY:
+          sfi = ((PoUpdateBinaryBuilder) commandBuilder).getSfi();
+          length =
+              ((PoUpdateBinaryBuilder) commandBuilder).getOffset()
+                  + ((PoUpdateBinaryBuilder) commandBuilder).getData().length;
+          break;
+        case WRITE_BINARY:
+          sfi = ((PoWriteBinaryBuilder) commandBuilder).getSfi();
+          length =
+              ((PoWriteBinaryBuilder) commandBuilder).getOffset()
+                  + ((PoWriteBinaryBuilder) commandBuilder).getData().length;
+          break;
+        default:
+          continue;
+      }
+      if (!commandBuilder.createResponseParser(apduResponse).isSuccessful()) {
+        // the processing of the responses will stop here
+        break;
+      }
+      Integer knownLength = binaryFileLengths.get((byte) sfi);
+      if (knownLength == null || knownLength < length) {
+        binaryFileLengths.put((byte) sfi, length);
+      }
+    }
+    for (Map.Entry<Byte, Integer> entry : binaryFileLengths.entrySet()) {
+      calypsoPoSmartCard.reserveContent(entry.getKey(), 1, entry.getValue());
+    }
+  }
+
   /**
    * Create a Read Records command builder for the provided arguments
    *
@@ -744,6 +1072,65 @@ static PoReadRecordsBuilder prepareReadRecordFile(PoClass poClass, byte sfi, int
         poClass, sfi, recordNumber, PoReadRecordsBuilder.ReadMode.ONE_RECORD, 0);
   }
 
+  /**
+   * Create the Read Records command builders needed to read the provided records.
+   *
+   * <p>Multiple records are read with as few commands as possible, taking into account the
+   * transmission capacity of the PO and the response format (2 extra bytes per record).
+   *
+   * @param poClass the class of the PO.
+   * @param sfi the SFI of the EF to read.
+   * @param firstRecordNumber the number of the first record to read.
+   * @param numberOfRecords the number of records to read.
+   * @param recordSize the size of a record.
+   * @param payloadCapacity the transmission capacity of the PO.
+   * @return a not empty list of {@link PoReadRecordsBuilder}
+   * @since 2.0
+   */
+  static List<PoReadRecordsBuilder> prepareReadRecordFile(
+      PoClass poClass,
+      byte sfi,
+      int firstRecordNumber,
+      int numberOfRecords,
+      int recordSize,
+      int payloadCapacity) {
+    List<PoReadRecordsBuilder> poReadRecordsBuilders = new ArrayList<PoReadRecordsBuilder>();
+    if (numberOfRecords == 1) {
+      poReadRecordsBuilders.add(
+          new PoReadRecordsBuilder(
+              poClass,
+              sfi,
+              firstRecordNumber,
+              PoReadRecordsBuilder.ReadMode.ONE_RECORD,
+              recordSize));
+    } else {
+      // Multiple APDUs can be generated depending on record size and transmission capacity.
+      int recordsPerApdu = payloadCapacity / (recordSize + 2);
+      int maxSizeDataPerApdu = recordsPerApdu * (recordSize + 2);
+      int remainingRecords = numberOfRecords;
+      int startRecordNumber = firstRecordNumber;
+      while (remainingRecords > 0) {
+        int expectedLength;
+        if (remainingRecords > recordsPerApdu) {
+          expectedLength = maxSizeDataPerApdu;
+          remainingRecords = remainingRecords - recordsPerApdu;
+          startRecordNumber = startRecordNumber + recordsPerApdu;
+        } else {
+          expectedLength = remainingRecords * (recordSize + 2);
+          remainingRecords = 0;
+        }
+        poReadRecordsBuilders.add(
+            new PoReadRecordsBuilder(
+                poClass,
+                sfi,
+                startRecordNumber,
+                PoReadRecordsBuilder.ReadMode.MULTIPLE_RECORD,
+                expectedLength));
+      }
+    }
+    return poReadRecordsBuilders;
+  }
+
   /**
    * Create a Select File command builder for the provided LID
    *
@@ -770,55 +1157,4 @@ static PoSelectFileBuilder prepareSelectFile(PoClass poClass, byte[] lid) {
   static PoSelectFileBuilder prepareSelectFile(PoClass poClass, SelectFileControl selectControl) {
     return new PoSelectFileBuilder(poClass, selectControl);
   }
-
-  /**
-   * (package-private)<br>
-   * Gets the challenge received from the PO
-   *
-   * @return an array of bytes containing the challenge bytes (variable length according to the
-   *     revision of the PO). May be null if the challenge is not available.
-   */
-  static byte[] getPoChallenge() {
-    return poChallenge;
-  }
-
-  /**
-   * (package-private)<br>
-   * Gets the SV KVC from the PO
-   *
-   * @return the SV KVC byte.
-   */
-  static byte getSvKvc() {
-    return svKvc;
-  }
-
-  /**
-   * (package-private)<br>
-   * Gets the SV Get command header
-   *
-   * @return a byte array containing the SV Get command header.
-   */
-  static byte[] getSvGetHeader() {
-    return svGetHeader;
-  }
-
-  /**
-   * (package-private)<br>
-   * Gets the SV Get command response data
-   *
-   * @return a byte array containing the SV Get command response data.
-   */
-  static byte[] getSvGetData() {
-    return svGetData;
-  }
-
-  /**
-   * (package-private)<br>
-   * Gets the last SV Operation signature (SV Reload, Debit or Undebit)
-   *
-   * @return a byte array containing the SV Operation signature or null if not available.
-   */
-  static byte[] getSvOperationSignature() {
-    return svOperationSignature;
-  }
 }
@@ -0,0 +1,505 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.eclipse.keyple.card.calypso.transaction.ClearingRecordWriter;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link ClearingRecordWriter}.
+ *
+ * <p>The records are encoded by the transaction thread and queued in a {@link
+ * ConcurrentLinkedQueue}, bounded by an atomic counter. The writer thread drains up to {@value
+ * #MAX_BATCH_SIZE} records at a time and writes them with a single gathering write; it parks
+ * when the queue is empty and is unparked by the next submission.
+ *
+ * @since 2.0
+ */
+final class ClearingRecordWriterAdapter implements ClearingRecordWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClearingRecordWriterAdapter.class);
+
+  private static final String FILE_PREFIX = "clearing-";
+  private static final String FILE_SUFFIX = ".dat";
+
+  static final int RECORD_SIZE = 192;
+  private static final byte FORMAT_VERSION = 1;
+  private static final int MAX_SERIAL_NUMBER_SIZE = 8;
+  private static final int SAM_SERIAL_NUMBER_SIZE = 4;
+  private static final int MAX_SIGNATURE_SIZE = 8;
+  private static final int MAX_SV_SIGNATURE_SIZE = 10;
+  private static final int MAX_COUNTERS = 16;
+  private static final int COUNTER_ENTRY_SIZE = 5;
+  private static final int SV_LOAD_LOG_SIZE = 22;
+  private static final int SV_DEBIT_LOG_SIZE = 19;
+
+  // offsets of the variable parts of the record, each one following the previous one
+  private static final int COUNTERS_OFFSET = 65;
+  private static final int SV_LOAD_LOG_OFFSET =
+      COUNTERS_OFFSET + 1 + MAX_COUNTERS * COUNTER_ENTRY_SIZE;
+  private static final int SV_DEBIT_LOG_OFFSET = SV_LOAD_LOG_OFFSET + SV_LOAD_LOG_SIZE;
+
+  static {
+    if (SV_DEBIT_LOG_OFFSET + SV_DEBIT_LOG_SIZE > RECORD_SIZE) {
+      throw new IllegalStateException("The clearing record layout exceeds the record size.");
+    }
+  }
+
+  private static final int FLAG_SV_OPERATION = 0x01;
+  private static final int FLAG_SV_LOAD_LOG = 0x02;
+  private static final int FLAG_SV_DEBIT_LOG = 0x04;
+  private static final int FLAG_COUNTERS_TRUNCATED = 0x08;
+
+  private static final int MAX_BATCH_SIZE = 256;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final File directory;
+  private final int queueCapacity;
+  private final long maxFileSize;
+  private final ConcurrentLinkedQueue<ByteBuffer> queue = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicInteger queueSize = new AtomicInteger();
+  private final AtomicInteger maxQueueSize = new AtomicInteger();
+  private final AtomicLong droppedRecordCount = new AtomicLong();
+  private final AtomicLong writtenRecordCount = new AtomicLong();
+  private final AtomicLong batchCount = new AtomicLong();
+  private final Thread writer;
+  private volatile boolean isClosed;
+
+  // accessed by the writer thread only
+  private FileChannel channel;
+  private int fileIndex;
+  private long fileSize;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * <p>Starts the writer thread.
+   *
+   * @param directoryName The name of the directory of the clearing files.
+   * @param queueCapacity The maximum number of records waiting to be written.
+   * @param maxFileSize The maximum size of a clearing file, in bytes.
+   * @throws IllegalArgumentException If directoryName is null or empty or if one of the other
+   *     arguments is out of range.
+   * @throws IOException If the directory cannot be created.
+   * @since 2.0
+   */
+  ClearingRecordWriterAdapter(String directoryName, int queueCapacity, long maxFileSize)
+      throws IOException {
+
+    Assert.getInstance() //
+        .notEmpty(directoryName, "directoryName") //
+        .greaterOrEqual(queueCapacity, 1, "queueCapacity") //
+        .isTrue(maxFileSize >= RECORD_SIZE, "maxFileSize");
+
+    this.directory = new File(directoryName);
+    this.queueCapacity = queueCapacity;
+    this.maxFileSize = maxFileSize;
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create the clearing directory: " + directoryName);
+    }
+    fileIndex = getLastFileIndex();
+
+    writer =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                drain();
+              }
+            },
+            "ClearingRecordWriter-" + directory.getName());
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * (package-private)<br>
+   * Encodes the clearing record of a closed session and queues it, without blocking.
+   *
+   * @param sessionAccessLevel The session access level.
+   * @param kif The KIF of the session key.
+   * @param kvc The KVC of the session key.
+   * @param po The PO image, updated with the responses of the session.
+   * @param samSerialNumber The SAM serial number.
+   * @param terminalSignature The terminal session signature.
+   * @param poSignature The PO session signature.
+   * @param svPostponedData The postponed data returned by the Close Secure Session (may be null).
+   * @return false if the record has been dropped.
+   * @since 2.0
+   */
+  boolean submit(
+      PoTransactionService.SessionAccessLevel sessionAccessLevel,
+      byte kif,
+      byte kvc,
+      PoSmartCardAdapter po,
+      byte[] samSerialNumber,
+      byte[] terminalSignature,
+      byte[] poSignature,
+      byte[] svPostponedData) {
+
+    if (isClosed) {
+      droppedRecordCount.incrementAndGet();
+      return false;
+    }
+    if (queueSize.incrementAndGet() > queueCapacity) {
+      queueSize.decrementAndGet();
+      droppedRecordCount.incrementAndGet();
+      return false;
+    }
+    updateMaxQueueSize();
+
+    ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    int flags = 0;
+    record.put(FORMAT_VERSION);
+    record.put((byte) sessionAccessLevel.ordinal());
+    record.put(kif);
+    record.put(kvc);
+    record.position(8);
+    record.putLong(System.currentTimeMillis());
+    putRightAligned(record, po.getApplicationSerialNumberBytes(), MAX_SERIAL_NUMBER_SIZE);
+    putRightAligned(record, samSerialNumber, SAM_SERIAL_NUMBER_SIZE);
+    if (po.isSvDataAvailable()) {
+      record.putChar((char) po.getSvLastTNum());
+      record.position(32);
+      record.putInt(po.getSvBalance());
+    } else {
+      record.position(36);
+    }
+    putWithLength(record, terminalSignature, MAX_SIGNATURE_SIZE);
+    putWithLength(record, poSignature, MAX_SIGNATURE_SIZE);
+    if (svPostponedData != null && svPostponedData.length != 0) {
+      flags |= FLAG_SV_OPERATION;
+    }
+    putWithLength(record, svPostponedData, MAX_SV_SIGNATURE_SIZE);
+
+    checkPosition(record, COUNTERS_OFFSET);
+    Set<Integer> counters = po.getModifiedCounters();
+    int counterCount = Math.min(counters.size(), MAX_COUNTERS);
+    if (counterCount < counters.size()) {
+      flags |= FLAG_COUNTERS_TRUNCATED;
+    }
+    record.put((byte) counterCount);
+    int i = 0;
+    for (Integer counter : counters) {
+      if (i++ == counterCount) {
+        break;
+      }
+      byte sfi = (byte) (counter >> 8);
+      int counterNumber = counter & 0xFF;
+      int value = po.getFileBySfi(sfi).getData().getContentAsCounterValue(counterNumber);
+      record.put(sfi);
+      record.put((byte) counterNumber);
+      record.put((byte) (value >> 16));
+      record.putChar((char) value);
+    }
+    checkPosition(record, SV_LOAD_LOG_OFFSET);
+
+    SvLoadLogRecordAdapter loadLog = (SvLoadLogRecordAdapter) po.getSvGetLoadLogRecord();
+    if (loadLog != null) {
+      flags |= FLAG_SV_LOAD_LOG;
+      record.position(SV_LOAD_LOG_OFFSET);
+      record.put(loadLog.poResponse, loadLog.offset, SV_LOAD_LOG_SIZE);
+    }
+    SvDebitLogRecordAdapter debitLog = (SvDebitLogRecordAdapter) po.getSvGetDebitLogRecord();
+    if (debitLog != null) {
+      flags |= FLAG_SV_DEBIT_LOG;
+      record.position(SV_DEBIT_LOG_OFFSET);
+      record.put(debitLog.poResponse, debitLog.offset, SV_DEBIT_LOG_SIZE);
+    }
+    record.put(4, (byte) flags);
+    record.clear();
+
+    queue.offer(record);
+    LockSupport.unpark(writer);
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getQueueSize() {
+    return queueSize.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getMaxQueueSize() {
+    return maxQueueSize.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getDroppedRecordCount() {
+    return droppedRecordCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getWrittenRecordCount() {
+    return writtenRecordCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getBatchCount() {
+    return batchCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void close() {
+    isClosed = true;
+    LockSupport.unpark(writer);
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"directory\":\""
+        + directory
+        + "\", \"queueSize\":"
+        + getQueueSize()
+        + ", \"maxQueueSize\":"
+        + getMaxQueueSize()
+        + ", \"droppedRecordCount\":"
+        + getDroppedRecordCount()
+        + ", \"writtenRecordCount\":"
+        + getWrittenRecordCount()
+        + ", \"batchCount\":"
+        + getBatchCount()
+        + "}";
+  }
+
+  /**
+   * (private)<br>
+   * Raises the high-water mark of the queue to the current size if needed.
+   */
+  private void updateMaxQueueSize() {
+    int size = queueSize.get();
+    int max;
+    while (size > (max = maxQueueSize.get())) {
+      if (maxQueueSize.compareAndSet(max, size)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Loop of the writer thread: writes the queued records by batches until the writer is closed
+   * and the queue is empty.
+   */
+  private void drain() {
+    ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_SIZE];
+    while (true) {
+      int count = 0;
+      ByteBuffer record;
+      while (count < MAX_BATCH_SIZE && (record = queue.poll()) != null) {
+        batch[count++] = record;
+      }
+      if (count == 0) {
+        if (isClosed) {
+          break;
+        }
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        continue;
+      }
+      queueSize.addAndGet(-count);
+      write(batch, count);
+      Arrays.fill(batch, 0, count, null);
+    }
+    closeFile();
+  }
+
+  /**
+   * (private)<br>
+   * Writes a batch of records to the current file, starting a new file if needed.
+   *
+   * @param batch The records.
+   * @param count The number of records of the batch.
+   */
+  private void write(ByteBuffer[] batch, int count) {
+    try {
+      if (channel == null || fileSize + (long) count * RECORD_SIZE > maxFileSize) {
+        openNextFile();
+      }
+      while (batch[count - 1].hasRemaining()) {
+        fileSize += channel.write(batch, 0, count);
+      }
+      writtenRecordCount.addAndGet(count);
+      batchCount.incrementAndGet();
+    } catch (IOException e) {
+      logger.error("Unable to write {} clearing records: {}", count, e.getMessage());
+      droppedRecordCount.addAndGet(count);
+      closeFile();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Closes the current file, if any, and opens the next one.
+   *
+   * @throws IOException If the file cannot be created.
+   */
+  private void openNextFile() throws IOException {
+    closeFile();
+    fileIndex++;
+    File file = new File(directory, FILE_PREFIX + fileIndex + FILE_SUFFIX);
+    channel = new FileOutputStream(file).getChannel();
+    fileSize = 0;
+    if (logger.isDebugEnabled()) {
+      logger.debug("Clearing records written to {}", file);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Closes the current file, if any.
+   */
+  private void closeFile() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.error("Unable to close the clearing file: {}", e.getMessage());
+    }
+    channel = null;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the highest index of the clearing files present in the directory.
+   *
+   * @return 0 if there is no clearing file.
+   */
+  private int getLastFileIndex() {
+    int lastIndex = 0;
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return lastIndex;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+        try {
+          lastIndex =
+              Math.max(
+                  lastIndex,
+                  Integer.parseInt(
+                      name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          logger.warn("Ignoring the unexpected file {} in the clearing directory", name);
+        }
+      }
+    }
+    return lastIndex;
+  }
+
+  /**
+   * (private)<br>
+   * Puts a serial number right aligned in a field of the provided size.
+   *
+   * @param record The record.
+   * @param serialNumber The serial number.
+   * @param size The size of the field.
+   */
+  private static void putRightAligned(ByteBuffer record, byte[] serialNumber, int size) {
+    int length = Math.min(serialNumber.length, size);
+    record.position(record.position() + size - length);
+    record.put(serialNumber, serialNumber.length - length, length);
+  }
+
+  /**
+   * (private)<br>
+   * Puts a nullable byte array, preceded by its length, in a field of the provided size.
+   *
+   * @param record The record.
+   * @param bytes The bytes (may be null).
+   * @param size The size of the field, length excluded.
+   */
+  /**
+   * (private)<br>
+   * Checks that the part of the record already encoded does not overlap the next one.
+   *
+   * @param record The record.
+   * @param nextOffset The offset of the next part of the record.
+   * @throws IllegalStateException If the current position is beyond the next offset.
+   */
+  private static void checkPosition(ByteBuffer record, int nextOffset) {
+    if (record.position() > nextOffset) {
+      throw new IllegalStateException(
+          "Clearing record overflow: position " + record.position() + " > " + nextOffset);
+    }
+  }
+
+  private static void putWithLength(ByteBuffer record, byte[] bytes, int size) {
+    int length = bytes == null ? 0 : Math.min(bytes.length, size);
+    int end = record.position() + 1 + size;
+    record.put((byte) length);
+    if (length != 0) {
+      record.put(bytes, 0, length);
+    }
+    record.position(end);
+  }
+}
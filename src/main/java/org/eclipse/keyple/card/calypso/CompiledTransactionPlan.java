@@ -0,0 +1,179 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (package-private)<br>
+ * A {@link TransactionPlanAdapter} compiled for a PO profile.
+ *
+ * <p>Holds, for each step, the command builders to send (the builders of the data slots are only
+ * templates replaced at execution time) and the use of the modifications buffer of the PO.
+ *
+ * @since 2.0
+ */
+final class CompiledTransactionPlan {
+
+  private final List<TransactionPlanAdapter.Step> steps;
+  private final PoClass poClass;
+  private final List<List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>>
+      buildersByStep =
+          new ArrayList<List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>>();
+  private final List<List<TransactionPlanAdapter.Command>> slotCommandsByStep =
+      new ArrayList<List<TransactionPlanAdapter.Command>>();
+  private final int[] sessionBufferUsageByStep;
+  private final boolean isSessionBufferSufficient;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * <p>Creates the builders and simulates the use of the modifications buffer by each session of
+   * the plan.
+   *
+   * @param steps The steps of the plan.
+   * @param poClass The PO class.
+   * @param payloadCapacity The transmission capacity of the PO.
+   * @param modificationsCounter The size of the modifications buffer of the PO.
+   * @param isModificationsCounterInBytes true if the buffer size is expressed in bytes, false if
+   *     it is expressed in number of commands.
+   * @since 2.0
+   */
+  CompiledTransactionPlan(
+      List<TransactionPlanAdapter.Step> steps,
+      PoClass poClass,
+      int payloadCapacity,
+      int modificationsCounter,
+      boolean isModificationsCounterInBytes) {
+    this.steps = steps;
+    this.poClass = poClass;
+    sessionBufferUsageByStep = new int[steps.size()];
+    boolean isSufficient = true;
+    int sessionBufferUsage = 0;
+    for (int i = 0; i < steps.size(); i++) {
+      TransactionPlanAdapter.Step step = steps.get(i);
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> builders =
+          new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>();
+      List<TransactionPlanAdapter.Command> slotCommands =
+          new ArrayList<TransactionPlanAdapter.Command>();
+      for (TransactionPlanAdapter.Command command : step.getCommands()) {
+        int firstIndex = builders.size();
+        command.compile(poClass, payloadCapacity, builders);
+        for (int j = firstIndex; j < builders.size(); j++) {
+          slotCommands.add(command.getSlotIndex() >= 0 ? command : null);
+        }
+      }
+      buildersByStep.add(builders);
+      slotCommandsByStep.add(slotCommands);
+
+      if (step.getType() == TransactionPlanAdapter.StepType.OPENING) {
+        sessionBufferUsage = 0;
+      }
+      if (step.isInSession()) {
+        for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> builder : builders) {
+          if (builder.isSessionBufferUsed()) {
+            sessionBufferUsageByStep[i] +=
+                isModificationsCounterInBytes
+                    ? builder.getApduRequest().getBytes().length
+                        + PoTransactionServiceAdapter.SESSION_BUFFER_CMD_ADDITIONAL_COST
+                        - PoTransactionServiceAdapter.APDU_HEADER_LENGTH
+                    : 1;
+          }
+        }
+        sessionBufferUsage += sessionBufferUsageByStep[i];
+        if (sessionBufferUsage > modificationsCounter) {
+          isSufficient = false;
+        }
+      }
+    }
+    isSessionBufferSufficient = isSufficient;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the steps of the plan.
+   *
+   * @return A not null list.
+   * @since 2.0
+   */
+  List<TransactionPlanAdapter.Step> getSteps() {
+    return steps;
+  }
+
+  /**
+   * (package-private)<br>
+   * Tells if each session of the plan fits in the modifications buffer of the PO, in which case
+   * the steps can be executed without any accounting or splitting.
+   *
+   * @return true if the buffer is sufficient.
+   * @since 2.0
+   */
+  boolean isSessionBufferSufficient() {
+    return isSessionBufferSufficient;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the use of the modifications buffer by the commands of a step.
+   *
+   * @param stepIndex The index of the step.
+   * @return A number of bytes or of commands depending on the PO.
+   * @since 2.0
+   */
+  int getSessionBufferUsage(int stepIndex) {
+    return sessionBufferUsageByStep[stepIndex];
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the builders of a step, the data slots being filled with the provided values.
+   *
+   * @param stepIndex The index of the step.
+   * @param slotValues The values of the data slots.
+   * @return A new list, which can be modified by the caller.
+   * @since 2.0
+   */
+  List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> getCommandBuilders(
+      int stepIndex, byte[][] slotValues) {
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> builders =
+        new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+            buildersByStep.get(stepIndex));
+    List<TransactionPlanAdapter.Command> slotCommands = slotCommandsByStep.get(stepIndex);
+    for (int i = 0; i < builders.size(); i++) {
+      TransactionPlanAdapter.Command slotCommand = slotCommands.get(i);
+      if (slotCommand != null) {
+        builders.set(
+            i, slotCommand.createRecordBuilder(poClass, slotValues[slotCommand.getSlotIndex()]));
+      }
+    }
+    return builders;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the builders of a step as compiled, the data slots holding their placeholder values.
+   *
+   * <p>The placeholders have the length of the slots, the builders can therefore be used to
+   * evaluate the cost of the step.
+   *
+   * @param stepIndex The index of the step.
+   * @return A new list, which can be modified by the caller.
+   * @since 2.0
+   */
+  List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> getTemplateCommandBuilders(
+      int stepIndex) {
+    return new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>(
+        buildersByStep.get(stepIndex));
+  }
+}
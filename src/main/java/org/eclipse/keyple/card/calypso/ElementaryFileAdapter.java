@@ -39,6 +39,21 @@ class ElementaryFileAdapter implements ElementaryFile {
     this.data = new FileDataAdapter();
   }
 
+  /**
+   * (package-private)<br>
+   * Constructor used to create an EF from decoded data.
+   *
+   * @param sfi the associated SFI.
+   * @param header the file header (may be null).
+   * @param data the file data.
+   * @since 2.0
+   */
+  ElementaryFileAdapter(byte sfi, FileHeader header, FileDataAdapter data) {
+    this.sfi = sfi;
+    this.header = header;
+    this.data = data;
+  }
+
   /**
    * (package-private)<br>
    * Constructor used to create a clone of the provided EF.
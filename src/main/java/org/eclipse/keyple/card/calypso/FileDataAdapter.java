@@ -11,6 +11,7 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 import org.eclipse.keyple.card.calypso.po.FileData;
 import org.eclipse.keyple.core.util.Assert;
@@ -25,6 +26,8 @@
 class FileDataAdapter implements FileData {
 
   private final TreeMap<Integer, byte[]> records = new TreeMap<Integer, byte[]>();
+  private ByteBuffer encodedRecords;
+  private int modificationCount;
 
   /**
    * (package-private)<br>
@@ -42,12 +45,68 @@ class FileDataAdapter implements FileData {
    * @since 2.0
    */
   FileDataAdapter(FileData source) {
+    if (source instanceof FileDataAdapter && ((FileDataAdapter) source).encodedRecords != null) {
+      // the encoded records are read-only, they can be shared
+      encodedRecords = ((FileDataAdapter) source).encodedRecords.duplicate();
+      return;
+    }
     SortedMap<Integer, byte[]> sourceContent = source.getAllRecordsContent();
     for (Map.Entry<Integer, byte[]> entry : sourceContent.entrySet()) {
-      records.put(entry.getKey(), Arrays.copyOf(entry.getValue(), entry.getValue().length));
+      getRecords().put(entry.getKey(), Arrays.copyOf(entry.getValue(), entry.getValue().length));
     }
   }
 
+  /**
+   * (package-private)<br>
+   * Constructor used to create the file data of a decoded PO image.<br>
+   * The records are decoded from the provided buffer only when they are accessed for the first
+   * time.
+   *
+   * @param encodedRecords a read-only view of the records encoded by {@link PoImageCodecAdapter}.
+   * @since 2.0
+   */
+  FileDataAdapter(ByteBuffer encodedRecords) {
+    this.encodedRecords = encodedRecords;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the records still encoded, if they have not been accessed since the decoding of a PO
+   * image.
+   *
+   * @return a read-only view of the encoded records, or null if they have been decoded.
+   * @since 2.0
+   */
+  ByteBuffer getEncodedRecords() {
+    return encodedRecords != null ? encodedRecords.duplicate() : null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the number of modifications made to the records, allowing the views built on them to be
+   * reused as long as it is unchanged.
+   *
+   * @return an int.
+   * @since 2.0
+   */
+  int getModificationCount() {
+    return modificationCount;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the records, decoding them first if needed.
+   *
+   * @return a not null map.
+   */
+  private TreeMap<Integer, byte[]> getRecords() {
+    if (encodedRecords != null) {
+      PoImageCodecAdapter.decodeRecords(encodedRecords.duplicate(), records);
+      encodedRecords = null;
+    }
+    return records;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -55,7 +114,7 @@ class FileDataAdapter implements FileData {
    */
   @Override
   public SortedMap<Integer, byte[]> getAllRecordsContent() {
-    return records;
+    return getRecords();
   }
 
   /**
@@ -75,7 +134,7 @@ public byte[] getContent() {
    */
   @Override
   public byte[] getContent(int numRecord) {
-    byte[] content = records.get(numRecord);
+    byte[] content = getRecords().get(numRecord);
     if (content == null) {
       throw new NoSuchElementException("Record #" + numRecord + " is not set.");
     }
@@ -94,7 +153,7 @@ public byte[] getContent(int numRecord, int dataOffset, int dataLength) {
         .greaterOrEqual(dataOffset, 0, "dataOffset")
         .greaterOrEqual(dataLength, 1, "dataLength");
 
-    byte[] content = records.get(numRecord);
+    byte[] content = getRecords().get(numRecord);
     if (content == null) {
       throw new NoSuchElementException("Record #" + numRecord + " is not set.");
     }
@@ -123,7 +182,7 @@ public int getContentAsCounterValue(int numCounter) {
 
     Assert.getInstance().greaterOrEqual(numCounter, 1, "numCounter");
 
-    byte[] rec1 = records.get(1);
+    byte[] rec1 = getRecords().get(1);
     if (rec1 == null) {
       throw new NoSuchElementException("Record #1 is not set.");
     }
@@ -155,7 +214,7 @@ public int getContentAsCounterValue(int numCounter) {
   @Override
   public SortedMap<Integer, Integer> getAllCountersValue() {
     SortedMap<Integer, Integer> result = new TreeMap<Integer, Integer>();
-    byte[] rec1 = records.get(1);
+    byte[] rec1 = getRecords().get(1);
     if (rec1 == null) {
       throw new NoSuchElementException("Record #1 is not set.");
     }
@@ -175,7 +234,8 @@ public SortedMap<Integer, Integer> getAllCountersValue() {
    * @since 2.0
    */
   void setContent(int numRecord, byte[] content) {
-    records.put(numRecord, content);
+    modificationCount++;
+    getRecords().put(numRecord, content);
   }
 
   /**
@@ -203,9 +263,10 @@ void setCounter(int numCounter, byte[] content) {
    * @since 2.0
    */
   void setContent(int numRecord, byte[] content, int offset) {
+    modificationCount++;
     byte[] newContent;
     int newLength = offset + content.length;
-    byte[] oldContent = records.get(numRecord);
+    byte[] oldContent = getRecords().get(numRecord);
     if (oldContent == null) {
       newContent = new byte[newLength];
     } else if (oldContent.length <= offset) {
@@ -218,7 +279,7 @@ void setContent(int numRecord, byte[] content, int offset) {
       newContent = oldContent;
     }
     System.arraycopy(content, 0, newContent, offset, content.length);
-    records.put(numRecord, newContent);
+    getRecords().put(numRecord, newContent);
   }
 
   /**
@@ -233,14 +294,15 @@ void setContent(int numRecord, byte[] content, int offset) {
    * @since 2.0
    */
   void fillContent(int numRecord, byte[] content) {
-    byte[] actualContent = records.get(numRecord);
+    modificationCount++;
+    byte[] actualContent = getRecords().get(numRecord);
     if (actualContent == null) {
-      records.put(numRecord, content);
+      getRecords().put(numRecord, content);
     } else if (actualContent.length < content.length) {
       for (int i = 0; i < actualContent.length; i++) {
         content[i] |= actualContent[i];
       }
-      records.put(numRecord, content);
+      getRecords().put(numRecord, content);
     } else {
       for (int i = 0; i < content.length; i++) {
         actualContent[i] |= content[i];
@@ -248,6 +310,47 @@ void fillContent(int numRecord, byte[] content) {
     }
   }
 
+  /**
+   * (package-private)<br>
+   * Fill the content at the specified offset of record #numRecord using a binary OR operation with
+   * the provided content.<br>
+   * If actual record content is not set or has a size {@code <} offset + content size, then missing
+   * data will be padded with 0 before the operation.
+   *
+   * @param numRecord the record number (should be {@code >=} 1).
+   * @param content the content (should be not empty).
+   * @param offset the offset (should be {@code >=} 0).
+   * @since 2.0
+   */
+  void fillContent(int numRecord, byte[] content, int offset) {
+    reserveContent(numRecord, offset + content.length);
+    byte[] actualContent = getRecords().get(numRecord);
+    for (int i = 0; i < content.length; i++) {
+      actualContent[offset + i] |= content[i];
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Extends the content of record #numRecord to the provided length, padding it with 0.<br>
+   * Nothing is done if the actual content is already long enough.<br>
+   * This allows a record to be filled piece by piece with {@link #setContent(int, byte[], int)}
+   * without reallocating it for each piece.
+   *
+   * @param numRecord the record number (should be {@code >=} 1).
+   * @param length the expected minimal length of the record.
+   * @since 2.0
+   */
+  void reserveContent(int numRecord, int length) {
+    modificationCount++;
+    byte[] actualContent = getRecords().get(numRecord);
+    if (actualContent == null) {
+      getRecords().put(numRecord, new byte[length]);
+    } else if (actualContent.length < length) {
+      getRecords().put(numRecord, Arrays.copyOf(actualContent, length));
+    }
+  }
+
   /**
    * (package-private)<br>
    * Add cyclic content at record #1 by rolling previously all actual records contents (record #1 ->
@@ -259,18 +362,19 @@ void fillContent(int numRecord, byte[] content) {
    * @since 2.0
    */
   void addCyclicContent(byte[] content) {
-    ArrayList<Integer> descendingKeys = new ArrayList<Integer>(records.descendingKeySet());
+    modificationCount++;
+    ArrayList<Integer> descendingKeys = new ArrayList<Integer>(getRecords().descendingKeySet());
     for (Integer i : descendingKeys) {
-      records.put(i + 1, records.get(i));
+      getRecords().put(i + 1, getRecords().get(i));
     }
-    records.put(1, content);
+    getRecords().put(1, content);
   }
 
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("FileData{");
     sb.append("records={");
-    for (Map.Entry<Integer, byte[]> rec : records.entrySet()) {
+    for (Map.Entry<Integer, byte[]> rec : getRecords().entrySet()) {
       sb.append("(");
       sb.append(rec.getKey());
       sb.append("=0x");
@@ -0,0 +1,184 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.eclipse.keyple.card.calypso.sam.SamRevision;
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+
+/**
+ * (package-private)<br>
+ * Registry of the commands and responses whose content only depends on the PO class or on the SAM
+ * revision.
+ *
+ * <p>The instances are created once and shared by all the transactions, they must therefore never
+ * be modified (in particular, no sub name must be added to the shared builders).
+ *
+ * <p>The shared builders are created once whatever the log level, their content must therefore
+ * not depend on it.
+ *
+ * @since 2.0
+ */
+final class FixedCommandRegistry {
+
+  /** Expected response to the modifying record commands in session: 9000. */
+  static final ApduResponse RESPONSE_OK = new ApduResponse(new byte[] {(byte) 0x90, (byte) 0x00});
+
+  /** Expected response to the SV operations in session: 6200 (postponed data). */
+  static final ApduResponse RESPONSE_OK_POSTPONED =
+      new ApduResponse(new byte[] {(byte) 0x62, (byte) 0x00});
+
+  private static final Map<PoClass, ApduRequest> ratificationApduRequests =
+      new EnumMap<PoClass, ApduRequest>(PoClass.class);
+  private static final Map<PoClass, PoGetChallengeBuilder> poGetChallengeBuilders =
+      new EnumMap<PoClass, PoGetChallengeBuilder>(PoClass.class);
+  private static final Map<PoClass, PoCloseSessionBuilder> abortSessionBuilders =
+      new EnumMap<PoClass, PoCloseSessionBuilder>(PoClass.class);
+  private static final Map<PoClass, PoVerifyPinBuilder> readPinCounterBuilders =
+      new EnumMap<PoClass, PoVerifyPinBuilder>(PoClass.class);
+  private static final Map<SamRevision, SamGetChallengeBuilder> samGetChallenge4Builders =
+      new EnumMap<SamRevision, SamGetChallengeBuilder>(SamRevision.class);
+  private static final Map<SamRevision, SamGetChallengeBuilder> samGetChallenge8Builders =
+      new EnumMap<SamRevision, SamGetChallengeBuilder>(SamRevision.class);
+  private static final Map<SamRevision, SamDigestCloseBuilder> samDigestClose4Builders =
+      new EnumMap<SamRevision, SamDigestCloseBuilder>(SamRevision.class);
+  private static final Map<SamRevision, SamDigestCloseBuilder> samDigestClose8Builders =
+      new EnumMap<SamRevision, SamDigestCloseBuilder>(SamRevision.class);
+
+  static {
+    for (PoClass poClass : PoClass.values()) {
+      ratificationApduRequests.put(poClass, PoRatificationBuilder.getApduRequest(poClass));
+      poGetChallengeBuilders.put(poClass, new PoGetChallengeBuilder(poClass));
+      abortSessionBuilders.put(poClass, new PoCloseSessionBuilder(poClass));
+      readPinCounterBuilders.put(poClass, new PoVerifyPinBuilder(poClass));
+    }
+    for (SamRevision samRevision : SamRevision.values()) {
+      samGetChallenge4Builders.put(samRevision, new SamGetChallengeBuilder(samRevision, (byte) 4));
+      samGetChallenge8Builders.put(samRevision, new SamGetChallengeBuilder(samRevision, (byte) 8));
+      samDigestClose4Builders.put(samRevision, new SamDigestCloseBuilder(samRevision, (byte) 4));
+      samDigestClose8Builders.put(samRevision, new SamDigestCloseBuilder(samRevision, (byte) 8));
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private FixedCommandRegistry() {}
+
+  /**
+   * (package-private)<br>
+   * Gets the ratification command.
+   *
+   * @param poClass The PO class.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  static ApduRequest getRatificationApduRequest(PoClass poClass) {
+    return ratificationApduRequests.get(poClass);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the PO Get Challenge command.
+   *
+   * @param poClass The PO class.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  static PoGetChallengeBuilder getPoGetChallengeBuilder(PoClass poClass) {
+    return poGetChallengeBuilders.get(poClass);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the Close Secure Session command in abort mode.
+   *
+   * @param poClass The PO class.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  static PoCloseSessionBuilder getAbortSessionBuilder(PoClass poClass) {
+    return abortSessionBuilders.get(poClass);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the Verify PIN command reading the presentation counter.
+   *
+   * @param poClass The PO class.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  static PoVerifyPinBuilder getReadPinCounterBuilder(PoClass poClass) {
+    return readPinCounterBuilders.get(poClass);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SAM Get Challenge command.
+   *
+   * @param samRevision The SAM revision.
+   * @param challengeLength The expected challenge length (4 or 8).
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the length is not 4 or 8.
+   * @since 2.0
+   */
+  static SamGetChallengeBuilder getSamGetChallengeBuilder(
+      SamRevision samRevision, byte challengeLength) {
+    return getByLength(
+        samGetChallenge4Builders, samGetChallenge8Builders, samRevision, challengeLength);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SAM Digest Close command.
+   *
+   * @param samRevision The SAM revision.
+   * @param signatureLength The expected signature length (4 or 8).
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the length is not 4 or 8.
+   * @since 2.0
+   */
+  static SamDigestCloseBuilder getSamDigestCloseBuilder(
+      SamRevision samRevision, byte signatureLength) {
+    return getByLength(
+        samDigestClose4Builders, samDigestClose8Builders, samRevision, signatureLength);
+  }
+
+  /**
+   * (private)<br>
+   * Selects the builder matching the provided revision and expected length.
+   *
+   * @param builders4 The builders for a length of 4.
+   * @param builders8 The builders for a length of 8.
+   * @param samRevision The SAM revision.
+   * @param length The expected length.
+   * @param <T> The type of builder.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the length is not 4 or 8.
+   */
+  private static <T> T getByLength(
+      Map<SamRevision, T> builders4,
+      Map<SamRevision, T> builders8,
+      SamRevision samRevision,
+      byte length) {
+    if (length == 4) {
+      return builders4.get(samRevision);
+    } else if (length == 8) {
+      return builders8.get(samRevision);
+    }
+    throw new IllegalArgumentException("Bad length! Expected 4 or 8, got " + length);
+  }
+}
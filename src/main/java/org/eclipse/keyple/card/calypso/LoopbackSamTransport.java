@@ -0,0 +1,108 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import org.eclipse.keyple.card.calypso.sam.SamTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * In-process {@link SamTransport} connecting a remote SAM reader to a SAM server of the same JVM.
+ *
+ * <p>The two ends are created together by {@link #createPair()}; unlike the piped streams, the
+ * underlying pipes can be used by any thread.
+ *
+ * @since 2.0
+ */
+final class LoopbackSamTransport implements SamTransport {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoopbackSamTransport.class);
+
+  private final Pipe.SourceChannel source;
+  private final Pipe.SinkChannel sink;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   *
+   * @param source The channel from which the data sent by the peer are read.
+   * @param sink The channel to which the data intended for the peer are written.
+   */
+  private LoopbackSamTransport(Pipe.SourceChannel source, Pipe.SinkChannel sink) {
+    this.source = source;
+    this.sink = sink;
+  }
+
+  /**
+   * (package-private)<br>
+   * Creates the two connected ends of a loopback transport.
+   *
+   * @return An array of 2 elements, the client end then the server end.
+   * @throws IllegalStateException If the pipes cannot be opened.
+   * @since 2.0
+   */
+  static LoopbackSamTransport[] createPair() {
+    try {
+      Pipe clientToServer = Pipe.open();
+      Pipe serverToClient = Pipe.open();
+      return new LoopbackSamTransport[] {
+        new LoopbackSamTransport(serverToClient.source(), clientToServer.sink()),
+        new LoopbackSamTransport(clientToServer.source(), serverToClient.sink())
+      };
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open the loopback SAM transport.", e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public InputStream getInputStream() {
+    return Channels.newInputStream(source);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public OutputStream getOutputStream() {
+    return Channels.newOutputStream(sink);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The peer reads the end of the stream.
+   *
+   * @since 2.0
+   */
+  @Override
+  public void close() {
+    try {
+      sink.close();
+      source.close();
+    } catch (IOException e) {
+      logger.warn("Unable to close the loopback SAM transport.", e);
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import org.eclipse.keyple.card.calypso.transaction.MappedDenyList;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link MappedDenyList}.
+ *
+ * <p>The serial numbers are converted to longs and stored in an open addressing hash set made of
+ * a single array of primitive longs (linear probing, load factor at most 0.75), i.e. about 11 to
+ * 16 bytes per entry. An optional Bloom filter (10 bits per entry, 4 hash functions) allows most
+ * of the serial numbers that are not in the list to be rejected with a single memory access.
+ *
+ * <p>The content is immutable once built and is published through a volatile reference, so that a
+ * new file is loaded without any lock on the lookup path.
+ *
+ * @since 2.0
+ */
+final class MappedDenyListAdapter implements MappedDenyList {
+
+  private static final Logger logger = LoggerFactory.getLogger(MappedDenyListAdapter.class);
+
+  private static final int SERIAL_NUMBER_SIZE = 8;
+  private static final int MAX_ENTRIES = 1 << 29;
+  private static final int BLOOM_BITS_PER_ENTRY = 10;
+  private static final int BLOOM_HASH_COUNT = 4;
+
+  private final boolean isBloomFilterEnabled;
+  private volatile Content content;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * <p>The list is initially empty.
+   *
+   * @param isBloomFilterEnabled true if the lookups must be prefiltered by a Bloom filter.
+   * @since 2.0
+   */
+  MappedDenyListAdapter(boolean isBloomFilterEnabled) {
+    this.isBloomFilterEnabled = isBloomFilterEnabled;
+    this.content = new Content(LongBuffer.allocate(0), false);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isRevoked(byte[] serialNumber) {
+    Assert.getInstance().notNull(serialNumber, "serialNumber");
+    return content.contains(toLong(serialNumber));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void load(String fileName) throws IOException {
+
+    Assert.getInstance().notEmpty(fileName, "fileName");
+
+    RandomAccessFile file = new RandomAccessFile(fileName, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      long fileSize = channel.size();
+      if (fileSize % SERIAL_NUMBER_SIZE != 0) {
+        throw new IllegalArgumentException(
+            "The size of the deny-list file is not a multiple of 8: " + fileSize);
+      }
+      if (fileSize / SERIAL_NUMBER_SIZE > MAX_ENTRIES) {
+        throw new IllegalArgumentException("Too many entries in the deny-list file: " + fileName);
+      }
+      LongBuffer serialNumbers =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).asLongBuffer();
+      content = new Content(serialNumbers, isBloomFilterEnabled);
+    } finally {
+      file.close();
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Deny-list loaded from {}: {} entries", fileName, content.size);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int size() {
+    return content.size;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"size\":" + content.size + ", \"bloomFilter\":" + isBloomFilterEnabled + "}";
+  }
+
+  /**
+   * (private)<br>
+   * Converts a serial number to a long, keeping its last 8 bytes.
+   *
+   * @param serialNumber The serial number.
+   * @return A long.
+   */
+  private static long toLong(byte[] serialNumber) {
+    long value = 0;
+    for (int i = Math.max(0, serialNumber.length - 8); i < serialNumber.length; i++) {
+      value = (value << 8) | (serialNumber[i] & 0xFFL);
+    }
+    return value;
+  }
+
+  /**
+   * (private)<br>
+   * Spreads the bits of a serial number (finalization step of MurmurHash3).
+   *
+   * @param value The serial number.
+   * @return The hash.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the smallest power of two greater than or equal to the provided value.
+   *
+   * @param value A value in range [1..2^30].
+   * @return A power of two.
+   */
+  private static int powerOfTwo(long value) {
+    int result = 1;
+    while (result < value) {
+      result <<= 1;
+    }
+    return result;
+  }
+
+  /**
+   * (private)<br>
+   * Immutable content of the list.
+   */
+  private static final class Content {
+
+    private final long[] table;
+    private final int mask;
+    private final boolean containsZero;
+    private final int size;
+    private final long[] bloomFilter;
+    private final int bloomMask;
+
+    /**
+     * (private)<br>
+     * Builds the content from the serial numbers read from the file.
+     *
+     * @param serialNumbers The serial numbers, duplicates allowed.
+     * @param isBloomFilterEnabled true if the Bloom filter must be built.
+     */
+    private Content(LongBuffer serialNumbers, boolean isBloomFilterEnabled) {
+
+      int count = serialNumbers.remaining();
+
+      table = new long[powerOfTwo(Math.max(2L, count + count / 3 + 1))];
+      mask = table.length - 1;
+
+      if (isBloomFilterEnabled && count > 0) {
+        int bitCount =
+            powerOfTwo(Math.min(1L << 30, Math.max(64L, (long) count * BLOOM_BITS_PER_ENTRY)));
+        bloomFilter = new long[bitCount >>> 6];
+        bloomMask = bitCount - 1;
+      } else {
+        bloomFilter = null;
+        bloomMask = 0;
+      }
+
+      boolean zero = false;
+      int distinct = 0;
+      while (serialNumbers.hasRemaining()) {
+        long value = serialNumbers.get();
+        if (value == 0) {
+          if (!zero) {
+            zero = true;
+            distinct++;
+          }
+          continue;
+        }
+        long hash = mix(value);
+        int index = (int) hash & mask;
+        while (table[index] != 0 && table[index] != value) {
+          index = (index + 1) & mask;
+        }
+        if (table[index] == 0) {
+          table[index] = value;
+          distinct++;
+          if (bloomFilter != null) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASH_COUNT; i++) {
+              int bit = (h1 + i * h2) & bloomMask;
+              bloomFilter[bit >>> 6] |= 1L << bit;
+            }
+          }
+        }
+      }
+      containsZero = zero;
+      size = distinct;
+    }
+
+    /**
+     * (private)<br>
+     * Tells if the provided serial number is in the list.
+     *
+     * @param value The serial number.
+     * @return true if the serial number is in the list.
+     */
+    private boolean contains(long value) {
+      if (value == 0) {
+        return containsZero;
+      }
+      long hash = mix(value);
+      if (bloomFilter != null) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASH_COUNT; i++) {
+          int bit = (h1 + i * h2) & bloomMask;
+          if ((bloomFilter[bit >>> 6] & (1L << bit)) == 0) {
+            return false;
+          }
+        }
+      }
+      int index = (int) hash & mask;
+      long entry;
+      while ((entry = table[index]) != 0) {
+        if (entry == value) {
+          return true;
+        }
+        index = (index + 1) & mask;
+      }
+      return false;
+    }
+  }
+}
@@ -14,9 +14,11 @@
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.keyple.card.calypso.po.PoCardSelection;
+import org.eclipse.keyple.card.calypso.po.PoRevision;
 import org.eclipse.keyple.card.calypso.po.SelectFileControl;
 import org.eclipse.keyple.card.calypso.transaction.CalypsoDesynchronizedExchangesException;
 import org.eclipse.keyple.card.calypso.transaction.CalypsoPoAnomalyException;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
 import org.eclipse.keyple.core.card.*;
 import org.eclipse.keyple.core.card.spi.CardSelectionSpi;
 import org.eclipse.keyple.core.card.spi.SmartCardSpi;
@@ -40,6 +42,9 @@ final class PoCardSelectionAdapter implements PoCardSelection, CardSelectionSpi
   private final List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> commandBuilders;
   private final CardSelector poCardSelector;
   private final PoClass poClass;
+  private PoRevision svGetRevision;
+  private PoTransactionService.SvSettings.Operation svGetOperation;
+  private PoTransactionService.SvSettings.Action svGetAction;
 
   /**
    * (package-private)<br>
@@ -117,6 +122,43 @@ public void prepareSelectFile(SelectFileControl selectControl) {
     commandBuilders.add(CalypsoPoUtils.prepareSelectFile(poClass, selectControl));
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void prepareSvGet(
+      PoRevision expectedRevision,
+      PoTransactionService.SvSettings.Operation svOperation,
+      PoTransactionService.SvSettings.Action svAction,
+      boolean isLoadAndDebitSvLogRequired) {
+
+    Assert.getInstance() //
+        .notNull(expectedRevision, "expectedRevision") //
+        .notNull(svOperation, "svOperation") //
+        .notNull(svAction, "svAction");
+
+    if (svGetOperation != null) {
+      throw new IllegalStateException("An SV Get has already been prepared.");
+    }
+
+    if (isLoadAndDebitSvLogRequired && expectedRevision != PoRevision.REV3_2) {
+      // @see Calypso Layer ID 8.09/8.10 (200108): both reload and debit logs are requested
+      // for a non rev3.2 PO add two SvGet commands (for RELOAD then for DEBIT).
+      PoTransactionService.SvSettings.Operation operation1 =
+          PoTransactionService.SvSettings.Operation.RELOAD.equals(svOperation)
+              ? PoTransactionService.SvSettings.Operation.DEBIT
+              : PoTransactionService.SvSettings.Operation.RELOAD;
+      commandBuilders.add(new PoSvGetBuilder(poClass, expectedRevision, operation1));
+    }
+    commandBuilders.add(new PoSvGetBuilder(poClass, expectedRevision, svOperation));
+
+    svGetRevision = expectedRevision;
+    svGetOperation = svOperation;
+    svGetAction = svAction;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -151,18 +193,55 @@ public SmartCardSpi parse(CardSelectionResponse cardSelectionResponse) {
 
     PoSmartCardAdapter calypsoPoSmartCard = new PoSmartCardAdapter(cardSelectionResponse);
 
-    if (!commandBuilders.isEmpty()) {
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> builders = commandBuilders;
+    boolean isSvGetApplicable = svGetOperation != null && isSvGetApplicable(calypsoPoSmartCard);
+    if (svGetOperation != null && !isSvGetApplicable) {
+      // the SV Get responses do not fit the selected PO, they are left aside
+      builders = new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>();
+      List<ApduResponse> responses = new ArrayList<ApduResponse>();
+      for (int i = 0; i < commandBuilders.size(); i++) {
+        if (!(commandBuilders.get(i) instanceof PoSvGetBuilder)) {
+          builders.add(commandBuilders.get(i));
+          responses.add(apduResponses.get(i));
+        }
+      }
+      apduResponses = responses;
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "SV Get responses ignored for PO revision {}", calypsoPoSmartCard.getRevision());
+      }
+    }
+
+    if (!builders.isEmpty()) {
       try {
-        CalypsoPoUtils.updateCalypsoPo(calypsoPoSmartCard, commandBuilders, apduResponses);
+        CalypsoPoUtils.updateCalypsoPo(calypsoPoSmartCard, builders, apduResponses);
       } catch (CalypsoPoCommandException e) {
         throw new CalypsoPoAnomalyException(
             "An error occurred while parsing the card selection request responses", e);
       }
     }
 
+    if (isSvGetApplicable) {
+      calypsoPoSmartCard.setPendingSvGet(svGetOperation, svGetAction);
+    }
+
     return calypsoPoSmartCard;
   }
 
+  /**
+   * (private)<br>
+   * Tells if the SV Get commands prepared for the expected revision can be taken into account for
+   * the selected PO.
+   *
+   * @param calypsoPoSmartCard The selected PO.
+   * @return true if the PO supports the SV in the mode of the SV Get commands.
+   */
+  private boolean isSvGetApplicable(PoSmartCardAdapter calypsoPoSmartCard) {
+    return calypsoPoSmartCard.isSvFeatureAvailable()
+        && (calypsoPoSmartCard.getRevision() == PoRevision.REV3_2)
+            == (svGetRevision == PoRevision.REV3_2);
+  }
+
   /**
    * {@inheritDoc}
    *
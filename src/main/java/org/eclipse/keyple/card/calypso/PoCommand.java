@@ -42,6 +42,21 @@ enum PoCommand implements CardCommand {
   /** read records. */
   READ_RECORDS("Read Records", (byte) 0xB2),
 
+  /** read record multiple. */
+  READ_RECORD_MULTIPLE("Read Record Multiple", (byte) 0xB3),
+
+  /** search record multiple. */
+  SEARCH_RECORD_MULTIPLE("Search Record Multiple", (byte) 0xA2),
+
+  /** read binary. */
+  READ_BINARY("Read Binary", (byte) 0xB0),
+
+  /** update binary. */
+  UPDATE_BINARY("Update Binary", (byte) 0xD6),
+
+  /** write binary. */
+  WRITE_BINARY("Write Binary", (byte) 0xD0),
+
   /** update record. */
   UPDATE_RECORD("Update Record", (byte) 0xDC),
 
@@ -60,6 +75,12 @@ enum PoCommand implements CardCommand {
   /** decrease counter. */
   DECREASE("Decrease", (byte) 0x30),
 
+  /** increase multiple counters. */
+  INCREASE_MULTIPLE("Increase Multiple", (byte) 0x3A),
+
+  /** decrease multiple counters. */
+  DECREASE_MULTIPLE("Decrease Multiple", (byte) 0x38),
+
   /** decrease counter. */
   SELECT_FILE("Select File", (byte) 0xA4),
 
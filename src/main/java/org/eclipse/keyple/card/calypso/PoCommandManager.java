@@ -62,6 +62,35 @@ void addRegularCommand(
     poCommands.add(commandBuilder);
   }
 
+  /**
+   * (package-private)<br>
+   * Gets the last regular command prepared.
+   *
+   * @return null if no command is prepared or if the last one is a StoredValue command.
+   * @since 2.0
+   */
+  AbstractPoCommandBuilder<? extends AbstractPoResponseParser> getLastRegularCommand() {
+    if (poCommands.isEmpty()) {
+      return null;
+    }
+    AbstractPoCommandBuilder<? extends AbstractPoResponseParser> lastCommand =
+        poCommands.get(poCommands.size() - 1);
+    return svLastCommand == lastCommand.getCommandRef() ? null : lastCommand;
+  }
+
+  /**
+   * (package-private)<br>
+   * Replaces the last regular command prepared by a command producing the same effect, e.g. a
+   * merged command.
+   *
+   * @param commandBuilder the command builder.
+   * @since 2.0
+   */
+  void replaceLastRegularCommand(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder) {
+    poCommands.set(poCommands.size() - 1, commandBuilder);
+  }
+
   /**
    * (package-private)<br>
    * Add a StoredValue command to the builders and parsers list.
@@ -117,6 +146,47 @@ void addStoredValueCommand(
     poCommands.add(commandBuilder);
   }
 
+  /**
+   * (package-private)<br>
+   * Informs that an SV Get has been executed outside of this manager, during the selection of the
+   * PO, so that the SV operation can be added directly.
+   *
+   * @param svOperation the type of the SV operation announced by the SV Get.
+   * @since 2.0
+   */
+  void notifySvGetProcessed(PoTransactionService.SvSettings.Operation svOperation) {
+    svLastCommand = PoCommand.SV_GET;
+    this.svOperation = svOperation;
+  }
+
+  /**
+   * (package-private)<br>
+   * Tells if the last SV command processed is an SV Get announcing the provided operation, i.e. if
+   * this operation can be added directly.
+   *
+   * @param svOperation the type of the SV operation.
+   * @return true if no new SV Get is needed.
+   * @since 2.0
+   */
+  boolean isSvGetProcessed(PoTransactionService.SvSettings.Operation svOperation) {
+    return poCommands.isEmpty()
+        && svLastCommand == PoCommand.SV_GET
+        && this.svOperation == svOperation;
+  }
+
+  /**
+   * (package-private)<br>
+   * Discards the prepared commands and the pending SV operation.
+   *
+   * @since 2.0
+   */
+  void reset() {
+    poCommands.clear();
+    svLastCommand = null;
+    svOperation = null;
+    svOperationComplete = false;
+  }
+
   /**
    * (package-private)<br>
    * Informs that the commands have been processed.
@@ -160,4 +230,15 @@ boolean isSvOperationCompleteOneTime() {
     svOperationComplete = false;
     return flag;
   }
+
+  /**
+   * (package-private)<br>
+   * Indicates whether an SV Operation has been completed, without resetting the flag.
+   *
+   * @return true if a reload or debit command has been requested
+   * @since 2.0
+   */
+  boolean isSvOperationComplete() {
+    return svOperationComplete;
+  }
 }
@@ -0,0 +1,110 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * (package-private)<br>
+ * Parses the Decrease Multiple response.
+ *
+ * @since 2.0
+ */
+final class PoDecreaseMultipleParser extends AbstractPoResponseParser {
+
+  private static final Map<Integer, StatusProperties> STATUS_TABLE;
+
+  static {
+    Map<Integer, StatusProperties> m =
+        new HashMap<Integer, StatusProperties>(AbstractApduResponseParser.STATUS_TABLE);
+    m.put(
+        0x6400,
+        new StatusProperties(
+            "Too many modifications in session.", CalypsoPoSessionBufferOverflowException.class));
+    m.put(
+        0x6700,
+        new StatusProperties("Lc value not supported.", CalypsoPoIllegalParameterException.class));
+    m.put(
+        0x6981,
+        new StatusProperties(
+            "The current EF is not a Counters or Simulated Counter EF.",
+            CalypsoPoDataAccessException.class));
+    m.put(
+        0x6982,
+        new StatusProperties(
+            "Security conditions not fulfilled (no session, wrong key, encryption required).",
+            CalypsoPoSecurityContextException.class));
+    m.put(
+        0x6985,
+        new StatusProperties(
+            "Access forbidden (Never access mode, DF is invalidated, etc.)",
+            CalypsoPoAccessForbiddenException.class));
+    m.put(
+        0x6986,
+        new StatusProperties(
+            "Command not allowed (no current EF).", CalypsoPoDataAccessException.class));
+    m.put(0x6A80, new StatusProperties("Overflow error.", CalypsoPoDataOutOfBoundsException.class));
+    m.put(0x6A82, new StatusProperties("File not found.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6B00,
+        new StatusProperties("P1 or P2 value not supported.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6103, new StatusProperties("Successful execution (possible only in ISO7816 T=0).", null));
+    STATUS_TABLE = m;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  protected Map<Integer, StatusProperties> getStatusTable() {
+    return STATUS_TABLE;
+  }
+
+  /**
+   * Constructor to build a parser of the Decrease Multiple command response.
+   *
+   * @param response response to parse.
+   * @param builder the reference to the builder that created this parser.
+   * @since 2.0
+   */
+  public PoDecreaseMultipleParser(ApduResponse response, PoDecreaseMultipleBuilder builder) {
+    super(response, builder);
+  }
+
+  /**
+   * Returns the new values of the counters.
+   *
+   * @return A map of the new values by counter number, sorted by counter number.
+   * @throws IllegalStateException If the response does not contain the counter values.
+   * @since 2.0
+   */
+  public SortedMap<Integer, Integer> getNewCounterValues() {
+    byte[] dataOut = getApduResponse().getDataOut();
+    if (dataOut.length == 0 || dataOut.length % 4 != 0) {
+      throw new IllegalStateException(
+          "No counter values available in response to the Decrease Multiple command.");
+    }
+    SortedMap<Integer, Integer> newCounterValues = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < dataOut.length; i += 4) {
+      newCounterValues.put(dataOut[i] & 0xFF, ByteArrayUtil.threeBytesToInt(dataOut, i + 1));
+    }
+    return newCounterValues;
+  }
+}
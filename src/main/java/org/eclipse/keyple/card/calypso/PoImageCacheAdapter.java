@@ -0,0 +1,243 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.card.calypso.po.ElementaryFile;
+import org.eclipse.keyple.card.calypso.po.PoImageCache;
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link PoImageCache}.
+ *
+ * <p>The entries are kept in an access ordered {@link LinkedHashMap} indexed by the serial number
+ * converted to a long, the eldest entry being removed when the maximum size is exceeded.
+ *
+ * @since 2.0
+ */
+final class PoImageCacheAdapter implements PoImageCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(PoImageCacheAdapter.class);
+
+  private final int maxEntries;
+  private final long timeToLiveNanos;
+  private final LinkedHashMap<Long, Entry> entries;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param maxEntries The maximum number of POs kept in the cache.
+   * @param timeToLiveMillis The time to live of an entry, in milliseconds.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  PoImageCacheAdapter(int maxEntries, long timeToLiveMillis) {
+
+    Assert.getInstance() //
+        .greaterOrEqual(maxEntries, 1, "maxEntries") //
+        .isTrue(timeToLiveMillis > 0, "timeToLiveMillis");
+
+    this.maxEntries = maxEntries;
+    this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    this.entries =
+        new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > PoImageCacheAdapter.this.maxEntries;
+          }
+        };
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized void put(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    PoSmartCardAdapter po = (PoSmartCardAdapter) poSmartCard;
+    long key = getKey(po);
+
+    if (po.isDfRatificationStatusAvailable() && !po.isDfRatified()) {
+      entries.remove(key);
+      return;
+    }
+
+    Map<Byte, ElementaryFile> files = new HashMap<Byte, ElementaryFile>();
+    for (Map.Entry<Byte, ElementaryFile> file : po.getAllFiles().entrySet()) {
+      files.put(file.getKey(), new ElementaryFileAdapter(file.getValue()));
+    }
+    entries.put(
+        key,
+        new Entry(
+            files,
+            po.isSvDataAvailable() ? po.getSvLastTNum() : null,
+            System.nanoTime() + timeToLiveNanos));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized boolean restore(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    PoSmartCardAdapter po = (PoSmartCardAdapter) poSmartCard;
+    long key = getKey(po);
+
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return false;
+    }
+    if (!isValid(entry, po)) {
+      entries.remove(key);
+      return false;
+    }
+
+    po.addFiles(entry.files);
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "{} file(s) restored from the cache for PO {}.",
+          entry.files.size(),
+          po.getApplicationSerialNumber());
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized void remove(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    entries.remove(getKey((PoSmartCardAdapter) poSmartCard));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * (private)<br>
+   * Checks that an entry has not expired and is consistent with what is known of the PO.
+   *
+   * @param entry The cache entry.
+   * @param po The PO presented.
+   * @return true if the entry can be used.
+   */
+  private boolean isValid(Entry entry, PoSmartCardAdapter po) {
+    if (System.nanoTime() - entry.expirationTime >= 0) {
+      return false;
+    }
+    if (po.isDfRatificationStatusAvailable() && !po.isDfRatified()) {
+      return false;
+    }
+    if (po.isSvDataAvailable()) {
+      return entry.svLastTNum != null && entry.svLastTNum == po.getSvLastTNum();
+    }
+    return entry.svLastTNum == null;
+  }
+
+  /**
+   * (private)<br>
+   * Converts the application serial number of the PO into a long (the last 8 bytes are used).
+   *
+   * @param po The PO.
+   * @return The key of the PO.
+   */
+  private static long getKey(PoSmartCardAdapter po) {
+    byte[] serialNumber = po.getApplicationSerialNumberBytes();
+    long key = 0;
+    for (int i = Math.max(0, serialNumber.length - 8); i < serialNumber.length; i++) {
+      key = (key << 8) | (serialNumber[i] & 0xFFL);
+    }
+    return key;
+  }
+
+  /**
+   * (private)<br>
+   * Content of the cache for a PO.
+   */
+  private static final class Entry {
+
+    private final Map<Byte, ElementaryFile> files;
+    private final Integer svLastTNum;
+    private final long expirationTime;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     *
+     * @param files The copy of the files of the PO.
+     * @param svLastTNum The last SV transaction number, null if unknown.
+     * @param expirationTime The expiration time, in the {@link System#nanoTime()} time base.
+     */
+    private Entry(Map<Byte, ElementaryFile> files, Integer svLastTNum, long expirationTime) {
+      this.files = files;
+      this.svLastTNum = svLastTNum;
+      this.expirationTime = expirationTime;
+    }
+  }
+
+  /**
+   * Gets the cache state as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public synchronized String toString() {
+    return "{\"PoImageCache\":{"
+        + "\"size\":"
+        + entries.size()
+        + ", \"maxEntries\":"
+        + maxEntries
+        + ", \"timeToLiveMillis\":"
+        + TimeUnit.NANOSECONDS.toMillis(timeToLiveNanos)
+        + "}}";
+  }
+}
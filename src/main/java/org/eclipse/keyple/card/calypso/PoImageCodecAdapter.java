@@ -0,0 +1,605 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.eclipse.keyple.card.calypso.po.DirectoryHeader;
+import org.eclipse.keyple.card.calypso.po.ElementaryFile;
+import org.eclipse.keyple.card.calypso.po.FileHeader;
+import org.eclipse.keyple.card.calypso.po.PoImageCodec;
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link PoImageCodec}.
+ *
+ * <p>Format of version 1 (big endian, "bytes" being an unsigned 2-byte length followed by the
+ * bytes, FFFFh meaning null):
+ *
+ * <ul>
+ *   <li>version (1 byte)
+ *   <li>FCI (bytes), ATR (bytes)
+ *   <li>flags (1 byte, see FLAG_*)
+ *   <li>if FLAG_PIN: PIN attempt counter (1 byte)
+ *   <li>if FLAG_SV: balance (4 bytes), last transaction number (4 bytes), KVC (1 byte), SV Get
+ *       header (bytes), SV Get data (bytes), load log and debit log (bytes and offset on 2 bytes
+ *       each, no offset if null)
+ *   <li>if FLAG_DIRECTORY_HEADER: LID (2 bytes), access conditions (bytes), key indexes (bytes), DF
+ *       status (1 byte), then for each session access level: availability mask, KIF and KVC (1
+ *       byte each)
+ *   <li>number of files (2 bytes), then for each file: SFI (1 byte), header presence (1 byte),
+ *       header if present (LID, number of records, record size on 2 bytes each, type, access
+ *       conditions, key indexes, DF status, shared reference presence and value), length of the
+ *       records (4 bytes) and records (record number and length on 2 bytes each, content)
+ * </ul>
+ *
+ * @since 2.0
+ */
+final class PoImageCodecAdapter implements PoImageCodec {
+
+  private static final byte FORMAT_VERSION = 1;
+  private static final byte DELTA_FORMAT_VERSION = 1;
+
+  private static final int NULL_LENGTH = 0xFFFF;
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  private static final int FLAG_RATIFICATION_KNOWN = 0x01;
+  private static final int FLAG_RATIFIED = 0x02;
+  private static final int FLAG_PIN = 0x04;
+  private static final int FLAG_SV = 0x08;
+  private static final int FLAG_DIRECTORY_HEADER = 0x10;
+
+  private static final int MASK_KIF_AVAILABLE = 0x01;
+  private static final int MASK_KVC_AVAILABLE = 0x02;
+
+  private static final FileHeader.FileType[] FILE_TYPES = FileHeader.FileType.values();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @since 2.0
+   */
+  PoImageCodecAdapter() {}
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public ByteBuffer encode(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    int size = INITIAL_BUFFER_SIZE;
+    while (true) {
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      try {
+        encode(poSmartCard, buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        size *= 2;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void encode(PoSmartCard poSmartCard, ByteBuffer buffer) {
+
+    Assert.getInstance() //
+        .notNull(poSmartCard, "poSmartCard") //
+        .notNull(buffer, "buffer");
+
+    PoSmartCardAdapter po = (PoSmartCardAdapter) poSmartCard;
+
+    buffer.put(FORMAT_VERSION);
+    putBytes(buffer, po.hasFci() ? po.getFciBytes() : null);
+    putBytes(buffer, po.hasAtr() ? po.getAtrBytes() : null);
+    putState(buffer, po);
+
+    Map<Byte, ElementaryFile> files = po.getAllFiles();
+    buffer.putShort((short) files.size());
+    for (ElementaryFile ef : files.values()) {
+      putFile(buffer, ef);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoSmartCard decode(ByteBuffer buffer) {
+
+    Assert.getInstance().notNull(buffer, "buffer");
+
+    try {
+      byte version = buffer.get();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported PO image format version: " + version);
+      }
+      byte[] fciBytes = getBytes(buffer);
+      byte[] atrBytes = getBytes(buffer);
+      PoSmartCardAdapter po =
+          new PoSmartCardAdapter(fciBytes != null ? new ApduResponse(fciBytes) : null, atrBytes);
+
+      getState(buffer, po);
+
+      int fileCount = buffer.getShort() & 0xFFFF;
+      for (int i = 0; i < fileCount; i++) {
+        po.setFile(getFile(buffer));
+      }
+      return po;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated PO image.", e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public ByteBuffer exportDelta(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    PoSmartCardAdapter po = (PoSmartCardAdapter) poSmartCard;
+
+    Set<Byte> sfis = new TreeSet<Byte>(po.getModifiedRecords().keySet());
+    sfis.addAll(po.getModifiedFileHeaders());
+
+    int size = INITIAL_BUFFER_SIZE;
+    while (true) {
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      try {
+        buffer.put(DELTA_FORMAT_VERSION);
+        putBytes(buffer, po.getApplicationSerialNumberBytes());
+        putState(buffer, po);
+        buffer.putShort((short) sfis.size());
+        for (Byte sfi : sfis) {
+          putFileDelta(buffer, po, sfi);
+        }
+        buffer.flip();
+        po.clearModifications();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        size *= 2;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void applyDelta(ByteBuffer delta, PoSmartCard poSmartCard) {
+
+    Assert.getInstance() //
+        .notNull(delta, "delta") //
+        .notNull(poSmartCard, "poSmartCard");
+
+    PoSmartCardAdapter po = (PoSmartCardAdapter) poSmartCard;
+
+    try {
+      byte version = delta.get();
+      if (version != DELTA_FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported PO delta format version: " + version);
+      }
+      if (!Arrays.equals(getBytes(delta), po.getApplicationSerialNumberBytes())) {
+        throw new IllegalArgumentException("The delta does not belong to the provided PO.");
+      }
+      po.resetSvLogRecords();
+      getState(delta, po);
+      int fileCount = delta.getShort() & 0xFFFF;
+      for (int i = 0; i < fileCount; i++) {
+        byte sfi = delta.get();
+        if (delta.get() != 0) {
+          po.setFileHeader(sfi, getFileHeader(delta));
+        }
+        Map<Integer, byte[]> records = new TreeMap<Integer, byte[]>();
+        decodeRecords(getRecordsView(delta), records);
+        for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+          po.setContent(sfi, entry.getKey(), entry.getValue());
+        }
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated PO delta.", e);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Decodes records encoded by this codec.
+   *
+   * @param src the encoded records (fully consumed).
+   * @param dest the map to fill, indexed by record number.
+   * @since 2.0
+   */
+  static void decodeRecords(ByteBuffer src, Map<Integer, byte[]> dest) {
+    while (src.hasRemaining()) {
+      int recordNumber = src.getChar();
+      byte[] content = new byte[src.getChar()];
+      src.get(content);
+      dest.put(recordNumber, content);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Encodes the state of the PO: ratification, PIN, SV data and directory header.
+   *
+   * @param buffer the destination buffer.
+   * @param po the PO.
+   */
+  private static void putState(ByteBuffer buffer, PoSmartCardAdapter po) {
+    int flags = 0;
+    if (po.isDfRatificationStatusAvailable()) {
+      flags |= FLAG_RATIFICATION_KNOWN;
+      if (po.isDfRatified()) {
+        flags |= FLAG_RATIFIED;
+      }
+    }
+    if (po.isPinAttemptCounterAvailable()) {
+      flags |= FLAG_PIN;
+    }
+    if (po.isSvDataAvailable()) {
+      flags |= FLAG_SV;
+    }
+    if (po.getDirectoryHeader() != null) {
+      flags |= FLAG_DIRECTORY_HEADER;
+    }
+    buffer.put((byte) flags);
+
+    if (po.isPinAttemptCounterAvailable()) {
+      buffer.put((byte) po.getPinAttemptRemaining());
+    }
+    if (po.isSvDataAvailable()) {
+      putSvData(buffer, po);
+    }
+    if (po.getDirectoryHeader() != null) {
+      putDirectoryHeader(buffer, po.getDirectoryHeader());
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes the state of the PO: ratification, PIN, SV data and directory header.
+   *
+   * @param buffer the source buffer.
+   * @param po the PO to update.
+   */
+  private static void getState(ByteBuffer buffer, PoSmartCardAdapter po) {
+    int flags = buffer.get();
+    if ((flags & FLAG_RATIFICATION_KNOWN) != 0) {
+      po.setDfRatified((flags & FLAG_RATIFIED) != 0);
+    }
+    if ((flags & FLAG_PIN) != 0) {
+      po.setPinAttemptRemaining(buffer.get() & 0xFF);
+    }
+    if ((flags & FLAG_SV) != 0) {
+      getSvData(buffer, po);
+    }
+    if ((flags & FLAG_DIRECTORY_HEADER) != 0) {
+      po.setDirectoryHeader(getDirectoryHeader(buffer));
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Encodes the SV data.
+   *
+   * @param buffer the destination buffer.
+   * @param po the PO.
+   */
+  private static void putSvData(ByteBuffer buffer, PoSmartCardAdapter po) {
+    buffer.putInt(po.getSvBalance());
+    buffer.putInt(po.getSvLastTNum());
+    buffer.put(po.getSvKvc());
+    putBytes(buffer, po.getSvGetHeader());
+    putBytes(buffer, po.getSvGetData());
+    SvLoadLogRecordAdapter loadLog = (SvLoadLogRecordAdapter) po.getSvGetLoadLogRecord();
+    putBytes(buffer, loadLog != null ? loadLog.poResponse : null);
+    if (loadLog != null) {
+      buffer.putChar((char) loadLog.offset);
+    }
+    SvDebitLogRecordAdapter debitLog = (SvDebitLogRecordAdapter) po.getSvGetDebitLogRecord();
+    putBytes(buffer, debitLog != null ? debitLog.poResponse : null);
+    if (debitLog != null) {
+      buffer.putChar((char) debitLog.offset);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes the SV data.
+   *
+   * @param buffer the source buffer.
+   * @param po the PO to update.
+   */
+  private static void getSvData(ByteBuffer buffer, PoSmartCardAdapter po) {
+    int balance = buffer.getInt();
+    int lastTNum = buffer.getInt();
+    byte kvc = buffer.get();
+    byte[] svGetHeader = getBytes(buffer);
+    byte[] svGetData = getBytes(buffer);
+    byte[] loadLogBytes = getBytes(buffer);
+    SvLoadLogRecordAdapter loadLog =
+        loadLogBytes != null ? new SvLoadLogRecordAdapter(loadLogBytes, buffer.getChar()) : null;
+    byte[] debitLogBytes = getBytes(buffer);
+    SvDebitLogRecordAdapter debitLog =
+        debitLogBytes != null ? new SvDebitLogRecordAdapter(debitLogBytes, buffer.getChar()) : null;
+    po.setSvData(balance, lastTNum, loadLog, debitLog);
+    po.setSvGetResponse(kvc, svGetHeader, svGetData);
+  }
+
+  /**
+   * (private)<br>
+   * Encodes a directory header.
+   *
+   * @param buffer the destination buffer.
+   * @param header the header.
+   */
+  private static void putDirectoryHeader(ByteBuffer buffer, DirectoryHeader header) {
+    buffer.putShort(header.getLid());
+    putBytes(buffer, header.getAccessConditions());
+    putBytes(buffer, header.getKeyIndexes());
+    buffer.put(header.getDfStatus());
+    for (PoTransactionService.SessionAccessLevel level :
+        PoTransactionService.SessionAccessLevel.values()) {
+      boolean isKifAvailable = header.isKifAvailable(level);
+      boolean isKvcAvailable = header.isKvcAvailable(level);
+      buffer.put(
+          (byte)
+              ((isKifAvailable ? MASK_KIF_AVAILABLE : 0)
+                  | (isKvcAvailable ? MASK_KVC_AVAILABLE : 0)));
+      buffer.put(isKifAvailable ? header.getKif(level) : 0);
+      buffer.put(isKvcAvailable ? header.getKvc(level) : 0);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes a directory header.
+   *
+   * @param buffer the source buffer.
+   * @return a not null reference.
+   */
+  private static DirectoryHeader getDirectoryHeader(ByteBuffer buffer) {
+    DirectoryHeaderAdapter.DirectoryHeaderBuilder builder =
+        DirectoryHeaderAdapter.builder()
+            .lid(buffer.getShort())
+            .accessConditions(getBytes(buffer))
+            .keyIndexes(getBytes(buffer))
+            .dfStatus(buffer.get());
+    for (PoTransactionService.SessionAccessLevel level :
+        PoTransactionService.SessionAccessLevel.values()) {
+      int mask = buffer.get();
+      byte kif = buffer.get();
+      byte kvc = buffer.get();
+      if ((mask & MASK_KIF_AVAILABLE) != 0) {
+        builder.kif(level, kif);
+      }
+      if ((mask & MASK_KVC_AVAILABLE) != 0) {
+        builder.kvc(level, kvc);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * (private)<br>
+   * Encodes an EF.
+   *
+   * <p>The records still encoded since the decoding of the image are copied as is.
+   *
+   * @param buffer the destination buffer.
+   * @param ef the EF.
+   */
+  private static void putFile(ByteBuffer buffer, ElementaryFile ef) {
+    buffer.put(ef.getSfi());
+    putFileHeader(buffer, ef.getHeader());
+
+    ByteBuffer encodedRecords = ((FileDataAdapter) ef.getData()).getEncodedRecords();
+    if (encodedRecords != null) {
+      buffer.putInt(encodedRecords.remaining());
+      buffer.put(encodedRecords);
+      return;
+    }
+    putRecords(buffer, ef.getData().getAllRecordsContent(), null);
+  }
+
+  /**
+   * (private)<br>
+   * Encodes the modified records and header of an EF.
+   *
+   * @param buffer the destination buffer.
+   * @param po the PO.
+   * @param sfi the SFI of the EF.
+   */
+  private static void putFileDelta(ByteBuffer buffer, PoSmartCardAdapter po, byte sfi) {
+    ElementaryFile ef = po.getAllFiles().get(sfi);
+    buffer.put(sfi);
+    putFileHeader(
+        buffer,
+        ef != null && po.getModifiedFileHeaders().contains(sfi) ? ef.getHeader() : null);
+    SortedSet<Integer> modifiedRecords = po.getModifiedRecords().get(sfi);
+    if (ef == null || modifiedRecords == null) {
+      buffer.putInt(0);
+    } else {
+      putRecords(buffer, ef.getData().getAllRecordsContent(), modifiedRecords);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Encodes records, preceded by their total length.
+   *
+   * @param buffer the destination buffer.
+   * @param records the records, indexed by record number.
+   * @param recordNumbers the numbers of the records to encode, null to encode all the records.
+   */
+  private static void putRecords(
+      ByteBuffer buffer, SortedMap<Integer, byte[]> records, Set<Integer> recordNumbers) {
+    int lengthPosition = buffer.position();
+    buffer.putInt(0);
+    for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+      if (recordNumbers == null || recordNumbers.contains(entry.getKey())) {
+        buffer.putChar((char) entry.getKey().intValue());
+        buffer.putChar((char) entry.getValue().length);
+        buffer.put(entry.getValue());
+      }
+    }
+    buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+  }
+
+  /**
+   * (private)<br>
+   * Encodes a nullable file header, preceded by its presence indicator.
+   *
+   * @param buffer the destination buffer.
+   * @param header the header (may be null).
+   */
+  private static void putFileHeader(ByteBuffer buffer, FileHeader header) {
+    if (header == null) {
+      buffer.put((byte) 0);
+      return;
+    }
+    buffer.put((byte) 1);
+    buffer.putShort(header.getLid());
+    buffer.putChar((char) header.getRecordsNumber());
+    buffer.putChar((char) header.getRecordSize());
+    buffer.put((byte) header.getType().ordinal());
+    putBytes(buffer, header.getAccessConditions());
+    putBytes(buffer, header.getKeyIndexes());
+    buffer.put(header.getDfStatus());
+    if (header.isShared()) {
+      buffer.put((byte) 1);
+      buffer.putShort(header.getSharedReference());
+    } else {
+      buffer.put((byte) 0);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes a file header, the presence indicator having been read.
+   *
+   * @param buffer the source buffer.
+   * @return a not null reference.
+   */
+  private static FileHeader getFileHeader(ByteBuffer buffer) {
+    FileHeaderAdapter.FileHeaderBuilder builder =
+        FileHeaderAdapter.builder()
+            .lid(buffer.getShort())
+            .recordsNumber(buffer.getChar())
+            .recordSize(buffer.getChar())
+            .type(FILE_TYPES[buffer.get()])
+            .accessConditions(getBytes(buffer))
+            .keyIndexes(getBytes(buffer))
+            .dfStatus(buffer.get());
+    if (buffer.get() != 0) {
+      builder.sharedReference(buffer.getShort());
+    }
+    return builder.build();
+  }
+
+  /**
+   * (private)<br>
+   * Gets a read-only view of encoded records, preceded by their total length, and moves the
+   * position of the buffer after them.
+   *
+   * @param buffer the source buffer.
+   * @return a not null reference.
+   */
+  private static ByteBuffer getRecordsView(ByteBuffer buffer) {
+    int recordsLength = buffer.getInt();
+    if (recordsLength > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    ByteBuffer encodedRecords = buffer.slice();
+    encodedRecords.limit(recordsLength);
+    buffer.position(buffer.position() + recordsLength);
+    return encodedRecords.asReadOnlyBuffer();
+  }
+
+  /**
+   * (private)<br>
+   * Decodes an EF.
+   *
+   * <p>The records are not decoded, the file data keeps a read-only view of them.
+   *
+   * @param buffer the source buffer.
+   * @return a not null reference.
+   */
+  private static ElementaryFile getFile(ByteBuffer buffer) {
+    byte sfi = buffer.get();
+    FileHeader header = buffer.get() != 0 ? getFileHeader(buffer) : null;
+    return new ElementaryFileAdapter(sfi, header, new FileDataAdapter(getRecordsView(buffer)));
+  }
+
+  /**
+   * (private)<br>
+   * Encodes a nullable byte array, preceded by its length.
+   *
+   * @param buffer the destination buffer.
+   * @param bytes the bytes (may be null).
+   */
+  private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putChar((char) NULL_LENGTH);
+    } else {
+      buffer.putChar((char) bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes a nullable byte array, preceded by its length.
+   *
+   * @param buffer the source buffer.
+   * @return null if the encoded array was null.
+   */
+  private static byte[] getBytes(ByteBuffer buffer) {
+    int length = buffer.getChar();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,118 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Builds the Increase Multiple APDU command.
+ *
+ * <p>The command modifies several counters of a same Counters EF at once.
+ *
+ * @since 2.0
+ */
+final class PoIncreaseMultipleBuilder extends AbstractPoCommandBuilder<PoIncreaseMultipleParser> {
+
+  private static final Logger logger = LoggerFactory.getLogger(PoIncreaseMultipleBuilder.class);
+
+  /** The command. */
+  private static final PoCommand command = PoCommand.INCREASE_MULTIPLE;
+
+  /* Construction arguments */
+  private final int sfi;
+  private final SortedMap<Integer, Integer> counterNumberToIncreaseValueMap;
+
+  /**
+   * Instantiates a new increase multiple cmd build from command parameters.
+   *
+   * @param poClass indicates which CLA byte should be used for the Apdu.
+   * @param sfi SFI of the file to select or 00h for current EF.
+   * @param counterNumberToIncreaseValueMap The map containing the counter numbers (&gt;= 01h) and
+   *     their associated increase values (Value to add to the counter, defined as a positive int
+   *     &lt;= 16777215 [FFFFFFh]).
+   * @since 2.0
+   */
+  public PoIncreaseMultipleBuilder(
+      PoClass poClass, byte sfi, Map<Integer, Integer> counterNumberToIncreaseValueMap) {
+    super(command);
+
+    byte cla = poClass.getValue();
+    this.sfi = sfi;
+    this.counterNumberToIncreaseValueMap =
+        new TreeMap<Integer, Integer>(counterNumberToIncreaseValueMap);
+
+    // for each counter: the counter number followed by the 3-byte value
+    byte[] dataIn = new byte[4 * this.counterNumberToIncreaseValueMap.size()];
+    int index = 0;
+    for (Map.Entry<Integer, Integer> entry : this.counterNumberToIncreaseValueMap.entrySet()) {
+      int incValue = entry.getValue();
+      dataIn[index] = entry.getKey().byteValue();
+      dataIn[index + 1] = (byte) ((incValue >> 16) & 0xFF);
+      dataIn[index + 2] = (byte) ((incValue >> 8) & 0xFF);
+      dataIn[index + 3] = (byte) (incValue & 0xFF);
+      index += 4;
+    }
+
+    byte p2 = (byte) (sfi * 8);
+
+    /* this is a case4 command, we set Le = 0 */
+    setApduRequest(
+        new ApduRequest(cla, command.getInstructionByte(), (byte) 0x00, p2, dataIn, (byte) 0x00));
+
+    if (logger.isDebugEnabled()) {
+      String extraInfo =
+          String.format(
+              "SFI=%02X, COUNTER/INCREMENT=%s", sfi, this.counterNumberToIncreaseValueMap);
+      this.addSubName(extraInfo);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoIncreaseMultipleParser createResponseParser(ApduResponse apduResponse) {
+    return new PoIncreaseMultipleParser(apduResponse, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This command modified the contents of the PO and therefore uses the session buffer.
+   *
+   * @return true
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferUsed() {
+    return true;
+  }
+
+  /** @return the SFI of the accessed file */
+  public int getSfi() {
+    return sfi;
+  }
+
+  /** @return the counter numbers and their increase values, sorted by counter number */
+  public SortedMap<Integer, Integer> getCounterNumberToIncreaseValueMap() {
+    return counterNumberToIncreaseValueMap;
+  }
+}
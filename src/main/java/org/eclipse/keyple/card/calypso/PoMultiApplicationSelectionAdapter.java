@@ -0,0 +1,105 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.eclipse.keyple.card.calypso.po.PoCardSelection;
+import org.eclipse.keyple.card.calypso.po.PoMultiApplicationSelection;
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.core.service.CardSelectionServiceFactory;
+import org.eclipse.keyple.core.service.Reader;
+import org.eclipse.keyple.core.service.selection.CardSelectionResult;
+import org.eclipse.keyple.core.service.selection.CardSelectionService;
+import org.eclipse.keyple.core.service.selection.CardSelector;
+import org.eclipse.keyple.core.service.selection.MultiSelectionProcessing;
+import org.eclipse.keyple.core.service.selection.spi.SmartCard;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link PoMultiApplicationSelection}.
+ *
+ * @since 2.0
+ */
+final class PoMultiApplicationSelectionAdapter implements PoMultiApplicationSelection {
+
+  private final boolean acceptInvalidatedPo;
+  private final List<PoCardSelectionAdapter> poCardSelections =
+      new ArrayList<PoCardSelectionAdapter>();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param acceptInvalidatedPo true if invalidated applications must be accepted, false if not.
+   * @since 2.0
+   */
+  PoMultiApplicationSelectionAdapter(boolean acceptInvalidatedPo) {
+    this.acceptInvalidatedPo = acceptInvalidatedPo;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoCardSelection prepareApplicationSelection(CardSelector poCardSelector) {
+    PoCardSelectionAdapter poCardSelection =
+        new PoCardSelectionAdapter(poCardSelector, acceptInvalidatedPo);
+    poCardSelections.add(poCardSelection);
+    return poCardSelection;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getApplicationCount() {
+    return poCardSelections.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Map<Integer, PoSmartCard> processSelection(Reader reader) {
+
+    Assert.getInstance().notNull(reader, "reader");
+
+    if (poCardSelections.isEmpty()) {
+      throw new IllegalStateException("No application selection has been prepared.");
+    }
+
+    CardSelectionService cardSelectionService =
+        CardSelectionServiceFactory.getService(MultiSelectionProcessing.PROCESS_ALL);
+    for (PoCardSelectionAdapter poCardSelection : poCardSelections) {
+      cardSelectionService.prepareSelection(poCardSelection);
+    }
+
+    CardSelectionResult cardSelectionResult =
+        cardSelectionService.processCardSelectionScenario(reader);
+
+    Map<Integer, PoSmartCard> poSmartCards = new TreeMap<Integer, PoSmartCard>();
+    for (Map.Entry<Integer, SmartCard> entry : cardSelectionResult.getSmartCards().entrySet()) {
+      poSmartCards.put(entry.getKey(), (PoSmartCard) entry.getValue());
+    }
+    return poSmartCards;
+  }
+}
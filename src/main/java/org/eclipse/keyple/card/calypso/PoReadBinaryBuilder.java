@@ -0,0 +1,119 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Builds the Read Binary APDU command.
+ *
+ * <p>When the offset is lower than 256, the EF is selected with its SFI. Otherwise the command
+ * applies to the current EF, which must have been selected before.
+ *
+ * @since 2.0
+ */
+final class PoReadBinaryBuilder extends AbstractPoCommandBuilder<PoReadBinaryParser> {
+
+  private static final Logger logger = LoggerFactory.getLogger(PoReadBinaryBuilder.class);
+
+  private static final PoCommand command = PoCommand.READ_BINARY;
+
+  // Construction arguments used for parsing
+  private final int sfi;
+  private final int offset;
+  private final int length;
+
+  /**
+   * Instantiates a new read binary cmd build.
+   *
+   * @param poClass indicates which CLA byte should be used for the Apdu.
+   * @param sfi the sfi of the EF to read (used only if offset {@code <} 256).
+   * @param offset the offset of the first byte to read.
+   * @param length the number of bytes to read.
+   * @since 2.0
+   */
+  public PoReadBinaryBuilder(PoClass poClass, byte sfi, int offset, int length) {
+    super(command);
+
+    this.sfi = sfi;
+    this.offset = offset;
+    this.length = length;
+
+    byte msb = (byte) (offset >> 8);
+    byte lsb = (byte) (offset & 0xFF);
+
+    // 100xxxxx : 'xxxxx' = SFI of the EF to select.
+    // 0xxxxxxx : 'xxxxxxx' = MSB of the offset of the first byte.
+    byte p1 = msb > 0 ? msb : (byte) (0x80 + sfi);
+
+    setApduRequest(
+        new ApduRequest(
+            poClass.getValue(), command.getInstructionByte(), p1, lsb, null, (byte) length));
+
+    if (logger.isDebugEnabled()) {
+      String extraInfo = String.format("SFI=%02X, OFFSET=%d, LENGTH=%d", sfi, offset, length);
+      this.addSubName(extraInfo);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoReadBinaryParser createResponseParser(ApduResponse apduResponse) {
+    return new PoReadBinaryParser(apduResponse, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This command doesn't modify the contents of the PO and therefore doesn't uses the session
+   * buffer.
+   *
+   * @return false
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferUsed() {
+    return false;
+  }
+
+  /**
+   * @return the SFI of the accessed file
+   * @since 2.0
+   */
+  public int getSfi() {
+    return sfi;
+  }
+
+  /**
+   * @return the offset of the first byte to read
+   * @since 2.0
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return the number of bytes to read
+   * @since 2.0
+   */
+  public int getLength() {
+    return length;
+  }
+}
@@ -0,0 +1,83 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.keyple.core.card.ApduResponse;
+
+/**
+ * (package-private)<br>
+ * Parses the Read Binary response.
+ *
+ * @since 2.0
+ */
+final class PoReadBinaryParser extends AbstractPoResponseParser {
+
+  private static final Map<Integer, StatusProperties> STATUS_TABLE;
+
+  static {
+    Map<Integer, StatusProperties> m =
+        new HashMap<Integer, StatusProperties>(AbstractApduResponseParser.STATUS_TABLE);
+    m.put(
+        0x6981,
+        new StatusProperties(
+            "Incorrect EF type: not a Binary EF.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6982,
+        new StatusProperties(
+            "Security conditions not fulfilled (PIN code not presented, encryption required).",
+            CalypsoPoSecurityContextException.class));
+    m.put(
+        0x6985,
+        new StatusProperties(
+            "Access forbidden (Never access mode, DF is invalidated, etc..).",
+            CalypsoPoAccessForbiddenException.class));
+    m.put(
+        0x6986,
+        new StatusProperties(
+            "Incorrect file type: the Current File is not an EF. Supersedes 6981h.",
+            CalypsoPoDataAccessException.class));
+    m.put(0x6A82, new StatusProperties("File not found.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6B00,
+        new StatusProperties(
+            "Offset not in the file (offset overflow).",
+            CalypsoPoIllegalParameterException.class));
+    m.put(
+        0x6282,
+        new StatusProperties(
+            "Successful execution, end of file reached before reading Le bytes.", null));
+    STATUS_TABLE = m;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  protected Map<Integer, StatusProperties> getStatusTable() {
+    return STATUS_TABLE;
+  }
+
+  /**
+   * Instantiates a new PoReadBinaryParser.
+   *
+   * @param apduResponse the response from the PO.
+   * @param builder the reference to the builder that created this parser.
+   * @since 2.0
+   */
+  public PoReadBinaryParser(ApduResponse apduResponse, PoReadBinaryBuilder builder) {
+    super(apduResponse, builder);
+  }
+}
@@ -0,0 +1,157 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Builds the Read Record Multiple APDU command.
+ *
+ * <p>The command reads the same part (offset and length) of successive records of an EF, starting
+ * from the provided record. The PO returns as many records as its transmission capacity allows,
+ * the records following the provided last record are ignored.
+ *
+ * @since 2.0
+ */
+final class PoReadRecordMultipleBuilder
+    extends AbstractPoCommandBuilder<PoReadRecordMultipleParser> {
+
+  private static final Logger logger = LoggerFactory.getLogger(PoReadRecordMultipleBuilder.class);
+
+  private static final PoCommand command = PoCommand.READ_RECORD_MULTIPLE;
+
+  /** Tag of the data object describing the part of the records to read. */
+  private static final byte TAG_RECORD_PART = (byte) 0x54;
+
+  // Construction arguments used for parsing
+  private final int sfi;
+  private final int firstRecordNumber;
+  private final int lastRecordNumber;
+  private final int offset;
+  private final int length;
+
+  /**
+   * Instantiates a new read record multiple cmd build.
+   *
+   * @param poClass indicates which CLA byte should be used for the Apdu.
+   * @param sfi the sfi top select.
+   * @param firstRecordNumber the number of the first record to read.
+   * @param lastRecordNumber the number of the last record to read.
+   * @param offset the offset of the part to read in each record.
+   * @param length the length of the part to read in each record.
+   * @since 2.0
+   */
+  public PoReadRecordMultipleBuilder(
+      PoClass poClass,
+      int sfi,
+      int firstRecordNumber,
+      int lastRecordNumber,
+      int offset,
+      int length) {
+    super(command);
+
+    this.sfi = sfi;
+    this.firstRecordNumber = firstRecordNumber;
+    this.lastRecordNumber = lastRecordNumber;
+    this.offset = offset;
+    this.length = length;
+
+    byte p1 = (byte) firstRecordNumber;
+    byte p2 = (byte) (sfi * 8 + 5);
+    byte[] dataIn = new byte[] {TAG_RECORD_PART, (byte) 0x02, (byte) offset, (byte) length};
+
+    /* this is a case4 command, we set Le = 0 */
+    setApduRequest(
+        new ApduRequest(
+            poClass.getValue(), command.getInstructionByte(), p1, p2, dataIn, (byte) 0x00));
+
+    if (logger.isDebugEnabled()) {
+      String extraInfo =
+          String.format(
+              "SFI=%02X, REC=%d..%d, OFFSET=%d, LENGTH=%d",
+              sfi,
+              firstRecordNumber,
+              lastRecordNumber,
+              offset,
+              length);
+      this.addSubName(extraInfo);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoReadRecordMultipleParser createResponseParser(ApduResponse apduResponse) {
+    return new PoReadRecordMultipleParser(apduResponse, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This command doesn't modify the contents of the PO and therefore doesn't uses the session
+   * buffer.
+   *
+   * @return false
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferUsed() {
+    return false;
+  }
+
+  /**
+   * @return the SFI of the accessed file
+   * @since 2.0
+   */
+  public int getSfi() {
+    return sfi;
+  }
+
+  /**
+   * @return the number of the first record to read
+   * @since 2.0
+   */
+  public int getFirstRecordNumber() {
+    return firstRecordNumber;
+  }
+
+  /**
+   * @return the number of the last record to read
+   * @since 2.0
+   */
+  public int getLastRecordNumber() {
+    return lastRecordNumber;
+  }
+
+  /**
+   * @return the offset of the part to read in each record
+   * @since 2.0
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return the length of the part to read in each record
+   * @since 2.0
+   */
+  public int getLength() {
+    return length;
+  }
+}
@@ -0,0 +1,122 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.*;
+import org.eclipse.keyple.core.card.ApduResponse;
+
+/**
+ * (package-private)<br>
+ * Parses the Read Record Multiple response.
+ *
+ * @since 2.0
+ */
+final class PoReadRecordMultipleParser extends AbstractPoResponseParser {
+
+  private static final Map<Integer, StatusProperties> STATUS_TABLE;
+
+  static {
+    Map<Integer, StatusProperties> m =
+        new HashMap<Integer, StatusProperties>(AbstractApduResponseParser.STATUS_TABLE);
+    m.put(
+        0x6700,
+        new StatusProperties("Lc value not supported.", CalypsoPoIllegalParameterException.class));
+    m.put(
+        0x6981,
+        new StatusProperties("Incorrect EF type: Binary EF.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6982,
+        new StatusProperties(
+            "Security conditions not fulfilled (PIN code not presented, encryption required).",
+            CalypsoPoSecurityContextException.class));
+    m.put(
+        0x6985,
+        new StatusProperties(
+            "Access forbidden (Never access mode, Stored Value log file and a Stored Value operation was done during the current secure session).",
+            CalypsoPoAccessForbiddenException.class));
+    m.put(
+        0x6986,
+        new StatusProperties(
+            "Incorrect file type: the Current File is not an EF. Supersedes 6981h.",
+            CalypsoPoDataAccessException.class));
+    m.put(
+        0x6A80,
+        new StatusProperties(
+            "Incorrect command data (incorrect Tag, incorrect Length, R. Length > RecSize, R. Offset + R. Length > RecSize, R. Length = 0).",
+            CalypsoPoIllegalParameterException.class));
+    m.put(0x6A82, new StatusProperties("File not found.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6A83,
+        new StatusProperties(
+            "Record not found (record index is 0, or above NumRec).",
+            CalypsoPoDataAccessException.class));
+    m.put(
+        0x6B00,
+        new StatusProperties(
+            "P1 or P2 value not supported.", CalypsoPoIllegalParameterException.class));
+    m.put(
+        0x6200,
+        new StatusProperties(
+            "Successful execution, partial read only: issue another Read Record Multiple from record (P1 + (Size of returned data) / (R. Length)) to continue reading.",
+            null));
+    STATUS_TABLE = m;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  protected Map<Integer, StatusProperties> getStatusTable() {
+    return STATUS_TABLE;
+  }
+
+  /**
+   * Instantiates a new PoReadRecordMultipleParser.
+   *
+   * @param apduResponse the response from the PO.
+   * @param builder the reference to the builder that created this parser.
+   * @since 2.0
+   */
+  public PoReadRecordMultipleParser(
+      ApduResponse apduResponse, PoReadRecordMultipleBuilder builder) {
+    super(apduResponse, builder);
+  }
+
+  /**
+   * Parses the Apdu response, retrieves the parts of records and place them in an map.
+   *
+   * <p>The map index follows the PO specification, i.e. starts at 1 for the first record. Each
+   * value is the part of the record starting at the offset provided to the command. The records
+   * returned beyond the last record provided to the command are ignored.
+   *
+   * <p>An empty map is returned if no data is available.
+   *
+   * @return a map of parts of records
+   * @since 2.0
+   */
+  public SortedMap<Integer, byte[]> getRecordParts() {
+    SortedMap<Integer, byte[]> recordParts = new TreeMap<Integer, byte[]>();
+    PoReadRecordMultipleBuilder readRecordMultipleBuilder = (PoReadRecordMultipleBuilder) builder;
+    int length = readRecordMultipleBuilder.getLength();
+    byte[] dataOut = response.getDataOut();
+    int recordNumber = readRecordMultipleBuilder.getFirstRecordNumber();
+    int lastRecordNumber = readRecordMultipleBuilder.getLastRecordNumber();
+    for (int index = 0;
+        index + length <= dataOut.length && recordNumber <= lastRecordNumber;
+        index += length) {
+      recordParts.put(recordNumber++, Arrays.copyOfRange(dataOut, index, index + length));
+    }
+    return recordParts;
+  }
+}
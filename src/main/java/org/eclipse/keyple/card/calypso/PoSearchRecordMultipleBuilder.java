@@ -0,0 +1,134 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.Arrays;
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Builds the Search Record Multiple APDU command.
+ *
+ * @since 2.0
+ */
+final class PoSearchRecordMultipleBuilder
+    extends AbstractPoCommandBuilder<PoSearchRecordMultipleParser> {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(PoSearchRecordMultipleBuilder.class);
+
+  private static final PoCommand command = PoCommand.SEARCH_RECORD_MULTIPLE;
+
+  private static final byte OPTION_REPEATED_OFFSET = (byte) 0x80;
+  private static final byte OPTION_FETCH_FIRST_MATCHING_RESULT = (byte) 0x01;
+
+  // Construction arguments used for parsing
+  private final SearchCommandDataAdapter data;
+
+  /**
+   * Instantiates a new search record multiple cmd build.
+   *
+   * @param poClass indicates which CLA byte should be used for the Apdu.
+   * @param data the search parameters, also receiving the search results.
+   * @since 2.0
+   */
+  public PoSearchRecordMultipleBuilder(PoClass poClass, SearchCommandDataAdapter data) {
+    super(command);
+
+    this.data = data;
+
+    byte[] searchData = data.getSearchData();
+    int searchDataLength = searchData.length;
+
+    // the mask is completed with FFh bytes (all the bits compared)
+    byte[] mask = new byte[searchDataLength];
+    Arrays.fill(mask, (byte) 0xFF);
+    if (data.getMask() != null) {
+      System.arraycopy(
+          data.getMask(), 0, mask, 0, Math.min(data.getMask().length, searchDataLength));
+    }
+
+    byte options = 0;
+    if (data.isEnableRepeatedOffset()) {
+      options |= OPTION_REPEATED_OFFSET;
+    }
+    if (data.isFetchFirstMatchingResult()) {
+      options |= OPTION_FETCH_FIRST_MATCHING_RESULT;
+    }
+
+    // offset, options, search data length, search data, mask
+    byte[] dataIn = new byte[3 + 2 * searchDataLength];
+    dataIn[0] = (byte) data.getOffset();
+    dataIn[1] = options;
+    dataIn[2] = (byte) searchDataLength;
+    System.arraycopy(searchData, 0, dataIn, 3, searchDataLength);
+    System.arraycopy(mask, 0, dataIn, 3 + searchDataLength, searchDataLength);
+
+    byte p1 = (byte) data.getRecordNumber();
+    byte p2 = (byte) (data.getSfi() * 8 + 7);
+
+    /* this is a case4 command, we set Le = 0 */
+    setApduRequest(
+        new ApduRequest(
+            poClass.getValue(), command.getInstructionByte(), p1, p2, dataIn, (byte) 0x00));
+
+    if (logger.isDebugEnabled()) {
+      String extraInfo =
+          String.format(
+              "SFI=%02X, REC=%d, OFFSET=%d, REPEATEDOFFSET=%s, FETCHFIRST=%s, DATA=%s, MASK=%s",
+              data.getSfi(),
+              data.getRecordNumber(),
+              data.getOffset(),
+              data.isEnableRepeatedOffset(),
+              data.isFetchFirstMatchingResult(),
+              ByteArrayUtil.toHex(searchData),
+              ByteArrayUtil.toHex(mask));
+      this.addSubName(extraInfo);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoSearchRecordMultipleParser createResponseParser(ApduResponse apduResponse) {
+    return new PoSearchRecordMultipleParser(apduResponse, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This command doesn't modify the contents of the PO and therefore doesn't uses the session
+   * buffer.
+   *
+   * @return false
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferUsed() {
+    return false;
+  }
+
+  /**
+   * @return the search parameters
+   * @since 2.0
+   */
+  public SearchCommandDataAdapter getSearchCommandData() {
+    return data;
+  }
+}
@@ -0,0 +1,129 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.*;
+import org.eclipse.keyple.core.card.ApduResponse;
+
+/**
+ * (package-private)<br>
+ * Parses the Search Record Multiple response.
+ *
+ * <p>The response contains the number of matching records followed by their numbers and, if
+ * requested, the content of the first matching record.
+ *
+ * @since 2.0
+ */
+final class PoSearchRecordMultipleParser extends AbstractPoResponseParser {
+
+  private static final Map<Integer, StatusProperties> STATUS_TABLE;
+
+  static {
+    Map<Integer, StatusProperties> m =
+        new HashMap<Integer, StatusProperties>(AbstractApduResponseParser.STATUS_TABLE);
+    m.put(
+        0x6700,
+        new StatusProperties("Lc value not supported.", CalypsoPoIllegalParameterException.class));
+    m.put(
+        0x6981,
+        new StatusProperties("Incorrect EF type: Binary EF.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6982,
+        new StatusProperties(
+            "Security conditions not fulfilled (PIN code not presented, encryption required).",
+            CalypsoPoSecurityContextException.class));
+    m.put(
+        0x6985,
+        new StatusProperties(
+            "Access forbidden (Never access mode, Stored Value log file and a Stored Value operation was done during the current secure session).",
+            CalypsoPoAccessForbiddenException.class));
+    m.put(
+        0x6986,
+        new StatusProperties(
+            "Incorrect file type: the Current File is not an EF. Supersedes 6981h.",
+            CalypsoPoDataAccessException.class));
+    m.put(
+        0x6A80,
+        new StatusProperties(
+            "Incorrect command data (S. Length incompatible with Lc, S. Length > RecSize, S. Offset + S. Length > RecSize, Mask bigger than S. Length).",
+            CalypsoPoIllegalParameterException.class));
+    m.put(0x6A82, new StatusProperties("File not found.", CalypsoPoDataAccessException.class));
+    m.put(
+        0x6A83,
+        new StatusProperties(
+            "Record not found (record index is 0, or above NumRec).",
+            CalypsoPoDataAccessException.class));
+    m.put(
+        0x6B00,
+        new StatusProperties(
+            "P1 or P2 value not supported.", CalypsoPoIllegalParameterException.class));
+    STATUS_TABLE = m;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  protected Map<Integer, StatusProperties> getStatusTable() {
+    return STATUS_TABLE;
+  }
+
+  /**
+   * Instantiates a new PoSearchRecordMultipleParser.
+   *
+   * @param apduResponse the response from the PO.
+   * @param builder the reference to the builder that created this parser.
+   * @since 2.0
+   */
+  public PoSearchRecordMultipleParser(
+      ApduResponse apduResponse, PoSearchRecordMultipleBuilder builder) {
+    super(apduResponse, builder);
+  }
+
+  /**
+   * Gets the numbers of the matching records.
+   *
+   * @return a not null list, empty if no record matches
+   * @since 2.0
+   */
+  public List<Integer> getMatchingRecordNumbers() {
+    List<Integer> matchingRecordNumbers = new ArrayList<Integer>();
+    byte[] dataOut = response.getDataOut();
+    if (dataOut.length != 0) {
+      int nbMatchingRecords = dataOut[0] & 0xFF;
+      for (int i = 1; i <= nbMatchingRecords; i++) {
+        matchingRecordNumbers.add(dataOut[i] & 0xFF);
+      }
+    }
+    return matchingRecordNumbers;
+  }
+
+  /**
+   * Gets the content of the first matching record, if it was requested.
+   *
+   * @return null if not requested or if no record matches
+   * @since 2.0
+   */
+  public byte[] getFirstMatchingRecordContent() {
+    byte[] dataOut = response.getDataOut();
+    if (dataOut.length == 0 || dataOut[0] == 0) {
+      return null;
+    }
+    int contentIndex = 1 + (dataOut[0] & 0xFF);
+    if (contentIndex >= dataOut.length) {
+      return null;
+    }
+    return Arrays.copyOfRange(dataOut, contentIndex, dataOut.length);
+  }
+}
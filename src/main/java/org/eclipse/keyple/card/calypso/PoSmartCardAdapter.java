@@ -92,12 +92,26 @@ final class PoSmartCardAdapter implements PoSmartCard, SmartCardSpi {
       new ConcurrentHashMap<Byte, ElementaryFile>();
   private final Map<Short, Byte> sfiByLid = new ConcurrentHashMap<Short, Byte>();
   private final Map<Short, Byte> sfiByLidBackup = new ConcurrentHashMap<Short, Byte>();
+  private final Map<Byte, SortedSet<Integer>> modifiedRecordsBySfi =
+      new HashMap<Byte, SortedSet<Integer>>();
+  private final Set<Byte> modifiedFileHeaders = new HashSet<Byte>();
+  private final Set<Integer> modifiedCounters = new LinkedHashSet<Integer>();
+  private PoTransactionService.SvSettings.Operation pendingSvGetOperation;
+  private PoTransactionService.SvSettings.Action pendingSvGetAction;
+  private List<SvDebitLogRecord> svDebitLogRecords;
+  private FileDataAdapter svDebitLogFileData;
+  private int svDebitLogModificationCount;
   private Boolean isDfRatified = null;
   private Integer pinAttemptCounter;
   private Integer svBalance;
   private int svLastTNum;
   private SvLoadLogRecord svLoadLogRecord;
   private SvDebitLogRecord svDebitLogRecord;
+  private byte[] poChallenge;
+  private byte svKvc;
+  private byte[] svGetHeader;
+  private byte[] svGetData;
+  private byte[] svOperationSignature;
 
   /**
    * Constructor.
@@ -108,20 +122,30 @@ final class PoSmartCardAdapter implements PoSmartCard, SmartCardSpi {
    * @since 2.0
    */
   PoSmartCardAdapter(CardSelectionResponse cardSelectionResponse) {
+    this(
+        cardSelectionResponse.getSelectionStatus().getFci(),
+        extractAtrBytes(cardSelectionResponse.getSelectionStatus().getAtr()));
+  }
+
+  /**
+   * Constructor.
+   *
+   * <p>Create the initial content from the FCI and the ATR, as received in response to the card
+   * selection or restored from a serialized PO image.
+   *
+   * @param fci the FCI (null if not available).
+   * @param atrBytes the ATR (null if not available).
+   * @since 2.0
+   */
+  PoSmartCardAdapter(ApduResponse fci, byte[] atrBytes) {
 
-    ApduResponse fci = cardSelectionResponse.getSelectionStatus().getFci();
     if (fci != null) {
       this.fciBytes = fci.getBytes();
     } else {
       this.fciBytes = null;
     }
 
-    AnswerToReset answerToReset = cardSelectionResponse.getSelectionStatus().getAtr();
-    if (answerToReset != null) {
-      this.atrBytes = answerToReset.getBytes();
-    } else {
-      this.atrBytes = null;
-    }
+    this.atrBytes = atrBytes;
 
     int bufferSizeIndicator;
     int bufferSizeValue;
@@ -129,8 +153,7 @@ final class PoSmartCardAdapter implements PoSmartCard, SmartCardSpi {
     if (hasFci()) {
 
       /* Parse PO FCI - to retrieve DF Name (AID), Serial Number, &amp; StartupInfo */
-      PoGetDataFciParser poGetDataFciParser =
-          new PoGetDataFciParser(cardSelectionResponse.getSelectionStatus().getFci(), null);
+      PoGetDataFciParser poGetDataFciParser = new PoGetDataFciParser(fci, null);
 
       // 4 fields extracted by the low level parser
       dfName = poGetDataFciParser.getDfName();
@@ -204,6 +227,17 @@ final class PoSmartCardAdapter implements PoSmartCard, SmartCardSpi {
     }
   }
 
+  /**
+   * (private)<br>
+   * Gets the bytes of the provided ATR.
+   *
+   * @param answerToReset the ATR (may be null).
+   * @return null if the ATR is not available.
+   */
+  private static byte[] extractAtrBytes(AnswerToReset answerToReset) {
+    return answerToReset != null ? answerToReset.getBytes() : null;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -385,6 +419,17 @@ protected final int getPayloadCapacity() {
     return 250;
   }
 
+  /**
+   * Tells if the PO supports the commands of the Calypso revision 3.2 extended mode (Increase and
+   * Decrease Multiple, Read and Search Record Multiple).
+   *
+   * @return true if the PO is a revision 3.2 PO running in revision 3.2 mode
+   * @since 2.0
+   */
+  protected final boolean isExtendedModeSupported() {
+    return revision == PoRevision.REV3_2 && isConfidentialSessionModeSupported;
+  }
+
   /**
    * Tells if the change counter allowed in session is established in number of operations or number
    * of bytes modified.
@@ -581,6 +626,160 @@ final void setSvData(
     }
   }
 
+  /**
+   * (package-private)<br>
+   * Records that an SV Get has been executed during the selection, for an SV operation to come.
+   *
+   * @param svOperation the SV operation announced by the SV Get.
+   * @param svAction the SV action requested by the application.
+   * @since 2.0
+   */
+  final void setPendingSvGet(
+      PoTransactionService.SvSettings.Operation svOperation,
+      PoTransactionService.SvSettings.Action svAction) {
+    this.pendingSvGetOperation = svOperation;
+    this.pendingSvGetAction = svAction;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV operation announced by the SV Get executed during the selection.
+   *
+   * @return null if no SV Get is pending.
+   * @since 2.0
+   */
+  final PoTransactionService.SvSettings.Operation getPendingSvGetOperation() {
+    return pendingSvGetOperation;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV action requested with the SV Get executed during the selection.
+   *
+   * @return null if no SV Get is pending.
+   * @since 2.0
+   */
+  final PoTransactionService.SvSettings.Action getPendingSvGetAction() {
+    return pendingSvGetAction;
+  }
+
+  /**
+   * (package-private)<br>
+   * Forgets the SV Get executed during the selection, once it has been taken over by a
+   * transaction.
+   *
+   * @since 2.0
+   */
+  final void clearPendingSvGet() {
+    pendingSvGetOperation = null;
+    pendingSvGetAction = null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Forgets the SV log records, so that the next call to {@link #setSvData(int, int,
+   * SvLoadLogRecord, SvDebitLogRecord)} replaces them.
+   *
+   * @since 2.0
+   */
+  final void resetSvLogRecords() {
+    svLoadLogRecord = null;
+    svDebitLogRecord = null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets the challenge received from the PO in response to the Get Challenge command.
+   *
+   * @param poChallenge the PO challenge.
+   * @since 2.0
+   */
+  final void setPoChallenge(byte[] poChallenge) {
+    this.poChallenge = poChallenge;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the challenge received from the PO
+   *
+   * @return an array of bytes containing the challenge bytes (variable length according to the
+   *     revision of the PO). May be null if the challenge is not available.
+   * @since 2.0
+   */
+  final byte[] getPoChallenge() {
+    return poChallenge;
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets the SV Get data needed to prepare the SV operations with the SAM.
+   *
+   * @param svKvc the SV KVC.
+   * @param svGetHeader the SV Get command header.
+   * @param svGetData the SV Get command response data.
+   * @since 2.0
+   */
+  final void setSvGetResponse(byte svKvc, byte[] svGetHeader, byte[] svGetData) {
+    this.svKvc = svKvc;
+    this.svGetHeader = svGetHeader;
+    this.svGetData = svGetData;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV KVC from the PO
+   *
+   * @return the SV KVC byte.
+   * @since 2.0
+   */
+  final byte getSvKvc() {
+    return svKvc;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV Get command header
+   *
+   * @return a byte array containing the SV Get command header.
+   * @since 2.0
+   */
+  final byte[] getSvGetHeader() {
+    return svGetHeader;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV Get command response data
+   *
+   * @return a byte array containing the SV Get command response data.
+   * @since 2.0
+   */
+  final byte[] getSvGetData() {
+    return svGetData;
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets the signature returned by the PO in response to an SV operation.
+   *
+   * @param svOperationSignature the SV operation signature.
+   * @since 2.0
+   */
+  final void setSvOperationSignature(byte[] svOperationSignature) {
+    this.svOperationSignature = svOperationSignature;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the last SV Operation signature (SV Reload, Debit or Undebit)
+   *
+   * @return a byte array containing the SV Operation signature or null if not available.
+   * @since 2.0
+   */
+  final byte[] getSvOperationSignature() {
+    return svOperationSignature;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -644,16 +843,91 @@ public final SvDebitLogRecord getSvDebitLogLastRecord() {
    */
   @Override
   public final List<SvDebitLogRecord> getSvDebitLogAllRecords() {
-    // get the logs from the file data
-    SortedMap<Integer, byte[]> logRecords =
-        getFileBySfi(CalypsoPoUtils.SV_DEBIT_LOG_FILE_SFI).getData().getAllRecordsContent();
-    List<SvDebitLogRecord> svDebitLogRecords = new ArrayList<SvDebitLogRecord>();
-    for (Map.Entry<Integer, byte[]> entry : logRecords.entrySet()) {
-      svDebitLogRecords.add(new SvDebitLogRecordAdapter(entry.getValue(), 0));
+    // get the logs from the file data, the list being rebuilt only if the file has changed
+    FileDataAdapter logFileData =
+        (FileDataAdapter) getFileBySfi(CalypsoPoUtils.SV_DEBIT_LOG_FILE_SFI).getData();
+    if (svDebitLogRecords == null
+        || svDebitLogFileData != logFileData
+        || svDebitLogModificationCount != logFileData.getModificationCount()) {
+      List<SvDebitLogRecord> records = new ArrayList<SvDebitLogRecord>();
+      for (byte[] logRecord : logFileData.getAllRecordsContent().values()) {
+        records.add(new SvDebitLogRecordAdapter(logRecord, 0));
+      }
+      svDebitLogRecords = Collections.unmodifiableList(records);
+      svDebitLogFileData = logFileData;
+      svDebitLogModificationCount = logFileData.getModificationCount();
     }
     return svDebitLogRecords;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final SvDebitLogCursor getSvDebitLogCursor() {
+    return new SvDebitLogCursorAdapter(this);
+  }
+
+  /**
+   * (package-private)<br>
+   * Tells if the ratification status is known, i.e. if a session has been opened.
+   *
+   * @return true if {@link #isDfRatified()} can be called.
+   * @since 2.0
+   */
+  final boolean isDfRatificationStatusAvailable() {
+    return isDfRatified != null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Tells if the SV data (balance and last transaction number) are known, i.e. if an SV Get
+   * command has been executed.
+   *
+   * @return true if {@link #getSvLastTNum()} can be called.
+   * @since 2.0
+   */
+  final boolean isSvDataAvailable() {
+    return svBalance != null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Tells if the PIN attempt counter is known, i.e. if the PIN status has been checked.
+   *
+   * @return true if {@link #getPinAttemptRemaining()} can be called.
+   * @since 2.0
+   */
+  final boolean isPinAttemptCounterAvailable() {
+    return pinAttemptCounter != null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV load log record received with the SV Get command, without looking for it in the
+   * files.
+   *
+   * @return null if not available.
+   * @since 2.0
+   */
+  final SvLoadLogRecord getSvGetLoadLogRecord() {
+    return svLoadLogRecord;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SV debit log record received with the SV Get command, without looking for it in the
+   * files.
+   *
+   * @return null if not available.
+   * @since 2.0
+   */
+  final SvDebitLogRecord getSvGetDebitLogRecord() {
+    return svDebitLogRecord;
+  }
+
   /**
    * (package-private)<br>
    * Sets the ratification status
@@ -802,6 +1076,7 @@ final void setFileHeader(byte sfi, FileHeader header) {
     ElementaryFileAdapter ef = getOrCreateFile(sfi);
     ef.setHeader(header);
     sfiByLid.put(header.getLid(), sfi);
+    modifiedFileHeaders.add(sfi);
   }
 
   /**
@@ -817,6 +1092,7 @@ final void setFileHeader(byte sfi, FileHeader header) {
   final void setContent(byte sfi, int numRecord, byte[] content) {
     ElementaryFile ef = getOrCreateFile(sfi);
     ((FileDataAdapter) ef.getData()).setContent(numRecord, content);
+    markRecordModified(sfi, numRecord);
   }
 
   /**
@@ -831,6 +1107,8 @@ final void setContent(byte sfi, int numRecord, byte[] content) {
   final void setCounter(byte sfi, int numCounter, byte[] content) {
     ElementaryFile ef = getOrCreateFile(sfi);
     ((FileDataAdapter) ef.getData()).setCounter(numCounter, content);
+    markRecordModified(sfi, 1);
+    modifiedCounters.add(((sfi & 0xFF) << 8) | numCounter);
   }
 
   /**
@@ -849,6 +1127,7 @@ final void setCounter(byte sfi, int numCounter, byte[] content) {
   final void setContent(byte sfi, int numRecord, byte[] content, int offset) {
     ElementaryFile ef = getOrCreateFile(sfi);
     ((FileDataAdapter) ef.getData()).setContent(numRecord, content, offset);
+    markRecordModified(sfi, numRecord);
   }
 
   /**
@@ -866,6 +1145,42 @@ final void setContent(byte sfi, int numRecord, byte[] content, int offset) {
   final void fillContent(byte sfi, int numRecord, byte[] content) {
     ElementaryFile ef = getOrCreateFile(sfi);
     ((FileDataAdapter) ef.getData()).fillContent(numRecord, content);
+    markRecordModified(sfi, numRecord);
+  }
+
+  /**
+   * (package-private)<br>
+   * Fill the content at the specified offset of record #numRecord of the provided SFI using a
+   * binary OR operation with the provided content.<br>
+   * If EF does not exist, then it is created.<br>
+   * If actual record content is not set or has a size {@code <} offset + content size, then missing
+   * data will be padded with 0 before the operation.
+   *
+   * @param sfi the SFI.
+   * @param numRecord the record number (should be {@code >=} 1).
+   * @param content the content (should be not empty).
+   * @param offset the offset (should be {@code >=} 0).
+   */
+  final void fillContent(byte sfi, int numRecord, byte[] content, int offset) {
+    ElementaryFile ef = getOrCreateFile(sfi);
+    ((FileDataAdapter) ef.getData()).fillContent(numRecord, content, offset);
+    markRecordModified(sfi, numRecord);
+  }
+
+  /**
+   * (package-private)<br>
+   * Extends the content of record #numRecord of the provided SFI to the provided length, padding it
+   * with 0.<br>
+   * If EF does not exist, then it is created.
+   *
+   * @param sfi the SFI.
+   * @param numRecord the record number (should be {@code >=} 1).
+   * @param length the expected minimal length of the record.
+   */
+  final void reserveContent(byte sfi, int numRecord, int length) {
+    ElementaryFile ef = getOrCreateFile(sfi);
+    ((FileDataAdapter) ef.getData()).reserveContent(numRecord, length);
+    markRecordModified(sfi, numRecord);
   }
 
   /**
@@ -882,6 +1197,117 @@ final void fillContent(byte sfi, int numRecord, byte[] content) {
   final void addCyclicContent(byte sfi, byte[] content) {
     ElementaryFile ef = getOrCreateFile(sfi);
     ((FileDataAdapter) ef.getData()).addCyclicContent(content);
+    // all the records have been shifted
+    for (Integer numRecord : ef.getData().getAllRecordsContent().keySet()) {
+      markRecordModified(sfi, numRecord);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Records that the content of a record has been read or modified.
+   *
+   * @param sfi the SFI.
+   * @param numRecord the record number.
+   */
+  private void markRecordModified(byte sfi, int numRecord) {
+    SortedSet<Integer> modifiedRecords = modifiedRecordsBySfi.get(sfi);
+    if (modifiedRecords == null) {
+      modifiedRecords = new TreeSet<Integer>();
+      modifiedRecordsBySfi.put(sfi, modifiedRecords);
+    }
+    modifiedRecords.add(numRecord);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the numbers of the records read or modified since the selection or the last call to
+   * {@link #clearModifications()}, indexed by SFI.
+   *
+   * @return a not null map.
+   * @since 2.0
+   */
+  final Map<Byte, SortedSet<Integer>> getModifiedRecords() {
+    return modifiedRecordsBySfi;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the SFIs of the files whose header has been set since the selection or the last call to
+   * {@link #clearModifications()}.
+   *
+   * @return a not null set.
+   * @since 2.0
+   */
+  final Set<Byte> getModifiedFileHeaders() {
+    return modifiedFileHeaders;
+  }
+
+  /**
+   * (package-private)<br>
+   * Forgets the records and file headers read or modified so far.
+   *
+   * @since 2.0
+   */
+  final void clearModifications() {
+    modifiedRecordsBySfi.clear();
+    modifiedFileHeaders.clear();
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the counters changed by an Increase or Decrease command since the last call to {@link
+   * #clearModifiedCounters()}, in the order of their first change.
+   *
+   * @return A not null set of SFI (most significant byte) and counter number (least significant
+   *     byte) pairs.
+   * @since 2.0
+   */
+  final Set<Integer> getModifiedCounters() {
+    return modifiedCounters;
+  }
+
+  /**
+   * (package-private)<br>
+   * Forgets the counters changed so far.
+   *
+   * @since 2.0
+   */
+  final void clearModifiedCounters() {
+    modifiedCounters.clear();
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets or replaces an Elementary File, as is.
+   *
+   * @param ef the EF (should be not null).
+   */
+  final void setFile(ElementaryFile ef) {
+    efBySfi.put(ef.getSfi(), ef);
+    if (ef.getHeader() != null) {
+      sfiByLid.put(ef.getHeader().getLid(), ef.getSfi());
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Adds a copy of the provided Elementary Files, except those already known.<br>
+   * The files already known are left unchanged since their content is at least as recent as the
+   * provided one.
+   *
+   * @param files the files to add, indexed by SFI (should be not null).
+   */
+  final void addFiles(Map<Byte, ElementaryFile> files) {
+    for (Map.Entry<Byte, ElementaryFile> entry : files.entrySet()) {
+      if (!efBySfi.containsKey(entry.getKey())) {
+        ElementaryFile ef = new ElementaryFileAdapter(entry.getValue());
+        efBySfi.put(entry.getKey(), ef);
+        if (ef.getHeader() != null) {
+          sfiByLid.put(ef.getHeader().getLid(), entry.getKey());
+        }
+      }
+    }
   }
 
   /**
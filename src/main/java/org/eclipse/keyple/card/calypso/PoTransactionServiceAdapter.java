@@ -12,8 +12,14 @@
 package org.eclipse.keyple.card.calypso;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.keyple.card.calypso.po.ElementaryFile;
@@ -53,9 +59,9 @@ class PoTransactionServiceAdapter implements PoTransactionService {
 
   // commands that modify the content of the PO in session have a cost on the session buffer equal
   // to the length of the outgoing data plus 6 bytes
-  private static final int SESSION_BUFFER_CMD_ADDITIONAL_COST = 6;
+  static final int SESSION_BUFFER_CMD_ADDITIONAL_COST = 6;
 
-  private static final int APDU_HEADER_LENGTH = 5;
+  static final int APDU_HEADER_LENGTH = 5;
 
   private static final Logger logger = LoggerFactory.getLogger(PoTransactionServiceAdapter.class);
 
@@ -66,7 +72,7 @@ class PoTransactionServiceAdapter implements PoTransactionService {
   /** The SAM commands processor */
   private SamCommandProcessor samCommandProcessor;
   /** The current PoSmartCard */
-  private final PoSmartCardAdapter calypsoPoSmartCard;
+  private PoSmartCardAdapter calypsoPoSmartCard;
   /** the type of the notified event. */
   private SessionState sessionState;
   /** The current secure session access level: PERSO, RELOAD, DEBIT */
@@ -79,6 +85,10 @@ class PoTransactionServiceAdapter implements PoTransactionService {
   private SvSettings.Action svAction;
   /** The {@link ChannelControl} action */
   private ChannelControl channelControl;
+  /** The sequence number of the journaled SV intent awaiting confirmation */
+  private Long svJournalSequenceNumber;
+  /** true if the journaled SV operation may have been sent to the PO */
+  private boolean isSvOperationSent;
 
   /**
    * The PO Transaction State defined with the elements: ‘IOError’, ‘SEInserted’ and ‘SERemoval’.
@@ -130,15 +140,46 @@ public PoTransactionServiceAdapter(Reader poReader, PoSmartCard poSmartCard) {
 
     poCommandManager = new PoCommandManager();
 
+    consumePendingSvGet();
+
     channelControl = ChannelControl.KEEP_OPEN;
   }
 
+  /**
+   * (private)<br>
+   * Takes into account the SV Get executed during the selection of the current PO, if any, so that
+   * the SV operation can be prepared directly.
+   */
+  private void consumePendingSvGet() {
+    if (calypsoPoSmartCard.getPendingSvGetOperation() != null) {
+      poCommandManager.notifySvGetProcessed(calypsoPoSmartCard.getPendingSvGetOperation());
+      svAction = calypsoPoSmartCard.getPendingSvGetAction();
+      calypsoPoSmartCard.clearPendingSvGet();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Checks that the PO is not in the PO deny-list of the security settings, if any.
+   *
+   * @throws CalypsoPoRevokedException if the PO is revoked.
+   */
+  private void checkPoIsNotRevoked() {
+    DenyList poDenyList = poSecuritySettings.getPoDenyList();
+    if (poDenyList != null
+        && poDenyList.isRevoked(calypsoPoSmartCard.getApplicationSerialNumberBytes())) {
+      throw new CalypsoPoRevokedException(
+          "The PO " + calypsoPoSmartCard.getApplicationSerialNumber() + " is revoked.");
+    }
+  }
+
   /**
    * Open a single Secure Session.
    *
    * @param sessionAccessLevel access level of the session (personalization, load or debit).
    * @param poCommands the po commands inside session.
    * @throws CalypsoPoTransactionIllegalStateException if no {@link PoSecuritySetting} is available
+   * @throws CalypsoPoRevokedException if the PO is in the PO deny-list
    * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
    *     errors)
    */
@@ -153,6 +194,10 @@ private void processAtomicOpening(
       throw new CalypsoPoTransactionIllegalStateException("No security settings are available.");
     }
 
+    checkPoIsNotRevoked();
+
+    calypsoPoSmartCard.clearModifiedCounters();
+
     byte[] sessionTerminalChallenge = getSessionTerminalChallenge();
 
     // PO ApduRequest List to hold Open Secure Session and other optional commands
@@ -200,6 +245,7 @@ private void processAtomicOpening(
     CardRequest poCardRequest = new CardRequest(poApduRequests, false);
 
     // Transmit the commands to the PO
+    notifySvOperationSent(poCommands);
     CardResponse poCardResponse = safePoTransmit(poCardRequest, ChannelControl.KEEP_OPEN);
 
     // Retrieve and check the ApduResponses
@@ -219,6 +265,7 @@ private void processAtomicOpening(
               CalypsoPoUtils.updateCalypsoPo(
                   calypsoPoSmartCard, openSessionCmdBuild, poApduResponses.get(0));
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR + "processing the response to open session: " + e.getCommand(), e);
     }
@@ -241,8 +288,9 @@ private void processAtomicOpening(
     }
 
     if (!poSecuritySettings.isKvcAuthorized(poKvc)) {
-      throw new CalypsoUnauthorizedKvcException(
-          String.format("Unauthorized KVC error: PO KVC = %02X", poKvc));
+      // the PO session can only be aborted, the SAM is no longer needed
+      endSamLease();
+      throw new CalypsoUnauthorizedKvcException(poKvc);
     }
 
     // Initialize the digest processor. It will store all digest operations (Digest Init, Digest
@@ -267,6 +315,7 @@ private void processAtomicOpening(
     try {
       CalypsoPoUtils.updateCalypsoPo(calypsoPoSmartCard, poCommands, poApduResponses);
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR + "processing the response to open session: " + e.getCommand(), e);
     }
@@ -322,8 +371,13 @@ private void processAtomicPoCommands(
     // channel according to the channelControl
     CardRequest poCardRequest = new CardRequest(poApduRequests, false);
 
-    // Transmit the commands to the PO
-    CardResponse poCardResponse = safePoTransmit(poCardRequest, channelControl);
+    // Transmit the commands to the PO, the channel is kept open if partial reads of records may
+    // have to be continued
+    boolean isContinuationPossible = containsReadRecordMultiple(poCommands);
+    notifySvOperationSent(poCommands);
+    CardResponse poCardResponse =
+        safePoTransmit(
+            poCardRequest, isContinuationPossible ? ChannelControl.KEEP_OPEN : channelControl);
 
     // Retrieve and check the ApduResponses
     List<ApduResponse> poApduResponses = poCardResponse.getApduResponses();
@@ -341,9 +395,88 @@ private void processAtomicPoCommands(
       CalypsoPoUtils.updateCalypsoPo(
           calypsoPoSmartCard, poCommands, poCardResponse.getApduResponses());
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR + "processing responses to PO commands: " + e.getCommand(), e);
     }
+
+    if (isContinuationPossible) {
+      processReadRecordMultipleContinuations(poCommands, poApduResponses, channelControl);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Tells if the provided commands contain a Read Record Multiple command.
+   *
+   * @param poCommands The PO commands.
+   * @return true if at least one command is a Read Record Multiple.
+   */
+  private static boolean containsReadRecordMultiple(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> poCommand : poCommands) {
+      if (poCommand instanceof PoReadRecordMultipleBuilder) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * (private)<br>
+   * Reads the records not returned by the Read Record Multiple commands of an exchange (partial
+   * read, e.g. status 6200h), each continuation starting from the record following the last one
+   * actually returned, then applies the requested channel control.
+   *
+   * @param poCommands The PO commands of the exchange.
+   * @param poApduResponses The responses of the exchange.
+   * @param channelControl The channel control requested for the exchange.
+   * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
+   *     errors)
+   */
+  private void processReadRecordMultipleContinuations(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+      List<ApduResponse> poApduResponses,
+      ChannelControl channelControl) {
+
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> continuations =
+        new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>();
+    for (int i = 0; i < poCommands.size(); i++) {
+      if (!(poCommands.get(i) instanceof PoReadRecordMultipleBuilder)) {
+        continue;
+      }
+      PoReadRecordMultipleBuilder readRecordMultipleBuilder =
+          (PoReadRecordMultipleBuilder) poCommands.get(i);
+      int nbRecordsRead =
+          readRecordMultipleBuilder
+              .createResponseParser(poApduResponses.get(i))
+              .getRecordParts()
+              .size();
+      int nextRecordNumber = readRecordMultipleBuilder.getFirstRecordNumber() + nbRecordsRead;
+      // no record returned means the end of the file has been reached
+      if (nbRecordsRead != 0
+          && nextRecordNumber <= readRecordMultipleBuilder.getLastRecordNumber()) {
+        continuations.add(
+            new PoReadRecordMultipleBuilder(
+                calypsoPoSmartCard.getPoClass(),
+                readRecordMultipleBuilder.getSfi(),
+                nextRecordNumber,
+                readRecordMultipleBuilder.getLastRecordNumber(),
+                readRecordMultipleBuilder.getOffset(),
+                readRecordMultipleBuilder.getLength()));
+      }
+    }
+
+    if (!continuations.isEmpty()) {
+      processAtomicPoCommands(continuations, channelControl);
+    } else if (channelControl == ChannelControl.CLOSE_AFTER) {
+      try {
+        poReader.releaseChannel();
+      } catch (ReaderCommunicationException e) {
+        abandonPendingOperations();
+        throw new CalypsoPoIOException(PO_READER_COMMUNICATION_ERROR + "releasing the channel.", e);
+      }
+    }
   }
 
   /**
@@ -436,7 +569,8 @@ private void processAtomicClosing(
     // Add the PO Ratification command if any
     boolean ratificationCommandAdded;
     if (isRatificationMechanismEnabled && ((Reader) poReader).isContactless()) {
-      poApduRequests.add(PoRatificationBuilder.getApduRequest(calypsoPoSmartCard.getPoClass()));
+      poApduRequests.add(
+          FixedCommandRegistry.getRatificationApduRequest(calypsoPoSmartCard.getPoClass()));
       ratificationCommandAdded = true;
     } else {
       ratificationCommandAdded = false;
@@ -445,6 +579,7 @@ private void processAtomicClosing(
     // Transfer PO commands
     CardRequest poCardRequest = new CardRequest(poApduRequests, false);
 
+    notifySvOperationSent(poModificationCommands);
     CardResponse poCardResponse;
     try {
       poCardResponse = poReader.transmitCardRequest(poCardRequest, channelControl);
@@ -463,13 +598,16 @@ private void processAtomicClosing(
       if (!ratificationCommandAdded
           || poCardResponse == null
           || poCardResponse.getApduResponses().size() != poApduRequests.size() - 1) {
+        abandonPendingOperations();
         throw new CalypsoPoIOException(PO_COMMUNICATION_ERROR + TRANSMITTING_COMMANDS, e);
       }
       // we received all responses except the response to the ratification command
       ratificationCommandResponseReceived = false;
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoPoIOException(PO_READER_COMMUNICATION_ERROR + TRANSMITTING_COMMANDS, e);
     } catch (UnexpectedStatusCodeException e) {
+      abandonPendingOperations();
       throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
     }
 
@@ -480,6 +618,7 @@ private void processAtomicClosing(
     try {
       CalypsoPoUtils.updateCalypsoPo(calypsoPoSmartCard, poModificationCommands, poApduResponses);
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR
               + "processing of responses preceding the close of the session: "
@@ -500,6 +639,8 @@ private void processAtomicClosing(
       checkSvOperationStatus(poCloseSessionPars.getPostponedData());
     }
 
+    submitClearingRecord(sessionTerminalSignature, poCloseSessionPars);
+
     sessionState = SessionState.SESSION_CLOSED;
 
     if (ratificationCommandResponseReceived) { // NOSONAR: boolean change in catch
@@ -513,6 +654,32 @@ private void processAtomicClosing(
     poApduResponses.remove(poApduResponses.size() - 1);
   }
 
+  /**
+   * (private)<br>
+   * Submits the clearing record of the session just closed to the clearing record writer, if any.
+   *
+   * @param sessionTerminalSignature The terminal session signature.
+   * @param poCloseSessionPars The parser of the PO response to the Close Secure Session.
+   */
+  private void submitClearingRecord(
+      byte[] sessionTerminalSignature, PoCloseSessionParser poCloseSessionPars) {
+    ClearingRecordWriterAdapter clearingRecordWriter =
+        (ClearingRecordWriterAdapter) poSecuritySettings.getClearingRecordWriter();
+    if (clearingRecordWriter != null
+        && !clearingRecordWriter.submit(
+            currentSessionAccessLevel,
+            samCommandProcessor.getWorkKif(),
+            samCommandProcessor.getWorkKvc(),
+            calypsoPoSmartCard,
+            samCommandProcessor.getSamSerialNumber(),
+            sessionTerminalSignature,
+            poCloseSessionPars.getSignatureLo(),
+            poCloseSessionPars.getPostponedData())) {
+      logger.warn(
+          "Clearing record of PO {} dropped.", calypsoPoSmartCard.getApplicationSerialNumber());
+    }
+  }
+
   /**
    * Advanced variant of processAtomicClosing in which the list of expected responses is determined
    * from previous reading operations.
@@ -554,6 +721,104 @@ private int getCounterValue(int sfi, int counter) {
     }
   }
 
+  /**
+   * Gets the value of the designated counter, taking into account the commands already anticipated
+   * in the same request.
+   *
+   * @param anticipatedCounterValues the values already anticipated (key = sfi/counter).
+   * @param sfi the SFI of the EF containing the counter.
+   * @param counter the number of the counter.
+   * @return the value of the counter
+   */
+  private int getAnticipatedCounterValue(
+      Map<Integer, Integer> anticipatedCounterValues, int sfi, int counter) {
+    Integer counterValue = anticipatedCounterValues.get((sfi << 8) | counter);
+    return counterValue != null ? counterValue : getCounterValue(sfi, counter);
+  }
+
+  /**
+   * Tells if the value of the designated counter is available in the PO image.
+   *
+   * @param sfi the SFI of the EF containing the counter.
+   * @param counter the number of the counter.
+   * @return true if the value is known
+   */
+  private boolean isCounterValueKnown(int sfi, int counter) {
+    try {
+      calypsoPoSmartCard.getFileBySfi((byte) sfi).getData().getContentAsCounterValue(counter);
+      return true;
+    } catch (NoSuchElementException e) {
+      return false;
+    } catch (IndexOutOfBoundsException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates the commands reading the counters whose value is needed to anticipate the responses to
+   * the provided commands and is not known yet.
+   *
+   * <p>The counters of a same EF are read with a single command.
+   *
+   * @param poCommands the PO commands.
+   * @return a list of read commands, empty if all the values are known
+   */
+  private List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>
+      getCounterReadCommands(
+          List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
+    // highest counter number to read by SFI
+    Map<Integer, Integer> countersNumberBySfi = new LinkedHashMap<Integer, Integer>();
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
+        poCommands) {
+      int sfi;
+      Set<Integer> counters;
+      if (commandBuilder.getCommandRef() == PoCommand.DECREASE) {
+        sfi = ((PoDecreaseBuilder) commandBuilder).getSfi();
+        counters =
+            Collections.singleton(((PoDecreaseBuilder) commandBuilder).getCounterNumber());
+      } else if (commandBuilder.getCommandRef() == PoCommand.INCREASE) {
+        sfi = ((PoIncreaseBuilder) commandBuilder).getSfi();
+        counters =
+            Collections.singleton(((PoIncreaseBuilder) commandBuilder).getCounterNumber());
+      } else if (commandBuilder.getCommandRef() == PoCommand.DECREASE_MULTIPLE) {
+        sfi = ((PoDecreaseMultipleBuilder) commandBuilder).getSfi();
+        counters =
+            ((PoDecreaseMultipleBuilder) commandBuilder)
+                .getCounterNumberToDecreaseValueMap()
+                .keySet();
+      } else if (commandBuilder.getCommandRef() == PoCommand.INCREASE_MULTIPLE) {
+        sfi = ((PoIncreaseMultipleBuilder) commandBuilder).getSfi();
+        counters =
+            ((PoIncreaseMultipleBuilder) commandBuilder)
+                .getCounterNumberToIncreaseValueMap()
+                .keySet();
+      } else {
+        continue;
+      }
+      for (int counter : counters) {
+        if (!isCounterValueKnown(sfi, counter)) {
+          Integer countersNumber = countersNumberBySfi.get(sfi);
+          if (countersNumber == null || countersNumber < counter) {
+            countersNumberBySfi.put(sfi, counter);
+          }
+        }
+      }
+    }
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> readCommands =
+        new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>();
+    for (Map.Entry<Integer, Integer> entry : countersNumberBySfi.entrySet()) {
+      readCommands.addAll(
+          CalypsoPoUtils.prepareReadRecordFile(
+              calypsoPoSmartCard.getPoClass(),
+              entry.getKey().byteValue(),
+              1,
+              1,
+              entry.getValue() * 3,
+              calypsoPoSmartCard.getPayloadCapacity()));
+    }
+    return readCommands;
+  }
+
   /**
    * Create an anticipated response to an Increase/Decrease command
    *
@@ -571,9 +836,40 @@ private ApduResponse createIncreaseDecreaseResponse(int newCounterValue) {
     return new ApduResponse(response);
   }
 
-  static final ApduResponse RESPONSE_OK = new ApduResponse(new byte[] {(byte) 0x90, (byte) 0x00});
-  static final ApduResponse RESPONSE_OK_POSTPONED =
-      new ApduResponse(new byte[] {(byte) 0x62, (byte) 0x00});
+  /**
+   * Create an anticipated response to an Increase Multiple/Decrease Multiple command
+   *
+   * @param anticipatedCounterValues the values already anticipated (key = sfi/counter), updated
+   *     with the new values.
+   * @param sfi the SFI of the EF containing the counters.
+   * @param counterNumberToValueMap the increment or decrement values by counter number, sorted.
+   * @param sign 1 for an increase, -1 for a decrease.
+   * @return an {@link ApduResponse} containing the expected bytes
+   */
+  private ApduResponse createIncreaseDecreaseMultipleResponse(
+      Map<Integer, Integer> anticipatedCounterValues,
+      int sfi,
+      Map<Integer, Integer> counterNumberToValueMap,
+      int sign) {
+    // response = [CC NNNNNN]* 9000
+    byte[] response = new byte[4 * counterNumberToValueMap.size() + 2];
+    int index = 0;
+    for (Map.Entry<Integer, Integer> entry : counterNumberToValueMap.entrySet()) {
+      int counter = entry.getKey();
+      int newCounterValue =
+          getAnticipatedCounterValue(anticipatedCounterValues, sfi, counter)
+              + sign * entry.getValue();
+      anticipatedCounterValues.put((sfi << 8) | counter, newCounterValue);
+      response[index] = (byte) counter;
+      response[index + 1] = (byte) ((newCounterValue & 0x00FF0000) >> 16);
+      response[index + 2] = (byte) ((newCounterValue & 0x0000FF00) >> 8);
+      response[index + 3] = (byte) (newCounterValue & 0x000000FF);
+      index += 4;
+    }
+    response[index] = (byte) 0x90;
+    response[index + 1] = (byte) 0x00;
+    return new ApduResponse(response);
+  }
 
   /**
    * Get the anticipated response to the command sent in processClosing.<br>
@@ -588,26 +884,50 @@ private List<ApduResponse> getAnticipatedResponses(
       List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
     List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
     if (poCommands != null) {
+      // values already anticipated, for the counters modified several times (key = sfi/counter)
+      Map<Integer, Integer> anticipatedCounterValues = new HashMap<Integer, Integer>();
       for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
           poCommands) {
         if (commandBuilder.getCommandRef() == PoCommand.DECREASE) {
           int sfi = ((PoDecreaseBuilder) commandBuilder).getSfi();
           int counter = ((PoDecreaseBuilder) commandBuilder).getCounterNumber();
           int newCounterValue =
-              getCounterValue(sfi, counter) - ((PoDecreaseBuilder) commandBuilder).getDecValue();
+              getAnticipatedCounterValue(anticipatedCounterValues, sfi, counter)
+                  - ((PoDecreaseBuilder) commandBuilder).getDecValue();
+          anticipatedCounterValues.put((sfi << 8) | counter, newCounterValue);
           apduResponses.add(createIncreaseDecreaseResponse(newCounterValue));
         } else if (commandBuilder.getCommandRef() == PoCommand.INCREASE) {
           int sfi = ((PoIncreaseBuilder) commandBuilder).getSfi();
           int counter = ((PoIncreaseBuilder) commandBuilder).getCounterNumber();
           int newCounterValue =
-              getCounterValue(sfi, counter) + ((PoIncreaseBuilder) commandBuilder).getIncValue();
+              getAnticipatedCounterValue(anticipatedCounterValues, sfi, counter)
+                  + ((PoIncreaseBuilder) commandBuilder).getIncValue();
+          anticipatedCounterValues.put((sfi << 8) | counter, newCounterValue);
           apduResponses.add(createIncreaseDecreaseResponse(newCounterValue));
+        } else if (commandBuilder.getCommandRef() == PoCommand.DECREASE_MULTIPLE) {
+          PoDecreaseMultipleBuilder decreaseMultipleBuilder =
+              (PoDecreaseMultipleBuilder) commandBuilder;
+          apduResponses.add(
+              createIncreaseDecreaseMultipleResponse(
+                  anticipatedCounterValues,
+                  decreaseMultipleBuilder.getSfi(),
+                  decreaseMultipleBuilder.getCounterNumberToDecreaseValueMap(),
+                  -1));
+        } else if (commandBuilder.getCommandRef() == PoCommand.INCREASE_MULTIPLE) {
+          PoIncreaseMultipleBuilder increaseMultipleBuilder =
+              (PoIncreaseMultipleBuilder) commandBuilder;
+          apduResponses.add(
+              createIncreaseDecreaseMultipleResponse(
+                  anticipatedCounterValues,
+                  increaseMultipleBuilder.getSfi(),
+                  increaseMultipleBuilder.getCounterNumberToIncreaseValueMap(),
+                  1));
         } else if (commandBuilder.getCommandRef() == PoCommand.SV_RELOAD
             || commandBuilder.getCommandRef() == PoCommand.SV_DEBIT
             || commandBuilder.getCommandRef() == PoCommand.SV_UNDEBIT) {
-          apduResponses.add(RESPONSE_OK_POSTPONED);
+          apduResponses.add(FixedCommandRegistry.RESPONSE_OK_POSTPONED);
         } else { // Append/Update/Write Record: response = 9000
-          apduResponses.add(RESPONSE_OK);
+          apduResponses.add(FixedCommandRegistry.RESPONSE_OK);
         }
       }
     }
@@ -666,6 +986,33 @@ public final void processOpening(SessionAccessLevel sessionAccessLevel) {
     poCommandManager.notifyCommandsProcessed();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final ProcessResult tryProcessOpening(SessionAccessLevel sessionAccessLevel) {
+    try {
+      processOpening(sessionAccessLevel);
+    } catch (CalypsoUnauthorizedKvcException e) {
+      // built without stack trace nor message; the SAM lease has been ended by processOpening but
+      // the PO session is open with the unauthorized key, it is aborted
+      processCancel();
+      return new ProcessResultAdapter(ProcessResult.Status.UNAUTHORIZED_KVC, e.getKvc() & 0xFF);
+    } catch (CalypsoPoAnomalyException e) {
+      if (calypsoPoSmartCard.isDfInvalidated()
+          && e.getCause() instanceof CalypsoPoAccessForbiddenException) {
+        // the SAM lease has been ended by processOpening and the PO refused to open the session,
+        // there is nothing to abort
+        sessionState = SessionState.SESSION_CLOSED;
+        return new ProcessResultAdapter(ProcessResult.Status.DF_INVALIDATED, 0);
+      }
+      throw e;
+    }
+    return ProcessResultAdapter.SUCCESS;
+  }
+
   /**
    * Process all prepared PO commands (outside a Secure Session).
    *
@@ -688,20 +1035,25 @@ private void processPoCommandsOutOfSession(ChannelControl channelControl) {
     // If an SV transaction was performed, we check the signature returned by the PO here
     if (poCommandManager.isSvOperationCompleteOneTime()) {
       try {
-        samCommandProcessor.checkSvStatus(CalypsoPoUtils.getSvOperationSignature());
+        samCommandProcessor.checkSvStatus(calypsoPoSmartCard.getSvOperationSignature());
       } catch (CalypsoSamSecurityDataException e) {
+        abandonPendingOperations();
         throw new CalypsoSvAuthenticationException(
             "The checking of the SV operation by the SAM has failed.", e);
       } catch (CalypsoSamCommandException e) {
+        abandonPendingOperations();
         throw new CalypsoSamAnomalyException(
             SAM_COMMAND_ERROR + "checking the SV operation: " + e.getCommand().getName(), e);
       } catch (ReaderCommunicationException e) {
+        abandonPendingOperations();
         throw new CalypsoSvAuthenticationException(
             SAM_READER_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
       } catch (CardCommunicationException e) {
+        abandonPendingOperations();
         throw new CalypsoSvAuthenticationException(
             SAM_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
       }
+      journalSvConfirmation();
     }
   }
 
@@ -787,6 +1139,13 @@ public final void processPoCommands() {
   public final void processClosing() {
     checkSessionIsOpen();
 
+    // Read beforehand the counters needed to anticipate the responses, if their values are unknown
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> counterReadCommands =
+        getCounterReadCommands(poCommandManager.getPoCommandBuilders());
+    if (!counterReadCommands.isEmpty()) {
+      processAtomicPoCommands(counterReadCommands, ChannelControl.KEEP_OPEN);
+    }
+
     boolean atLeastOneReadCommand = false;
     boolean sessionPreviouslyClosed = false;
 
@@ -856,6 +1215,243 @@ public final void processClosing() {
     poCommandManager.notifyCommandsProcessed();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void processPlan(TransactionPlan transactionPlan, byte[]... slotValues) {
+    Assert.getInstance()
+        .notNull(transactionPlan, "transactionPlan")
+        .notNull(slotValues, "slotValues")
+        .isEqual(slotValues.length, transactionPlan.getSlotCount(), "slotValues");
+
+    if (poCommandManager.hasCommands()) {
+      throw new CalypsoPoTransactionIllegalStateException(
+          "Commands have been prepared before the execution of the plan.");
+    }
+
+    CompiledTransactionPlan compiledPlan =
+        ((TransactionPlanAdapter) transactionPlan).getCompiledPlan(calypsoPoSmartCard);
+
+    List<TransactionPlanAdapter.Step> steps = compiledPlan.getSteps();
+    for (int i = 0; i < steps.size(); i++) {
+      TransactionPlanAdapter.Step step = steps.get(i);
+      for (TransactionPlanAdapter.Command command : step.getCommands()) {
+        if (command.getSlotIndex() >= 0) {
+          Assert.getInstance()
+              .notNull(slotValues[command.getSlotIndex()], "slotValues")
+              .isEqual(
+                  slotValues[command.getSlotIndex()].length, command.getSlotLength(), "slotValues");
+        }
+      }
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands =
+          compiledPlan.getCommandBuilders(i, slotValues);
+      if (compiledPlan.isSessionBufferSufficient()) {
+        processPlanStep(step, poCommands, compiledPlan.getSessionBufferUsage(i));
+      } else {
+        // regular processing, with the buffer accounting and the possible splitting
+        for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> poCommand : poCommands) {
+          poCommandManager.addRegularCommand(poCommand);
+        }
+        switch (step.getType()) {
+          case OPENING:
+            processOpening(step.getSessionAccessLevel());
+            break;
+          case PO_COMMANDS:
+            processPoCommands();
+            break;
+          default:
+            processClosing();
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final TransactionCostEstimate explainOpening() {
+    checkSessionIsNotOpen();
+    if (poSecuritySettings == null) {
+      throw new CalypsoPoTransactionIllegalStateException("No security settings are available.");
+    }
+    TransactionCostEstimateAdapter costEstimate = createCostEstimate();
+    costEstimate.simulateOpening(poCommandManager.getPoCommandBuilders());
+    return costEstimate;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final TransactionCostEstimate explainPoCommands() {
+    TransactionCostEstimateAdapter costEstimate = createCostEstimate();
+    costEstimate.simulatePoCommands(poCommandManager.getPoCommandBuilders());
+    return costEstimate;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final TransactionCostEstimate explainClosing() {
+    checkSessionIsOpen();
+    TransactionCostEstimateAdapter costEstimate = createCostEstimate();
+    List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands =
+        poCommandManager.getPoCommandBuilders();
+    costEstimate.simulateClosing(poCommands, getCounterReadCommands(poCommands).size());
+    return costEstimate;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final TransactionCostEstimate explainPlan(TransactionPlan transactionPlan) {
+
+    Assert.getInstance().notNull(transactionPlan, "transactionPlan");
+
+    CompiledTransactionPlan compiledPlan =
+        ((TransactionPlanAdapter) transactionPlan).getCompiledPlan(calypsoPoSmartCard);
+
+    TransactionCostEstimateAdapter costEstimate = createCostEstimate();
+    List<TransactionPlanAdapter.Step> steps = compiledPlan.getSteps();
+    for (int i = 0; i < steps.size(); i++) {
+      TransactionPlanAdapter.Step step = steps.get(i);
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands =
+          compiledPlan.getTemplateCommandBuilders(i);
+      if (compiledPlan.isSessionBufferSufficient()) {
+        costEstimate.simulatePlanStep(
+            step.getType(), poCommands, compiledPlan.getSessionBufferUsage(i));
+      } else {
+        switch (step.getType()) {
+          case OPENING:
+            costEstimate.simulateOpening(poCommands);
+            break;
+          case PO_COMMANDS:
+            costEstimate.simulatePoCommands(poCommands);
+            break;
+          default:
+            costEstimate.simulateClosing(
+                poCommands, getCounterReadCommands(poCommands).size());
+        }
+      }
+    }
+    return costEstimate;
+  }
+
+  /**
+   * Creates a cost estimate initialized with the current state of the transaction.
+   *
+   * @return A not null reference.
+   */
+  private TransactionCostEstimateAdapter createCostEstimate() {
+    boolean isSecured = poSecuritySettings != null;
+    return new TransactionCostEstimateAdapter(
+        calypsoPoSmartCard,
+        modificationsCounter,
+        isSecured && poSecuritySettings.isMultipleSessionEnabled(),
+        isSecured
+            && poSecuritySettings.isRatificationMechanismEnabled()
+            && ((Reader) poReader).isContactless(),
+        sessionState == SessionState.SESSION_OPEN,
+        isSecured && samCommandProcessor.isDiversificationDone(),
+        isSecured ? samCommandProcessor.getPendingDigestCommandCount() : 0,
+        poCommandManager.isSvOperationComplete());
+  }
+
+  /**
+   * Executes a step of a compiled plan known to fit in the modifications buffer of the PO.
+   *
+   * @param step The step.
+   * @param poCommands The PO commands of the step.
+   * @param sessionBufferUsage The use of the modifications buffer by the commands.
+   * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
+   *     errors)
+   */
+  private void processPlanStep(
+      TransactionPlanAdapter.Step step,
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+      int sessionBufferUsage) {
+    switch (step.getType()) {
+      case OPENING:
+        currentSessionAccessLevel = step.getSessionAccessLevel();
+        resetModificationsBufferCounter();
+        processAtomicOpening(currentSessionAccessLevel, poCommands);
+        break;
+      case PO_COMMANDS:
+        if (!poCommands.isEmpty()) {
+          processAtomicPoCommands(
+              poCommands,
+              sessionState == SessionState.SESSION_OPEN
+                  ? ChannelControl.KEEP_OPEN
+                  : channelControl);
+        }
+        break;
+      default:
+        processAtomicClosing(
+            poCommands, poSecuritySettings.isRatificationMechanismEnabled(), channelControl);
+    }
+    modificationsCounter -= sessionBufferUsage;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the reader through which the card communicates.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  final Reader getPoReader() {
+    return (Reader) poReader;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void reset(PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+
+    // the SV operation left pending by the previous transaction, if any, is resolved
+    if (isSvOperationSent) {
+      journalSvFailure();
+    } else {
+      journalSvCancellation();
+    }
+
+    calypsoPoSmartCard = (PoSmartCardAdapter) poSmartCard;
+
+    modificationsCounter = calypsoPoSmartCard.getModificationsCounter();
+
+    sessionState = SessionState.SESSION_UNINITIALIZED;
+    currentSessionAccessLevel = null;
+    svAction = null;
+    channelControl = ChannelControl.KEEP_OPEN;
+
+    poCommandManager.reset();
+
+    consumePendingSvGet();
+
+    if (samCommandProcessor != null) {
+      samCommandProcessor.reset(poSmartCard);
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -868,7 +1464,7 @@ public final void processCancel() {
 
     // Build the PO Close Session command (in "abort" mode since no signature is provided).
     PoCloseSessionBuilder closeSessionCmdBuild =
-        new PoCloseSessionBuilder(calypsoPoSmartCard.getPoClass());
+        FixedCommandRegistry.getAbortSessionBuilder(calypsoPoSmartCard.getPoClass());
 
     poApduRequests.add(closeSessionCmdBuild.getApduRequest());
 
@@ -882,6 +1478,7 @@ public final void processCancel() {
           .createResponseParser(poCardResponse.getApduResponses().get(0))
           .checkStatus();
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR + "processing the response to close session: " + e.getCommand(), e);
     }
@@ -892,6 +1489,37 @@ public final void processCancel() {
     // session is now considered closed regardless the previous state or the result of the abort
     // session command sent to the PO.
     sessionState = SessionState.SESSION_CLOSED;
+
+    // the SAM is no longer needed for this session, its SV operation, if any, has not been done
+    endSamLease();
+    journalSvCancellation();
+  }
+
+  /**
+   * (private)<br>
+   * Releases the exclusive use of the SAM held by an abandoned session or SV operation, so that a
+   * failed transaction does not block the other transactions until the lease timeout.
+   */
+  private void endSamLease() {
+    if (samCommandProcessor != null) {
+      samCommandProcessor.endSamLease();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Abandons the session or the SV operation in progress after an exchange failure with the PO or
+   * the SAM: the SAM is released and the SV operation, if any, is recorded as incomplete in the SV
+   * journal if it may have been sent to the PO (otherwise it remains pending).
+   *
+   * <p>Argument or state validation failures do not abandon anything: no command has been
+   * exchanged and the session can still be closed or aborted with the SAM that opened it.
+   */
+  private void abandonPendingOperations() {
+    endSamLease();
+    if (isSvOperationSent) {
+      journalSvFailure();
+    }
   }
 
   /**
@@ -901,6 +1529,36 @@ public final void processCancel() {
    */
   @Override
   public final void processVerifyPin(byte[] pin) {
+    verifyPin(pin, false);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final ProcessResult tryProcessVerifyPin(byte[] pin) {
+    verifyPin(pin, true);
+    int pinAttemptRemaining = calypsoPoSmartCard.getPinAttemptRemaining();
+    if (pinAttemptRemaining == 0) {
+      return new ProcessResultAdapter(ProcessResult.Status.PIN_BLOCKED, pinAttemptRemaining);
+    }
+    if (pinAttemptRemaining < CalypsoPoUtils.PIN_ATTEMPTS_MAX) {
+      return new ProcessResultAdapter(ProcessResult.Status.INCORRECT_PIN, pinAttemptRemaining);
+    }
+    return ProcessResultAdapter.SUCCESS;
+  }
+
+  /**
+   * (private)<br>
+   * Performs the PIN verification.
+   *
+   * @param pin the PIN code value (4-byte long byte array).
+   * @param isPinStatusExpected true if a rejected presentation must only update the attempt
+   *     counter, without raising an exception.
+   */
+  private void verifyPin(byte[] pin, boolean isPinStatusExpected) {
     Assert.getInstance()
         .notNull(pin, "pin")
         .isEqual(pin.length, CalypsoPoUtils.PIN_LENGTH, "PIN length");
@@ -914,9 +1572,10 @@ public final void processVerifyPin(byte[] pin) {
           "No commands should have been prepared prior to a PIN submission.");
     }
 
+    PoVerifyPinBuilder verifyPinBuilder;
     if (poSecuritySettings != null && !poSecuritySettings.isPinTransmissionEncryptionDisabled()) {
       poCommandManager.addRegularCommand(
-          new PoGetChallengeBuilder(calypsoPoSmartCard.getPoClass()));
+          FixedCommandRegistry.getPoGetChallengeBuilder(calypsoPoSmartCard.getPoClass()));
 
       // transmit and receive data with the PO
       processAtomicPoCommands(poCommandManager.getPoCommandBuilders(), ChannelControl.KEEP_OPEN);
@@ -928,24 +1587,29 @@ public final void processVerifyPin(byte[] pin) {
       byte[] cipheredPin;
       try {
         cipheredPin =
-            samCommandProcessor.getCipheredPinData(CalypsoPoUtils.getPoChallenge(), pin, null);
+            samCommandProcessor.getCipheredPinData(calypsoPoSmartCard.getPoChallenge(), pin, null);
       } catch (CalypsoSamCommandException e) {
+        abandonPendingOperations();
         throw new CalypsoSamAnomalyException(
             SAM_COMMAND_ERROR + "generating of the PIN ciphered data: " + e.getCommand().getName(),
             e);
       } catch (ReaderCommunicationException e) {
+        abandonPendingOperations();
         throw new CalypsoSamIOException(
             SAM_READER_COMMUNICATION_ERROR + "generating of the PIN ciphered data.", e);
       } catch (CardCommunicationException e) {
+        abandonPendingOperations();
         throw new CalypsoSamIOException(
             SAM_COMMUNICATION_ERROR + "generating of the PIN ciphered data.", e);
       }
-      poCommandManager.addRegularCommand(
-          new PoVerifyPinBuilder(calypsoPoSmartCard.getPoClass(), true, cipheredPin));
+      verifyPinBuilder = new PoVerifyPinBuilder(calypsoPoSmartCard.getPoClass(), true, cipheredPin);
     } else {
-      poCommandManager.addRegularCommand(
-          new PoVerifyPinBuilder(calypsoPoSmartCard.getPoClass(), false, pin));
+      verifyPinBuilder = new PoVerifyPinBuilder(calypsoPoSmartCard.getPoClass(), false, pin);
+    }
+    if (isPinStatusExpected) {
+      verifyPinBuilder.setPinStatusExpected();
     }
+    poCommandManager.addRegularCommand(verifyPinBuilder);
 
     // transmit and receive data with the PO
     processAtomicPoCommands(poCommandManager.getPoCommandBuilders(), channelControl);
@@ -968,10 +1632,13 @@ private CardResponse safePoTransmit(CardRequest poCardRequest, ChannelControl ch
     try {
       return poReader.transmitCardRequest(poCardRequest, channelControl);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoPoIOException(PO_READER_COMMUNICATION_ERROR + TRANSMITTING_COMMANDS, e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoPoIOException(PO_COMMUNICATION_ERROR + TRANSMITTING_COMMANDS, e);
     } catch (UnexpectedStatusCodeException e) {
+      abandonPendingOperations();
       throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
     }
   }
@@ -988,12 +1655,15 @@ private byte[] getSessionTerminalChallenge() {
     try {
       sessionTerminalChallenge = samCommandProcessor.getSessionTerminalChallenge();
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "getting the terminal challenge: " + e.getCommand().getName(), e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + "getting the terminal challenge.", e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(SAM_COMMUNICATION_ERROR + "getting terminal challenge.", e);
     }
     return sessionTerminalChallenge;
@@ -1011,12 +1681,15 @@ private byte[] getSessionTerminalSignature() {
     try {
       sessionTerminalSignature = samCommandProcessor.getTerminalSignature();
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "getting the terminal signature: " + e.getCommand().getName(), e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_COMMUNICATION_ERROR + "getting the terminal signature.", e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + "getting the terminal signature.", e);
     }
@@ -1035,15 +1708,19 @@ private void checkPoSignature(byte[] poSignature) {
     try {
       samCommandProcessor.authenticatePoSignature(poSignature);
     } catch (CalypsoSamSecurityDataException e) {
+      abandonPendingOperations();
       throw new CalypsoSessionAuthenticationException(
           "The authentication of the PO by the SAM has failed.", e);
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "authenticating the PO signature: " + e.getCommand().getName(), e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + "authenticating the PO signature.", e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_COMMUNICATION_ERROR + "authenticating the PO signature.", e);
     }
@@ -1062,32 +1739,124 @@ private void checkSvOperationStatus(byte[] poPostponedData) {
     try {
       samCommandProcessor.checkSvStatus(poPostponedData);
     } catch (CalypsoSamSecurityDataException e) {
+      abandonPendingOperations();
       throw new CalypsoSvAuthenticationException(
           "The checking of the SV operation by the SAM has failed.", e);
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "checking the SV operation: " + e.getCommand().getName(), e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(SAM_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
     }
+    journalSvConfirmation();
   }
 
   /**
-   * Get the close session parser.
+   * (private)<br>
+   * Records the SV operation just prepared by the SAM in the SV journal, if any, before it is sent
+   * to the PO.
    *
-   * @param poApduResponses The responses received from the PO.
-   * @param closeSessionCmdBuild The command builder.
-   * @param closeCommandIndex The index of the close command within the request.
-   * @throws CalypsoPoCloseSecureSessionException If a security error occurs.
-   * @throws CalypsoPoAnomalyException If PO returned an unexpected response.
+   * @param operation The SV operation.
+   * @param action The SV action.
+   * @param amount The amount.
    */
-  private PoCloseSessionParser getPoCloseSessionParser(
-      List<ApduResponse> poApduResponses,
-      PoCloseSessionBuilder closeSessionCmdBuild,
-      int closeCommandIndex) {
+  private void journalSvIntent(
+      SvSettings.Operation operation, SvSettings.Action action, int amount) {
+    SvJournalAdapter svJournal = (SvJournalAdapter) poSecuritySettings.getSvJournal();
+    isSvOperationSent = false;
+    if (svJournal != null) {
+      svJournalSequenceNumber =
+          svJournal.recordIntent(
+              calypsoPoSmartCard.getApplicationSerialNumberBytes(),
+              calypsoPoSmartCard.getSvLastTNum(),
+              operation,
+              action,
+              amount,
+              samCommandProcessor.getSamSerialNumber());
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Notes that the journaled SV operation, if any, may have reached the PO when the provided
+   * commands are about to be transmitted.
+   *
+   * @param poCommands The PO commands about to be transmitted (may be null).
+   */
+  private void notifySvOperationSent(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
+    if (svJournalSequenceNumber == null || poCommands == null) {
+      return;
+    }
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> poCommand : poCommands) {
+      if (poCommand.getCommandRef() == PoCommand.SV_RELOAD
+          || poCommand.getCommandRef() == PoCommand.SV_DEBIT
+          || poCommand.getCommandRef() == PoCommand.SV_UNDEBIT) {
+        isSvOperationSent = true;
+        return;
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Records in the SV journal, if any, that the SV operation has been checked by the SAM.
+   */
+  private void journalSvConfirmation() {
+    if (svJournalSequenceNumber != null) {
+      ((SvJournalAdapter) poSecuritySettings.getSvJournal())
+          .recordConfirmation(svJournalSequenceNumber);
+      svJournalSequenceNumber = null;
+      isSvOperationSent = false;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Records in the SV journal, if any, that the outcome of the SV operation is unknown, so that it
+   * is reported as an incomplete entry.
+   */
+  private void journalSvFailure() {
+    if (svJournalSequenceNumber != null) {
+      ((SvJournalAdapter) poSecuritySettings.getSvJournal())
+          .recordFailure(svJournalSequenceNumber);
+      svJournalSequenceNumber = null;
+      isSvOperationSent = false;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Records in the SV journal, if any, that the SV operation has been cancelled with its session.
+   */
+  private void journalSvCancellation() {
+    if (svJournalSequenceNumber != null) {
+      ((SvJournalAdapter) poSecuritySettings.getSvJournal())
+          .recordCancellation(svJournalSequenceNumber);
+      svJournalSequenceNumber = null;
+      isSvOperationSent = false;
+    }
+  }
+
+  /**
+   * Get the close session parser.
+   *
+   * @param poApduResponses The responses received from the PO.
+   * @param closeSessionCmdBuild The command builder.
+   * @param closeCommandIndex The index of the close command within the request.
+   * @throws CalypsoPoCloseSecureSessionException If a security error occurs.
+   * @throws CalypsoPoAnomalyException If PO returned an unexpected response.
+   */
+  private PoCloseSessionParser getPoCloseSessionParser(
+      List<ApduResponse> poApduResponses,
+      PoCloseSessionBuilder closeSessionCmdBuild,
+      int closeCommandIndex) {
     PoCloseSessionParser poCloseSessionPars;
     try {
       poCloseSessionPars =
@@ -1095,8 +1864,10 @@ private PoCloseSessionParser getPoCloseSessionParser(
               CalypsoPoUtils.updateCalypsoPo(
                   calypsoPoSmartCard, closeSessionCmdBuild, poApduResponses.get(closeCommandIndex));
     } catch (CalypsoPoSecurityDataException e) {
+      abandonPendingOperations();
       throw new CalypsoPoCloseSecureSessionException("Invalid PO session", e);
     } catch (CalypsoPoCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoPoAnomalyException(
           PO_COMMAND_ERROR + "processing the response to close session: " + e.getCommand(), e);
     }
@@ -1140,6 +1911,7 @@ private void checkSessionIsNotOpen() {
    */
   private void checkCommandsResponsesSynchronization(int commandsNumber, int responsesNumber) {
     if (commandsNumber != responsesNumber) {
+      abandonPendingOperations();
       throw new CalypsoDesynchronizedExchangesException(
           "The number of commands/responses does not match: cmd="
               + commandsNumber
@@ -1307,42 +2079,115 @@ public final void prepareReadRecordFile(
             CalypsoPoUtils.NB_REC_MAX - firstRecordNumber,
             "numberOfRecords");
 
-    if (numberOfRecords == 1) {
-      // create the builder and add it to the list of commands
+    // create the builders and add them to the list of commands
+    for (PoReadRecordsBuilder poReadRecordsBuilder :
+        CalypsoPoUtils.prepareReadRecordFile(
+            calypsoPoSmartCard.getPoClass(),
+            sfi,
+            firstRecordNumber,
+            numberOfRecords,
+            recordSize,
+            calypsoPoSmartCard.getPayloadCapacity())) {
+      poCommandManager.addRegularCommand(poReadRecordsBuilder);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void prepareReadRecordFilePartially(
+      byte sfi, int fromRecordNumber, int toRecordNumber, int offset, int nbBytesToRead) {
+
+    if (!calypsoPoSmartCard.isExtendedModeSupported()) {
+      throw new CalypsoPoTransactionIllegalStateException(
+          "The 'Read Record Multiple' command is not available for this PO.");
+    }
+
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            fromRecordNumber,
+            CalypsoPoUtils.NB_REC_MIN,
+            CalypsoPoUtils.NB_REC_MAX,
+            "fromRecordNumber") //
+        .isInRange(
+            toRecordNumber, fromRecordNumber, CalypsoPoUtils.NB_REC_MAX, "toRecordNumber") //
+        .isInRange(offset, CalypsoPoUtils.OFFSET_MIN, CalypsoPoUtils.OFFSET_MAX, "offset") //
+        .isInRange(
+            nbBytesToRead,
+            1,
+            Math.min(
+                CalypsoPoUtils.RECORD_SIZE_MAX - offset, calypsoPoSmartCard.getPayloadCapacity()),
+            "nbBytesToRead");
+
+    // as many records as the transmission capacity allows in each command, the records not
+    // returned by the PO are read afterwards (see processReadRecordMultipleContinuations)
+    int nbRecordsPerApdu = calypsoPoSmartCard.getPayloadCapacity() / nbBytesToRead;
+    for (int recordNumber = fromRecordNumber;
+        recordNumber <= toRecordNumber;
+        recordNumber += nbRecordsPerApdu) {
       poCommandManager.addRegularCommand(
-          new PoReadRecordsBuilder(
+          new PoReadRecordMultipleBuilder(
               calypsoPoSmartCard.getPoClass(),
               sfi,
-              firstRecordNumber,
-              PoReadRecordsBuilder.ReadMode.ONE_RECORD,
-              recordSize));
-    } else {
-      // Manages the reading of multiple records taking into account the transmission capacity
-      // of the PO and the response format (2 extra bytes)
-      // Multiple APDUs can be generated depending on record size and transmission capacity.
-      int recordsPerApdu = calypsoPoSmartCard.getPayloadCapacity() / (recordSize + 2);
-      int maxSizeDataPerApdu = recordsPerApdu * (recordSize + 2);
-      int remainingRecords = numberOfRecords;
-      int startRecordNumber = firstRecordNumber;
-      while (remainingRecords > 0) {
-        int expectedLength;
-        if (remainingRecords > recordsPerApdu) {
-          expectedLength = maxSizeDataPerApdu;
-          remainingRecords = remainingRecords - recordsPerApdu;
-          startRecordNumber = startRecordNumber + recordsPerApdu;
-        } else {
-          expectedLength = remainingRecords * (recordSize + 2);
-          remainingRecords = 0;
-        }
-        // create the builder and add it to the list of commands
-        poCommandManager.addRegularCommand(
-            new PoReadRecordsBuilder(
-                calypsoPoSmartCard.getPoClass(),
-                sfi,
-                startRecordNumber,
-                PoReadRecordsBuilder.ReadMode.MULTIPLE_RECORD,
-                expectedLength));
-      }
+              recordNumber,
+              Math.min(recordNumber + nbRecordsPerApdu - 1, toRecordNumber),
+              offset,
+              nbBytesToRead));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void prepareSearchRecordMultiple(SearchCommandData data) {
+
+    if (!calypsoPoSmartCard.isExtendedModeSupported()) {
+      throw new CalypsoPoTransactionIllegalStateException(
+          "The 'Search Record Multiple' command is not available for this PO.");
+    }
+
+    Assert.getInstance().notNull(data, "data");
+    SearchCommandDataAdapter searchCommandData = (SearchCommandDataAdapter) data;
+    Assert.getInstance().notNull(searchCommandData.getSearchData(), "searchData");
+
+    poCommandManager.addRegularCommand(
+        new PoSearchRecordMultipleBuilder(calypsoPoSmartCard.getPoClass(), searchCommandData));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void prepareReadBinary(byte sfi, int offset, int nbBytesToRead) {
+
+    checkBinaryCommandSupported("Read Binary");
+
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(offset, CalypsoPoUtils.OFFSET_MIN, CalypsoPoUtils.OFFSET_BINARY_MAX, "offset") //
+        .isInRange(
+            nbBytesToRead, 1, CalypsoPoUtils.OFFSET_BINARY_MAX + 1 - offset, "nbBytesToRead");
+
+    prepareBinaryFileSelection(sfi, offset);
+
+    int payloadCapacity = calypsoPoSmartCard.getPayloadCapacity();
+    int endOffset = offset + nbBytesToRead;
+    for (int currentOffset = offset; currentOffset < endOffset; currentOffset += payloadCapacity) {
+      poCommandManager.addRegularCommand(
+          new PoReadBinaryBuilder(
+              calypsoPoSmartCard.getPoClass(),
+              sfi,
+              currentOffset,
+              Math.min(endOffset - currentOffset, payloadCapacity)));
     }
   }
 
@@ -1405,6 +2250,99 @@ public final void prepareWriteRecord(byte sfi, int recordNumber, byte[] recordDa
         new PoWriteRecordBuilder(calypsoPoSmartCard.getPoClass(), sfi, recordNumber, recordData));
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void prepareUpdateBinary(byte sfi, int offset, byte[] data) {
+    prepareUpdateOrWriteBinary(true, sfi, offset, data);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final void prepareWriteBinary(byte sfi, int offset, byte[] data) {
+    prepareUpdateOrWriteBinary(false, sfi, offset, data);
+  }
+
+  /**
+   * Schedules the Update Binary or Write Binary commands needed to transfer the provided data.
+   *
+   * <p>Each command carries at most the PO payload capacity and, in bytes mode, must fit in the
+   * modifications buffer of an empty session so that it can be handled by the session splitting.
+   *
+   * @param isUpdateCommand true for Update Binary, false for Write Binary.
+   * @param sfi the SFI of the EF.
+   * @param offset the offset of the first byte to transfer.
+   * @param data the data to transfer.
+   */
+  private void prepareUpdateOrWriteBinary(
+      boolean isUpdateCommand, byte sfi, int offset, byte[] data) {
+
+    checkBinaryCommandSupported(isUpdateCommand ? "Update Binary" : "Write Binary");
+
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(offset, CalypsoPoUtils.OFFSET_MIN, CalypsoPoUtils.OFFSET_BINARY_MAX, "offset") //
+        .notEmpty(data, "data") //
+        .isInRange(data.length, 1, CalypsoPoUtils.OFFSET_BINARY_MAX + 1 - offset, "data length");
+
+    prepareBinaryFileSelection(sfi, offset);
+
+    int maxChunkLength = calypsoPoSmartCard.getPayloadCapacity();
+    if (calypsoPoSmartCard.isModificationsCounterInBytes()) {
+      maxChunkLength =
+          Math.min(
+              maxChunkLength,
+              calypsoPoSmartCard.getModificationsCounter() - SESSION_BUFFER_CMD_ADDITIONAL_COST);
+    }
+    for (int index = 0; index < data.length; index += maxChunkLength) {
+      byte[] chunk = Arrays.copyOfRange(data, index, Math.min(data.length, index + maxChunkLength));
+      if (isUpdateCommand) {
+        poCommandManager.addRegularCommand(
+            new PoUpdateBinaryBuilder(calypsoPoSmartCard.getPoClass(), sfi, offset + index, chunk));
+      } else {
+        poCommandManager.addRegularCommand(
+            new PoWriteBinaryBuilder(calypsoPoSmartCard.getPoClass(), sfi, offset + index, chunk));
+      }
+    }
+  }
+
+  /**
+   * Checks that the PO supports the binary file commands.
+   *
+   * @param commandName the name of the command, for the exception message.
+   * @throws CalypsoPoTransactionIllegalStateException if the PO is a revision 1 PO
+   */
+  private void checkBinaryCommandSupported(String commandName) {
+    if (calypsoPoSmartCard.getRevision() == PoRevision.REV1_0) {
+      throw new CalypsoPoTransactionIllegalStateException(
+          "The '" + commandName + "' command is not available for this PO.");
+    }
+  }
+
+  /**
+   * Schedules the selection of a binary file when the offset of the first command does not allow
+   * to select it by its SFI.
+   *
+   * <p>The file is selected by reading its first byte, the following commands then apply to the
+   * current EF.
+   *
+   * @param sfi the SFI of the EF.
+   * @param offset the offset of the first command.
+   */
+  private void prepareBinaryFileSelection(byte sfi, int offset) {
+    if (sfi > 0 && offset > 255) {
+      poCommandManager.addRegularCommand(
+          new PoReadBinaryBuilder(calypsoPoSmartCard.getPoClass(), sfi, 0, 1));
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -1422,9 +2360,7 @@ public final void prepareIncreaseCounter(byte sfi, int counterNumber, int incVal
         .isInRange(
             incValue, CalypsoPoUtils.CNT_VALUE_MIN, CalypsoPoUtils.CNT_VALUE_MAX, "incValue");
 
-    // create the builder and add it to the list of commands
-    poCommandManager.addRegularCommand(
-        new PoIncreaseBuilder(calypsoPoSmartCard.getPoClass(), sfi, counterNumber, incValue));
+    prepareCounterOperation(PoCommand.INCREASE, sfi, counterNumber, incValue);
   }
 
   /**
@@ -1444,9 +2380,116 @@ public final void prepareDecreaseCounter(byte sfi, int counterNumber, int decVal
         .isInRange(
             decValue, CalypsoPoUtils.CNT_VALUE_MIN, CalypsoPoUtils.CNT_VALUE_MAX, "decValue");
 
+    prepareCounterOperation(PoCommand.DECREASE, sfi, counterNumber, decValue);
+  }
+
+  /**
+   * Prepares an Increase or Decrease command.
+   *
+   * <p>When the PO supports the extended mode, successive operations on different counters of a
+   * same EF are merged into a single Increase Multiple or Decrease Multiple command, within the
+   * limits of the PO transmission capacity and modifications buffer.
+   *
+   * @param command the INCREASE or DECREASE command.
+   * @param sfi the SFI of the EF containing the counter.
+   * @param counterNumber the number of the counter.
+   * @param value the increment or decrement value.
+   */
+  private void prepareCounterOperation(
+      PoCommand command, byte sfi, int counterNumber, int value) {
+    PoClass poClass = calypsoPoSmartCard.getPoClass();
+    if (calypsoPoSmartCard.isExtendedModeSupported()) {
+      Map<Integer, Integer> counterNumberToValueMap =
+          getMergeableCounterOperations(
+              poCommandManager.getLastRegularCommand(), command, sfi, counterNumber);
+      if (counterNumberToValueMap != null) {
+        counterNumberToValueMap.put(counterNumber, value);
+        poCommandManager.replaceLastRegularCommand(
+            command == PoCommand.INCREASE
+                ? new PoIncreaseMultipleBuilder(poClass, sfi, counterNumberToValueMap)
+                : new PoDecreaseMultipleBuilder(poClass, sfi, counterNumberToValueMap));
+        return;
+      }
+    }
     // create the builder and add it to the list of commands
     poCommandManager.addRegularCommand(
-        new PoDecreaseBuilder(calypsoPoSmartCard.getPoClass(), sfi, counterNumber, decValue));
+        command == PoCommand.INCREASE
+            ? new PoIncreaseBuilder(poClass, sfi, counterNumber, value)
+            : new PoDecreaseBuilder(poClass, sfi, counterNumber, value));
+  }
+
+  /**
+   * Gets the counter operations of the provided command if a new operation of the same kind can be
+   * merged with it.
+   *
+   * @param lastCommand the last prepared command (may be null).
+   * @param command the INCREASE or DECREASE command to merge.
+   * @param sfi the SFI of the EF containing the counter.
+   * @param counterNumber the number of the counter.
+   * @return a new modifiable map of the values by counter number or null if the operation cannot
+   *     be merged.
+   */
+  private Map<Integer, Integer> getMergeableCounterOperations(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> lastCommand,
+      PoCommand command,
+      byte sfi,
+      int counterNumber) {
+    // the simulated counters (number 0) are not handled by the multiple commands
+    if (lastCommand == null || counterNumber == 0) {
+      return null;
+    }
+    Map<Integer, Integer> counterNumberToValueMap = new HashMap<Integer, Integer>();
+    int lastSfi;
+    if (command == PoCommand.INCREASE && lastCommand.getCommandRef() == PoCommand.INCREASE) {
+      PoIncreaseBuilder increaseBuilder = (PoIncreaseBuilder) lastCommand;
+      lastSfi = increaseBuilder.getSfi();
+      counterNumberToValueMap.put(
+          increaseBuilder.getCounterNumber(), increaseBuilder.getIncValue());
+    } else if (command == PoCommand.INCREASE
+        && lastCommand.getCommandRef() == PoCommand.INCREASE_MULTIPLE) {
+      PoIncreaseMultipleBuilder increaseMultipleBuilder = (PoIncreaseMultipleBuilder) lastCommand;
+      lastSfi = increaseMultipleBuilder.getSfi();
+      counterNumberToValueMap.putAll(
+          increaseMultipleBuilder.getCounterNumberToIncreaseValueMap());
+    } else if (command == PoCommand.DECREASE
+        && lastCommand.getCommandRef() == PoCommand.DECREASE) {
+      PoDecreaseBuilder decreaseBuilder = (PoDecreaseBuilder) lastCommand;
+      lastSfi = decreaseBuilder.getSfi();
+      counterNumberToValueMap.put(
+          decreaseBuilder.getCounterNumber(), decreaseBuilder.getDecValue());
+    } else if (command == PoCommand.DECREASE
+        && lastCommand.getCommandRef() == PoCommand.DECREASE_MULTIPLE) {
+      PoDecreaseMultipleBuilder decreaseMultipleBuilder = (PoDecreaseMultipleBuilder) lastCommand;
+      lastSfi = decreaseMultipleBuilder.getSfi();
+      counterNumberToValueMap.putAll(
+          decreaseMultipleBuilder.getCounterNumberToDecreaseValueMap());
+    } else {
+      return null;
+    }
+    if (lastSfi != sfi
+        || counterNumberToValueMap.containsKey(0)
+        || counterNumberToValueMap.containsKey(counterNumber)
+        || counterNumberToValueMap.size() >= getMaxCountersPerMultipleCommand()) {
+      return null;
+    }
+    return counterNumberToValueMap;
+  }
+
+  /**
+   * Gets the maximum number of counters handled by an Increase Multiple or Decrease Multiple
+   * command, each counter taking 4 bytes in the command and in the response.
+   *
+   * @return a positive int
+   */
+  private int getMaxCountersPerMultipleCommand() {
+    int maxCounters = calypsoPoSmartCard.getPayloadCapacity() / 4;
+    if (calypsoPoSmartCard.isModificationsCounterInBytes()) {
+      // the whole command must fit in the modifications buffer of an empty session
+      int maxSessionCounters =
+          (calypsoPoSmartCard.getModificationsCounter() - SESSION_BUFFER_CMD_ADDITIONAL_COST) / 4;
+      maxCounters = Math.min(maxCounters, maxSessionCounters);
+    }
+    return maxCounters;
   }
 
   /**
@@ -1508,7 +2551,8 @@ public final void prepareCheckPinStatus() {
       throw new CalypsoPoTransactionIllegalStateException("PIN is not available for this PO.");
     }
     // create the builder and add it to the list of commands
-    poCommandManager.addRegularCommand(new PoVerifyPinBuilder(calypsoPoSmartCard.getPoClass()));
+    poCommandManager.addRegularCommand(
+        FixedCommandRegistry.getReadPinCounterBuilder(calypsoPoSmartCard.getPoClass()));
   }
 
   /**
@@ -1522,6 +2566,21 @@ public final void prepareSvGet(SvSettings.Operation svOperation, SvSettings.Acti
       throw new CalypsoPoTransactionIllegalStateException(
           "Stored Value is not available for this PO.");
     }
+    for (PoSvGetBuilder svGetBuilder : createSvGetBuilders(svOperation)) {
+      poCommandManager.addStoredValueCommand(svGetBuilder, svGetBuilder.getSvOperation());
+    }
+    this.svAction = svAction;
+  }
+
+  /**
+   * (private)<br>
+   * Creates the SV Get command(s) needed before an SV operation.
+   *
+   * @param svOperation The SV operation.
+   * @return A list of one or two builders, the last one being for the provided operation.
+   */
+  private List<PoSvGetBuilder> createSvGetBuilders(SvSettings.Operation svOperation) {
+    List<PoSvGetBuilder> svGetBuilders = new ArrayList<PoSvGetBuilder>(2);
     if (poSecuritySettings.isLoadAndDebitSvLogRequired()
         && (calypsoPoSmartCard.getRevision() != PoRevision.REV3_2)) {
       // @see Calypso Layer ID 8.09/8.10 (200108): both reload and debit logs are requested
@@ -1530,16 +2589,14 @@ public final void prepareSvGet(SvSettings.Operation svOperation, SvSettings.Acti
           SvSettings.Operation.RELOAD.equals(svOperation)
               ? SvSettings.Operation.DEBIT
               : SvSettings.Operation.RELOAD;
-      poCommandManager.addStoredValueCommand(
+      svGetBuilders.add(
           new PoSvGetBuilder(
-              calypsoPoSmartCard.getPoClass(), calypsoPoSmartCard.getRevision(), operation1),
-          operation1);
+              calypsoPoSmartCard.getPoClass(), calypsoPoSmartCard.getRevision(), operation1));
     }
-    poCommandManager.addStoredValueCommand(
+    svGetBuilders.add(
         new PoSvGetBuilder(
-            calypsoPoSmartCard.getPoClass(), calypsoPoSmartCard.getRevision(), svOperation),
-        svOperation);
-    this.svAction = svAction;
+            calypsoPoSmartCard.getPoClass(), calypsoPoSmartCard.getRevision(), svOperation));
+    return svGetBuilders;
   }
 
   /**
@@ -1555,7 +2612,7 @@ public final void prepareSvReload(int amount, byte[] date, byte[] time, byte[] f
             calypsoPoSmartCard.getPoClass(),
             calypsoPoSmartCard.getRevision(),
             amount,
-            CalypsoPoUtils.getSvKvc(),
+            calypsoPoSmartCard.getSvKvc(),
             date,
             time,
             free);
@@ -1565,14 +2622,19 @@ public final void prepareSvReload(int amount, byte[] date, byte[] time, byte[] f
     try {
       svReloadComplementaryData =
           samCommandProcessor.getSvReloadComplementaryData(
-              svReloadCmdBuild, CalypsoPoUtils.getSvGetHeader(), CalypsoPoUtils.getSvGetData());
+              svReloadCmdBuild,
+              calypsoPoSmartCard.getSvGetHeader(),
+              calypsoPoSmartCard.getSvGetData());
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "preparing the SV reload command: " + e.getCommand().getName(), e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + "preparing the SV reload command.", e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_COMMUNICATION_ERROR + "preparing the SV reload command.", e);
     }
@@ -1580,6 +2642,11 @@ public final void prepareSvReload(int amount, byte[] date, byte[] time, byte[] f
     // finalize the SvReload command builder with the data provided by the SAM
     svReloadCmdBuild.finalizeBuilder(svReloadComplementaryData);
 
+    journalSvIntent(
+        SvSettings.Operation.RELOAD,
+        amount >= 0 ? SvSettings.Action.DO : SvSettings.Action.UNDO,
+        amount);
+
     // create and keep the PoCommand
     poCommandManager.addStoredValueCommand(svReloadCmdBuild, SvSettings.Operation.RELOAD);
   }
@@ -1620,7 +2687,7 @@ private void prepareSvDebitPriv(int amount, byte[] date, byte[] time)
             calypsoPoSmartCard.getPoClass(),
             calypsoPoSmartCard.getRevision(),
             amount,
-            CalypsoPoUtils.getSvKvc(),
+            calypsoPoSmartCard.getSvKvc(),
             date,
             time);
 
@@ -1628,11 +2695,15 @@ private void prepareSvDebitPriv(int amount, byte[] date, byte[] time)
     byte[] svDebitComplementaryData;
     svDebitComplementaryData =
         samCommandProcessor.getSvDebitComplementaryData(
-            svDebitCmdBuild, CalypsoPoUtils.getSvGetHeader(), CalypsoPoUtils.getSvGetData());
+            svDebitCmdBuild,
+            calypsoPoSmartCard.getSvGetHeader(),
+            calypsoPoSmartCard.getSvGetData());
 
     // finalize the SvDebit command builder with the data provided by the SAM
     svDebitCmdBuild.finalizeBuilder(svDebitComplementaryData);
 
+    journalSvIntent(SvSettings.Operation.DEBIT, SvSettings.Action.DO, amount);
+
     // create and keep the PoCommand
     poCommandManager.addStoredValueCommand(svDebitCmdBuild, SvSettings.Operation.DEBIT);
   }
@@ -1656,7 +2727,7 @@ private void prepareSvUndebitPriv(int amount, byte[] date, byte[] time)
             calypsoPoSmartCard.getPoClass(),
             calypsoPoSmartCard.getRevision(),
             amount,
-            CalypsoPoUtils.getSvKvc(),
+            calypsoPoSmartCard.getSvKvc(),
             date,
             time);
 
@@ -1664,11 +2735,15 @@ private void prepareSvUndebitPriv(int amount, byte[] date, byte[] time)
     byte[] svDebitComplementaryData;
     svDebitComplementaryData =
         samCommandProcessor.getSvUndebitComplementaryData(
-            svUndebitCmdBuild, CalypsoPoUtils.getSvGetHeader(), CalypsoPoUtils.getSvGetData());
+            svUndebitCmdBuild,
+            calypsoPoSmartCard.getSvGetHeader(),
+            calypsoPoSmartCard.getSvGetData());
 
     // finalize the SvUndebit command builder with the data provided by the SAM
     svUndebitCmdBuild.finalizeBuilder(svDebitComplementaryData);
 
+    journalSvIntent(SvSettings.Operation.DEBIT, SvSettings.Action.UNDO, amount);
+
     // create and keep the PoCommand
     poCommandManager.addStoredValueCommand(svUndebitCmdBuild, SvSettings.Operation.DEBIT);
   }
@@ -1687,13 +2762,16 @@ public final void prepareSvDebit(int amount, byte[] date, byte[] time) {
         prepareSvUndebitPriv(amount, date, time);
       }
     } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
       throw new CalypsoSamAnomalyException(
           SAM_COMMAND_ERROR + "preparing the SV debit/undebit command: " + e.getCommand().getName(),
           e);
     } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_READER_COMMUNICATION_ERROR + "preparing the SV debit/undebit command.", e);
     } catch (CardCommunicationException e) {
+      abandonPendingOperations();
       throw new CalypsoSamIOException(
           SAM_COMMUNICATION_ERROR + "preparing the SV debit/undebit command.", e);
     }
@@ -1710,6 +2788,273 @@ public final void prepareSvDebit(int amount) {
     prepareSvDebit(amount, zero, zero);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final ProcessResult tryPrepareSvDebit(int amount) {
+    // same check as the debit itself, done before any exception can be built
+    if (SvSettings.Action.DO.equals(svAction)
+        && !poSecuritySettings.isSvNegativeBalanceAllowed()
+        && (calypsoPoSmartCard.getSvBalance() - amount) < 0) {
+      return new ProcessResultAdapter(
+          ProcessResult.Status.NEGATIVE_SV_BALANCE, calypsoPoSmartCard.getSvBalance());
+    }
+    prepareSvDebit(amount);
+    return ProcessResultAdapter.SUCCESS;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final List<SvOperationResult> processSvBatch(
+      SvSettings.Operation svOperation, SvSettings.Action svAction, int... amounts) {
+
+    Assert.getInstance() //
+        .notNull(svOperation, "svOperation") //
+        .notNull(svAction, "svAction") //
+        .notNull(amounts, "amounts");
+
+    checkSessionIsNotOpen();
+    if (poSecuritySettings == null) {
+      throw new CalypsoPoTransactionIllegalStateException("No security settings are available.");
+    }
+    if (poCommandManager.hasCommands()) {
+      throw new CalypsoPoTransactionIllegalStateException(
+          "The SV batch cannot be processed with other prepared commands.");
+    }
+
+    List<SvOperationResult> results = new ArrayList<SvOperationResult>(amounts.length);
+    if (amounts.length == 0) {
+      return results;
+    }
+
+    // the first SV Get, unless it has already been executed
+    if (!poCommandManager.isSvGetProcessed(svOperation)) {
+      prepareSvGet(svOperation, svAction);
+      processAtomicPoCommands(poCommandManager.getPoCommandBuilders(), ChannelControl.KEEP_OPEN);
+      poCommandManager.notifyCommandsProcessed();
+    }
+    this.svAction = svAction;
+
+    // the first SV Prepare, the following ones are sent with the SV Check of the previous operation
+    AbstractPoCommandBuilder<? extends AbstractPoResponseParser> svOperationBuilder =
+        createSvOperationBuilder(svOperation, svAction, amounts[0]);
+    byte[] svComplementaryData;
+    try {
+      svComplementaryData =
+          samCommandProcessor.getSvOperationComplementaryData(
+              svOperationBuilder,
+              calypsoPoSmartCard.getSvGetHeader(),
+              calypsoPoSmartCard.getSvGetData());
+    } catch (CalypsoSamCommandException e) {
+      abandonPendingOperations();
+      throw new CalypsoSamAnomalyException(
+          SAM_COMMAND_ERROR + "preparing the SV operation: " + e.getCommand().getName(), e);
+    } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
+      throw new CalypsoSamIOException(
+          SAM_READER_COMMUNICATION_ERROR + "preparing the SV operation.", e);
+    } catch (CardCommunicationException e) {
+      abandonPendingOperations();
+      throw new CalypsoSamIOException(SAM_COMMUNICATION_ERROR + "preparing the SV operation.", e);
+    }
+
+    // the SV Get following the last operation leaves the PO ready for another one
+    boolean isPoReady = true;
+    AtomicBoolean isChecked = new AtomicBoolean();
+    for (int i = 0; i < amounts.length; i++) {
+      SvOperationResultAdapter result = new SvOperationResultAdapter(amounts[i]);
+      results.add(result);
+      boolean isLastOperation = i == amounts.length - 1;
+      CalypsoPoTransactionException nextError = null;
+      isChecked.set(false);
+      try {
+        isPoReady = false;
+        finalizeSvOperationBuilder(svOperationBuilder, svComplementaryData);
+        journalSvIntent(
+            svOperation,
+            SvSettings.Operation.RELOAD.equals(svOperation)
+                ? (amounts[i] >= 0 ? SvSettings.Action.DO : SvSettings.Action.UNDO)
+                : svAction,
+            amounts[i]);
+
+        // the SV operation followed by the SV Get announcing the next one
+        List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands =
+            new ArrayList<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>>();
+        poCommands.add(svOperationBuilder);
+        poCommands.addAll(createSvGetBuilders(svOperation));
+        processAtomicPoCommands(
+            poCommands, isLastOperation ? channelControl : ChannelControl.KEEP_OPEN);
+        isPoReady = true;
+
+        // the SV Check of this operation followed by the SV Prepare of the next one
+        svOperationBuilder = null;
+        if (!isLastOperation) {
+          try {
+            svOperationBuilder = createSvOperationBuilder(svOperation, svAction, amounts[i + 1]);
+          } catch (CalypsoPoTransactionException e) {
+            nextError = e;
+          }
+        }
+        svComplementaryData = checkSvOperationStatusAndPrepareNext(svOperationBuilder, isChecked);
+      } catch (CalypsoPoTransactionException e) {
+        if (isChecked.get()) {
+          // only the preparation of the next operation failed
+          nextError = e;
+        } else {
+          result.setError(e);
+        }
+      }
+      result.setSvStatus(calypsoPoSmartCard.getSvBalance(), calypsoPoSmartCard.getSvLastTNum());
+      if (nextError != null) {
+        SvOperationResultAdapter nextResult = new SvOperationResultAdapter(amounts[i + 1]);
+        nextResult.setSvStatus(
+            calypsoPoSmartCard.getSvBalance(), calypsoPoSmartCard.getSvLastTNum());
+        nextResult.setError(nextError);
+        results.add(nextResult);
+      }
+      if (!result.isSuccessful() || nextError != null) {
+        break;
+      }
+    }
+
+    if (isPoReady) {
+      poCommandManager.notifySvGetProcessed(svOperation);
+    } else {
+      poCommandManager.reset();
+    }
+    return results;
+  }
+
+  /**
+   * (private)<br>
+   * Creates the SV operation command builder of a batch, not yet finalized.
+   *
+   * @param svOperation The SV operation.
+   * @param svAction The SV action (only used for a debit).
+   * @param amount The amount.
+   * @return A SvReload, SvDebit or SvUndebit builder.
+   * @throws CalypsoPoTransactionIllegalStateException If a debit would result in a negative
+   *     balance that is not allowed.
+   */
+  private AbstractPoCommandBuilder<? extends AbstractPoResponseParser> createSvOperationBuilder(
+      SvSettings.Operation svOperation, SvSettings.Action svAction, int amount) {
+    final byte[] zero = {0x00, 0x00};
+    if (SvSettings.Operation.RELOAD.equals(svOperation)) {
+      return new PoSvReloadBuilder(
+          calypsoPoSmartCard.getPoClass(),
+          calypsoPoSmartCard.getRevision(),
+          amount,
+          calypsoPoSmartCard.getSvKvc(),
+          zero,
+          zero,
+          zero);
+    }
+    if (SvSettings.Action.DO.equals(svAction)) {
+      if (!poSecuritySettings.isSvNegativeBalanceAllowed()
+          && (calypsoPoSmartCard.getSvBalance() - amount) < 0) {
+        throw new CalypsoPoTransactionIllegalStateException("Negative balances not allowed.");
+      }
+      return new PoSvDebitBuilder(
+          calypsoPoSmartCard.getPoClass(),
+          calypsoPoSmartCard.getRevision(),
+          amount,
+          calypsoPoSmartCard.getSvKvc(),
+          zero,
+          zero);
+    }
+    return new PoSvUndebitBuilder(
+        calypsoPoSmartCard.getPoClass(),
+        calypsoPoSmartCard.getRevision(),
+        amount,
+        calypsoPoSmartCard.getSvKvc(),
+        zero,
+        zero);
+  }
+
+  /**
+   * (private)<br>
+   * Finalizes an SV operation command builder with the data provided by the SAM.
+   *
+   * @param svOperationBuilder The SvReload, SvDebit or SvUndebit builder.
+   * @param svComplementaryData The data provided by the SAM.
+   */
+  private static void finalizeSvOperationBuilder(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> svOperationBuilder,
+      byte[] svComplementaryData) {
+    if (svOperationBuilder instanceof PoSvReloadBuilder) {
+      ((PoSvReloadBuilder) svOperationBuilder).finalizeBuilder(svComplementaryData);
+    } else if (svOperationBuilder instanceof PoSvDebitBuilder) {
+      ((PoSvDebitBuilder) svOperationBuilder).finalizeBuilder(svComplementaryData);
+    } else {
+      ((PoSvUndebitBuilder) svOperationBuilder).finalizeBuilder(svComplementaryData);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Ask the SAM to verify the SV operation status from the PO data and to prepare the next SV
+   * operation in the same request, raises exceptions if needed.
+   *
+   * @param nextSvOperationBuilder The builder of the next SV operation, null if none.
+   * @param isChecked Set to true as soon as the SV operation is successfully checked, even if the
+   *     preparation of the next one fails.
+   * @return The complementary data of the next SV operation, null if none.
+   * @throws CalypsoSvAuthenticationException If the SV verification failed.
+   * @throws CalypsoSamAnomalyException If SAM returned an unexpected response.
+   * @throws CalypsoSamIOException If the communication with the SAM or the SAM reader failed.
+   */
+  private byte[] checkSvOperationStatusAndPrepareNext(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> nextSvOperationBuilder,
+      AtomicBoolean isChecked) {
+    if (nextSvOperationBuilder == null) {
+      checkSvOperationStatus(calypsoPoSmartCard.getSvOperationSignature());
+      isChecked.set(true);
+      return null;
+    }
+    byte[] svComplementaryData;
+    try {
+      svComplementaryData =
+          samCommandProcessor.checkSvStatusAndPrepareNext(
+              calypsoPoSmartCard.getSvOperationSignature(),
+              nextSvOperationBuilder,
+              calypsoPoSmartCard.getSvGetHeader(),
+              calypsoPoSmartCard.getSvGetData());
+    } catch (CalypsoSamCommandException e) {
+      if (e.getCommand() != SamCommand.SV_CHECK) {
+        // the SV Check succeeded, the SV Prepare failed
+        journalSvConfirmation();
+        isChecked.set(true);
+        abandonPendingOperations();
+        throw new CalypsoSamAnomalyException(
+            SAM_COMMAND_ERROR + "preparing the SV operation: " + e.getCommand().getName(), e);
+      }
+      abandonPendingOperations();
+      if (e instanceof CalypsoSamSecurityDataException) {
+        throw new CalypsoSvAuthenticationException(
+            "The checking of the SV operation by the SAM has failed.", e);
+      }
+      throw new CalypsoSamAnomalyException(
+          SAM_COMMAND_ERROR + "checking the SV operation: " + e.getCommand().getName(), e);
+    } catch (ReaderCommunicationException e) {
+      abandonPendingOperations();
+      throw new CalypsoSamIOException(
+          SAM_READER_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
+    } catch (CardCommunicationException e) {
+      abandonPendingOperations();
+      throw new CalypsoSamIOException(SAM_COMMUNICATION_ERROR + CHECKING_THE_SV_OPERATION, e);
+    }
+    isChecked.set(true);
+    journalSvConfirmation();
+    return svComplementaryData;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -0,0 +1,84 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionServiceProvider;
+import org.eclipse.keyple.core.service.Reader;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link PoTransactionServiceProvider}.
+ *
+ * @since 2.0
+ */
+final class PoTransactionServiceProviderAdapter implements PoTransactionServiceProvider {
+
+  private final PoSecuritySetting poSecuritySetting;
+  private final ConcurrentMap<String, PoTransactionServiceAdapter> transactionsByReaderName =
+      new ConcurrentHashMap<String, PoTransactionServiceAdapter>();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param poSecuritySetting The security settings of the created services (null for non-secure
+   *     operations).
+   * @since 2.0
+   */
+  PoTransactionServiceProviderAdapter(PoSecuritySetting poSecuritySetting) {
+    this.poSecuritySetting = poSecuritySetting;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionService getPoTransactionService(Reader poReader, PoSmartCard poSmartCard) {
+
+    Assert.getInstance().notNull(poReader, "poReader").notNull(poSmartCard, "poSmartCard");
+
+    PoTransactionServiceAdapter poTransactionService =
+        transactionsByReaderName.get(poReader.getName());
+    // the reader may have been replaced under the same name (e.g. plugin re-registration)
+    if (poTransactionService != null && poTransactionService.getPoReader() == poReader) {
+      poTransactionService.reset(poSmartCard);
+      return poTransactionService;
+    }
+    if (poSecuritySetting != null) {
+      poTransactionService =
+          new PoTransactionServiceAdapter(poReader, poSmartCard, poSecuritySetting);
+    } else {
+      poTransactionService = new PoTransactionServiceAdapter(poReader, poSmartCard);
+    }
+    transactionsByReaderName.put(poReader.getName(), poTransactionService);
+    return poTransactionService;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void release(Reader poReader) {
+    Assert.getInstance().notNull(poReader, "poReader");
+    transactionsByReaderName.remove(poReader.getName());
+  }
+}
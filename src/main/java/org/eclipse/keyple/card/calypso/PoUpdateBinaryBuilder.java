@@ -0,0 +1,118 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Builds the Update Binary APDU command.
+ *
+ * <p>When the offset is lower than 256, the EF is selected with its SFI. Otherwise the command
+ * applies to the current EF, which must have been selected before.
+ *
+ * @since 2.0
+ */
+final class PoUpdateBinaryBuilder extends AbstractPoCommandBuilder<PoUpdateBinaryParser> {
+
+  private static final Logger logger = LoggerFactory.getLogger(PoUpdateBinaryBuilder.class);
+
+  /** The command. */
+  private static final PoCommand command = PoCommand.UPDATE_BINARY;
+
+  /* Construction arguments */
+  private final int sfi;
+  private final int offset;
+  private final byte[] data;
+
+  /**
+   * Instantiates a new PoUpdateBinaryBuilder.
+   *
+   * @param poClass indicates which CLA byte should be used for the Apdu.
+   * @param sfi the sfi of the EF (used only if offset {@code <} 256).
+   * @param offset the offset of the first byte to write.
+   * @param data the data to write.
+   * @since 2.0
+   */
+  public PoUpdateBinaryBuilder(PoClass poClass, byte sfi, int offset, byte[] data) {
+    super(command);
+
+    this.sfi = sfi;
+    this.offset = offset;
+    this.data = data;
+
+    byte msb = (byte) (offset >> 8);
+    byte lsb = (byte) (offset & 0xFF);
+
+    // 100xxxxx : 'xxxxx' = SFI of the EF to select.
+    // 0xxxxxxx : 'xxxxxxx' = MSB of the offset of the first byte.
+    byte p1 = msb > 0 ? msb : (byte) (0x80 + sfi);
+
+    setApduRequest(
+        new ApduRequest(poClass.getValue(), command.getInstructionByte(), p1, lsb, data, null));
+
+    if (logger.isDebugEnabled()) {
+      String extraInfo = String.format("SFI=%02X, OFFSET=%d", sfi, offset);
+      this.addSubName(extraInfo);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoUpdateBinaryParser createResponseParser(ApduResponse apduResponse) {
+    return new PoUpdateBinaryParser(apduResponse, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This command modified the contents of the PO and therefore uses the session buffer.
+   *
+   * @return true
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferUsed() {
+    return true;
+  }
+
+  /**
+   * @return the SFI of the accessed file
+   * @since 2.0
+   */
+  public int getSfi() {
+    return sfi;
+  }
+
+  /**
+   * @return the offset of the first byte to write
+   * @since 2.0
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return the data sent to the PO
+   * @since 2.0
+   */
+  public byte[] getData() {
+    return data;
+  }
+}
@@ -29,6 +29,7 @@ final class PoVerifyPinBuilder extends AbstractPoCommandBuilder<PoVerifyPinParse
 
   private final byte cla;
   private final boolean readCounterOnly;
+  private boolean pinStatusExpected;
 
   /**
    * Verify the PIN
@@ -65,6 +66,9 @@ public PoVerifyPinBuilder(PoClass poClass, boolean encryptPinTransmission, byte[
   /**
    * Alternate builder dedicated to the reading of the wrong presentation counter
    *
+   * <p>The sub name is always set since this builder is shared (see {@link
+   * FixedCommandRegistry}).
+   *
    * @param poClass indicates which CLA byte should be used for the Apdu.
    */
   public PoVerifyPinBuilder(PoClass poClass) {
@@ -75,9 +79,7 @@ public PoVerifyPinBuilder(PoClass poClass) {
     byte p2 = (byte) 0x00;
 
     setApduRequest(new ApduRequest(cla, command.getInstructionByte(), p1, p2, null, null));
-    if (logger.isDebugEnabled()) {
-      this.addSubName("Read presentation counter");
-    }
+    this.addSubName("Read presentation counter");
 
     readCounterOnly = true;
   }
@@ -113,4 +115,24 @@ public boolean isSessionBufferUsed() {
   public boolean isReadCounterOnly() {
     return readCounterOnly;
   }
+
+  /**
+   * Indicates that a rejected presentation (incorrect or blocked PIN) is an expected outcome, read
+   * from the attempt counter instead of being raised as an exception.
+   *
+   * @since 2.0
+   */
+  void setPinStatusExpected() {
+    pinStatusExpected = true;
+  }
+
+  /**
+   * Indicates if a rejected presentation is an expected outcome.
+   *
+   * @return true if the PIN statuses must not be raised as exceptions
+   * @since 2.0
+   */
+  boolean isPinStatusExpected() {
+    return pinStatusExpected;
+  }
 }
@@ -0,0 +1,110 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.card.calypso.transaction.ProcessResult;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link ProcessResult}.
+ *
+ * @since 2.0
+ */
+final class ProcessResultAdapter implements ProcessResult {
+
+  /**
+   * (package-private)<br>
+   * The result of a successful processing, shared as it has no detail.
+   *
+   * @since 2.0
+   */
+  static final ProcessResultAdapter SUCCESS = new ProcessResultAdapter(Status.SUCCESS, 0);
+
+  private final Status status;
+  private final int detail;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param status The status.
+   * @param detail The value detailing the status.
+   * @since 2.0
+   */
+  ProcessResultAdapter(Status status, int detail) {
+    this.status = status;
+    this.detail = detail;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isSuccessful() {
+    return status == Status.SUCCESS;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getDetail() {
+    return detail;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String getMessage() {
+    switch (status) {
+      case INCORRECT_PIN:
+        return "Incorrect PIN (" + detail + " attempt(s) remaining).";
+      case PIN_BLOCKED:
+        return "Presentation rejected (PIN is blocked).";
+      case UNAUTHORIZED_KVC:
+        return String.format("Unauthorized KVC error: PO KVC = %02X", detail);
+      case DF_INVALIDATED:
+        return "Access forbidden (DF is invalidated).";
+      case NEGATIVE_SV_BALANCE:
+        return "Negative balances not allowed (SV balance = " + detail + ").";
+      default:
+        return "Successful processing.";
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "{\"ProcessResult\":{"
+        + "\"status\":\""
+        + status
+        + "\", \"detail\":"
+        + detail
+        + "}}";
+  }
+}
@@ -0,0 +1,335 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.eclipse.keyple.core.card.CardRequest;
+import org.eclipse.keyple.core.card.CardResponse;
+import org.eclipse.keyple.core.card.ChannelControl;
+
+/**
+ * (package-private)<br>
+ * Framing of the exchanges between a {@link RemoteSamReaderAdapter} and a {@link
+ * RemoteSamServerAdapter}.
+ *
+ * <p>A frame is made of a 4-byte length followed by the payload. The payload starts with the
+ * 4-byte request identifier, followed for a request by the message type and for a response by the
+ * status:
+ *
+ * <ul>
+ *   <li>{@link #GET_ATR} request: no data; response: FCI and ATR (2-byte length + bytes each).
+ *   <li>{@link #TRANSMIT} request: channel control, status code verification flag, number of APDUs
+ *       then for each APDU the case 4 flag and the APDU (2-byte length + bytes); response: logical
+ *       channel state, number of APDU responses then each response (2-byte length + bytes).
+ *   <li>{@link #RELEASE_CHANNEL} request: no data; response: no data.
+ * </ul>
+ *
+ * <p>A response with an error status carries the error message, followed by a presence flag and
+ * the partial card response obtained before the error (same encoding as a {@link #TRANSMIT}
+ * response).
+ *
+ * @since 2.0
+ */
+final class RemoteSamProtocol {
+
+  static final byte GET_ATR = 1;
+  static final byte TRANSMIT = 2;
+  static final byte RELEASE_CHANNEL = 3;
+
+  static final byte STATUS_OK = 0;
+  static final byte STATUS_READER_ERROR = 1;
+  static final byte STATUS_CARD_ERROR = 2;
+
+  /** Upper bound of a payload length, protects against a corrupted stream. */
+  static final int MAX_PAYLOAD_LENGTH = 0x10000;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private RemoteSamProtocol() {}
+
+  /**
+   * (package-private)<br>
+   * Writes a frame and flushes the stream.
+   *
+   * @param out The output stream.
+   * @param payload The payload.
+   * @throws IOException If the write failed.
+   * @since 2.0
+   */
+  static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+    out.writeInt(payload.length);
+    out.write(payload);
+    out.flush();
+  }
+
+  /**
+   * (package-private)<br>
+   * Reads a frame, blocking until it is complete.
+   *
+   * @param in The input stream.
+   * @return The payload.
+   * @throws IOException If the read failed, the stream ended or the length is invalid.
+   * @since 2.0
+   */
+  static byte[] readFrame(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 4 || length > MAX_PAYLOAD_LENGTH) {
+      throw new IOException("Invalid frame length: " + length);
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    return payload;
+  }
+
+  /**
+   * (package-private)<br>
+   * Builds the payload of a request without data.
+   *
+   * @param requestId The request identifier.
+   * @param type The message type.
+   * @return A not empty array.
+   * @since 2.0
+   */
+  static byte[] encodeRequest(int requestId, byte type) {
+    byte[] payload = new byte[5];
+    writeInt(payload, requestId);
+    payload[4] = type;
+    return payload;
+  }
+
+  /**
+   * (package-private)<br>
+   * Builds the payload of a {@link #TRANSMIT} request.
+   *
+   * @param requestId The request identifier.
+   * @param cardRequest The card request.
+   * @param channelControl The channel control.
+   * @return A not empty array.
+   * @throws IOException If an APDU is too long.
+   * @since 2.0
+   */
+  static byte[] encodeTransmitRequest(
+      int requestId, CardRequest cardRequest, ChannelControl channelControl) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(requestId);
+    out.writeByte(TRANSMIT);
+    out.writeBoolean(channelControl == ChannelControl.CLOSE_AFTER);
+    out.writeBoolean(cardRequest.isStatusCodesVerificationEnabled());
+    List<ApduRequest> apduRequests = cardRequest.getApduRequests();
+    out.writeShort(apduRequests.size());
+    for (ApduRequest apduRequest : apduRequests) {
+      out.writeBoolean(apduRequest.isCase4());
+      writeBytes(out, apduRequest.getBytes());
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * (package-private)<br>
+   * Decodes the data of a {@link #TRANSMIT} request.
+   *
+   * @param in The stream positioned after the message type.
+   * @param channelControls An array of 1 element receiving the channel control.
+   * @return A not null reference.
+   * @throws IOException If the data is malformed.
+   * @since 2.0
+   */
+  static CardRequest decodeTransmitRequest(DataInputStream in, ChannelControl[] channelControls)
+      throws IOException {
+    channelControls[0] = in.readBoolean() ? ChannelControl.CLOSE_AFTER : ChannelControl.KEEP_OPEN;
+    boolean isStatusCodesVerificationEnabled = in.readBoolean();
+    int nbApdus = in.readUnsignedShort();
+    List<ApduRequest> apduRequests = new ArrayList<ApduRequest>(nbApdus);
+    for (int i = 0; i < nbApdus; i++) {
+      boolean isCase4 = in.readBoolean();
+      apduRequests.add(new ApduRequest(readBytes(in), isCase4));
+    }
+    return new CardRequest(apduRequests, isStatusCodesVerificationEnabled);
+  }
+
+  /**
+   * (package-private)<br>
+   * Builds the payload of a successful {@link #TRANSMIT} response.
+   *
+   * @param requestId The request identifier.
+   * @param cardResponse The card response.
+   * @return A not empty array.
+   * @throws IOException If a response is too long.
+   * @since 2.0
+   */
+  static byte[] encodeTransmitResponse(int requestId, CardResponse cardResponse)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(requestId);
+    out.writeByte(STATUS_OK);
+    writeCardResponse(out, cardResponse);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * (private)<br>
+   * Writes a card response.
+   *
+   * @param out The output stream.
+   * @param cardResponse The card response.
+   * @throws IOException If a response is too long.
+   */
+  private static void writeCardResponse(DataOutputStream out, CardResponse cardResponse)
+      throws IOException {
+    out.writeBoolean(cardResponse.isLogicalChannelOpen());
+    List<ApduResponse> apduResponses = cardResponse.getApduResponses();
+    out.writeShort(apduResponses.size());
+    for (ApduResponse apduResponse : apduResponses) {
+      writeBytes(out, apduResponse.getBytes());
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Decodes the data of a successful {@link #TRANSMIT} response.
+   *
+   * @param in The stream positioned after the status.
+   * @return A not null reference.
+   * @throws IOException If the data is malformed.
+   * @since 2.0
+   */
+  static CardResponse decodeTransmitResponse(DataInputStream in) throws IOException {
+    boolean isLogicalChannelOpen = in.readBoolean();
+    int nbApduResponses = in.readUnsignedShort();
+    List<ApduResponse> apduResponses = new ArrayList<ApduResponse>(nbApduResponses);
+    for (int i = 0; i < nbApduResponses; i++) {
+      apduResponses.add(new ApduResponse(readBytes(in)));
+    }
+    return new CardResponse(isLogicalChannelOpen, apduResponses);
+  }
+
+  /**
+   * (package-private)<br>
+   * Builds the payload of a successful {@link #GET_ATR} response.
+   *
+   * @param requestId The request identifier.
+   * @param fciBytes The FCI of the SAM (may be null).
+   * @param atrBytes The ATR of the SAM.
+   * @return A not empty array.
+   * @throws IOException If the data is too long.
+   * @since 2.0
+   */
+  static byte[] encodeGetAtrResponse(int requestId, byte[] fciBytes, byte[] atrBytes)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(requestId);
+    out.writeByte(STATUS_OK);
+    writeBytes(out, fciBytes != null ? fciBytes : new byte[0]);
+    writeBytes(out, atrBytes);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * (package-private)<br>
+   * Builds the payload of a response without data.
+   *
+   * @param requestId The request identifier.
+   * @param status The status.
+   * @param message The error message (ignored if the status is {@link #STATUS_OK}).
+   * @param partialCardResponse The card response obtained before the error (null if none, ignored
+   *     if the status is {@link #STATUS_OK}).
+   * @return A not empty array.
+   * @throws IOException If the message or a response is too long.
+   * @since 2.0
+   */
+  static byte[] encodeStatusResponse(
+      int requestId, byte status, String message, CardResponse partialCardResponse)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(requestId);
+    out.writeByte(status);
+    if (status != STATUS_OK) {
+      out.writeUTF(message != null ? message : "");
+      out.writeBoolean(partialCardResponse != null);
+      if (partialCardResponse != null) {
+        writeCardResponse(out, partialCardResponse);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * (package-private)<br>
+   * Decodes the partial card response of an error response.
+   *
+   * @param in The stream positioned after the error message.
+   * @return Null if the error response has no partial card response.
+   * @throws IOException If the data is malformed.
+   * @since 2.0
+   */
+  static CardResponse decodePartialCardResponse(DataInputStream in) throws IOException {
+    return in.readBoolean() ? decodeTransmitResponse(in) : null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Reads a byte array preceded by its 2-byte length.
+   *
+   * @param in The input stream.
+   * @return A not null array.
+   * @throws IOException If the data is malformed.
+   * @since 2.0
+   */
+  static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] data = new byte[in.readUnsignedShort()];
+    in.readFully(data);
+    return data;
+  }
+
+  /**
+   * (private)<br>
+   * Writes a byte array preceded by its 2-byte length.
+   *
+   * @param out The output stream.
+   * @param data The data.
+   * @throws IOException If the array is too long.
+   */
+  private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+    if (data.length > 0xFFFF) {
+      throw new IOException("Data too long: " + data.length);
+    }
+    out.writeShort(data.length);
+    out.write(data);
+  }
+
+  /**
+   * (private)<br>
+   * Writes a big-endian int at the beginning of the provided array.
+   *
+   * @param data The target array.
+   * @param value The value.
+   */
+  private static void writeInt(byte[] data, int value) {
+    data[0] = (byte) (value >> 24);
+    data[1] = (byte) (value >> 16);
+    data[2] = (byte) (value >> 8);
+    data[3] = (byte) value;
+  }
+}
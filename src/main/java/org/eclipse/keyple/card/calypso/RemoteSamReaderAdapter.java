@@ -0,0 +1,307 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamReader;
+import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.sam.SamTransport;
+import org.eclipse.keyple.card.calypso.transaction.CalypsoSamIOException;
+import org.eclipse.keyple.core.card.CardCommunicationException;
+import org.eclipse.keyple.core.card.CardRequest;
+import org.eclipse.keyple.core.card.CardResponse;
+import org.eclipse.keyple.core.card.ChannelControl;
+import org.eclipse.keyple.core.card.ProxyReader;
+import org.eclipse.keyple.core.card.ReaderCommunicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link RemoteSamReader}.
+ *
+ * <p>The frames are written under a lock by the calling threads and the responses are read by a
+ * daemon thread which hands them over to the waiting callers according to their request
+ * identifier; a caller therefore does not prevent other callers from sending their requests while
+ * it waits for its response.
+ *
+ * @since 2.0
+ */
+final class RemoteSamReaderAdapter implements RemoteSamReader, ProxyReader {
+
+  private static final Logger logger = LoggerFactory.getLogger(RemoteSamReaderAdapter.class);
+
+  /** Maximum time to wait for a response, in milliseconds. */
+  static final long RESPONSE_TIMEOUT_MILLIS = 5000;
+
+  private final String name;
+  private final SamTransport transport;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+  private final AtomicInteger nextRequestId = new AtomicInteger();
+  private final ConcurrentMap<Integer, PendingRequest> pendingRequests =
+      new ConcurrentHashMap<Integer, PendingRequest>();
+  private volatile boolean isClosed;
+  private volatile SamSmartCardAdapter samSmartCard;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * <p>Opens the streams of the transport and starts the receiving thread.
+   *
+   * @param name The name of the reader.
+   * @param transport The transport connected to the server.
+   * @throws IllegalStateException If the streams of the transport cannot be opened.
+   * @since 2.0
+   */
+  RemoteSamReaderAdapter(String name, SamTransport transport) {
+    this.name = name;
+    this.transport = transport;
+    try {
+      in = new DataInputStream(transport.getInputStream());
+      out = new DataOutputStream(transport.getOutputStream());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open the remote SAM transport.", e);
+    }
+    Thread receiver =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                receive();
+              }
+            },
+            "RemoteSamReader-" + name);
+    receiver.setDaemon(true);
+    receiver.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SamSmartCard getSamSmartCard() {
+    if (samSmartCard == null) {
+      try {
+        DataInputStream response = exchange(RemoteSamProtocol.GET_ATR, null, null);
+        byte[] fciBytes = RemoteSamProtocol.readBytes(response);
+        byte[] atrBytes = RemoteSamProtocol.readBytes(response);
+        samSmartCard = new SamSmartCardAdapter(fciBytes.length != 0 ? fciBytes : null, atrBytes);
+      } catch (IOException e) {
+        throw new CalypsoSamIOException("Unable to get the ATR of the remote SAM.", e);
+      } catch (ReaderCommunicationException e) {
+        throw new CalypsoSamIOException("Unable to get the ATR of the remote SAM.", e);
+      } catch (CardCommunicationException e) {
+        throw new CalypsoSamIOException("Unable to get the ATR of the remote SAM.", e);
+      }
+    }
+    return samSmartCard;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void close() {
+    isClosed = true;
+    transport.close();
+    failPendingRequests(new IOException("Remote SAM reader closed."));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The card request is sent as a single frame to the server.
+   *
+   * @since 2.0
+   */
+  @Override
+  public CardResponse transmitCardRequest(CardRequest cardRequest, ChannelControl channelControl)
+      throws ReaderCommunicationException, CardCommunicationException {
+    try {
+      return RemoteSamProtocol.decodeTransmitResponse(
+          exchange(RemoteSamProtocol.TRANSMIT, cardRequest, channelControl));
+    } catch (IOException e) {
+      throw new ReaderCommunicationException(null, "Malformed response from the remote SAM.", e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void releaseChannel() throws ReaderCommunicationException {
+    try {
+      exchange(RemoteSamProtocol.RELEASE_CHANNEL, null, null);
+    } catch (CardCommunicationException e) {
+      throw new ReaderCommunicationException(e.getCardResponse(), e.getMessage(), e);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Sends a request and waits for its response.
+   *
+   * @param type The message type.
+   * @param cardRequest The card request (for {@link RemoteSamProtocol#TRANSMIT} only).
+   * @param channelControl The channel control (for {@link RemoteSamProtocol#TRANSMIT} only).
+   * @return The response data, positioned after the status.
+   * @throws ReaderCommunicationException If the exchange failed or the server reported a reader
+   *     error.
+   * @throws CardCommunicationException If the server reported a card error.
+   */
+  private DataInputStream exchange(
+      byte type, CardRequest cardRequest, ChannelControl channelControl)
+      throws ReaderCommunicationException, CardCommunicationException {
+    int requestId = nextRequestId.incrementAndGet();
+    PendingRequest pendingRequest = new PendingRequest();
+    pendingRequests.put(requestId, pendingRequest);
+    try {
+      if (isClosed) {
+        throw new IOException("Remote SAM reader closed.");
+      }
+      byte[] payload =
+          type == RemoteSamProtocol.TRANSMIT
+              ? RemoteSamProtocol.encodeTransmitRequest(requestId, cardRequest, channelControl)
+              : RemoteSamProtocol.encodeRequest(requestId, type);
+      synchronized (out) {
+        RemoteSamProtocol.writeFrame(out, payload);
+      }
+      if (!pendingRequest.latch.await(RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        throw new IOException(
+            "No response from the remote SAM after " + RESPONSE_TIMEOUT_MILLIS + " ms.");
+      }
+      if (pendingRequest.failure != null) {
+        throw pendingRequest.failure;
+      }
+      byte[] responsePayload = pendingRequest.payload;
+      DataInputStream response =
+          new DataInputStream(
+              new ByteArrayInputStream(responsePayload, 4, responsePayload.length - 4));
+      byte status = response.readByte();
+      if (status != RemoteSamProtocol.STATUS_OK) {
+        String message = response.readUTF();
+        CardResponse partialCardResponse = RemoteSamProtocol.decodePartialCardResponse(response);
+        if (status == RemoteSamProtocol.STATUS_CARD_ERROR) {
+          throw new CardCommunicationException(partialCardResponse, message);
+        }
+        throw new ReaderCommunicationException(partialCardResponse, message);
+      }
+      return response;
+    } catch (IOException e) {
+      throw new ReaderCommunicationException(null, "Communication with the remote SAM failed.", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ReaderCommunicationException(
+          null, "Interrupted while waiting for the remote SAM.", e);
+    } finally {
+      pendingRequests.remove(requestId);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Reads the responses and hands them over to the waiting callers, until the transport fails.
+   */
+  private void receive() {
+    try {
+      while (true) {
+        byte[] payload = RemoteSamProtocol.readFrame(in);
+        int requestId =
+            ((payload[0] & 0xFF) << 24)
+                | ((payload[1] & 0xFF) << 16)
+                | ((payload[2] & 0xFF) << 8)
+                | (payload[3] & 0xFF);
+        PendingRequest pendingRequest = pendingRequests.remove(requestId);
+        if (pendingRequest == null) {
+          logger.warn("Response to an unknown or expired request: {}.", requestId);
+          continue;
+        }
+        pendingRequest.payload = payload;
+        pendingRequest.latch.countDown();
+      }
+    } catch (IOException e) {
+      if (!isClosed) {
+        logger.error("Connection to the remote SAM lost ({}).", name, e);
+        isClosed = true;
+        transport.close();
+      }
+      failPendingRequests(e);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Releases all the waiting callers with the provided failure.
+   *
+   * @param failure The failure.
+   */
+  private void failPendingRequests(IOException failure) {
+    for (PendingRequest pendingRequest : pendingRequests.values()) {
+      pendingRequest.failure = failure;
+      pendingRequest.latch.countDown();
+    }
+  }
+
+  /**
+   * Gets the reader state as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"RemoteSamReader\":{"
+        + "\"name\":\""
+        + name
+        + "\", \"pendingRequests\":"
+        + pendingRequests.size()
+        + ", \"isClosed\":"
+        + isClosed
+        + "}}";
+  }
+
+  /**
+   * (private)<br>
+   * A request waiting for its response.
+   */
+  private static final class PendingRequest {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile byte[] payload;
+    private volatile IOException failure;
+  }
+}
@@ -0,0 +1,148 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamServer;
+import org.eclipse.keyple.card.calypso.sam.SamTransport;
+import org.eclipse.keyple.core.card.CardCommunicationException;
+import org.eclipse.keyple.core.card.CardRequest;
+import org.eclipse.keyple.core.card.CardResponse;
+import org.eclipse.keyple.core.card.ChannelControl;
+import org.eclipse.keyple.core.card.ProxyReader;
+import org.eclipse.keyple.core.card.ReaderCommunicationException;
+import org.eclipse.keyple.core.card.UnexpectedStatusCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link RemoteSamServer}.
+ *
+ * @since 2.0
+ */
+final class RemoteSamServerAdapter implements RemoteSamServer {
+
+  private static final Logger logger = LoggerFactory.getLogger(RemoteSamServerAdapter.class);
+
+  private final ProxyReader samReader;
+  private final String samReaderName;
+  private final SamSmartCardAdapter samSmartCard;
+  private final SamTransport transport;
+  private volatile boolean isStopped;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param samReader The reader in which the SAM is inserted.
+   * @param samReaderName The name of the SAM reader.
+   * @param samSmartCard The SAM data provided by the selection process.
+   * @param transport The transport connected to the client.
+   * @since 2.0
+   */
+  RemoteSamServerAdapter(
+      ProxyReader samReader,
+      String samReaderName,
+      SamSmartCardAdapter samSmartCard,
+      SamTransport transport) {
+    this.samReader = samReader;
+    this.samReaderName = samReaderName;
+    this.samSmartCard = samSmartCard;
+    this.transport = transport;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void run() {
+    try {
+      DataInputStream in = new DataInputStream(transport.getInputStream());
+      DataOutputStream out = new DataOutputStream(transport.getOutputStream());
+      while (!isStopped) {
+        RemoteSamProtocol.writeFrame(out, process(RemoteSamProtocol.readFrame(in)));
+      }
+    } catch (IOException e) {
+      if (!isStopped) {
+        logger.error("Remote SAM server stopped on a transport failure ({}).", samReaderName, e);
+      }
+    } finally {
+      transport.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void stop() {
+    isStopped = true;
+    transport.close();
+  }
+
+  /**
+   * (private)<br>
+   * Executes a request and builds its response.
+   *
+   * @param payload The request payload.
+   * @return The response payload.
+   * @throws IOException If the request is malformed.
+   */
+  private byte[] process(byte[] payload) throws IOException {
+    DataInputStream request = new DataInputStream(new ByteArrayInputStream(payload));
+    int requestId = request.readInt();
+    byte type = request.readByte();
+    try {
+      switch (type) {
+        case RemoteSamProtocol.GET_ATR:
+          return RemoteSamProtocol.encodeGetAtrResponse(
+              requestId,
+              samSmartCard.hasFci() ? samSmartCard.getFciBytes() : null,
+              samSmartCard.getAtrBytes());
+        case RemoteSamProtocol.TRANSMIT:
+          ChannelControl[] channelControls = new ChannelControl[1];
+          CardRequest cardRequest =
+              RemoteSamProtocol.decodeTransmitRequest(request, channelControls);
+          CardResponse cardResponse =
+              samReader.transmitCardRequest(cardRequest, channelControls[0]);
+          return RemoteSamProtocol.encodeTransmitResponse(requestId, cardResponse);
+        case RemoteSamProtocol.RELEASE_CHANNEL:
+          samReader.releaseChannel();
+          return RemoteSamProtocol.encodeStatusResponse(
+              requestId, RemoteSamProtocol.STATUS_OK, null, null);
+        default:
+          return RemoteSamProtocol.encodeStatusResponse(
+              requestId,
+              RemoteSamProtocol.STATUS_READER_ERROR,
+              "Unknown message type: " + type,
+              null);
+      }
+    } catch (ReaderCommunicationException e) {
+      return RemoteSamProtocol.encodeStatusResponse(
+          requestId, RemoteSamProtocol.STATUS_READER_ERROR, e.getMessage(), e.getCardResponse());
+    } catch (CardCommunicationException e) {
+      return RemoteSamProtocol.encodeStatusResponse(
+          requestId, RemoteSamProtocol.STATUS_CARD_ERROR, e.getMessage(), e.getCardResponse());
+    } catch (UnexpectedStatusCodeException e) {
+      return RemoteSamProtocol.encodeStatusResponse(
+          requestId, RemoteSamProtocol.STATUS_CARD_ERROR, e.getMessage(), e.getCardResponse());
+    }
+  }
+}
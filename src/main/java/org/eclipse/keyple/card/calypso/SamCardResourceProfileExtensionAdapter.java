@@ -11,11 +11,17 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.eclipse.keyple.card.calypso.sam.SamCardResourceProfileExtension;
 import org.eclipse.keyple.card.calypso.sam.SamRevision;
-import org.eclipse.keyple.core.card.ProxyReader;
+import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.sam.SamUnlockStatus;
+import org.eclipse.keyple.core.card.*;
 import org.eclipse.keyple.core.card.spi.CardResourceProfileExtensionSpi;
 import org.eclipse.keyple.core.card.spi.SmartCardSpi;
 import org.eclipse.keyple.core.service.CardSelectionServiceFactory;
@@ -25,6 +31,8 @@
 import org.eclipse.keyple.core.service.selection.CardSelector;
 import org.eclipse.keyple.core.util.Assert;
 import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * (package-private)<br>
@@ -35,9 +43,23 @@
 class SamCardResourceProfileExtensionAdapter
     implements SamCardResourceProfileExtension, CardResourceProfileExtensionSpi {
 
+  private static final Logger logger =
+      LoggerFactory.getLogger(SamCardResourceProfileExtensionAdapter.class);
+
+  // "Preconditions not satisfied" in response to the Unlock command: the SAM is not locked
+  private static final int SW_NOT_LOCKED = 0x6985;
+
+  // ATR of the SAM unlocked in each reader, shared by the profiles since a SAM unlocked by one of
+  // them is unlocked for all
+  private static final ConcurrentMap<String, String> unlockedAtrByReaderName =
+      new ConcurrentHashMap<String, String>();
+
   private SamRevision samRevision;
   private String samSerialNumberRegex;
   private String samUnlockData;
+  private volatile CardSelector samCardSelector;
+  private final ConcurrentMap<String, SamSmartCard> rejectedSamByReaderName =
+      new ConcurrentHashMap<String, SamSmartCard>();
 
   /**
    * (package-private)<br>
@@ -61,6 +83,7 @@ public SamCardResourceProfileExtension setSamRevision(SamRevision samRevision) {
     }
 
     this.samRevision = samRevision;
+    this.samCardSelector = null;
     return this;
   }
 
@@ -85,6 +108,7 @@ public SamCardResourceProfileExtension setSamSerialNumberRegex(String samSerialN
     }
 
     this.samSerialNumberRegex = samSerialNumberRegex;
+    this.samCardSelector = null;
     return this;
   }
 
@@ -109,6 +133,7 @@ public SamCardResourceProfileExtension setSamUnlockData(String samUnlockData) {
     }
 
     this.samUnlockData = samUnlockData;
+    this.samCardSelector = null;
     return this;
   }
 
@@ -159,29 +184,86 @@ private String buildAtrRegex(SamRevision samRevision, String samSerialNumberRege
     return atrRegex;
   }
 
+  /**
+   * (private)<br>
+   * Gets the SAM card selector, built once from the profile settings.
+   *
+   * <p>The ATR filter depends only on the profile settings, there is no need to rebuild it each
+   * time a reader is matched.
+   *
+   * @return A not null reference.
+   */
+  private CardSelector getSamCardSelector() {
+    if (samCardSelector == null) {
+      samCardSelector =
+          CardSelector.builder()
+              .filterByAtr(buildAtrRegex(samRevision, samSerialNumberRegex))
+              .build();
+    }
+    return samCardSelector;
+  }
+
+  /**
+   * (package-private)<br>
+   * Notifies that the SAM of the provided reader may have changed state (e.g. reset or powered off
+   * while present), so that it is unlocked again at its next allocation.
+   *
+   * @param samReaderName The name of the SAM reader.
+   * @since 2.0
+   */
+  static void notifySamStateChanged(String samReaderName) {
+    unlockedAtrByReaderName.remove(samReaderName);
+  }
+
   /**
    * {@inheritDoc}
    *
    * @since 2.0
    */
   @Override
+  public SamSmartCard getLastRejectedSam(String readerName) {
+    Assert.getInstance().notEmpty(readerName, "readerName");
+    return rejectedSamByReaderName.get(readerName);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>When unlock data are defined, the Unlock command is part of the selection request of the
+   * first allocation of a SAM. The ATR of the unlocked SAM is then kept as long as the SAM remains
+   * present and is not reported as having changed state (communication failure or status 6985
+   * returned during a transaction, see {@link #notifySamStateChanged(String)}): a SAM found again
+   * with the same ATR is reported as {@link SamUnlockStatus#ALREADY_UNLOCKED} without any Unlock
+   * command. A SAM that is not locked rejects the Unlock command and is also reported as {@link
+   * SamUnlockStatus#ALREADY_UNLOCKED}.
+   *
+   * <p>A SAM whose unlocking has failed is not matched, it is available through {@link
+   * #getLastRejectedSam(String)}.
+   *
+   * @since 2.0
+   */
+  @Override
   public SmartCardSpi matches(ProxyReader reader) {
 
+    String readerName = ((Reader) reader).getName();
+
     if (!((Reader) reader).isCardPresent()) {
+      // the SAM has been removed, its scheduler is no longer needed and it will have to be
+      // unlocked again once re-inserted
+      SamSchedulerAdapter.removeInstance(readerName);
+      unlockedAtrByReaderName.remove(readerName);
       return null;
     }
 
-    CardSelector samCardSelector =
-        CardSelector.builder()
-            .filterByAtr(buildAtrRegex(samRevision, samSerialNumberRegex))
-            .build();
+    String unlockedAtr = samUnlockData != null ? unlockedAtrByReaderName.get(readerName) : null;
 
     CardSelectionService samSelectionService = CardSelectionServiceFactory.getService();
 
-    SamCardSelection samCardSelection = new SamCardSelectionAdapter(samCardSelector);
+    SamCardSelection samCardSelection = new SamCardSelectionAdapter(getSamCardSelector());
 
-    // prepare the UNLOCK command if unlock data has been defined
-    if (samUnlockData != null) {
+    // prepare the UNLOCK command if unlock data has been defined and no SAM is known to be
+    // unlocked in this reader
+    if (samUnlockData != null && unlockedAtr == null) {
       samCardSelection.prepareUnlock(samRevision, ByteArrayUtil.fromHex(samUnlockData));
     }
 
@@ -190,6 +272,71 @@ public SmartCardSpi matches(ProxyReader reader) {
     CardSelectionResult samCardSelectionResult =
         samSelectionService.processCardSelectionScenario((Reader) reader);
 
-    return (SmartCardSpi) samCardSelectionResult.getActiveSmartCard();
+    SamSmartCardAdapter samSmartCard =
+        (SamSmartCardAdapter) samCardSelectionResult.getActiveSmartCard();
+
+    if (samSmartCard == null) {
+      return null;
+    }
+
+    if (unlockedAtr != null) {
+      if (unlockedAtr.equals(ByteArrayUtil.toHex(samSmartCard.getAtrBytes()))) {
+        samSmartCard.setUnlockResult(SamUnlockStatus.ALREADY_UNLOCKED, null);
+      } else {
+        // another SAM has been inserted in the reader
+        unlock(reader, samSmartCard);
+      }
+    }
+
+    if (samSmartCard.getUnlockStatus() == SamUnlockStatus.FAILED) {
+      unlockedAtrByReaderName.remove(readerName);
+      rejectedSamByReaderName.put(readerName, samSmartCard);
+      logger.warn(
+          "Unable to unlock the SAM {} in reader {}: {}",
+          ByteArrayUtil.toHex(samSmartCard.getSerialNumber()),
+          readerName,
+          samSmartCard.getUnlockFailureCause().getMessage());
+      return null;
+    }
+
+    if (samUnlockData != null) {
+      unlockedAtrByReaderName.put(readerName, ByteArrayUtil.toHex(samSmartCard.getAtrBytes()));
+    }
+    rejectedSamByReaderName.remove(readerName);
+    return samSmartCard;
+  }
+
+  /**
+   * (private)<br>
+   * Sends the Unlock command to an already selected SAM and sets the result in the provided SAM.
+   *
+   * @param reader The reader in which the SAM is inserted.
+   * @param samSmartCard The selected SAM.
+   */
+  private void unlock(ProxyReader reader, SamSmartCardAdapter samSmartCard) {
+    SamUnlockBuilder samUnlockBuilder =
+        new SamUnlockBuilder(samSmartCard.getSamRevision(), ByteArrayUtil.fromHex(samUnlockData));
+    List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
+    apduRequests.add(samUnlockBuilder.getApduRequest());
+    try {
+      CardResponse cardResponse =
+          reader.transmitCardRequest(
+              new CardRequest(apduRequests, false), ChannelControl.KEEP_OPEN);
+      ApduResponse apduResponse = cardResponse.getApduResponses().get(0);
+      if (apduResponse.getStatusCode() == SW_NOT_LOCKED) {
+        samSmartCard.setUnlockResult(SamUnlockStatus.ALREADY_UNLOCKED, null);
+        return;
+      }
+      samUnlockBuilder.createResponseParser(apduResponse).checkStatus();
+      samSmartCard.setUnlockResult(SamUnlockStatus.UNLOCKED, null);
+    } catch (CalypsoSamCommandException e) {
+      samSmartCard.setUnlockResult(SamUnlockStatus.FAILED, e);
+    } catch (ReaderCommunicationException e) {
+      samSmartCard.setUnlockResult(SamUnlockStatus.FAILED, e);
+    } catch (CardCommunicationException e) {
+      samSmartCard.setUnlockResult(SamUnlockStatus.FAILED, e);
+    } catch (UnexpectedStatusCodeException e) {
+      samSmartCard.setUnlockResult(SamUnlockStatus.FAILED, e);
+    }
   }
 }
@@ -14,6 +14,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.keyple.card.calypso.sam.SamRevision;
+import org.eclipse.keyple.card.calypso.sam.SamUnlockStatus;
 import org.eclipse.keyple.card.calypso.transaction.CalypsoDesynchronizedExchangesException;
 import org.eclipse.keyple.core.card.*;
 import org.eclipse.keyple.core.card.spi.CardSelectionSpi;
@@ -29,6 +30,9 @@
  */
 class SamCardSelectionAdapter implements SamCardSelection, CardSelectionSpi {
 
+  // "Preconditions not satisfied" in response to the Unlock command: the SAM is not locked
+  private static final int SW_NOT_LOCKED = 0x6985;
+
   private final CardSelector samCardSelector;
   private final ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>
       commandBuilders;
@@ -74,6 +78,8 @@ public CardSelectionRequest getCardSelectionRequest() {
   @Override
   public SmartCardSpi parse(CardSelectionResponse cardSelectionResponse) {
 
+    SamSmartCardAdapter samSmartCard = new SamSmartCardAdapter(cardSelectionResponse);
+
     if (commandBuilders.size() == 1) {
       // an unlock command has been requested
       List<ApduResponse> apduResponses = cardSelectionResponse.getCardResponse().getApduResponses();
@@ -81,16 +87,20 @@ public SmartCardSpi parse(CardSelectionResponse cardSelectionResponse) {
         throw new CalypsoDesynchronizedExchangesException(
             "Mismatch in the number of requests/responses");
       }
-      // check the SAM response to the unlock command
+      // check the SAM response to the unlock command, a SAM not locked rejects it
+      if (apduResponses.get(0).getStatusCode() == SW_NOT_LOCKED) {
+        samSmartCard.setUnlockResult(SamUnlockStatus.ALREADY_UNLOCKED, null);
+        return samSmartCard;
+      }
       try {
         commandBuilders.get(0).createResponseParser(apduResponses.get(0)).checkStatus();
+        samSmartCard.setUnlockResult(SamUnlockStatus.UNLOCKED, null);
       } catch (CalypsoSamCommandException e) {
-        // TODO check what to do here!
-        e.printStackTrace();
+        samSmartCard.setUnlockResult(SamUnlockStatus.FAILED, e);
       }
     }
 
-    return new SamSmartCardAdapter(cardSelectionResponse);
+    return samSmartCard;
   }
 
   /**
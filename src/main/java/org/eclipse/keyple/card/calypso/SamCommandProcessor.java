@@ -16,9 +16,12 @@
 import java.util.List;
 import org.eclipse.keyple.card.calypso.po.PoRevision;
 import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamReader;
 import org.eclipse.keyple.card.calypso.sam.SamRevision;
 import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
 import org.eclipse.keyple.card.calypso.transaction.CalypsoDesynchronizedExchangesException;
+import org.eclipse.keyple.card.calypso.transaction.CalypsoSamRevokedException;
+import org.eclipse.keyple.card.calypso.transaction.DenyList;
 import org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting;
 import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
 import org.eclipse.keyple.core.card.*;
@@ -50,13 +53,15 @@ class SamCommandProcessor {
   private static final byte SIGNATURE_LENGTH_REV_INF_32 = (byte) 0x04;
   private static final byte SIGNATURE_LENGTH_REV32 = (byte) 0x08;
   private static final String UNEXPECTED_EXCEPTION = "An unexpected exception was raised.";
+  private static final int SW_PRECONDITIONS_NOT_SATISFIED = 0x6985;
 
   private final ProxyReader samReader;
   private final PoSecuritySetting poSecuritySettings;
-  private static final List<byte[]> poDigestDataCache = new ArrayList<byte[]>();
-  private final PoSmartCard poSmartCard;
+  private final List<byte[]> poDigestDataCache = new ArrayList<byte[]>();
+  private PoSmartCard poSmartCard;
   private final byte[] samSerialNumber;
   private final SamRevision samRevision;
+  private final String samReaderName;
   private boolean sessionEncryption;
   private boolean verificationMode;
   private byte workKeyRecordNumber;
@@ -65,25 +70,163 @@ class SamCommandProcessor {
   private boolean isDiversificationDone;
   private boolean isDigestInitDone;
   private boolean isDigesterInitialized;
+  private boolean isSvOperationPending;
 
   /**
    * Constructor
    *
    * @param poSmartCard The initial PO data provided by the selection process.
    * @param poSecuritySetting the security settings from the application layer.
+   * @throws CalypsoSamRevokedException if the allocated SAM is in the SAM deny-list.
    * @since 2.0
    */
   SamCommandProcessor(PoSmartCard poSmartCard, PoSecuritySetting poSecuritySetting) {
     this.poSmartCard = poSmartCard;
     this.poSecuritySettings = poSecuritySetting;
-    CardResource samResource =
-        CardResourceServiceProvider.getService()
-            .getCardResources(poSecuritySettings.getCardResourceProfileName())
-            .get(0);
-    SamSmartCard samSmartCard = (SamSmartCard) samResource.getSmartCard();
+    SamSmartCard samSmartCard;
+    String samReaderName;
+    RemoteSamReader remoteSamReader = poSecuritySettings.getRemoteSamReader();
+    if (remoteSamReader != null) {
+      samSmartCard = remoteSamReader.getSamSmartCard();
+      samReaderName = remoteSamReader.getName();
+      samReader = (RemoteSamReaderAdapter) remoteSamReader;
+    } else {
+      CardResource samResource =
+          CardResourceServiceProvider.getService()
+              .getCardResources(poSecuritySettings.getCardResourceProfileName())
+              .get(0);
+      samSmartCard = (SamSmartCard) samResource.getSmartCard();
+      samReaderName = samResource.getReader().getName();
+      samReader = (ProxyReader) samResource.getReader();
+    }
     samRevision = samSmartCard.getSamRevision();
     samSerialNumber = samSmartCard.getSerialNumber();
-    samReader = (ProxyReader) samResource.getReader();
+    DenyList samDenyList = poSecuritySettings.getSamDenyList();
+    if (samDenyList != null && samDenyList.isRevoked(samSerialNumber)) {
+      throw new CalypsoSamRevokedException(
+          "The SAM " + ByteArrayUtil.toHex(samSerialNumber) + " is revoked.");
+    }
+    this.samReaderName = samReaderName;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the serial number of the SAM used by the transaction.
+   *
+   * @return A not null byte array.
+   * @since 2.0
+   */
+  byte[] getSamSerialNumber() {
+    return samSerialNumber;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the KIF of the key used by the current or last session.
+   *
+   * @return A byte.
+   * @since 2.0
+   */
+  byte getWorkKif() {
+    return workKif;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the KVC of the key used by the current or last session.
+   *
+   * @return A byte.
+   * @since 2.0
+   */
+  byte getWorkKvc() {
+    return workKvc;
+  }
+
+  /**
+   * (private)<br>
+   * Starts a SAM work unit, waiting for the SAM to be available.
+   *
+   * <p>If the SAM has been used by another transaction since the previous unit, the key
+   * diversification has to be done again.
+   */
+  private void acquireSam() {
+    if (SamSchedulerAdapter.getInstance(samReaderName).acquire(this)) {
+      isDiversificationDone = false;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Transmits a request to the SAM.
+   *
+   * <p>A communication failure or a status 6985 (preconditions not satisfied, returned by a locked
+   * SAM) means that the SAM may have been reset or powered off: it is reported so that the SAM is
+   * unlocked again at its next allocation.
+   *
+   * @param samCardRequest The request.
+   * @return A not null reference.
+   * @throws ReaderCommunicationException if the communication with the SAM reader has failed.
+   * @throws CardCommunicationException if the communication with the SAM has failed.
+   */
+  private CardResponse transmitSamCardRequest(CardRequest samCardRequest)
+      throws ReaderCommunicationException, CardCommunicationException {
+    CardResponse samCardResponse;
+    try {
+      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
+    } catch (UnexpectedStatusCodeException e) {
+      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
+    } catch (ReaderCommunicationException e) {
+      SamCardResourceProfileExtensionAdapter.notifySamStateChanged(samReaderName);
+      throw e;
+    } catch (CardCommunicationException e) {
+      SamCardResourceProfileExtensionAdapter.notifySamStateChanged(samReaderName);
+      throw e;
+    }
+    for (ApduResponse apduResponse : samCardResponse.getApduResponses()) {
+      if (apduResponse.getStatusCode() == SW_PRECONDITIONS_NOT_SATISFIED) {
+        SamCardResourceProfileExtensionAdapter.notifySamStateChanged(samReaderName);
+        break;
+      }
+    }
+    return samCardResponse;
+  }
+
+  /**
+   * (private)<br>
+   * Ends the current SAM work unit.
+   */
+  private void releaseSam() {
+    SamSchedulerAdapter.getInstance(samReaderName).release(this);
+  }
+
+  /**
+   * Releases the exclusive use of the SAM held since the session challenge or the last SV prepare.
+   *
+   * <p>Must be called when a session or an SV operation is abandoned.
+   *
+   * @since 2.0
+   */
+  void endSamLease() {
+    isSvOperationPending = false;
+    SamSchedulerAdapter.getInstance(samReaderName).endLease(this);
+  }
+
+  /**
+   * Rebinds the processor to a new PO, keeping the SAM.
+   *
+   * <p>Any lease held on the SAM is released and the digest and diversification contexts are
+   * discarded.
+   *
+   * @param poSmartCard The initial data of the new PO.
+   * @since 2.0
+   */
+  void reset(PoSmartCard poSmartCard) {
+    endSamLease();
+    this.poSmartCard = poSmartCard;
+    poDigestDataCache.clear();
+    isDiversificationDone = false;
+    isDigestInitDone = false;
+    isDigesterInitialized = false;
   }
 
   /**
@@ -107,67 +250,69 @@ class SamCommandProcessor {
    */
   byte[] getSessionTerminalChallenge()
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
-    List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
-
-    // diversify only if this has not already been done.
-    if (!isDiversificationDone) {
-      // build the SAM Select Diversifier command to provide the SAM with the PO S/N
-      AbstractApduCommandBuilder selectDiversifier =
-          new SamSelectDiversifierBuilder(
-              samRevision, poSmartCard.getApplicationSerialNumberBytes());
-
-      apduRequests.add(selectDiversifier.getApduRequest());
-
-      // note that the diversification has been made
-      isDiversificationDone = true;
-    }
-
-    // build the SAM Get Challenge command
-    byte challengeLength =
-        poSmartCard.isConfidentialSessionModeSupported()
-            ? CHALLENGE_LENGTH_REV32
-            : CHALLENGE_LENGTH_REV_INF_32;
-
-    AbstractSamCommandBuilder<? extends AbstractSamResponseParser> samGetChallengeBuilder =
-        new SamGetChallengeBuilder(samRevision, challengeLength);
-
-    apduRequests.add(samGetChallengeBuilder.getApduRequest());
-
-    // Transmit the CardRequest to the SAM and get back the CardResponse (list of ApduResponse)
-    CardResponse samCardResponse;
+    acquireSam();
     try {
-      samCardResponse =
-          samReader.transmitCardRequest(
-              new CardRequest(apduRequests, false), ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
-    }
+      List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
 
-    List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
-    byte[] sessionTerminalChallenge;
+      // diversify only if this has not already been done.
+      if (!isDiversificationDone) {
+        // build the SAM Select Diversifier command to provide the SAM with the PO S/N
+        AbstractApduCommandBuilder selectDiversifier =
+            new SamSelectDiversifierBuilder(
+                samRevision, poSmartCard.getApplicationSerialNumberBytes());
 
-    int numberOfSamCmd = apduRequests.size();
-    if (samApduResponses.size() == numberOfSamCmd) {
-      SamGetChallengeParser samGetChallengeParser =
-          (SamGetChallengeParser)
-              samGetChallengeBuilder.createResponseParser(samApduResponses.get(numberOfSamCmd - 1));
+        apduRequests.add(selectDiversifier.getApduRequest());
 
-      samGetChallengeParser.checkStatus();
+        // note that the diversification has been made
+        isDiversificationDone = true;
+      }
 
-      sessionTerminalChallenge = samGetChallengeParser.getChallenge();
-      if (logger.isDebugEnabled()) {
-        logger.debug(
-            "identification: TERMINALCHALLENGE = {}",
-            ByteArrayUtil.toHex(sessionTerminalChallenge));
+      // build the SAM Get Challenge command
+      byte challengeLength =
+          poSmartCard.isConfidentialSessionModeSupported()
+              ? CHALLENGE_LENGTH_REV32
+              : CHALLENGE_LENGTH_REV_INF_32;
+
+      AbstractSamCommandBuilder<? extends AbstractSamResponseParser> samGetChallengeBuilder =
+          FixedCommandRegistry.getSamGetChallengeBuilder(samRevision, challengeLength);
+
+      apduRequests.add(samGetChallengeBuilder.getApduRequest());
+
+      // Transmit the CardRequest to the SAM and get back the CardResponse (list of ApduResponse)
+      CardResponse samCardResponse = transmitSamCardRequest(new CardRequest(apduRequests, false));
+
+      List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
+      byte[] sessionTerminalChallenge;
+
+      int numberOfSamCmd = apduRequests.size();
+      if (samApduResponses.size() == numberOfSamCmd) {
+        SamGetChallengeParser samGetChallengeParser =
+            (SamGetChallengeParser)
+                samGetChallengeBuilder.createResponseParser(
+                    samApduResponses.get(numberOfSamCmd - 1));
+
+        samGetChallengeParser.checkStatus();
+
+        sessionTerminalChallenge = samGetChallengeParser.getChallenge();
+
+        // the SAM is now dedicated to this session until the PO signature is authenticated
+        SamSchedulerAdapter.getInstance(samReaderName).startLease(this);
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              "identification: TERMINALCHALLENGE = {}",
+              ByteArrayUtil.toHex(sessionTerminalChallenge));
+        }
+      } else {
+        throw new CalypsoDesynchronizedExchangesException(
+            "The number of commands/responses does not match: cmd="
+                + numberOfSamCmd
+                + ", resp="
+                + samApduResponses.size());
       }
-    } else {
-      throw new CalypsoDesynchronizedExchangesException(
-          "The number of commands/responses does not match: cmd="
-              + numberOfSamCmd
-              + ", resp="
-              + samApduResponses.size());
+      return sessionTerminalChallenge;
+    } finally {
+      releaseSam();
     }
-    return sessionTerminalChallenge;
   }
 
   /**
@@ -368,11 +513,11 @@ void pushPoExchangeDataList(
     if (addDigestClose) {
       // Build and append Digest Close command
       samCommands.add(
-          (new SamDigestCloseBuilder(
+          FixedCommandRegistry.getSamDigestCloseBuilder(
               samRevision,
               poSmartCard.getRevision().equals(PoRevision.REV3_2)
                   ? SIGNATURE_LENGTH_REV32
-                  : SIGNATURE_LENGTH_REV_INF_32)));
+                  : SIGNATURE_LENGTH_REV_INF_32));
     }
 
     return samCommands;
@@ -393,52 +538,51 @@ void pushPoExchangeDataList(
    */
   byte[] getTerminalSignature()
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
+    acquireSam();
+    try {
 
-    // All remaining SAM digest operations will now run at once.
-    // Get the SAM Digest request including Digest Close from the cache manager
-    List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
-        getPendingSamCommands(true);
+      // All remaining SAM digest operations will now run at once.
+      // Get the SAM Digest request including Digest Close from the cache manager
+      List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+          getPendingSamCommands(true);
 
-    CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
+      CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
 
-    // Transmit CardRequest and get CardResponse
-    CardResponse samCardResponse;
+      // Transmit CardRequest and get CardResponse
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
 
-    try {
-      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
-    }
+      List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
 
-    List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
+      if (samApduResponses.size() != samCommands.size()) {
+        throw new CalypsoDesynchronizedExchangesException(
+            "The number of commands/responses does not match: cmd="
+                + samCommands.size()
+                + ", resp="
+                + samApduResponses.size());
+      }
 
-    if (samApduResponses.size() != samCommands.size()) {
-      throw new CalypsoDesynchronizedExchangesException(
-          "The number of commands/responses does not match: cmd="
-              + samCommands.size()
-              + ", resp="
-              + samApduResponses.size());
-    }
+      // check all responses status
+      for (int i = 0; i < samApduResponses.size(); i++) {
+        samCommands.get(i).createResponseParser(samApduResponses.get(i)).checkStatus();
+      }
 
-    // check all responses status
-    for (int i = 0; i < samApduResponses.size(); i++) {
-      samCommands.get(i).createResponseParser(samApduResponses.get(i)).checkStatus();
-    }
+      // Get Terminal Signature from the latest response
+      SamDigestCloseParser samDigestCloseParser =
+          (SamDigestCloseParser)
+              samCommands
+                  .get(samCommands.size() - 1)
+                  .createResponseParser(samApduResponses.get(samCommands.size() - 1));
 
-    // Get Terminal Signature from the latest response
-    SamDigestCloseParser samDigestCloseParser =
-        (SamDigestCloseParser)
-            samCommands
-                .get(samCommands.size() - 1)
-                .createResponseParser(samApduResponses.get(samCommands.size() - 1));
+      byte[] sessionTerminalSignature = samDigestCloseParser.getSignature();
 
-    byte[] sessionTerminalSignature = samDigestCloseParser.getSignature();
+      if (logger.isDebugEnabled()) {
+        logger.debug("SIGNATURE = {}", ByteArrayUtil.toHex(sessionTerminalSignature));
+      }
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("SIGNATURE = {}", ByteArrayUtil.toHex(sessionTerminalSignature));
+      return sessionTerminalSignature;
+    } finally {
+      releaseSam();
     }
-
-    return sessionTerminalSignature;
   }
 
   /**
@@ -455,35 +599,44 @@ byte[] getTerminalSignature()
    */
   void authenticatePoSignature(byte[] poSignatureLo)
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
-    // Check the PO signature part with the SAM
-    // Build and send SAM Digest Authenticate command
-    SamDigestAuthenticateBuilder samDigestAuthenticateBuilder =
-        new SamDigestAuthenticateBuilder(samRevision, poSignatureLo);
+    acquireSam();
+    try {
+      // Check the PO signature part with the SAM
+      // Build and send SAM Digest Authenticate command
+      SamDigestAuthenticateBuilder samDigestAuthenticateBuilder =
+          new SamDigestAuthenticateBuilder(samRevision, poSignatureLo);
 
-    List<ApduRequest> samApduRequests = new ArrayList<ApduRequest>();
-    samApduRequests.add(samDigestAuthenticateBuilder.getApduRequest());
+      List<ApduRequest> samApduRequests = new ArrayList<ApduRequest>();
+      samApduRequests.add(samDigestAuthenticateBuilder.getApduRequest());
 
-    CardRequest samCardRequest = new CardRequest(samApduRequests, false);
+      CardRequest samCardRequest = new CardRequest(samApduRequests, false);
 
-    CardResponse samCardResponse;
-    try {
-      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
-    }
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
 
-    // Get transaction result parsing the response
-    List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
+      // Get transaction result parsing the response
+      List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
 
-    if (samApduResponses == null || samApduResponses.isEmpty()) {
-      throw new CalypsoDesynchronizedExchangesException(
-          "No response to Digest Authenticate command.");
-    }
+      if (samApduResponses == null || samApduResponses.isEmpty()) {
+        throw new CalypsoDesynchronizedExchangesException(
+            "No response to Digest Authenticate command.");
+      }
+
+      SamDigestAuthenticateParser digestAuthenticateRespPars =
+          samDigestAuthenticateBuilder.createResponseParser(samApduResponses.get(0));
 
-    SamDigestAuthenticateParser digestAuthenticateRespPars =
-        samDigestAuthenticateBuilder.createResponseParser(samApduResponses.get(0));
+      digestAuthenticateRespPars.checkStatus();
 
-    digestAuthenticateRespPars.checkStatus();
+      SamEventCounterMonitorAdapter samEventCounterMonitor = getSamEventCounterMonitor();
+      if (samEventCounterMonitor != null) {
+        samEventCounterMonitor.notifySessionClosed(samSerialNumber);
+      }
+    } finally {
+      // the session is over, the SAM remains dedicated only if an SV operation has to be checked
+      if (!isSvOperationPending) {
+        SamSchedulerAdapter.getInstance(samReaderName).endLease(this);
+      }
+      releaseSam();
+    }
   }
 
   /**
@@ -519,65 +672,65 @@ private List<ApduRequest> getApduRequests(
    */
   byte[] getCipheredPinData(byte[] poChallenge, byte[] currentPin, byte[] newPin)
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
-    List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
-        new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
-    byte pinCipheringKif;
-    byte pinCipheringKvc;
-
-    if (workKif != 0) {
-      // the current work key has been set (a secure session is open)
-      pinCipheringKif = workKif;
-      pinCipheringKvc = workKvc;
-    } else {
-      // no current work key is available (outside secure session)
-      pinCipheringKif = poSecuritySettings.getPinCipheringKif();
-      pinCipheringKvc = poSecuritySettings.getPinCipheringKvc();
-    }
+    acquireSam();
+    try {
+      List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+          new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+      byte pinCipheringKif;
+      byte pinCipheringKvc;
+
+      if (workKif != 0) {
+        // the current work key has been set (a secure session is open)
+        pinCipheringKif = workKif;
+        pinCipheringKvc = workKvc;
+      } else {
+        // no current work key is available (outside secure session)
+        pinCipheringKif = poSecuritySettings.getPinCipheringKif();
+        pinCipheringKvc = poSecuritySettings.getPinCipheringKvc();
+      }
 
-    if (!isDiversificationDone) {
-      /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
-      samCommands.add(
-          new SamSelectDiversifierBuilder(
-              samRevision, poSmartCard.getApplicationSerialNumberBytes()));
-      isDiversificationDone = true;
-    }
+      if (!isDiversificationDone) {
+        /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
+        samCommands.add(
+            new SamSelectDiversifierBuilder(
+                samRevision, poSmartCard.getApplicationSerialNumberBytes()));
+        isDiversificationDone = true;
+      }
 
-    if (isDigesterInitialized) {
-      /* Get the pending SAM ApduRequest and add it to the current ApduRequest list */
-      samCommands.addAll(getPendingSamCommands(false));
-    }
+      if (isDigesterInitialized) {
+        /* Get the pending SAM ApduRequest and add it to the current ApduRequest list */
+        samCommands.addAll(getPendingSamCommands(false));
+      }
 
-    samCommands.add(new SamGiveRandomBuilder(samRevision, poChallenge));
+      samCommands.add(new SamGiveRandomBuilder(samRevision, poChallenge));
 
-    int cardCipherPinCmdIndex = samCommands.size();
+      int cardCipherPinCmdIndex = samCommands.size();
 
-    SamCardCipherPinBuilder samCardCipherPinBuilder =
-        new SamCardCipherPinBuilder(
-            samRevision, pinCipheringKif, pinCipheringKvc, currentPin, newPin);
+      SamCardCipherPinBuilder samCardCipherPinBuilder =
+          new SamCardCipherPinBuilder(
+              samRevision, pinCipheringKif, pinCipheringKvc, currentPin, newPin);
 
-    samCommands.add(samCardCipherPinBuilder);
+      samCommands.add(samCardCipherPinBuilder);
 
-    // build a SAM CardRequest
-    CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
+      // build a SAM CardRequest
+      CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
 
-    // execute the command
-    CardResponse samCardResponse;
-    try {
-      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
-    }
+      // execute the command
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
 
-    ApduResponse cardCipherPinResponse =
-        samCardResponse.getApduResponses().get(cardCipherPinCmdIndex);
+      ApduResponse cardCipherPinResponse =
+          samCardResponse.getApduResponses().get(cardCipherPinCmdIndex);
 
-    // create a parser
-    SamCardCipherPinParser samCardCipherPinParser =
-        samCardCipherPinBuilder.createResponseParser(cardCipherPinResponse);
+      // create a parser
+      SamCardCipherPinParser samCardCipherPinParser =
+          samCardCipherPinBuilder.createResponseParser(cardCipherPinResponse);
 
-    samCardCipherPinParser.checkStatus();
+      samCardCipherPinParser.checkStatus();
 
-    return samCardCipherPinParser.getCipheredData();
+      return samCardCipherPinParser.getCipheredData();
+    } finally {
+      releaseSam();
+    }
   }
 
   /**
@@ -605,45 +758,61 @@ byte[] getCipheredPinData(byte[] poChallenge, byte[] currentPin, byte[] newPin)
   private byte[] getSvComplementaryData(
       AbstractSamCommandBuilder<? extends AbstractSamResponseParser> samSvPrepareBuilder)
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
-    List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
-        new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+    acquireSam();
+    try {
+      List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+          new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+
+      if (!isDiversificationDone) {
+        /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
+        samCommands.add(
+            new SamSelectDiversifierBuilder(
+                samRevision, poSmartCard.getApplicationSerialNumberBytes()));
+        isDiversificationDone = true;
+      }
 
-    if (!isDiversificationDone) {
-      /* Build the SAM Select Diversifier command to provide the SAM with the PO S/N */
-      samCommands.add(
-          new SamSelectDiversifierBuilder(
-              samRevision, poSmartCard.getApplicationSerialNumberBytes()));
-      isDiversificationDone = true;
-    }
+      if (isDigesterInitialized) {
+        /* Get the pending SAM ApduRequest and add it to the current ApduRequest list */
+        samCommands.addAll(getPendingSamCommands(false));
+      }
 
-    if (isDigesterInitialized) {
-      /* Get the pending SAM ApduRequest and add it to the current ApduRequest list */
-      samCommands.addAll(getPendingSamCommands(false));
-    }
+      int svPrepareOperationCmdIndex = samCommands.size();
 
-    int svPrepareOperationCmdIndex = samCommands.size();
+      samCommands.add(samSvPrepareBuilder);
 
-    samCommands.add(samSvPrepareBuilder);
+      // build a SAM CardRequest
+      CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
 
-    // build a SAM CardRequest
-    CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
+      // execute the command
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
 
-    // execute the command
-    CardResponse samCardResponse;
-    try {
-      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
-    }
+      ApduResponse svPrepareResponse =
+          samCardResponse.getApduResponses().get(svPrepareOperationCmdIndex);
 
-    ApduResponse svPrepareResponse =
-        samCardResponse.getApduResponses().get(svPrepareOperationCmdIndex);
+      // create a parser
+      SamSvPrepareOperationParser svPrepareOperationRespPars =
+          (SamSvPrepareOperationParser) samSvPrepareBuilder.createResponseParser(svPrepareResponse);
 
-    // create a parser
-    SamSvPrepareOperationParser svPrepareOperationRespPars =
-        (SamSvPrepareOperationParser) samSvPrepareBuilder.createResponseParser(svPrepareResponse);
+      svPrepareOperationRespPars.checkStatus();
+
+      // the SAM is now dedicated to this SV operation until it is checked
+      isSvOperationPending = true;
+      SamSchedulerAdapter.getInstance(samReaderName).startLease(this);
+
+      return getSvComplementaryData(svPrepareOperationRespPars);
+    } finally {
+      releaseSam();
+    }
+  }
 
-    svPrepareOperationRespPars.checkStatus();
+  /**
+   * (private)<br>
+   * Builds the complementary data of an SV operation from the response to the SV Prepare command.
+   *
+   * @param svPrepareOperationRespPars the parser of the SV Prepare command.
+   * @return a byte array containing the SAM serial number followed by the SV Prepare output.
+   */
+  private byte[] getSvComplementaryData(SamSvPrepareOperationParser svPrepareOperationRespPars) {
 
     byte[] prepareOperationData = svPrepareOperationRespPars.getApduResponse().getDataOut();
 
@@ -661,6 +830,43 @@ private byte[] getSvComplementaryData(
     return operationComplementaryData;
   }
 
+  /**
+   * (private)<br>
+   * Creates the SV Prepare command matching the provided PO SV operation command.
+   *
+   * @param poSvOperationBuilder the SvReload, SvDebit or SvUndebit builder.
+   * @param svGetHeader the SV Get command header.
+   * @param svGetData the SV Get command response data.
+   * @return a not null reference.
+   * @throws IllegalArgumentException if the provided builder is not an SV operation.
+   */
+  private AbstractSamCommandBuilder<? extends AbstractSamResponseParser> createSvPrepareBuilder(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> poSvOperationBuilder,
+      byte[] svGetHeader,
+      byte[] svGetData) {
+    if (poSvOperationBuilder instanceof PoSvReloadBuilder) {
+      return new SamSvPrepareLoadBuilder(
+          samRevision,
+          svGetHeader,
+          svGetData,
+          ((PoSvReloadBuilder) poSvOperationBuilder).getSvReloadData());
+    } else if (poSvOperationBuilder instanceof PoSvDebitBuilder) {
+      return new SamSvPrepareDebitBuilder(
+          samRevision,
+          svGetHeader,
+          svGetData,
+          ((PoSvDebitBuilder) poSvOperationBuilder).getSvDebitData());
+    } else if (poSvOperationBuilder instanceof PoSvUndebitBuilder) {
+      return new SamSvPrepareUndebitBuilder(
+          samRevision,
+          svGetHeader,
+          svGetData,
+          ((PoSvUndebitBuilder) poSvOperationBuilder).getSvUndebitData());
+    }
+    throw new IllegalArgumentException(
+        "An SV operation is expected: " + poSvOperationBuilder.getName());
+  }
+
   /**
    * Computes the cryptographic data required for the SvReload command.
    *
@@ -759,29 +965,170 @@ public byte[] getSvUndebitComplementaryData(
    */
   void checkSvStatus(byte[] svOperationResponseData)
       throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
-    List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
-        new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+    acquireSam();
+    try {
+      List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+          new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
 
-    SamSvCheckBuilder samSvCheckBuilder =
-        new SamSvCheckBuilder(samRevision, svOperationResponseData);
-    samCommands.add(samSvCheckBuilder);
+      SamSvCheckBuilder samSvCheckBuilder =
+          new SamSvCheckBuilder(samRevision, svOperationResponseData);
+      samCommands.add(samSvCheckBuilder);
 
-    // build a SAM CardRequest
-    CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
+      // build a SAM CardRequest
+      CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
 
-    // execute the command
-    CardResponse samCardResponse;
+      // execute the command
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
+
+      ApduResponse svCheckResponse = samCardResponse.getApduResponses().get(0);
+
+      // create a parser
+      SamSvCheckParser samSvCheckParser = samSvCheckBuilder.createResponseParser(svCheckResponse);
+
+      samSvCheckParser.checkStatus();
+
+      SamEventCounterMonitorAdapter samEventCounterMonitor = getSamEventCounterMonitor();
+      if (samEventCounterMonitor != null) {
+        samEventCounterMonitor.notifySvOperationChecked(samSerialNumber);
+      }
+    } finally {
+      endSamLease();
+      releaseSam();
+    }
+  }
+
+  /**
+   * Computes the cryptographic data required for an SvReload, SvDebit or SvUndebit command.
+   *
+   * <p>Same as the dedicated methods, the SV Prepare command being chosen from the type of the
+   * provided builder.
+   *
+   * @param poSvOperationBuilder the SvReload, SvDebit or SvUndebit builder.
+   * @param svGetHeader the SV Get command header.
+   * @param svGetData the SV Get command response data.
+   * @return the complementary security data to finalize the PO SV command (sam ID + SV prepare
+   *     output)
+   * @throws CalypsoSamCommandException if the SAM has responded with an error status
+   * @throws ReaderCommunicationException if the communication with the SAM reader has failed.
+   * @throws CardCommunicationException if the communication with the SAM has failed.
+   * @since 2.0
+   */
+  byte[] getSvOperationComplementaryData(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> poSvOperationBuilder,
+      byte[] svGetHeader,
+      byte[] svGetData)
+      throws CalypsoSamCommandException, ReaderCommunicationException, CardCommunicationException {
+    return getSvComplementaryData(
+        createSvPrepareBuilder(poSvOperationBuilder, svGetHeader, svGetData));
+  }
+
+  /**
+   * Checks the status of the last SV operation and prepares the next one in the same SAM request.
+   *
+   * <p>The SV Check and SV Prepare commands are sent together, the SV Prepare data being those of
+   * the SV Get executed in the PO request of the checked operation. The SV Prepare output is only
+   * used if the SV Check succeeded.
+   *
+   * @param svOperationResponseData the data of the SV operation performed.
+   * @param nextPoSvOperationBuilder the SvReload, SvDebit or SvUndebit builder of the next
+   *     operation.
+   * @param svGetHeader the header of the SV Get command preceding the next operation.
+   * @param svGetData the response data of the SV Get command preceding the next operation.
+   * @return the complementary security data to finalize the next PO SV command (sam ID + SV prepare
+   *     output)
+   * @throws CalypsoSamCommandException if the SAM has responded with an error status, the command
+   *     of the exception tells which of the SV Check or SV Prepare failed.
+   * @throws ReaderCommunicationException if the communication with the SAM reader has failed.
+   * @throws CardCommunicationException if the communication with the SAM has failed.
+   * @since 2.0
+   */
+  byte[] checkSvStatusAndPrepareNext(
+      byte[] svOperationResponseData,
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> nextPoSvOperationBuilder,
+      byte[] svGetHeader,
+      byte[] svGetData)
+      throws CalypsoSamCommandException, CardCommunicationException, ReaderCommunicationException {
+    AbstractSamCommandBuilder<? extends AbstractSamResponseParser> samSvPrepareBuilder =
+        createSvPrepareBuilder(nextPoSvOperationBuilder, svGetHeader, svGetData);
+    acquireSam();
+    boolean isNextOperationPrepared = false;
     try {
-      samCardResponse = samReader.transmitCardRequest(samCardRequest, ChannelControl.KEEP_OPEN);
-    } catch (UnexpectedStatusCodeException e) {
-      throw new IllegalStateException(UNEXPECTED_EXCEPTION, e);
+      List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+          new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+
+      SamSvCheckBuilder samSvCheckBuilder =
+          new SamSvCheckBuilder(samRevision, svOperationResponseData);
+      samCommands.add(samSvCheckBuilder);
+      samCommands.add(samSvPrepareBuilder);
+
+      // build a SAM CardRequest
+      CardRequest samCardRequest = new CardRequest(getApduRequests(samCommands), false);
+
+      // execute the commands
+      CardResponse samCardResponse = transmitSamCardRequest(samCardRequest);
+
+      List<ApduResponse> samApduResponses = samCardResponse.getApduResponses();
+      if (samApduResponses.size() != samCommands.size()) {
+        throw new CalypsoDesynchronizedExchangesException(
+            "The number of commands/responses does not match: cmd="
+                + samCommands.size()
+                + ", resp="
+                + samApduResponses.size());
+      }
+
+      samSvCheckBuilder.createResponseParser(samApduResponses.get(0)).checkStatus();
+
+      SamEventCounterMonitorAdapter samEventCounterMonitor = getSamEventCounterMonitor();
+      if (samEventCounterMonitor != null) {
+        samEventCounterMonitor.notifySvOperationChecked(samSerialNumber);
+      }
+
+      SamSvPrepareOperationParser svPrepareOperationRespPars =
+          (SamSvPrepareOperationParser)
+              samSvPrepareBuilder.createResponseParser(samApduResponses.get(1));
+
+      svPrepareOperationRespPars.checkStatus();
+      isNextOperationPrepared = true;
+
+      return getSvComplementaryData(svPrepareOperationRespPars);
+    } finally {
+      // the lease is kept for the next operation, until it is checked
+      if (!isNextOperationPrepared) {
+        endSamLease();
+      }
+      releaseSam();
     }
+  }
 
-    ApduResponse svCheckResponse = samCardResponse.getApduResponses().get(0);
+  /**
+   * (private)<br>
+   * Gets the SAM event counter monitor provided by the security settings.
+   *
+   * @return null if no monitor has been set.
+   */
+  private SamEventCounterMonitorAdapter getSamEventCounterMonitor() {
+    return (SamEventCounterMonitorAdapter) poSecuritySettings.getSamEventCounterMonitor();
+  }
 
-    // create a parser
-    SamSvCheckParser samSvCheckParser = samSvCheckBuilder.createResponseParser(svCheckResponse);
+  /**
+   * (package-private)<br>
+   * Tells if the key diversification has already been done in the SAM.
+   *
+   * @return true if no Select Diversifier command is needed before the next challenge.
+   * @since 2.0
+   */
+  boolean isDiversificationDone() {
+    return isDiversificationDone;
+  }
 
-    samSvCheckParser.checkStatus();
+  /**
+   * (package-private)<br>
+   * Gets the number of Digest Init and Digest Update commands waiting to be sent to the SAM.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getPendingDigestCommandCount() {
+    return poDigestDataCache.size();
   }
 }
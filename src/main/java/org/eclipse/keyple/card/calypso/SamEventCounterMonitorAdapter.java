@@ -0,0 +1,427 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.keyple.card.calypso.sam.SamEventCounterMonitor;
+import org.eclipse.keyple.card.calypso.sam.SamRevision;
+import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.transaction.CalypsoDesynchronizedExchangesException;
+import org.eclipse.keyple.card.calypso.transaction.CalypsoSamAnomalyException;
+import org.eclipse.keyple.card.calypso.transaction.CalypsoSamIOException;
+import org.eclipse.keyple.core.card.*;
+import org.eclipse.keyple.core.service.Reader;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SamEventCounterMonitor}.
+ *
+ * <p>The values are kept per SAM serial number. Each record returned by the Read Event Counter and
+ * Read Ceilings commands contains an 8-byte header followed by nine 3-byte values.
+ *
+ * @since 2.0
+ */
+final class SamEventCounterMonitorAdapter implements SamEventCounterMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(SamEventCounterMonitorAdapter.class);
+
+  private static final int NB_COUNTERS = SamReadEventCounterBuilder.MAX_COUNTER_NUMB + 1;
+  private static final int NB_VALUES_PER_RECORD = 9;
+  private static final int RECORD_HEADER_LENGTH = 8;
+  private static final int VALUE_LENGTH = 3;
+
+  private final int sessionCounterNumber;
+  private final int svCounterNumber;
+  private final int exhaustionThreshold;
+  private final ConcurrentMap<String, SamCounters> countersBySamSerialNumber;
+  private final ConcurrentMap<String, IdleRefresher> refreshersByReaderName;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param sessionCounterNumber The number of the event counter incremented by a session closing.
+   * @param svCounterNumber The number of the event counter incremented by an SV operation.
+   * @param exhaustionThreshold The number of remaining events below which a SAM is considered as
+   *     near exhaustion.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  SamEventCounterMonitorAdapter(
+      int sessionCounterNumber, int svCounterNumber, int exhaustionThreshold) {
+    Assert.getInstance()
+        .isInRange(sessionCounterNumber, 0, NB_COUNTERS - 1, "sessionCounterNumber")
+        .isInRange(svCounterNumber, 0, NB_COUNTERS - 1, "svCounterNumber")
+        .isInRange(exhaustionThreshold, 0, Integer.MAX_VALUE, "exhaustionThreshold");
+    this.sessionCounterNumber = sessionCounterNumber;
+    this.svCounterNumber = svCounterNumber;
+    this.exhaustionThreshold = exhaustionThreshold;
+    this.countersBySamSerialNumber = new ConcurrentHashMap<String, SamCounters>();
+    this.refreshersByReaderName = new ConcurrentHashMap<String, IdleRefresher>();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void startIdleRefresh(Reader samReader, SamSmartCard samSmartCard, long periodMillis) {
+    Assert.getInstance()
+        .notNull(samReader, "samReader")
+        .notNull(samSmartCard, "samSmartCard")
+        .isTrue(periodMillis > 0, "periodMillis");
+
+    IdleRefresher refresher = new IdleRefresher(samReader, samSmartCard, periodMillis);
+    IdleRefresher previousRefresher = refreshersByReaderName.put(samReader.getName(), refresher);
+    if (previousRefresher != null) {
+      previousRefresher.stop();
+    }
+    refresher.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void stopIdleRefresh(Reader samReader) {
+    Assert.getInstance().notNull(samReader, "samReader");
+
+    IdleRefresher refresher = refreshersByReaderName.remove(samReader.getName());
+    if (refresher != null) {
+      refresher.stop();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void refresh(Reader samReader, SamSmartCard samSmartCard) {
+    Assert.getInstance().notNull(samReader, "samReader").notNull(samSmartCard, "samSmartCard");
+
+    SamRevision samRevision = samSmartCard.getSamRevision();
+    List<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>> samCommands =
+        new ArrayList<AbstractSamCommandBuilder<? extends AbstractSamResponseParser>>();
+    for (int i = 1; i <= SamReadEventCounterBuilder.MAX_COUNTER_REC_NUMB; i++) {
+      samCommands.add(
+          new SamReadEventCounterBuilder(
+              samRevision,
+              SamReadEventCounterBuilder.SamEventCounterOperationType.COUNTER_RECORD,
+              i));
+    }
+    for (int i = 1; i <= SamReadCeilingsBuilder.MAX_CEILING_REC_NUMB; i++) {
+      samCommands.add(
+          new SamReadCeilingsBuilder(
+              samRevision, SamReadCeilingsBuilder.CeilingsOperationType.CEILING_RECORD, i));
+    }
+
+    List<ApduRequest> apduRequests = new ArrayList<ApduRequest>();
+    for (AbstractSamCommandBuilder<? extends AbstractSamResponseParser> samCommand : samCommands) {
+      apduRequests.add(samCommand.getApduRequest());
+    }
+
+    // all records are read in a single exchange with the SAM, scheduled as a regular work unit
+    SamSchedulerAdapter.getInstance(samReader.getName()).acquire(this);
+    CardResponse samCardResponse;
+    try {
+      samCardResponse =
+          ((ProxyReader) samReader)
+              .transmitCardRequest(new CardRequest(apduRequests, false), ChannelControl.KEEP_OPEN);
+    } catch (ReaderCommunicationException e) {
+      throw new CalypsoSamIOException(
+          "A communication error with the SAM reader occurred while reading the event counters.",
+          e);
+    } catch (CardCommunicationException e) {
+      throw new CalypsoSamIOException(
+          "A communication error with the SAM occurred while reading the event counters.", e);
+    } catch (UnexpectedStatusCodeException e) {
+      throw new IllegalStateException("An unexpected exception was raised.", e);
+    } finally {
+      SamSchedulerAdapter.getInstance(samReader.getName()).release(this);
+    }
+
+    List<ApduResponse> apduResponses = samCardResponse.getApduResponses();
+    if (apduResponses.size() != samCommands.size()) {
+      throw new CalypsoDesynchronizedExchangesException(
+          "The number of commands/responses does not match: cmd="
+              + samCommands.size()
+              + ", resp="
+              + apduResponses.size());
+    }
+
+    int[] counters = new int[NB_COUNTERS];
+    int[] ceilings = new int[NB_COUNTERS];
+    for (int i = 0; i < samCommands.size(); i++) {
+      AbstractSamResponseParser samResponseParser =
+          samCommands.get(i).createResponseParser(apduResponses.get(i));
+      try {
+        samResponseParser.checkStatus();
+      } catch (CalypsoSamCommandException e) {
+        throw new CalypsoSamAnomalyException(
+            "A SAM command error occurred while reading the event counters: "
+                + e.getCommand().getName(),
+            e);
+      }
+      if (samResponseParser instanceof SamReadEventCounterParser) {
+        parseRecord(((SamReadEventCounterParser) samResponseParser).getCounterData(), i, counters);
+      } else {
+        parseRecord(
+            ((SamReadCeilingsParser) samResponseParser).getCeilingsData(),
+            i - SamReadEventCounterBuilder.MAX_COUNTER_REC_NUMB,
+            ceilings);
+      }
+    }
+
+    String key = ByteArrayUtil.toHex(samSmartCard.getSerialNumber());
+    SamCounters samCounters = countersBySamSerialNumber.get(key);
+    if (samCounters == null) {
+      countersBySamSerialNumber.putIfAbsent(key, new SamCounters());
+      samCounters = countersBySamSerialNumber.get(key);
+    }
+    samCounters.update(counters, ceilings);
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "SAM {}: session counter = {}/{}, SV counter = {}/{}",
+          key,
+          counters[sessionCounterNumber],
+          ceilings[sessionCounterNumber],
+          counters[svCounterNumber],
+          ceilings[svCounterNumber]);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Extracts the nine values of a counter or ceiling record.
+   *
+   * @param recordData The record data.
+   * @param recordIndex The index of the record (0 for the first record).
+   * @param values The array to fill.
+   */
+  private static void parseRecord(byte[] recordData, int recordIndex, int[] values) {
+    if (recordData == null
+        || recordData.length < RECORD_HEADER_LENGTH + NB_VALUES_PER_RECORD * VALUE_LENGTH) {
+      throw new IllegalStateException("Incorrect data length in response to SAM read record.");
+    }
+    for (int i = 0; i < NB_VALUES_PER_RECORD; i++) {
+      values[recordIndex * NB_VALUES_PER_RECORD + i] =
+          ByteArrayUtil.threeBytesToInt(recordData, RECORD_HEADER_LENGTH + i * VALUE_LENGTH);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isKnown(byte[] samSerialNumber) {
+    return getSamCounters(samSerialNumber) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getPredictedEventCounter(byte[] samSerialNumber, int counterNumber) {
+    Assert.getInstance().isInRange(counterNumber, 0, NB_COUNTERS - 1, "counterNumber");
+    SamCounters samCounters = getSamCounters(samSerialNumber);
+    return samCounters != null ? samCounters.getPredictedCounter(counterNumber) : -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getEventCeiling(byte[] samSerialNumber, int ceilingNumber) {
+    Assert.getInstance().isInRange(ceilingNumber, 0, NB_COUNTERS - 1, "ceilingNumber");
+    SamCounters samCounters = getSamCounters(samSerialNumber);
+    return samCounters != null ? samCounters.getCeiling(ceilingNumber) : -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isNearExhaustion(byte[] samSerialNumber) {
+    SamCounters samCounters = getSamCounters(samSerialNumber);
+    if (samCounters == null) {
+      return false;
+    }
+    return samCounters.getRemainingEvents(sessionCounterNumber) <= exhaustionThreshold
+        || samCounters.getRemainingEvents(svCounterNumber) <= exhaustionThreshold;
+  }
+
+  /**
+   * (package-private)<br>
+   * Updates the prediction after a secure session has been successfully closed with the SAM.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @since 2.0
+   */
+  void notifySessionClosed(byte[] samSerialNumber) {
+    SamCounters samCounters = getSamCounters(samSerialNumber);
+    if (samCounters != null) {
+      samCounters.increment(sessionCounterNumber);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Updates the prediction after an SV operation has been successfully checked by the SAM.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @since 2.0
+   */
+  void notifySvOperationChecked(byte[] samSerialNumber) {
+    SamCounters samCounters = getSamCounters(samSerialNumber);
+    if (samCounters != null) {
+      samCounters.increment(svCounterNumber);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Gets the counters of the SAM having the provided serial number.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @return null if the SAM has never been refreshed.
+   */
+  private SamCounters getSamCounters(byte[] samSerialNumber) {
+    Assert.getInstance().notNull(samSerialNumber, "samSerialNumber");
+    return countersBySamSerialNumber.get(ByteArrayUtil.toHex(samSerialNumber));
+  }
+
+  /**
+   * (private)<br>
+   * Background refresh of a SAM, performed when its scheduler is idle.
+   */
+  private final class IdleRefresher implements Runnable {
+    private final Reader samReader;
+    private final SamSmartCard samSmartCard;
+    private final long periodMillis;
+    private final Thread thread;
+    private volatile boolean isStopped;
+
+    IdleRefresher(Reader samReader, SamSmartCard samSmartCard, long periodMillis) {
+      this.samReader = samReader;
+      this.samSmartCard = samSmartCard;
+      this.periodMillis = periodMillis;
+      thread = new Thread(this, "SamEventCounterRefresh-" + samReader.getName());
+      thread.setDaemon(true);
+    }
+
+    void start() {
+      thread.start();
+    }
+
+    void stop() {
+      // a refresh in progress is not interrupted, the exchange with the SAM is completed
+      synchronized (this) {
+        isStopped = true;
+        thread.interrupt();
+      }
+      if (thread != Thread.currentThread()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!isStopped) {
+          Thread.sleep(periodMillis);
+          // the refresh is only a regular work unit, it is postponed while the SAM is in use; the
+          // scheduler is looked up at each wait since it may have been removed and re-created
+          while (true) {
+            SamSchedulerAdapter samScheduler = SamSchedulerAdapter.getInstance(samReader.getName());
+            if (samScheduler.awaitIdle(periodMillis)) {
+              break;
+            }
+            if (logger.isDebugEnabled()) {
+              logger.debug("SAM event counters refresh postponed ({}).", samScheduler);
+            }
+          }
+          synchronized (this) {
+            if (isStopped) {
+              break;
+            }
+            try {
+              refresh(samReader, samSmartCard);
+            } catch (RuntimeException e) {
+              logger.warn("Background refresh of the SAM event counters failed.", e);
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        // stopped
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Values read from a SAM and local increments since the last reading.
+   */
+  private static final class SamCounters {
+    private final int[] counters = new int[NB_COUNTERS];
+    private final int[] ceilings = new int[NB_COUNTERS];
+    private final int[] increments = new int[NB_COUNTERS];
+
+    synchronized void update(int[] counters, int[] ceilings) {
+      System.arraycopy(counters, 0, this.counters, 0, NB_COUNTERS);
+      System.arraycopy(ceilings, 0, this.ceilings, 0, NB_COUNTERS);
+      for (int i = 0; i < NB_COUNTERS; i++) {
+        increments[i] = 0;
+      }
+    }
+
+    synchronized void increment(int counterNumber) {
+      increments[counterNumber]++;
+    }
+
+    synchronized int getPredictedCounter(int counterNumber) {
+      return counters[counterNumber] + increments[counterNumber];
+    }
+
+    synchronized int getCeiling(int counterNumber) {
+      return ceilings[counterNumber];
+    }
+
+    synchronized int getRemainingEvents(int counterNumber) {
+      return ceilings[counterNumber] - counters[counterNumber] - increments[counterNumber];
+    }
+  }
+}
@@ -0,0 +1,409 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.keyple.card.calypso.sam.SamScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SamScheduler}.
+ *
+ * <p>A work unit is delimited by {@link #acquire(Object)} and {@link #release(Object)}. The owner
+ * is the object on behalf of which the unit is executed (typically a {@link SamCommandProcessor}).
+ *
+ * <p>An owner may hold a lease on the SAM between two of its units with {@link
+ * #startLease(Object)} and {@link #endLease(Object)}: during the lease, only the units of this
+ * owner are executed. A lease left idle for more than {@link #LEASE_TIMEOUT_MILLIS} is revoked so
+ * that a transaction aborted without notice cannot block the SAM.
+ *
+ * <p>The scheduler of a SAM reader is removed with {@link #removeInstance(String)} once the SAM is
+ * no longer used; the users must therefore get it with {@link #getInstance(String)} for each unit
+ * instead of keeping a reference to it.
+ *
+ * @since 2.0
+ */
+final class SamSchedulerAdapter implements SamScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(SamSchedulerAdapter.class);
+
+  /** Maximum idle time of a lease, in milliseconds. */
+  static final long LEASE_TIMEOUT_MILLIS = 10000;
+
+  private static final ConcurrentMap<String, SamSchedulerAdapter> schedulersByReaderName =
+      new ConcurrentHashMap<String, SamSchedulerAdapter>();
+
+  private final String samReaderName;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition samAvailable = lock.newCondition();
+  private final LinkedList<Object> waitingOwners = new LinkedList<Object>();
+  private boolean isBusy;
+  private Object lastOwner;
+  private Object leaseOwner;
+  private long leaseIdleSince;
+  private boolean isRemoved;
+  private long processedUnitCount;
+  private long totalWaitTimeNanos;
+  private long maxWaitTimeNanos;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   *
+   * @param samReaderName The name of the SAM reader.
+   */
+  private SamSchedulerAdapter(String samReaderName) {
+    this.samReaderName = samReaderName;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the scheduler of the provided SAM reader, creating it if needed.
+   *
+   * @param samReaderName The name of the SAM reader.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  static SamSchedulerAdapter getInstance(String samReaderName) {
+    SamSchedulerAdapter samScheduler = schedulersByReaderName.get(samReaderName);
+    if (samScheduler == null) {
+      schedulersByReaderName.putIfAbsent(samReaderName, new SamSchedulerAdapter(samReaderName));
+      samScheduler = schedulersByReaderName.get(samReaderName);
+    }
+    return samScheduler;
+  }
+
+  /**
+   * (package-private)<br>
+   * Removes the scheduler of the provided SAM reader if it is idle.
+   *
+   * <p>A scheduler executing or waiting for a unit, or holding a lease, is kept. The next user of
+   * the SAM reader gets a new scheduler.
+   *
+   * @param samReaderName The name of the SAM reader.
+   * @since 2.0
+   */
+  static void removeInstance(String samReaderName) {
+    SamSchedulerAdapter samScheduler = schedulersByReaderName.get(samReaderName);
+    if (samScheduler != null && samScheduler.markRemovedIfIdle()) {
+      schedulersByReaderName.remove(samReaderName, samScheduler);
+      if (logger.isDebugEnabled()) {
+        logger.debug("SAM scheduler removed ({}).", samScheduler);
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Marks this scheduler as removed if it is idle.
+   *
+   * @return true if the scheduler has been marked as removed.
+   */
+  private boolean markRemovedIfIdle() {
+    lock.lock();
+    try {
+      if (!isRemoved && !isBusy && leaseOwner == null && waitingOwners.isEmpty()) {
+        isRemoved = true;
+      }
+      return isRemoved;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Registers the provided owner as waiting for the SAM, unless this scheduler has been removed.
+   *
+   * @param owner The owner of the work unit.
+   * @return false if the scheduler has been removed.
+   */
+  private boolean enqueue(Object owner) {
+    lock.lock();
+    try {
+      if (isRemoved) {
+        return false;
+      }
+      waitingOwners.add(owner);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Waits until the SAM can execute a work unit for the provided owner.
+   *
+   * <p>Units are executed in their order of arrival, except while a lease is held: the units of
+   * the lease owner are then executed first and the others wait for the end of the lease.
+   *
+   * @param owner The owner of the work unit.
+   * @return true if the SAM has been used by another owner since the previous unit of this owner
+   *     (the SAM context, e.g. the key diversifier, must then be set again).
+   * @throws IllegalStateException If the current thread is interrupted while waiting.
+   * @since 2.0
+   */
+  boolean acquire(Object owner) {
+    long startTime = System.nanoTime();
+    if (!enqueue(owner)) {
+      // the scheduler has been removed meanwhile, the unit is executed by the current one
+      return getInstance(samReaderName).acquire(owner);
+    }
+    lock.lock();
+    try {
+      try {
+        while (!isEligible(owner)) {
+          samAvailable.await(LEASE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+          checkLeaseTimeout();
+        }
+      } catch (InterruptedException e) {
+        waitingOwners.remove(owner);
+        samAvailable.signalAll();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the SAM.", e);
+      }
+      waitingOwners.remove(owner);
+      isBusy = true;
+
+      long waitTime = System.nanoTime() - startTime;
+      processedUnitCount++;
+      totalWaitTimeNanos += waitTime;
+      if (waitTime > maxWaitTimeNanos) {
+        maxWaitTimeNanos = waitTime;
+      }
+
+      boolean isContextLost = lastOwner != owner;
+      lastOwner = owner;
+      return isContextLost;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Ends the current work unit.
+   *
+   * @param owner The owner of the work unit.
+   * @since 2.0
+   */
+  void release(Object owner) {
+    lock.lock();
+    try {
+      if (lastOwner == owner) {
+        isBusy = false;
+        leaseIdleSince = System.nanoTime();
+        samAvailable.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Reserves the SAM for the provided owner until {@link #endLease(Object)} is called.
+   *
+   * @param owner The owner of the lease.
+   * @since 2.0
+   */
+  void startLease(Object owner) {
+    lock.lock();
+    try {
+      leaseOwner = owner;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Ends the lease of the provided owner, if any.
+   *
+   * @param owner The owner of the lease.
+   * @since 2.0
+   */
+  void endLease(Object owner) {
+    lock.lock();
+    try {
+      if (leaseOwner == owner) {
+        leaseOwner = null;
+        samAvailable.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Waits until the SAM is idle, i.e. no unit is executed or waiting and no lease is held.
+   *
+   * @param timeoutMillis The maximum time to wait, in milliseconds.
+   * @return true if the SAM is idle, false if the timeout elapsed before.
+   * @throws InterruptedException If the current thread is interrupted while waiting.
+   * @since 2.0
+   */
+  boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+    long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    lock.lock();
+    try {
+      while (isBusy || leaseOwner != null || !waitingOwners.isEmpty()) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = samAvailable.awaitNanos(remainingNanos);
+        checkLeaseTimeout();
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Tells if a unit of the provided owner can be executed now. Must be called with the lock held.
+   *
+   * @param owner The owner of the work unit.
+   * @return true if the unit can be executed.
+   */
+  private boolean isEligible(Object owner) {
+    if (isBusy) {
+      return false;
+    }
+    if (leaseOwner != null) {
+      return leaseOwner == owner;
+    }
+    return waitingOwners.getFirst() == owner;
+  }
+
+  /**
+   * (private)<br>
+   * Revokes the current lease if it has been idle for too long. Must be called with the lock held.
+   */
+  private void checkLeaseTimeout() {
+    if (leaseOwner != null
+        && !isBusy
+        && System.nanoTime() - leaseIdleSince
+            >= TimeUnit.MILLISECONDS.toNanos(LEASE_TIMEOUT_MILLIS)) {
+      logger.warn("SAM lease revoked after {} ms of inactivity ({}).", LEASE_TIMEOUT_MILLIS, this);
+      leaseOwner = null;
+      samAvailable.signalAll();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return waitingOwners.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getProcessedUnitCount() {
+    lock.lock();
+    try {
+      return processedUnitCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getAverageWaitTime() {
+    lock.lock();
+    try {
+      return processedUnitCount == 0
+          ? 0
+          : TimeUnit.NANOSECONDS.toMicros(totalWaitTimeNanos / processedUnitCount);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getMaxWaitTime() {
+    lock.lock();
+    try {
+      return TimeUnit.NANOSECONDS.toMicros(maxWaitTimeNanos);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void resetStatistics() {
+    lock.lock();
+    try {
+      processedUnitCount = 0;
+      totalWaitTimeNanos = 0;
+      maxWaitTimeNanos = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the scheduler state as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"SamScheduler\":{"
+        + "\"samReaderName\":\""
+        + samReaderName
+        + "\", \"queueDepth\":"
+        + waitingOwners.size()
+        + ", \"isLeased\":"
+        + (leaseOwner != null)
+        + "}}";
+  }
+}
@@ -11,10 +11,9 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.eclipse.keyple.card.calypso.sam.SamRevision;
 import org.eclipse.keyple.card.calypso.sam.SamSmartCard;
+import org.eclipse.keyple.card.calypso.sam.SamUnlockStatus;
 import org.eclipse.keyple.core.card.AnswerToReset;
 import org.eclipse.keyple.core.card.ApduResponse;
 import org.eclipse.keyple.core.card.CardSelectionResponse;
@@ -33,6 +32,9 @@ final class SamSmartCardAdapter implements SamSmartCard, SmartCardSpi {
 
   private static final Logger logger = LoggerFactory.getLogger(SamSmartCardAdapter.class);
 
+  private static final int[] ATR_HEADER_LENGTHS = {3, 5};
+  private static final int ATR_SUB_ELEMENTS_LENGTH = 10;
+
   private final byte[] fciBytes;
   private final byte[] atrBytes;
   private final SamRevision samRevision;
@@ -43,6 +45,9 @@ final class SamSmartCardAdapter implements SamSmartCard, SmartCardSpi {
   private final byte softwareIssuer;
   private final byte softwareVersion;
   private final byte softwareRevision;
+  private SamUnlockStatus unlockStatus = SamUnlockStatus.NOT_REQUIRED;
+  private Exception unlockFailureCause;
+
   /**
    * Constructor.
    *
@@ -52,77 +57,134 @@ final class SamSmartCardAdapter implements SamSmartCard, SmartCardSpi {
    * @since 2.0
    */
   SamSmartCardAdapter(CardSelectionResponse cardSelectionResponse) {
+    this(extractFciBytes(cardSelectionResponse), extractAtrBytes(cardSelectionResponse));
+  }
 
-    ApduResponse fci = cardSelectionResponse.getSelectionStatus().getFci();
-    if (fci != null) {
-      this.fciBytes = fci.getBytes();
-    } else {
-      this.fciBytes = null;
-    }
+  /**
+   * Constructor.
+   *
+   * <p>Create the initial content from the raw FCI and ATR of the SAM (e.g. provided by a remote
+   * SAM server).
+   *
+   * @param fciBytes the FCI (may be null).
+   * @param atrBytes the ATR.
+   * @since 2.0
+   */
+  SamSmartCardAdapter(byte[] fciBytes, byte[] atrBytes) {
 
-    AnswerToReset answerToReset = cardSelectionResponse.getSelectionStatus().getAtr();
-    if (answerToReset != null) {
-      this.atrBytes = answerToReset.getBytes();
-    } else {
-      this.atrBytes = null;
-    }
-    String atrString =
-        ByteArrayUtil.toHex(cardSelectionResponse.getSelectionStatus().getAtr().getBytes());
-    if (atrString.isEmpty()) {
+    this.fciBytes = fciBytes;
+    this.atrBytes = atrBytes;
+
+    if (atrBytes == null || atrBytes.length == 0) {
       throw new IllegalStateException("ATR should not be empty.");
     }
     /* extract the historical bytes from T3 to T12 */
-    String extractRegex = "3B(.{6}|.{10})805A(.{20})829000";
-    Pattern pattern = Pattern.compile(extractRegex); // NOSONAR: hex strings here, regex is safe
-    // to use
-    Matcher matcher = pattern.matcher(atrString);
-    if (matcher.find(0)) {
-      byte[] atrSubElements = ByteArrayUtil.fromHex(matcher.group(2));
-      platform = atrSubElements[0];
-      applicationType = atrSubElements[1];
-      applicationSubType = atrSubElements[2];
-
-      // determine SAM revision from Application Subtype
-      switch (applicationSubType) {
-        case (byte) 0xC1:
-          samRevision = SamRevision.C1;
-          break;
-        case (byte) 0xD0:
-        case (byte) 0xD1:
-        case (byte) 0xD2:
-          samRevision = SamRevision.S1D;
-          break;
-        case (byte) 0xE1:
-          samRevision = SamRevision.S1E;
-          break;
-        default:
-          throw new IllegalStateException(
-              String.format(
-                  "Unknown SAM revision (unrecognized application subtype 0x%02X)",
-                  applicationSubType));
-      }
+    int offset = findAtrSubElementsOffset(atrBytes);
+    if (offset < 0) {
+      throw new IllegalStateException(
+          "Unrecognized ATR structure: " + ByteArrayUtil.toHex(atrBytes));
+    }
+    platform = atrBytes[offset];
+    applicationType = atrBytes[offset + 1];
+    applicationSubType = atrBytes[offset + 2];
 
-      softwareIssuer = atrSubElements[3];
-      softwareVersion = atrSubElements[4];
-      softwareRevision = atrSubElements[5];
-      System.arraycopy(atrSubElements, 6, serialNumber, 0, 4);
-      if (logger.isTraceEnabled()) {
-        logger.trace(
+    // determine SAM revision from Application Subtype
+    switch (applicationSubType) {
+      case (byte) 0xC1:
+        samRevision = SamRevision.C1;
+        break;
+      case (byte) 0xD0:
+      case (byte) 0xD1:
+      case (byte) 0xD2:
+        samRevision = SamRevision.S1D;
+        break;
+      case (byte) 0xE1:
+        samRevision = SamRevision.S1E;
+        break;
+      default:
+        throw new IllegalStateException(
             String.format(
-                "SAM %s PLATFORM = %02X, APPTYPE = %02X, APPSUBTYPE = %02X, SWISSUER = %02X, SWVERSION = "
-                    + "%02X, SWREVISION = %02X",
-                samRevision.getName(),
-                platform,
-                applicationType,
-                applicationSubType,
-                softwareIssuer,
-                softwareVersion,
-                softwareRevision));
-        logger.trace("SAM SERIALNUMBER = {}", ByteArrayUtil.toHex(serialNumber));
+                "Unknown SAM revision (unrecognized application subtype 0x%02X)",
+                applicationSubType));
+    }
+
+    softwareIssuer = atrBytes[offset + 3];
+    softwareVersion = atrBytes[offset + 4];
+    softwareRevision = atrBytes[offset + 5];
+    System.arraycopy(atrBytes, offset + 6, serialNumber, 0, 4);
+    if (logger.isTraceEnabled()) {
+      logger.trace(
+          String.format(
+              "SAM %s PLATFORM = %02X, APPTYPE = %02X, APPSUBTYPE = %02X, SWISSUER = %02X, SWVERSION = "
+                  + "%02X, SWREVISION = %02X",
+              samRevision.getName(),
+              platform,
+              applicationType,
+              applicationSubType,
+              softwareIssuer,
+              softwareVersion,
+              softwareRevision));
+      logger.trace("SAM SERIALNUMBER = {}", ByteArrayUtil.toHex(serialNumber));
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Gets the FCI bytes from the selection response.
+   *
+   * @param cardSelectionResponse the response to the selection command.
+   * @return null if no FCI is available.
+   */
+  private static byte[] extractFciBytes(CardSelectionResponse cardSelectionResponse) {
+    ApduResponse fci = cardSelectionResponse.getSelectionStatus().getFci();
+    return fci != null ? fci.getBytes() : null;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the ATR bytes from the selection response.
+   *
+   * @param cardSelectionResponse the response to the selection command.
+   * @return null if no ATR is available.
+   */
+  private static byte[] extractAtrBytes(CardSelectionResponse cardSelectionResponse) {
+    AnswerToReset answerToReset = cardSelectionResponse.getSelectionStatus().getAtr();
+    return answerToReset != null ? answerToReset.getBytes() : null;
+  }
+
+  /**
+   * (private)<br>
+   * Looks for the Calypso SAM structure in the ATR and returns the offset of its 10 sub-elements
+   * (platform to serial number).
+   *
+   * <p>The expected structure is 3Bh, followed by a 3 or 5-byte header, 805Ah, the 10 sub-elements
+   * and 829000h. This is the bytewise equivalent of the regular expression
+   * "3B(.{6}|.{10})805A(.{20})829000" applied to the hex string of the ATR.
+   *
+   * @param atr The ATR bytes.
+   * @return The offset of the sub-elements or -1 if the ATR doesn't have the expected structure.
+   */
+  private static int findAtrSubElementsOffset(byte[] atr) {
+    for (int start = 0; start < atr.length; start++) {
+      if (atr[start] != (byte) 0x3B) {
+        continue;
+      }
+      for (int headerLength : ATR_HEADER_LENGTHS) {
+        int tagOffset = start + 1 + headerLength;
+        int trailerOffset = tagOffset + 2 + ATR_SUB_ELEMENTS_LENGTH;
+        if (trailerOffset + 3 > atr.length) {
+          continue;
+        }
+        if (atr[tagOffset] == (byte) 0x80
+            && atr[tagOffset + 1] == (byte) 0x5A
+            && atr[trailerOffset] == (byte) 0x82
+            && atr[trailerOffset + 1] == (byte) 0x90
+            && atr[trailerOffset + 2] == (byte) 0x00) {
+          return tagOffset + 2;
+        }
       }
-    } else {
-      throw new IllegalStateException("Unrecognized ATR structure: " + atrString);
     }
+    return -1;
   }
 
   /**
@@ -252,4 +314,38 @@ public final byte getSoftwareVersion() {
   public final byte getSoftwareRevision() {
     return softwareRevision;
   }
+
+  /**
+   * (package-private)<br>
+   * Sets the result of the SAM unlocking.
+   *
+   * @param unlockStatus The unlock status.
+   * @param unlockFailureCause The cause of the failure (null if the status is not {@link
+   *     SamUnlockStatus#FAILED}).
+   * @since 2.0
+   */
+  void setUnlockResult(SamUnlockStatus unlockStatus, Exception unlockFailureCause) {
+    this.unlockStatus = unlockStatus;
+    this.unlockFailureCause = unlockFailureCause;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final SamUnlockStatus getUnlockStatus() {
+    return unlockStatus;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public final Exception getUnlockFailureCause() {
+    return unlockFailureCause;
+  }
 }
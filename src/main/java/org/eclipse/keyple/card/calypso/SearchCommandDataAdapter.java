@@ -0,0 +1,209 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.card.calypso.transaction.SearchCommandData;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SearchCommandData}.
+ *
+ * @since 2.0
+ */
+final class SearchCommandDataAdapter implements SearchCommandData {
+
+  private byte sfi = 1;
+  private int recordNumber = 1;
+  private int offset;
+  private boolean enableRepeatedOffset;
+  private byte[] searchData;
+  private byte[] mask;
+  private boolean fetchFirstMatchingResult;
+  private final List<Integer> matchingRecordNumbers = new ArrayList<Integer>();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @since 2.0
+   */
+  SearchCommandDataAdapter() {}
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData setSfi(byte sfi) {
+    Assert.getInstance()
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi");
+    this.sfi = sfi;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData startAtRecord(int recordNumber) {
+    Assert.getInstance()
+        .isInRange(
+            recordNumber, CalypsoPoUtils.NB_REC_MIN, CalypsoPoUtils.NB_REC_MAX, "recordNumber");
+    this.recordNumber = recordNumber;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData setOffset(int offset) {
+    Assert.getInstance()
+        .isInRange(offset, CalypsoPoUtils.OFFSET_MIN, CalypsoPoUtils.OFFSET_MAX, "offset");
+    this.offset = offset;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData enableRepeatedOffset() {
+    this.enableRepeatedOffset = true;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData setSearchData(byte[] data) {
+    Assert.getInstance().notEmpty(data, "data");
+    this.searchData = data.clone();
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData setMask(byte[] mask) {
+    Assert.getInstance().notNull(mask, "mask");
+    this.mask = mask.clone();
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public SearchCommandData fetchFirstMatchingResult() {
+    this.fetchFirstMatchingResult = true;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public List<Integer> getMatchingRecordNumbers() {
+    return matchingRecordNumbers;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return The SFI.
+   * @since 2.0
+   */
+  byte getSfi() {
+    return sfi;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return The number of the first record of the search.
+   * @since 2.0
+   */
+  int getRecordNumber() {
+    return recordNumber;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return The offset of the data to compare.
+   * @since 2.0
+   */
+  int getOffset() {
+    return offset;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return true if the repeated offset mode is enabled.
+   * @since 2.0
+   */
+  boolean isEnableRepeatedOffset() {
+    return enableRepeatedOffset;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return The data to search (null if not set).
+   * @since 2.0
+   */
+  byte[] getSearchData() {
+    return searchData;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return The mask (null if not set).
+   * @since 2.0
+   */
+  byte[] getMask() {
+    return mask;
+  }
+
+  /**
+   * (package-private)<br>
+   *
+   * @return true if the content of the first matching record is requested.
+   * @since 2.0
+   */
+  boolean isFetchFirstMatchingResult() {
+    return fetchFirstMatchingResult;
+  }
+}
@@ -0,0 +1,156 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.eclipse.keyple.core.card.ApduRequest;
+import org.eclipse.keyple.core.card.ApduResponse;
+import org.eclipse.keyple.core.card.CardRequest;
+import org.eclipse.keyple.core.card.CardResponse;
+import org.eclipse.keyple.core.card.ChannelControl;
+import org.eclipse.keyple.core.card.ProxyReader;
+import org.eclipse.keyple.core.card.ReaderCommunicationException;
+
+/**
+ * (package-private)<br>
+ * Reader of a simulated SAM, serving the loopback remote SAM readers.
+ *
+ * <p>The simulated SAM answers the commands used by the PO transactions (challenge, digest, SV
+ * prepare, PIN ciphering, event counters and key parameters reading) with responses of the
+ * expected length filled with random data, the other commands are simply acknowledged. Its
+ * signatures are therefore rejected by a real PO: it is intended for tests and latency benchmarks
+ * of the SAM exchanges.
+ *
+ * @since 2.0
+ */
+final class SimulatedSamReaderAdapter implements ProxyReader {
+
+  /** ATR of the simulated SAM (C1 revision, serial number 12345678h). */
+  static final byte[] ATR = {
+    (byte) 0x3B, (byte) 0x3F, (byte) 0x96, (byte) 0x00, (byte) 0x80, (byte) 0x5A, (byte) 0x00,
+    (byte) 0x80, (byte) 0xC1, (byte) 0x20, (byte) 0x00, (byte) 0x00, (byte) 0x12, (byte) 0x34,
+    (byte) 0x56, (byte) 0x78, (byte) 0x82, (byte) 0x90, (byte) 0x00
+  };
+
+  private static final int SV_PREPARE_DATA_LENGTH = 11;
+  private static final int SV_PREPARE_EXTENDED_DATA_LENGTH = 16;
+  private static final int CIPHERED_PIN_LENGTH = 8;
+  private static final int EVENT_COUNTER_RECORD_LENGTH = 35;
+  private static final int KEY_PARAMETERS_LENGTH = 29;
+
+  private final long responseDelayMillis;
+  private final Random random = new Random();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param responseDelayMillis The time spent by the simulated SAM on each card request, in
+   *     milliseconds.
+   * @since 2.0
+   */
+  SimulatedSamReaderAdapter(long responseDelayMillis) {
+    this.responseDelayMillis = responseDelayMillis;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All the APDUs of the card request are successful.
+   *
+   * @since 2.0
+   */
+  @Override
+  public CardResponse transmitCardRequest(CardRequest cardRequest, ChannelControl channelControl)
+      throws ReaderCommunicationException {
+    if (responseDelayMillis > 0) {
+      try {
+        Thread.sleep(responseDelayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ReaderCommunicationException(null, "Interrupted simulated SAM exchange.", e);
+      }
+    }
+    List<ApduResponse> apduResponses = new ArrayList<ApduResponse>();
+    for (ApduRequest apduRequest : cardRequest.getApduRequests()) {
+      apduResponses.add(new ApduResponse(getResponse(apduRequest.getBytes())));
+    }
+    return new CardResponse(channelControl == ChannelControl.KEEP_OPEN, apduResponses);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void releaseChannel() {
+    // no channel to release
+  }
+
+  /**
+   * (private)<br>
+   * Builds the response to a SAM command.
+   *
+   * @param apdu The command APDU.
+   * @return The response APDU, data followed by the 9000h status word.
+   */
+  private byte[] getResponse(byte[] apdu) {
+    int dataLength;
+    switch (apdu[1]) {
+      case (byte) 0x84: // Get Challenge
+      case (byte) 0x8E: // Digest Close
+        dataLength = apdu[4] & 0xFF;
+        break;
+      case (byte) 0x54: // SV Prepare Debit
+      case (byte) 0x56: // SV Prepare Load
+      case (byte) 0x5C: // SV Prepare Undebit
+        // the second byte of the SV Get header is 01h in extended mode
+        dataLength =
+            apdu[6] == (byte) 0x01 ? SV_PREPARE_EXTENDED_DATA_LENGTH : SV_PREPARE_DATA_LENGTH;
+        break;
+      case (byte) 0x12: // Card Cipher PIN
+        dataLength = CIPHERED_PIN_LENGTH;
+        break;
+      case (byte) 0xBE: // Read Event Counter, Read Ceilings
+        dataLength = EVENT_COUNTER_RECORD_LENGTH;
+        break;
+      case (byte) 0xBC: // Read Key Parameters
+        dataLength = KEY_PARAMETERS_LENGTH;
+        break;
+      default:
+        dataLength = 0;
+    }
+    byte[] response = new byte[dataLength + 2];
+    synchronized (random) {
+      for (int i = 0; i < dataLength; i++) {
+        response[i] = (byte) random.nextInt(256);
+      }
+    }
+    response[dataLength] = (byte) 0x90;
+    response[dataLength + 1] = (byte) 0x00;
+    return response;
+  }
+
+  /**
+   * Gets the reader state as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"SimulatedSamReader\":{\"responseDelayMillis\":" + responseDelayMillis + "}}";
+  }
+}
@@ -0,0 +1,93 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import org.eclipse.keyple.card.calypso.po.ElementaryFile;
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.card.calypso.po.SvDebitLogCursor;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SvDebitLogCursor}.
+ *
+ * <p>The cursor iterates directly over the records of the SV debit log file and points the
+ * inherited record view to the content of the current one.
+ *
+ * @since 2.0
+ */
+final class SvDebitLogCursorAdapter extends SvDebitLogRecordAdapter implements SvDebitLogCursor {
+
+  private Iterator<Map.Entry<Integer, byte[]>> records;
+  private int recordNumber;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param poSmartCard The PO.
+   * @since 2.0
+   */
+  SvDebitLogCursorAdapter(PoSmartCard poSmartCard) {
+    super(null, 0);
+    reset(poSmartCard);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean next() {
+    if (!records.hasNext()) {
+      poResponse = null;
+      recordNumber = 0;
+      return false;
+    }
+    Map.Entry<Integer, byte[]> record = records.next();
+    recordNumber = record.getKey();
+    poResponse = record.getValue();
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getRecordNumber() {
+    return recordNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void reset(PoSmartCard poSmartCard) {
+    Assert.getInstance().notNull(poSmartCard, "poSmartCard");
+    ElementaryFile ef = poSmartCard.getAllFiles().get(CalypsoPoUtils.SV_DEBIT_LOG_FILE_SFI);
+    if (ef != null) {
+      records = ef.getData().getAllRecordsContent().entrySet().iterator();
+    } else {
+      records = Collections.<Integer, byte[]>emptyMap().entrySet().iterator();
+    }
+    poResponse = null;
+    recordNumber = 0;
+  }
+}
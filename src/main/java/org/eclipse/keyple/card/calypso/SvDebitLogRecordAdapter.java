@@ -18,11 +18,14 @@
  * (package-private)<br>
  * Implementation of {@link SvDebitLogRecord}.
  *
+ * <p>The record is a view of the PO response: the primitive getters decode the data in place,
+ * only the getters returning byte arrays allocate a copy.
+ *
  * @since 2.0
  */
 class SvDebitLogRecordAdapter implements SvDebitLogRecord {
-  final int offset;
-  final byte[] poResponse;
+  int offset;
+  byte[] poResponse;
 
   /**
    * Constructor
@@ -62,7 +65,7 @@ public int getBalance() {
    */
   @Override
   public int getDebitTime() {
-    return ByteArrayUtil.twoBytesToInt(getDebitTimeBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset + 4);
   }
 
   /**
@@ -85,7 +88,7 @@ public byte[] getDebitTimeBytes() {
    */
   @Override
   public int getDebitDate() {
-    return ByteArrayUtil.twoBytesToInt(getDebitDateBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset + 2);
   }
 
   /**
@@ -118,7 +121,7 @@ public byte getKvc() {
    */
   @Override
   public long getSamId() {
-    return ByteArrayUtil.fourBytesToInt(getSamIdBytes(), 0);
+    return ByteArrayUtil.fourBytesToInt(poResponse, offset + 7);
   }
 
   /**
@@ -140,7 +143,7 @@ public byte[] getSamIdBytes() {
    */
   @Override
   public int getSvTNum() {
-    return ByteArrayUtil.twoBytesToInt(getSvTNumBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset + 17);
   }
 
   /**
@@ -163,7 +166,7 @@ public byte[] getSvTNumBytes() {
    */
   @Override
   public int getSamTNum() {
-    return ByteArrayUtil.threeBytesToInt(getSamTNumBytes(), 0);
+    return ByteArrayUtil.threeBytesToInt(poResponse, offset + 11);
   }
 
   /**
@@ -194,7 +197,7 @@ public String toString() {
         + ", \"debitDate\":"
         + getDebitDate()
         + ", \"debitTime\":"
-        + getDebitDate()
+        + getDebitTime()
         + ", \"kvc\":"
         + getKvc()
         + ", \"samId\":"
@@ -0,0 +1,678 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.SvJournal;
+import org.eclipse.keyple.card.calypso.transaction.SvJournalEntry;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SvJournal}.
+ *
+ * <p>The journal is made of segment files of fixed size, named sv-journal-&lt;index&gt;.dat,
+ * containing fixed size records protected by a CRC32; the first invalid record (never written or
+ * partially written) marks the end of a segment. A record is either an intent, a confirmation or a
+ * resolution, the last two referring to an intent by its sequence number.
+ *
+ * <p>When the current segment is full, and each time the journal is opened, a new segment is
+ * started with a copy of the intents still pending, after which the previous segments are deleted.
+ *
+ * <p>The flushes to the storage device are grouped: the first transaction waiting for its record
+ * flushes all the records written so far, the others wait for it and find their record already
+ * flushed.
+ *
+ * @since 2.0
+ */
+final class SvJournalAdapter implements SvJournal {
+
+  private static final Logger logger = LoggerFactory.getLogger(SvJournalAdapter.class);
+
+  private static final String SEGMENT_PREFIX = "sv-journal-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+
+  private static final int RECORD_SIZE = 64;
+  private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+  private static final int MAX_SERIAL_NUMBER_SIZE = 8;
+
+  private static final byte TYPE_INTENT = 1;
+  private static final byte TYPE_CONFIRMATION = 2;
+  private static final byte TYPE_RESOLUTION = 3;
+
+  private static final PoTransactionService.SvSettings.Operation[] OPERATIONS =
+      PoTransactionService.SvSettings.Operation.values();
+  private static final PoTransactionService.SvSettings.Action[] ACTIONS =
+      PoTransactionService.SvSettings.Action.values();
+
+  private final File directory;
+  private final int segmentCapacity;
+  private final boolean isSyncEnabled;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+  private final Map<Long, SvJournalEntryAdapter> pendingEntries =
+      new LinkedHashMap<Long, SvJournalEntryAdapter>();
+  private final Map<Long, SvJournalEntryAdapter> incompleteEntries =
+      new LinkedHashMap<Long, SvJournalEntryAdapter>();
+  private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+  private final CRC32 crc = new CRC32();
+
+  private MappedByteBuffer segment;
+  private int segmentIndex;
+  private long nextSequenceNumber = 1;
+  private long writtenCount;
+  private long flushedCount;
+  private boolean isFlushing;
+  private boolean isClosed;
+
+  /**
+   * (package-private)<br>
+   * Opens the journal stored in the provided directory, creating it if needed, and collects the
+   * intents left incomplete by the previous executions.
+   *
+   * @param directoryName The name of the directory of the journal.
+   * @param segmentCapacity The number of records of a segment file.
+   * @param isSyncEnabled true if the intents must be flushed to the storage device before the
+   *     transaction goes on.
+   * @throws IllegalArgumentException If directoryName is null or empty or if segmentCapacity is
+   *     less than 64.
+   * @throws IOException If the journal cannot be read or written.
+   * @since 2.0
+   */
+  SvJournalAdapter(String directoryName, int segmentCapacity, boolean isSyncEnabled)
+      throws IOException {
+
+    Assert.getInstance() //
+        .notEmpty(directoryName, "directoryName") //
+        .greaterOrEqual(segmentCapacity, 64, "segmentCapacity");
+
+    this.directory = new File(directoryName);
+    this.segmentCapacity = segmentCapacity;
+    this.isSyncEnabled = isSyncEnabled;
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create the SV journal directory: " + directoryName);
+    }
+
+    for (Map.Entry<Integer, File> entry : getSegmentFiles().entrySet()) {
+      segmentIndex = entry.getKey();
+      scan(entry.getValue());
+    }
+    incompleteEntries.putAll(pendingEntries);
+
+    lock.lock();
+    try {
+      roll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "SV journal opened in {}: {} incomplete entries",
+          directoryName,
+          incompleteEntries.size());
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the intent of an SV operation.
+   *
+   * <p>When the synchronous mode is enabled, the method returns once the intent has been flushed.
+   *
+   * @param poSerialNumber The application serial number of the PO.
+   * @param svTNum The SV TNum before the operation.
+   * @param operation The SV operation.
+   * @param action The SV action.
+   * @param amount The amount.
+   * @param samSerialNumber The serial number of the SAM.
+   * @return The sequence number of the intent.
+   * @throws IllegalStateException If the journal is closed or cannot be written.
+   * @since 2.0
+   */
+  long recordIntent(
+      byte[] poSerialNumber,
+      int svTNum,
+      PoTransactionService.SvSettings.Operation operation,
+      PoTransactionService.SvSettings.Action action,
+      int amount,
+      byte[] samSerialNumber) {
+    long sequenceNumber;
+    long position;
+    lock.lock();
+    try {
+      checkNotClosed();
+      sequenceNumber = nextSequenceNumber++;
+      SvJournalEntryAdapter entry =
+          new SvJournalEntryAdapter(
+              sequenceNumber,
+              System.currentTimeMillis(),
+              truncate(poSerialNumber),
+              svTNum,
+              operation,
+              action,
+              amount,
+              truncate(samSerialNumber));
+      pendingEntries.put(sequenceNumber, entry);
+      position = append(TYPE_INTENT, sequenceNumber, entry);
+    } finally {
+      lock.unlock();
+    }
+    if (isSyncEnabled) {
+      flush(position);
+    }
+    return sequenceNumber;
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the confirmation of an SV operation.
+   *
+   * <p>The confirmation is not flushed synchronously: if it were lost, the operation would only
+   * appear as incomplete at the next opening.
+   *
+   * @param sequenceNumber The sequence number of the intent.
+   * @throws IllegalStateException If the journal is closed or cannot be written.
+   * @since 2.0
+   */
+  void recordConfirmation(long sequenceNumber) {
+    lock.lock();
+    try {
+      checkNotClosed();
+      pendingEntries.remove(sequenceNumber);
+      append(TYPE_CONFIRMATION, sequenceNumber, null);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records that the outcome of an SV operation is unknown, its PO exchange or its checking by the
+   * SAM having failed.
+   *
+   * <p>The intent becomes an incomplete entry, to be resolved by the application. No record is
+   * written: an intent without confirmation is also incomplete at the next opening.
+   *
+   * @param sequenceNumber The sequence number of the intent.
+   * @since 2.0
+   */
+  void recordFailure(long sequenceNumber) {
+    lock.lock();
+    try {
+      SvJournalEntryAdapter entry = pendingEntries.get(sequenceNumber);
+      if (entry != null) {
+        incompleteEntries.put(sequenceNumber, entry);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records that an SV operation has not been performed, its session having been aborted.
+   *
+   * @param sequenceNumber The sequence number of the intent.
+   * @throws IllegalStateException If the journal is closed or cannot be written.
+   * @since 2.0
+   */
+  void recordCancellation(long sequenceNumber) {
+    lock.lock();
+    try {
+      checkNotClosed();
+      pendingEntries.remove(sequenceNumber);
+      append(TYPE_RESOLUTION, sequenceNumber, null);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public List<SvJournalEntry> getIncompleteEntries() {
+    lock.lock();
+    try {
+      return new ArrayList<SvJournalEntry>(incompleteEntries.values());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void resolve(SvJournalEntry entry) {
+
+    Assert.getInstance().notNull(entry, "entry");
+
+    long position;
+    lock.lock();
+    try {
+      checkNotClosed();
+      long sequenceNumber = entry.getSequenceNumber();
+      if (incompleteEntries.remove(sequenceNumber) == null) {
+        throw new IllegalArgumentException("Unknown SV journal entry: " + sequenceNumber);
+      }
+      pendingEntries.remove(sequenceNumber);
+      position = append(TYPE_RESOLUTION, sequenceNumber, null);
+    } finally {
+      lock.unlock();
+    }
+    if (isSyncEnabled) {
+      flush(position);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (!isClosed) {
+        segment.force();
+        flushedCount = writtenCount;
+        isClosed = true;
+        awaitFlushCompletion();
+        unmap(segment);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    lock.lock();
+    try {
+      return "{\"directory\":\""
+          + directory
+          + "\", \"segmentIndex\":"
+          + segmentIndex
+          + ", \"pendingEntries\":"
+          + pendingEntries.size()
+          + ", \"incompleteEntries\":"
+          + incompleteEntries.size()
+          + ", \"syncEnabled\":"
+          + isSyncEnabled
+          + "}";
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Throws an exception if the journal is closed.
+   *
+   * @throws IllegalStateException If the journal is closed.
+   */
+  private void checkNotClosed() {
+    if (isClosed) {
+      throw new IllegalStateException("The SV journal is closed.");
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Appends a record to the current segment, starting a new segment if it is full.
+   *
+   * <p>Must be called with the lock held.
+   *
+   * @param type The type of the record.
+   * @param sequenceNumber The sequence number of the intent.
+   * @param entry The intent (null for the other types).
+   * @return The number of records written so far, to be passed to {@link #flush(long)}.
+   * @throws IllegalStateException If the journal cannot be written.
+   */
+  private long append(byte type, long sequenceNumber, SvJournalEntryAdapter entry) {
+    if (!segment.hasRemaining()) {
+      try {
+        roll();
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to start a new SV journal segment.", e);
+      }
+    }
+    write(type, sequenceNumber, entry);
+    return writtenCount;
+  }
+
+  /**
+   * (private)<br>
+   * Encodes a record at the current position of the current segment.
+   *
+   * <p>Must be called with the lock held.
+   *
+   * @param type The type of the record.
+   * @param sequenceNumber The sequence number of the intent.
+   * @param entry The intent (null for the other types).
+   */
+  private void write(byte type, long sequenceNumber, SvJournalEntryAdapter entry) {
+    Arrays.fill(record.array(), (byte) 0);
+    record.clear();
+    record.put(type);
+    record.putLong(sequenceNumber);
+    if (entry != null) {
+      record.putLong(entry.getTimestamp());
+      record.put((byte) entry.getOperation().ordinal());
+      record.put((byte) entry.getAction().ordinal());
+      record.putChar((char) entry.getSvTNum());
+      record.putInt(entry.getAmount());
+      record.put((byte) entry.getPoSerialNumber().length);
+      record.put(entry.getPoSerialNumber());
+      record.put((byte) entry.getSamSerialNumber().length);
+      record.put(entry.getSamSerialNumber());
+    }
+    crc.reset();
+    crc.update(record.array(), 0, CHECKSUM_OFFSET);
+    record.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+    record.clear();
+    segment.put(record);
+    writtenCount++;
+  }
+
+  /**
+   * (private)<br>
+   * Waits until the provided number of records have been flushed, flushing them if no other
+   * thread is doing so.
+   *
+   * @param count The number of records written when the awaited record was appended.
+   */
+  private void flush(long count) {
+    lock.lock();
+    try {
+      while (flushedCount < count) {
+        if (isFlushing) {
+          flushed.awaitUninterruptibly();
+          continue;
+        }
+        isFlushing = true;
+        long target = writtenCount;
+        MappedByteBuffer current = segment;
+        lock.unlock();
+        try {
+          current.force();
+        } finally {
+          lock.lock();
+          isFlushing = false;
+        }
+        if (target > flushedCount) {
+          flushedCount = target;
+        }
+        flushed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Starts a new segment with the pending intents and deletes the previous segments.
+   *
+   * <p>Must be called with the lock held.
+   *
+   * @throws IOException If the new segment cannot be created.
+   * @throws IllegalStateException If the pending intents do not fit in a segment.
+   */
+  private void roll() throws IOException {
+
+    if (pendingEntries.size() >= segmentCapacity) {
+      throw new IllegalStateException(
+          "Too many pending intents in the SV journal ("
+              + pendingEntries.size()
+              + " pending intents for a segment capacity of "
+              + segmentCapacity
+              + " records).");
+    }
+
+    MappedByteBuffer retiredSegment = segment;
+    if (retiredSegment != null) {
+      retiredSegment.force();
+    }
+
+    segmentIndex++;
+    RandomAccessFile file = new RandomAccessFile(getSegmentFile(segmentIndex), "rw");
+    try {
+      long size = (long) segmentCapacity * RECORD_SIZE;
+      file.setLength(size);
+      segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      file.close();
+    }
+
+    for (SvJournalEntryAdapter entry : pendingEntries.values()) {
+      write(TYPE_INTENT, entry.getSequenceNumber(), entry);
+    }
+    segment.force();
+    flushedCount = writtenCount;
+
+    if (retiredSegment != null) {
+      awaitFlushCompletion();
+      unmap(retiredSegment);
+    }
+
+    for (Map.Entry<Integer, File> entry : getSegmentFiles().entrySet()) {
+      if (entry.getKey() < segmentIndex && !entry.getValue().delete()) {
+        logger.warn("Unable to delete the SV journal segment {}", entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Waits until no thread is forcing a segment outside the lock, so that the segment can be
+   * released.
+   *
+   * <p>Must be called with the lock held.
+   */
+  private void awaitFlushCompletion() {
+    while (isFlushing) {
+      flushed.awaitUninterruptibly();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Releases the memory mapping of a segment without waiting for the garbage collector.
+   *
+   * <p>The JVM provides no public API for this, the cleaner of the buffer is therefore invoked by
+   * reflection (sun.misc.Unsafe from Java 9, the buffer cleaner before). If none is available, the
+   * mapping is left to the garbage collector.
+   *
+   * <p>The buffer must not be accessed afterwards.
+   *
+   * @param buffer The mapped buffer.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      } catch (NoSuchMethodException e) {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          Method cleanMethod = cleaner.getClass().getMethod("clean");
+          cleanMethod.setAccessible(true);
+          cleanMethod.invoke(cleaner);
+        }
+      }
+    } catch (Exception e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Unable to unmap an SV journal segment: {}", e.toString());
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Reads the records of a segment and updates the pending intents accordingly.
+   *
+   * @param segmentFile The segment file.
+   * @throws IOException If the file cannot be read.
+   */
+  private void scan(File segmentFile) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(segmentFile, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      try {
+        byte[] bytes = new byte[RECORD_SIZE];
+        while (content.remaining() >= RECORD_SIZE) {
+          content.get(bytes);
+          ByteBuffer buffer = ByteBuffer.wrap(bytes);
+          crc.reset();
+          crc.update(bytes, 0, CHECKSUM_OFFSET);
+          if (buffer.getInt(CHECKSUM_OFFSET) != (int) crc.getValue()) {
+            break;
+          }
+          byte type = buffer.get();
+          long sequenceNumber = buffer.getLong();
+          if (type == TYPE_INTENT) {
+            pendingEntries.put(sequenceNumber, readIntent(buffer, sequenceNumber));
+          } else {
+            pendingEntries.remove(sequenceNumber);
+          }
+          nextSequenceNumber = Math.max(nextSequenceNumber, sequenceNumber + 1);
+        }
+      } finally {
+        unmap(content);
+      }
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Decodes an intent, the type and sequence number having been read.
+   *
+   * @param buffer The record.
+   * @param sequenceNumber The sequence number.
+   * @return A not null reference.
+   */
+  private static SvJournalEntryAdapter readIntent(ByteBuffer buffer, long sequenceNumber) {
+    long timestamp = buffer.getLong();
+    PoTransactionService.SvSettings.Operation operation = OPERATIONS[buffer.get()];
+    PoTransactionService.SvSettings.Action action = ACTIONS[buffer.get()];
+    int svTNum = buffer.getChar();
+    int amount = buffer.getInt();
+    byte[] poSerialNumber = new byte[buffer.get()];
+    buffer.get(poSerialNumber);
+    byte[] samSerialNumber = new byte[buffer.get()];
+    buffer.get(samSerialNumber);
+    return new SvJournalEntryAdapter(
+        sequenceNumber,
+        timestamp,
+        poSerialNumber,
+        svTNum,
+        operation,
+        action,
+        amount,
+        samSerialNumber);
+  }
+
+  /**
+   * (private)<br>
+   * Keeps the last bytes of a serial number that fit in a record.
+   *
+   * @param serialNumber The serial number.
+   * @return A not null byte array.
+   */
+  private static byte[] truncate(byte[] serialNumber) {
+    if (serialNumber.length <= MAX_SERIAL_NUMBER_SIZE) {
+      return serialNumber;
+    }
+    return Arrays.copyOfRange(
+        serialNumber, serialNumber.length - MAX_SERIAL_NUMBER_SIZE, serialNumber.length);
+  }
+
+  /**
+   * (private)<br>
+   * Gets the file of a segment.
+   *
+   * @param index The index of the segment.
+   * @return A not null reference.
+   */
+  private File getSegmentFile(int index) {
+    return new File(directory, SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+  }
+
+  /**
+   * (private)<br>
+   * Lists the segment files present in the directory.
+   *
+   * @return The files sorted by segment index.
+   */
+  private Map<Integer, File> getSegmentFiles() {
+    Map<Integer, File> segmentFiles = new TreeMap<Integer, File>();
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return segmentFiles;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+        try {
+          segmentFiles.put(
+              Integer.parseInt(
+                  name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())),
+              file);
+        } catch (NumberFormatException e) {
+          logger.warn("Ignoring the unexpected file {} in the SV journal directory", name);
+        }
+      }
+    }
+    return segmentFiles;
+  }
+}
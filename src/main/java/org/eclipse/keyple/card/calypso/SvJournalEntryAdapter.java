@@ -0,0 +1,174 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.SvJournalEntry;
+import org.eclipse.keyple.core.util.ByteArrayUtil;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SvJournalEntry}.
+ *
+ * @since 2.0
+ */
+final class SvJournalEntryAdapter implements SvJournalEntry {
+
+  private final long sequenceNumber;
+  private final long timestamp;
+  private final byte[] poSerialNumber;
+  private final int svTNum;
+  private final PoTransactionService.SvSettings.Operation operation;
+  private final PoTransactionService.SvSettings.Action action;
+  private final int amount;
+  private final byte[] samSerialNumber;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param sequenceNumber The sequence number of the entry.
+   * @param timestamp The time of the intent, in milliseconds since the epoch.
+   * @param poSerialNumber The application serial number of the PO.
+   * @param svTNum The SV TNum before the operation.
+   * @param operation The SV operation.
+   * @param action The SV action.
+   * @param amount The amount.
+   * @param samSerialNumber The serial number of the SAM.
+   * @since 2.0
+   */
+  SvJournalEntryAdapter(
+      long sequenceNumber,
+      long timestamp,
+      byte[] poSerialNumber,
+      int svTNum,
+      PoTransactionService.SvSettings.Operation operation,
+      PoTransactionService.SvSettings.Action action,
+      int amount,
+      byte[] samSerialNumber) {
+    this.sequenceNumber = sequenceNumber;
+    this.timestamp = timestamp;
+    this.poSerialNumber = poSerialNumber;
+    this.svTNum = svTNum;
+    this.operation = operation;
+    this.action = action;
+    this.amount = amount;
+    this.samSerialNumber = samSerialNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public byte[] getPoSerialNumber() {
+    return poSerialNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSvTNum() {
+    return svTNum;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionService.SvSettings.Operation getOperation() {
+    return operation;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public PoTransactionService.SvSettings.Action getAction() {
+    return action;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getAmount() {
+    return amount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public byte[] getSamSerialNumber() {
+    return samSerialNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"SvJournalEntry\":{"
+        + "\"sequenceNumber\":"
+        + sequenceNumber
+        + ", \"timestamp\":"
+        + timestamp
+        + ", \"poSerialNumber\":\""
+        + ByteArrayUtil.toHex(poSerialNumber)
+        + "\", \"svTNum\":"
+        + svTNum
+        + ", \"operation\":\""
+        + operation
+        + "\", \"action\":\""
+        + action
+        + "\", \"amount\":"
+        + amount
+        + ", \"samSerialNumber\":\""
+        + ByteArrayUtil.toHex(samSerialNumber)
+        + "\"}}";
+  }
+}
@@ -18,11 +18,14 @@
  * (package-private)<br>
  * Implementation of {@link SvLoadLogRecord}.
  *
+ * <p>The record is a view of the PO response: the primitive getters decode the data in place,
+ * only the getters returning byte arrays allocate a copy.
+ *
  * @since 2.0
  */
 class SvLoadLogRecordAdapter implements SvLoadLogRecord {
-  final int offset;
-  final byte[] poResponse;
+  int offset;
+  byte[] poResponse;
 
   /**
    * Constructor
@@ -63,7 +66,7 @@ public int getBalance() {
    */
   @Override
   public int getLoadTime() {
-    return ByteArrayUtil.twoBytesToInt(getLoadTimeBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset + 11);
   }
 
   /**
@@ -86,7 +89,7 @@ public byte[] getLoadTimeBytes() {
    */
   @Override
   public int getLoadDate() {
-    return ByteArrayUtil.twoBytesToInt(getLoadDateBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset);
   }
 
   /**
@@ -142,7 +145,7 @@ public byte getKvc() {
    */
   @Override
   public long getSamId() {
-    return ByteArrayUtil.fourBytesToInt(getSamIdBytes(), 0);
+    return ByteArrayUtil.fourBytesToInt(poResponse, offset + 13);
   }
 
   /**
@@ -164,7 +167,7 @@ public byte[] getSamIdBytes() {
    */
   @Override
   public int getSvTNum() {
-    return ByteArrayUtil.twoBytesToInt(getSvTNumBytes(), 0);
+    return ByteArrayUtil.twoBytesToInt(poResponse, offset + 20);
   }
 
   /**
@@ -187,7 +190,7 @@ public byte[] getSvTNumBytes() {
    */
   @Override
   public int getSamTNum() {
-    return ByteArrayUtil.threeBytesToInt(getSamTNumBytes(), 0);
+    return ByteArrayUtil.threeBytesToInt(poResponse, offset + 17);
   }
 
   /**
@@ -218,7 +221,7 @@ public String toString() {
         + ", \"debitDate\":"
         + getLoadDate()
         + ", \"loadTime\":"
-        + getLoadDate()
+        + getLoadTime()
         + ", \"freeBytes\":"
         + ByteArrayUtil.toHex(getFreeByteBytes())
         + ", \"kvc\":"
@@ -0,0 +1,129 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import org.eclipse.keyple.card.calypso.transaction.CalypsoPoTransactionException;
+import org.eclipse.keyple.card.calypso.transaction.SvOperationResult;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link SvOperationResult}.
+ *
+ * @since 2.0
+ */
+final class SvOperationResultAdapter implements SvOperationResult {
+
+  private final int amount;
+  private CalypsoPoTransactionException error;
+  private int svBalance;
+  private int svTNum;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param amount The amount of the operation.
+   * @since 2.0
+   */
+  SvOperationResultAdapter(int amount) {
+    this.amount = amount;
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets the SV status known after the operation.
+   *
+   * @param svBalance The SV balance.
+   * @param svTNum The SV transaction number.
+   * @since 2.0
+   */
+  void setSvStatus(int svBalance, int svTNum) {
+    this.svBalance = svBalance;
+    this.svTNum = svTNum;
+  }
+
+  /**
+   * (package-private)<br>
+   * Sets the error that stopped the batch at this operation.
+   *
+   * @param error The error.
+   * @since 2.0
+   */
+  void setError(CalypsoPoTransactionException error) {
+    this.error = error;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getAmount() {
+    return amount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public CalypsoPoTransactionException getError() {
+    return error;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSvBalance() {
+    return svBalance;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSvTNum() {
+    return svTNum;
+  }
+
+  @Override
+  public String toString() {
+    return "{\"SvOperationResult\":{"
+        + "\"amount\":"
+        + amount
+        + ", \"successful\":"
+        + isSuccessful()
+        + ", \"svBalance\":"
+        + svBalance
+        + ", \"svTNum\":"
+        + svTNum
+        + (error != null ? ", \"error\":\"" + error.getMessage() + "\"" : "")
+        + "}}";
+  }
+}
@@ -0,0 +1,510 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.List;
+import org.eclipse.keyple.card.calypso.transaction.TransactionCostEstimate;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link TransactionCostEstimate}.
+ *
+ * <p>The estimate is built by simulating the processing methods of {@link
+ * PoTransactionServiceAdapter} step by step: the grouping and splitting rules are the same, but the
+ * commands are only counted and nothing is transmitted. The state of the transaction is copied at
+ * creation and never modified.
+ *
+ * @since 2.0
+ */
+final class TransactionCostEstimateAdapter implements TransactionCostEstimate {
+
+  private final int sessionBufferSize;
+  private final boolean isSessionBufferSizeInBytes;
+  private final boolean isMultipleSessionEnabled;
+  private final boolean isRatificationCommandNeeded;
+  private int modificationsCounter;
+  private boolean isSessionOpen;
+  private boolean isDiversificationDone;
+  private boolean isSvCheckPending;
+  private int pendingDigestCommandCount;
+  private int poApduCount;
+  private int poRoundTripCount;
+  private int samApduCount;
+  private int samRoundTripCount;
+  private int sessionCount;
+  private int maxSessionBufferUsage;
+  private boolean isSessionSplit;
+  private boolean isAtomicTransactionOverflowed;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param poSmartCard The PO data.
+   * @param modificationsCounter The current value of the modifications buffer counter.
+   * @param isMultipleSessionEnabled true if the multiple session mode is enabled.
+   * @param isRatificationCommandNeeded true if a ratification command is sent after the closing.
+   * @param isSessionOpen true if a secure session is currently open.
+   * @param isDiversificationDone true if the key diversification has already been done.
+   * @param pendingDigestCommandCount The number of digest commands not yet sent to the SAM.
+   * @param isSvCheckPending true if an SV operation is waiting for its checking by the SAM.
+   * @since 2.0
+   */
+  TransactionCostEstimateAdapter(
+      PoSmartCardAdapter poSmartCard,
+      int modificationsCounter,
+      boolean isMultipleSessionEnabled,
+      boolean isRatificationCommandNeeded,
+      boolean isSessionOpen,
+      boolean isDiversificationDone,
+      int pendingDigestCommandCount,
+      boolean isSvCheckPending) {
+    this.sessionBufferSize = poSmartCard.getModificationsCounter();
+    this.isSessionBufferSizeInBytes = poSmartCard.isModificationsCounterInBytes();
+    this.isMultipleSessionEnabled = isMultipleSessionEnabled;
+    this.isRatificationCommandNeeded = isRatificationCommandNeeded;
+    this.modificationsCounter = modificationsCounter;
+    this.isSessionOpen = isSessionOpen;
+    this.isDiversificationDone = isDiversificationDone;
+    this.pendingDigestCommandCount = pendingDigestCommandCount;
+    this.isSvCheckPending = isSvCheckPending;
+    updateMaxSessionBufferUsage();
+  }
+
+  /**
+   * (package-private)<br>
+   * Simulates {@link PoTransactionServiceAdapter#processOpening}.
+   *
+   * @param poCommands The prepared PO commands.
+   * @since 2.0
+   */
+  void simulateOpening(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
+    int atomicCommandCount = 0;
+    boolean isFirstCommandMerged = false;
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
+        poCommands) {
+      if (atomicCommandCount == 0) {
+        isFirstCommandMerged = isMergedInOpening(commandBuilder);
+      }
+      if (isSessionBufferOverflowed(commandBuilder)) {
+        simulateAtomicOpening(atomicCommandCount, isFirstCommandMerged);
+        simulateAtomicClosing(0, false);
+        resetSessionBuffer(commandBuilder);
+        atomicCommandCount = 0;
+        isFirstCommandMerged = isMergedInOpening(commandBuilder);
+      }
+      atomicCommandCount++;
+    }
+    simulateAtomicOpening(atomicCommandCount, isFirstCommandMerged);
+  }
+
+  /**
+   * (package-private)<br>
+   * Simulates {@link PoTransactionServiceAdapter#processPoCommands()}.
+   *
+   * @param poCommands The prepared PO commands.
+   * @since 2.0
+   */
+  void simulatePoCommands(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands) {
+    if (!isSessionOpen) {
+      simulateAtomicPoCommands(poCommands.size());
+      simulateSvCheck();
+      return;
+    }
+    int atomicCommandCount = 0;
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
+        poCommands) {
+      if (isSessionBufferOverflowed(commandBuilder)) {
+        simulateAtomicPoCommands(atomicCommandCount);
+        simulateAtomicClosing(0, false);
+        resetSessionBuffer(commandBuilder);
+        simulateAtomicOpening(0, false);
+        atomicCommandCount = 0;
+      }
+      atomicCommandCount++;
+    }
+    if (atomicCommandCount != 0) {
+      simulateAtomicPoCommands(atomicCommandCount);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Simulates {@link PoTransactionServiceAdapter#processClosing()}.
+   *
+   * @param poCommands The prepared PO commands.
+   * @param counterReadCount The number of commands reading beforehand the counters whose values
+   *     are needed to anticipate the responses.
+   * @since 2.0
+   */
+  void simulateClosing(
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+      int counterReadCount) {
+    if (counterReadCount != 0) {
+      simulateAtomicPoCommands(counterReadCount);
+    }
+    boolean atLeastOneReadCommand = false;
+    boolean sessionPreviouslyClosed = false;
+    int atomicCommandCount = 0;
+    for (AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder :
+        poCommands) {
+      if (commandBuilder.isSessionBufferUsed()) {
+        if (isSessionBufferOverflowed(commandBuilder)) {
+          if (sessionPreviouslyClosed) {
+            simulateAtomicOpening(0, false);
+          }
+          if (atLeastOneReadCommand) {
+            simulateAtomicPoCommands(atomicCommandCount);
+            simulateAtomicClosing(0, false);
+            atLeastOneReadCommand = false;
+          } else {
+            simulateAtomicClosing(atomicCommandCount, false);
+          }
+          resetSessionBuffer(commandBuilder);
+          sessionPreviouslyClosed = true;
+          atomicCommandCount = 0;
+        }
+      } else {
+        atLeastOneReadCommand = true;
+      }
+      atomicCommandCount++;
+    }
+    if (sessionPreviouslyClosed) {
+      simulateAtomicOpening(0, false);
+    }
+    simulateAtomicClosing(atomicCommandCount, isRatificationCommandNeeded);
+  }
+
+  /**
+   * (package-private)<br>
+   * Simulates the execution of a step of a compiled plan known to fit in the modifications buffer.
+   *
+   * @param type The type of step.
+   * @param poCommands The PO commands of the step.
+   * @param sessionBufferUsage The use of the modifications buffer by the commands.
+   * @since 2.0
+   */
+  void simulatePlanStep(
+      TransactionPlanAdapter.StepType type,
+      List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> poCommands,
+      int sessionBufferUsage) {
+    switch (type) {
+      case OPENING:
+        modificationsCounter = sessionBufferSize - sessionBufferUsage;
+        simulateAtomicOpening(
+            poCommands.size(), !poCommands.isEmpty() && isMergedInOpening(poCommands.get(0)));
+        break;
+      case PO_COMMANDS:
+        modificationsCounter -= sessionBufferUsage;
+        if (!poCommands.isEmpty()) {
+          simulateAtomicPoCommands(poCommands.size());
+          if (!isSessionOpen) {
+            simulateSvCheck();
+          }
+        }
+        break;
+      default:
+        modificationsCounter -= sessionBufferUsage;
+        simulateAtomicClosing(poCommands.size(), isRatificationCommandNeeded);
+    }
+    updateMaxSessionBufferUsage();
+  }
+
+  /**
+   * (private)<br>
+   * Tells if the provided command is replaced by the record reading of the Open Secure Session
+   * command when it comes first.
+   *
+   * @param commandBuilder The command builder.
+   * @return true if the command is merged.
+   */
+  private static boolean isMergedInOpening(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder) {
+    return commandBuilder.getCommandRef() == PoCommand.READ_RECORDS
+        && ((PoReadRecordsBuilder) commandBuilder).getReadMode()
+            == PoReadRecordsBuilder.ReadMode.ONE_RECORD;
+  }
+
+  /**
+   * (private)<br>
+   * Mirrors the accounting of the modifications buffer made by the transaction service.
+   *
+   * <p>In atomic mode, the overflow is recorded and the command is counted as if it fitted.
+   *
+   * @param commandBuilder The command builder.
+   * @return true if the session must be split before the command.
+   */
+  private boolean isSessionBufferOverflowed(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder) {
+    if (!commandBuilder.isSessionBufferUsed()) {
+      return false;
+    }
+    int neededSessionBufferSpace = getNeededSessionBufferSpace(commandBuilder);
+    boolean isOverflowed = modificationsCounter - neededSessionBufferSpace < 0;
+    if (isOverflowed && isMultipleSessionEnabled) {
+      isSessionSplit = true;
+      return true;
+    }
+    if (isOverflowed) {
+      isAtomicTransactionOverflowed = true;
+    }
+    modificationsCounter -= neededSessionBufferSpace;
+    updateMaxSessionBufferUsage();
+    return false;
+  }
+
+  /**
+   * (private)<br>
+   * Resets the modifications buffer counter for a new session and consumes the space needed by the
+   * command that did not fit in the previous one.
+   *
+   * @param commandBuilder The command builder.
+   */
+  private void resetSessionBuffer(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder) {
+    modificationsCounter = sessionBufferSize - getNeededSessionBufferSpace(commandBuilder);
+    updateMaxSessionBufferUsage();
+  }
+
+  /**
+   * (private)<br>
+   * Gets the space needed in the modifications buffer by a command.
+   *
+   * @param commandBuilder The command builder.
+   * @return A number of bytes or 1 if the buffer is counted in commands.
+   */
+  private int getNeededSessionBufferSpace(
+      AbstractPoCommandBuilder<? extends AbstractPoResponseParser> commandBuilder) {
+    if (!isSessionBufferSizeInBytes) {
+      return 1;
+    }
+    return commandBuilder.getApduRequest().getBytes().length
+        + PoTransactionServiceAdapter.SESSION_BUFFER_CMD_ADDITIONAL_COST
+        - PoTransactionServiceAdapter.APDU_HEADER_LENGTH;
+  }
+
+  /**
+   * (private)<br>
+   * Updates the maximum usage of the modifications buffer with its current usage.
+   */
+  private void updateMaxSessionBufferUsage() {
+    int sessionBufferUsage = sessionBufferSize - modificationsCounter;
+    if (sessionBufferUsage > maxSessionBufferUsage) {
+      maxSessionBufferUsage = sessionBufferUsage;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Counts the exchanges of an atomic opening: the SAM challenge, then the Open Secure Session
+   * command followed by the PO commands.
+   *
+   * @param poCommandCount The number of PO commands.
+   * @param isFirstCommandMerged true if the first command is merged into the opening.
+   */
+  private void simulateAtomicOpening(int poCommandCount, boolean isFirstCommandMerged) {
+    samRoundTripCount++;
+    samApduCount += isDiversificationDone ? 1 : 2;
+    isDiversificationDone = true;
+    if (isFirstCommandMerged) {
+      poCommandCount--;
+    }
+    poRoundTripCount++;
+    poApduCount += 1 + poCommandCount;
+    // Digest Init from the open session response, then a couple request/response per command
+    pendingDigestCommandCount = 1 + 2 * poCommandCount;
+    isSessionOpen = true;
+    sessionCount++;
+  }
+
+  /**
+   * (private)<br>
+   * Counts the exchanges of an atomic sending of PO commands.
+   *
+   * @param poCommandCount The number of PO commands.
+   */
+  private void simulateAtomicPoCommands(int poCommandCount) {
+    poRoundTripCount++;
+    poApduCount += poCommandCount;
+    if (isSessionOpen) {
+      pendingDigestCommandCount += 2 * poCommandCount;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Counts the exchanges of an atomic closing: the digest commands and Digest Close sent to the
+   * SAM, the PO commands followed by Close Secure Session and the optional ratification command,
+   * then the Digest Authenticate sent to the SAM.
+   *
+   * @param poCommandCount The number of PO commands.
+   * @param isRatificationCommandAdded true if a ratification command is sent.
+   */
+  private void simulateAtomicClosing(int poCommandCount, boolean isRatificationCommandAdded) {
+    pendingDigestCommandCount += 2 * poCommandCount;
+    samRoundTripCount++;
+    samApduCount += pendingDigestCommandCount + 1;
+    pendingDigestCommandCount = 0;
+    poRoundTripCount++;
+    poApduCount += poCommandCount + (isRatificationCommandAdded ? 2 : 1);
+    samRoundTripCount++;
+    samApduCount++;
+    isSessionOpen = false;
+    simulateSvCheck();
+  }
+
+  /**
+   * (private)<br>
+   * Counts the SV Check command sent to the SAM after an SV operation, if any.
+   */
+  private void simulateSvCheck() {
+    if (isSvCheckPending) {
+      samRoundTripCount++;
+      samApduCount++;
+      isSvCheckPending = false;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getPoApduCount() {
+    return poApduCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getPoRoundTripCount() {
+    return poRoundTripCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSamApduCount() {
+    return samApduCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSamRoundTripCount() {
+    return samRoundTripCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSessionCount() {
+    return sessionCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getMaxSessionBufferUsage() {
+    return maxSessionBufferUsage;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSessionBufferSize() {
+    return sessionBufferSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionBufferSizeInBytes() {
+    return isSessionBufferSizeInBytes;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isSessionSplit() {
+    return isSessionSplit;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public boolean isAtomicTransactionOverflowed() {
+    return isAtomicTransactionOverflowed;
+  }
+
+  /**
+   * Gets the estimate as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"TransactionCostEstimate\":{"
+        + "\"poApduCount\":"
+        + poApduCount
+        + ", \"poRoundTripCount\":"
+        + poRoundTripCount
+        + ", \"samApduCount\":"
+        + samApduCount
+        + ", \"samRoundTripCount\":"
+        + samRoundTripCount
+        + ", \"sessionCount\":"
+        + sessionCount
+        + ", \"maxSessionBufferUsage\":"
+        + maxSessionBufferUsage
+        + ", \"sessionBufferSize\":"
+        + sessionBufferSize
+        + ", \"sessionBufferUnit\":\""
+        + (isSessionBufferSizeInBytes ? "BYTES" : "COMMANDS")
+        + "\", \"isSessionSplit\":"
+        + isSessionSplit
+        + ", \"isAtomicTransactionOverflowed\":"
+        + isAtomicTransactionOverflowed
+        + "}}";
+  }
+}
@@ -0,0 +1,326 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.TransactionPlan;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link TransactionPlan}.
+ *
+ * @since 2.0
+ */
+final class TransactionPlanAdapter implements TransactionPlan {
+
+  private final List<Step> steps;
+  private final int slotCount;
+  private final ConcurrentMap<String, CompiledTransactionPlan> compiledPlansByProfile =
+      new ConcurrentHashMap<String, CompiledTransactionPlan>();
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param steps The steps of the plan.
+   * @param slotCount The number of data slots.
+   * @since 2.0
+   */
+  TransactionPlanAdapter(List<Step> steps, int slotCount) {
+    this.steps = steps;
+    this.slotCount = slotCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getSlotCount() {
+    return slotCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public int getCompiledProfileCount() {
+    return compiledPlansByProfile.size();
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the plan compiled for the profile of the provided PO, compiling it if needed.
+   *
+   * @param poSmartCard The PO.
+   * @return A not null reference.
+   * @since 2.0
+   */
+  CompiledTransactionPlan getCompiledPlan(PoSmartCardAdapter poSmartCard) {
+    String profile =
+        poSmartCard.getRevision().name()
+            + '/'
+            + poSmartCard.getPoClass().name()
+            + '/'
+            + poSmartCard.getPayloadCapacity()
+            + '/'
+            + poSmartCard.getModificationsCounter()
+            + (poSmartCard.isModificationsCounterInBytes() ? 'B' : 'C');
+    CompiledTransactionPlan compiledPlan = compiledPlansByProfile.get(profile);
+    if (compiledPlan == null) {
+      compiledPlansByProfile.putIfAbsent(
+          profile,
+          new CompiledTransactionPlan(
+              steps,
+              poSmartCard.getPoClass(),
+              poSmartCard.getPayloadCapacity(),
+              poSmartCard.getModificationsCounter(),
+              poSmartCard.isModificationsCounterInBytes()));
+      compiledPlan = compiledPlansByProfile.get(profile);
+    }
+    return compiledPlan;
+  }
+
+  /**
+   * Gets the plan as a JSON formatted string.
+   *
+   * @return A not empty String
+   * @since 2.0
+   */
+  @Override
+  public String toString() {
+    return "{\"TransactionPlan\":{"
+        + "\"steps\":"
+        + steps.size()
+        + ", \"slotCount\":"
+        + slotCount
+        + ", \"compiledProfiles\":"
+        + compiledPlansByProfile.keySet()
+        + "}}";
+  }
+
+  /**
+   * (package-private)<br>
+   * Type of a step of a plan.
+   *
+   * @since 2.0
+   */
+  enum StepType {
+    OPENING,
+    PO_COMMANDS,
+    CLOSING
+  }
+
+  /**
+   * (package-private)<br>
+   * Step of a plan: the commands prepared before a "process" method and this method.
+   *
+   * @since 2.0
+   */
+  static final class Step {
+
+    private final StepType type;
+    private final PoTransactionService.SessionAccessLevel sessionAccessLevel;
+    private final List<Command> commands;
+    private final boolean isInSession;
+
+    /**
+     * (package-private)<br>
+     * Constructor.
+     *
+     * @param type The step type.
+     * @param sessionAccessLevel The session access level (opening only).
+     * @param commands The commands.
+     * @param isInSession true if the commands are executed in a secure session.
+     * @since 2.0
+     */
+    Step(
+        StepType type,
+        PoTransactionService.SessionAccessLevel sessionAccessLevel,
+        List<Command> commands,
+        boolean isInSession) {
+      this.type = type;
+      this.sessionAccessLevel = sessionAccessLevel;
+      this.commands = commands;
+      this.isInSession = isInSession;
+    }
+
+    StepType getType() {
+      return type;
+    }
+
+    PoTransactionService.SessionAccessLevel getSessionAccessLevel() {
+      return sessionAccessLevel;
+    }
+
+    List<Command> getCommands() {
+      return commands;
+    }
+
+    boolean isInSession() {
+      return isInSession;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Type of a command of a plan.
+   *
+   * @since 2.0
+   */
+  enum CommandType {
+    READ_RECORDS,
+    APPEND_RECORD,
+    UPDATE_RECORD,
+    INCREASE,
+    DECREASE
+  }
+
+  /**
+   * (package-private)<br>
+   * Command of a plan, with its already checked arguments.
+   *
+   * @since 2.0
+   */
+  static final class Command {
+
+    private final CommandType type;
+    private final byte sfi;
+    private final int number;
+    private final int count;
+    private final int value;
+    private final byte[] data;
+    private final int slotIndex;
+
+    /**
+     * (package-private)<br>
+     * Constructor.
+     *
+     * @param type The command type.
+     * @param sfi The SFI.
+     * @param number The record or counter number.
+     * @param count The number of records to read.
+     * @param value The record size to read, the length of the slot data or the counter value.
+     * @param data The fixed record data (null for a slot).
+     * @param slotIndex The index of the data slot (-1 if the data is fixed).
+     * @since 2.0
+     */
+    Command(
+        CommandType type, byte sfi, int number, int count, int value, byte[] data, int slotIndex) {
+      this.type = type;
+      this.sfi = sfi;
+      this.number = number;
+      this.count = count;
+      this.value = value;
+      this.data = data;
+      this.slotIndex = slotIndex;
+    }
+
+    CommandType getType() {
+      return type;
+    }
+
+    byte getSfi() {
+      return sfi;
+    }
+
+    int getNumber() {
+      return number;
+    }
+
+    int getCount() {
+      return count;
+    }
+
+    int getValue() {
+      return value;
+    }
+
+    /**
+     * (package-private)<br>
+     * Gets the index of the data slot.
+     *
+     * @return -1 if the command has no slot.
+     * @since 2.0
+     */
+    int getSlotIndex() {
+      return slotIndex;
+    }
+
+    /**
+     * (package-private)<br>
+     * Gets the expected length of the slot data.
+     *
+     * @return A positive int.
+     * @since 2.0
+     */
+    int getSlotLength() {
+      return value;
+    }
+
+    /**
+     * (package-private)<br>
+     * Creates the builders of the command for the provided PO profile.
+     *
+     * <p>For a slot, the builder is created with zeroed data of the expected length, only to be
+     * used as a template.
+     *
+     * @param poClass The PO class.
+     * @param payloadCapacity The transmission capacity of the PO.
+     * @param builders The list to which the builders are added.
+     * @since 2.0
+     */
+    void compile(
+        PoClass poClass,
+        int payloadCapacity,
+        List<AbstractPoCommandBuilder<? extends AbstractPoResponseParser>> builders) {
+      switch (type) {
+        case READ_RECORDS:
+          builders.addAll(
+              CalypsoPoUtils.prepareReadRecordFile(
+                  poClass, sfi, number, count, value, payloadCapacity));
+          break;
+        case INCREASE:
+          builders.add(new PoIncreaseBuilder(poClass, sfi, number, value));
+          break;
+        case DECREASE:
+          builders.add(new PoDecreaseBuilder(poClass, sfi, number, value));
+          break;
+        default:
+          builders.add(createRecordBuilder(poClass, data != null ? data : new byte[value]));
+      }
+    }
+
+    /**
+     * (package-private)<br>
+     * Creates the builder of a record writing command with the provided data.
+     *
+     * @param poClass The PO class.
+     * @param recordData The record data.
+     * @return A not null reference.
+     * @since 2.0
+     */
+    AbstractPoCommandBuilder<? extends AbstractPoResponseParser> createRecordBuilder(
+        PoClass poClass, byte[] recordData) {
+      if (type == CommandType.APPEND_RECORD) {
+        return new PoAppendRecordBuilder(poClass, sfi, recordData);
+      }
+      return new PoUpdateRecordBuilder(poClass, sfi, number, recordData);
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
+import org.eclipse.keyple.card.calypso.transaction.TransactionPlan;
+import org.eclipse.keyple.card.calypso.transaction.TransactionPlanBuilder;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link TransactionPlanBuilder}.
+ *
+ * @since 2.0
+ */
+final class TransactionPlanBuilderAdapter implements TransactionPlanBuilder {
+
+  private final List<TransactionPlanAdapter.Step> steps =
+      new ArrayList<TransactionPlanAdapter.Step>();
+  private List<TransactionPlanAdapter.Command> commands =
+      new ArrayList<TransactionPlanAdapter.Command>();
+  private int slotCount;
+  private boolean isSessionOpen;
+  private int openingStepIndex;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @since 2.0
+   */
+  TransactionPlanBuilderAdapter() {}
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareReadRecordFile(byte sfi, int recordNumber) {
+    return prepareReadRecordFile(sfi, recordNumber, 1, 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareReadRecordFile(
+      byte sfi, int firstRecordNumber, int numberOfRecords, int recordSize) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            firstRecordNumber,
+            CalypsoPoUtils.NB_REC_MIN,
+            CalypsoPoUtils.NB_REC_MAX,
+            "firstRecordNumber") //
+        .isInRange(
+            numberOfRecords,
+            CalypsoPoUtils.NB_REC_MIN,
+            CalypsoPoUtils.NB_REC_MAX - firstRecordNumber,
+            "numberOfRecords");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.READ_RECORDS,
+        sfi,
+        firstRecordNumber,
+        numberOfRecords,
+        recordSize,
+        null,
+        -1);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareReadCounterFile(byte sfi, int countersNumber) {
+    return prepareReadRecordFile(sfi, 1, 1, countersNumber * 3);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareAppendRecord(byte sfi, byte[] recordData) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .notNull(recordData, "recordData");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.APPEND_RECORD, sfi, 0, 0, 0, recordData.clone(), -1);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareAppendRecordSlot(byte sfi, int recordLength) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(recordLength, 1, 250, "recordLength");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.APPEND_RECORD,
+        sfi,
+        0,
+        0,
+        recordLength,
+        null,
+        slotCount++);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareUpdateRecord(byte sfi, int recordNumber, byte[] recordData) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            recordNumber, CalypsoPoUtils.NB_REC_MIN, CalypsoPoUtils.NB_REC_MAX, "recordNumber")
+        .notNull(recordData, "recordData");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.UPDATE_RECORD,
+        sfi,
+        recordNumber,
+        0,
+        0,
+        recordData.clone(),
+        -1);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareUpdateRecordSlot(
+      byte sfi, int recordNumber, int recordLength) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            recordNumber, CalypsoPoUtils.NB_REC_MIN, CalypsoPoUtils.NB_REC_MAX, "recordNumber")
+        .isInRange(recordLength, 1, 250, "recordLength");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.UPDATE_RECORD,
+        sfi,
+        recordNumber,
+        0,
+        recordLength,
+        null,
+        slotCount++);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareIncreaseCounter(byte sfi, int counterNumber, int incValue) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            counterNumber,
+            CalypsoPoUtils.NB_CNT_MIN,
+            CalypsoPoUtils.NB_CNT_MAX,
+            "counterNumber") //
+        .isInRange(
+            incValue, CalypsoPoUtils.CNT_VALUE_MIN, CalypsoPoUtils.CNT_VALUE_MAX, "incValue");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.INCREASE, sfi, counterNumber, 0, incValue, null, -1);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder prepareDecreaseCounter(byte sfi, int counterNumber, int decValue) {
+    Assert.getInstance() //
+        .isInRange((int) sfi, CalypsoPoUtils.SFI_MIN, CalypsoPoUtils.SFI_MAX, "sfi") //
+        .isInRange(
+            counterNumber,
+            CalypsoPoUtils.NB_CNT_MIN,
+            CalypsoPoUtils.NB_CNT_MAX,
+            "counterNumber") //
+        .isInRange(
+            decValue, CalypsoPoUtils.CNT_VALUE_MIN, CalypsoPoUtils.CNT_VALUE_MAX, "decValue");
+    return addCommand(
+        TransactionPlanAdapter.CommandType.DECREASE, sfi, counterNumber, 0, decValue, null, -1);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder processOpening(
+      PoTransactionService.SessionAccessLevel sessionAccessLevel) {
+    Assert.getInstance().notNull(sessionAccessLevel, "sessionAccessLevel");
+    if (isSessionOpen) {
+      throw new IllegalStateException("A session is already open in the plan.");
+    }
+    isSessionOpen = true;
+    openingStepIndex = steps.size();
+    return addStep(TransactionPlanAdapter.StepType.OPENING, sessionAccessLevel);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder processPoCommands() {
+    return addStep(TransactionPlanAdapter.StepType.PO_COMMANDS, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlanBuilder processClosing() {
+    if (!isSessionOpen) {
+      throw new IllegalStateException("No session is open in the plan.");
+    }
+    addCounterReadCommands();
+    addStep(TransactionPlanAdapter.StepType.CLOSING, null);
+    isSessionOpen = false;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public TransactionPlan build() {
+    if (!commands.isEmpty()) {
+      throw new IllegalStateException("Commands have been prepared after the last step.");
+    }
+    return new TransactionPlanAdapter(
+        new ArrayList<TransactionPlanAdapter.Step>(steps), slotCount);
+  }
+
+  /**
+   * (private)<br>
+   * Adds a command to the current step.
+   *
+   * @param type The command type.
+   * @param sfi The SFI.
+   * @param number The record or counter number.
+   * @param count The number of records to read.
+   * @param value The record size to read, the length of the slot data or the counter value.
+   * @param data The fixed record data (null for a slot).
+   * @param slotIndex The index of the data slot (-1 if the data is fixed).
+   * @return The object instance.
+   */
+  private TransactionPlanBuilder addCommand(
+      TransactionPlanAdapter.CommandType type,
+      byte sfi,
+      int number,
+      int count,
+      int value,
+      byte[] data,
+      int slotIndex) {
+    commands.add(
+        new TransactionPlanAdapter.Command(type, sfi, number, count, value, data, slotIndex));
+    return this;
+  }
+
+  /**
+   * (private)<br>
+   * Ends the current step.
+   *
+   * @param type The step type.
+   * @param sessionAccessLevel The session access level (opening only).
+   * @return The object instance.
+   */
+  private TransactionPlanBuilder addStep(
+      TransactionPlanAdapter.StepType type,
+      PoTransactionService.SessionAccessLevel sessionAccessLevel) {
+    steps.add(new TransactionPlanAdapter.Step(type, sessionAccessLevel, commands, isSessionOpen));
+    commands = new ArrayList<TransactionPlanAdapter.Command>();
+    return this;
+  }
+
+  /**
+   * (private)<br>
+   * Adds to the opening step of the current session the reading of the counters modified by the
+   * closing commands and not read by a previous step.
+   *
+   * <p>The counters of a same EF are read with a single command. If the opening step has no other
+   * command, the reading is merged with the Open Secure Session command.
+   */
+  private void addCounterReadCommands() {
+    // highest counter number to read by SFI
+    Map<Byte, Integer> countersNumberBySfi = new LinkedHashMap<Byte, Integer>();
+    for (TransactionPlanAdapter.Command command : commands) {
+      if ((command.getType() == TransactionPlanAdapter.CommandType.INCREASE
+              || command.getType() == TransactionPlanAdapter.CommandType.DECREASE)
+          && !isCounterRead(command.getSfi(), command.getNumber())) {
+        Integer countersNumber = countersNumberBySfi.get(command.getSfi());
+        if (countersNumber == null || countersNumber < command.getNumber()) {
+          countersNumberBySfi.put(command.getSfi(), command.getNumber());
+        }
+      }
+    }
+    List<TransactionPlanAdapter.Command> openingCommands =
+        steps.get(openingStepIndex).getCommands();
+    for (Map.Entry<Byte, Integer> entry : countersNumberBySfi.entrySet()) {
+      openingCommands.add(
+          new TransactionPlanAdapter.Command(
+              TransactionPlanAdapter.CommandType.READ_RECORDS,
+              entry.getKey(),
+              1,
+              1,
+              entry.getValue() * 3,
+              null,
+              -1));
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Tells if the value of a counter is obtained by a previous step of the plan, either by reading
+   * it or by modifying it.
+   *
+   * @param sfi The SFI of the counter file.
+   * @param counterNumber The number of the counter.
+   * @return true if the value is obtained.
+   */
+  private boolean isCounterRead(byte sfi, int counterNumber) {
+    for (TransactionPlanAdapter.Step step : steps) {
+      for (TransactionPlanAdapter.Command command : step.getCommands()) {
+        if (command.getSfi() != sfi) {
+          continue;
+        }
+        switch (command.getType()) {
+          case READ_RECORDS:
+            if (command.getNumber() == 1
+                && (command.getValue() == 0 || command.getValue() >= counterNumber * 3)) {
+              return true;
+            }
+            break;
+          case INCREASE:
+          case DECREASE:
+            if (command.getNumber() == counterNumber) {
+              return true;
+            }
+            break;
+          default:
+        }
+      }
+    }
+    return false;
+  }
+}
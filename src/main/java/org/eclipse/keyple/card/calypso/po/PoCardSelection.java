@@ -11,6 +11,7 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso.po;
 
+import org.eclipse.keyple.card.calypso.transaction.PoTransactionService;
 import org.eclipse.keyple.core.service.selection.spi.CardSelection;
 
 /**
@@ -56,4 +57,33 @@ public interface PoCardSelection extends CardSelection {
    * @since 2.0
    */
   void prepareSelectFile(SelectFileControl selectControl);
+
+  /**
+   * Adds one or two SV Get command APDUs, so that an SV operation can be prepared directly after
+   * the selection, without a prior {@link
+   * org.eclipse.keyple.card.calypso.transaction.PoTransactionService#prepareSvGet(
+   * PoTransactionService.SvSettings.Operation, PoTransactionService.SvSettings.Action)}.
+   *
+   * <p>Since the revision of the PO is only known once it is selected, the mode of the command
+   * (revision 3.2 or compatibility) is determined by the expected revision. When the selected PO
+   * does not match it, or does not support the Stored Value, the SV Get responses are ignored and
+   * the transaction has to execute its own SV Get.
+   *
+   * <p>When both the load and debit logs are required and the expected revision is not 3.2, an
+   * SV Get for the other operation is sent first, as the transaction would do.
+   *
+   * @param expectedRevision The expected revision of the PO.
+   * @param svOperation The SV operation that will follow.
+   * @param svAction The SV action that will follow.
+   * @param isLoadAndDebitSvLogRequired true if both logs are required, i.e. if the security
+   *     settings of the transaction will require them.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @throws IllegalStateException If an SV Get has already been prepared.
+   * @since 2.0
+   */
+  void prepareSvGet(
+      PoRevision expectedRevision,
+      PoTransactionService.SvSettings.Operation svOperation,
+      PoTransactionService.SvSettings.Action svAction,
+      boolean isLoadAndDebitSvLogRequired);
 }
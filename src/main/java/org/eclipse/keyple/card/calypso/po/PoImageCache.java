@@ -0,0 +1,89 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.po;
+
+/**
+ * Bounded in-memory cache of the files of the last POs processed, indexed by application serial
+ * number.
+ *
+ * <p>It allows a PO presented again shortly after a transaction (e.g. a double tap) to be processed
+ * without reading again the files already known.
+ *
+ * <p>An entry is evicted when its time to live has elapsed or when the cache is full and the entry
+ * is the least recently used.
+ *
+ * <p>An entry is only used if it is still consistent with what is known of the PO presented:
+ *
+ * <ul>
+ *   <li>if a session has been opened, the last session must have been ratified (an unratified
+ *       session may be cancelled by the PO),
+ *   <li>if the SV data is known on either side, the SV transaction numbers must be equal.
+ * </ul>
+ *
+ * <p>The implementation is thread-safe.
+ *
+ * @since 2.0
+ */
+public interface PoImageCache {
+
+  /**
+   * Stores a copy of the files of the provided PO, replacing any previous entry for the same PO.
+   *
+   * <p>Nothing is stored (and any previous entry is removed) if the last session of the PO has not
+   * been ratified.
+   *
+   * @param poSmartCard The PO, typically at the end of a transaction.
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  void put(PoSmartCard poSmartCard);
+
+  /**
+   * Seeds the provided PO with the files stored for it, if any and still valid.
+   *
+   * <p>Only the files not already known by the provided PO are added, the data read since its
+   * selection being more recent. Once restored, the records of these files do not need to be read
+   * again by the transaction.
+   *
+   * <p>An entry found invalid is removed.
+   *
+   * @param poSmartCard The PO, typically just after its selection.
+   * @return true if files have been restored, false if no valid entry was found.
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  boolean restore(PoSmartCard poSmartCard);
+
+  /**
+   * Removes the entry of the provided PO, if any.
+   *
+   * @param poSmartCard The PO.
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  void remove(PoSmartCard poSmartCard);
+
+  /**
+   * Removes all the entries.
+   *
+   * @since 2.0
+   */
+  void clear();
+
+  /**
+   * Gets the number of entries, including those expired but not yet evicted.
+   *
+   * @return A positive int or zero.
+   * @since 2.0
+   */
+  int size();
+}
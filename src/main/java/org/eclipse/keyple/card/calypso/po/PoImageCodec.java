@@ -0,0 +1,100 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.po;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary serialization of the image of a PO, i.e. of all that is known about it.
+ *
+ * <p>The image includes the FCI and ATR, the directory header, the headers and records of the
+ * files, the SV data and the PIN status. The transient data of a transaction (PO challenge, SV
+ * operation signature) are not included.
+ *
+ * <p>The encoding starts with a format version; an image encoded by a given version of this codec
+ * can be decoded by later versions.
+ *
+ * <p>On decoding, the records of the files are not copied: they remain in the provided buffer and
+ * are only decoded when the content of a file is accessed for the first time. The content of the
+ * buffer must therefore not be modified after decoding.
+ *
+ * @since 2.0
+ */
+public interface PoImageCodec {
+
+  /**
+   * Encodes the image of the provided PO in a new buffer.
+   *
+   * @param poSmartCard The PO.
+   * @return A not null buffer, ready to be read (position 0, limit at the end of the image).
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  ByteBuffer encode(PoSmartCard poSmartCard);
+
+  /**
+   * Encodes the image of the provided PO at the current position of the provided buffer.
+   *
+   * <p>The position of the buffer is moved to the end of the image.
+   *
+   * @param poSmartCard The PO.
+   * @param buffer The destination buffer.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @throws BufferOverflowException If the remaining space of the buffer is insufficient (the
+   *     content of the buffer beyond its initial position is then undefined).
+   * @since 2.0
+   */
+  void encode(PoSmartCard poSmartCard, ByteBuffer buffer);
+
+  /**
+   * Decodes a PO image from the current position of the provided buffer.
+   *
+   * <p>The position of the buffer is moved to the end of the image.
+   *
+   * @param buffer The source buffer.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If buffer is null, if the format version is not supported or
+   *     if the image is truncated.
+   * @since 2.0
+   */
+  PoSmartCard decode(ByteBuffer buffer);
+
+  /**
+   * Exports the changes made to the image of the provided PO since its selection or since the
+   * previous export.
+   *
+   * <p>The delta contains the records written or read by the transactions and the file headers
+   * obtained since then, along with the current PIN status, SV data and ratification status. Once
+   * exported, the changes are forgotten, so that the next delta only contains the later ones.
+   *
+   * @param poSmartCard The PO.
+   * @return A not null buffer, ready to be read (position 0, limit at the end of the delta).
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  ByteBuffer exportDelta(PoSmartCard poSmartCard);
+
+  /**
+   * Applies a delta exported by {@link #exportDelta(PoSmartCard)} to a stored image of the same
+   * PO, e.g. an image obtained with {@link #decode(ByteBuffer)}.
+   *
+   * <p>The position of the buffer is moved to the end of the delta.
+   *
+   * @param delta The source buffer.
+   * @param poSmartCard The stored image to update.
+   * @throws IllegalArgumentException If one of the arguments is null, if the format version is not
+   *     supported, if the delta is truncated or if it has been exported from another PO.
+   * @since 2.0
+   */
+  void applyDelta(ByteBuffer delta, PoSmartCard poSmartCard);
+}
@@ -0,0 +1,67 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.po;
+
+import java.util.Map;
+import org.eclipse.keyple.core.service.Reader;
+import org.eclipse.keyple.core.service.selection.CardSelector;
+
+/**
+ * Selection of several Calypso applications hosted by a same card, in a single selection scenario.
+ *
+ * <p>Each application is described by its own card selector and may be supplemented with its own
+ * commands to execute during the selection phase, through the {@link PoCardSelection} returned
+ * when it is added.
+ *
+ * <p>All the applications are then selected one after the other in the same scenario, and a
+ * {@link PoSmartCard} is returned for each matching application.
+ *
+ * @since 2.0
+ */
+public interface PoMultiApplicationSelection {
+
+  /**
+   * Adds the selection of an application.
+   *
+   * <p>The returned {@link PoCardSelection} can be used to prepare the commands to execute right
+   * after the selection of this application (e.g. read records).
+   *
+   * @param poCardSelector The card selector of the application (usually based on its AID).
+   * @return A not null reference.
+   * @throws IllegalArgumentException If poCardSelector is null.
+   * @since 2.0
+   */
+  PoCardSelection prepareApplicationSelection(CardSelector poCardSelector);
+
+  /**
+   * Gets the number of applications to select.
+   *
+   * @return A positive int or zero.
+   * @since 2.0
+   */
+  int getApplicationCount();
+
+  /**
+   * Selects all the applications in a single selection scenario on the provided reader.
+   *
+   * <p>The channel is left open after the last selection.
+   *
+   * @param reader The reader in which the card is present.
+   * @return A not null map of the {@link PoSmartCard} of the matching applications, indexed by
+   *     the order in which the applications were added (starting at 0). The map is empty if no
+   *     application matched.
+   * @throws IllegalArgumentException If reader is null.
+   * @throws IllegalStateException If no application has been added.
+   * @since 2.0
+   */
+  Map<Integer, PoSmartCard> processSelection(Reader reader);
+}
@@ -294,12 +294,25 @@ public interface PoSmartCard extends SmartCard {
   /**
    * Gets list of references to the {@link SvDebitLogRecord} read from the PO.
    *
+   * <p>The list is unmodifiable; the same list is returned as long as the SV debit log file is
+   * unchanged.
+   *
    * @return a list of SV debit log record objects or null if not available
    * @throws NoSuchElementException if requested log is not found.
    * @since 2.0
    */
   List<SvDebitLogRecord> getSvDebitLogAllRecords();
 
+  /**
+   * Gets a cursor iterating over the {@link SvDebitLogRecord} read from the PO without allocating
+   * a record object per log.
+   *
+   * @return A not null reference, positioned before the first record (no record if the SV debit
+   *     log file has not been read).
+   * @since 2.0
+   */
+  SvDebitLogCursor getSvDebitLogCursor();
+
   /**
    * Gets the DF metadata.
    *
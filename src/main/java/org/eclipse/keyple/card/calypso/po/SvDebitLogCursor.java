@@ -0,0 +1,55 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.po;
+
+/**
+ * Reusable cursor over the SV debit log records read from a PO.
+ *
+ * <p>The cursor is itself the current {@link SvDebitLogRecord}: each call to {@link #next()} moves
+ * it to the next record, whose data is then decoded in place by the primitive getters, without any
+ * allocation. A cursor may be repositioned on another PO with {@link #reset(PoSmartCard)}, so that
+ * a single instance can be used to go through the logs of any number of POs.
+ *
+ * <p>The getters must only be called after {@link #next()} has returned true. The records must not
+ * be modified (i.e. no transaction must be processed on the PO) while they are iterated.
+ *
+ * <p>It is obtained from {@link PoSmartCard#getSvDebitLogCursor()}.
+ *
+ * @since 2.0
+ */
+public interface SvDebitLogCursor extends SvDebitLogRecord {
+
+  /**
+   * Moves the cursor to the next debit log record, starting with the most recent one.
+   *
+   * @return true if the cursor is on a record, false if there are no more records.
+   * @since 2.0
+   */
+  boolean next();
+
+  /**
+   * Gets the number of the current record in the SV debit log file.
+   *
+   * @return An int &gt;= 1.
+   * @since 2.0
+   */
+  int getRecordNumber();
+
+  /**
+   * Positions the cursor before the first debit log record of the provided PO.
+   *
+   * @param poSmartCard The PO, may be the one the cursor was obtained from.
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  void reset(PoSmartCard poSmartCard);
+}
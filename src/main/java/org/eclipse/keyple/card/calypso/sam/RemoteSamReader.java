@@ -0,0 +1,54 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+/**
+ * Client side of a SAM located in another process or on another host and served by a {@link
+ * RemoteSamServer}.
+ *
+ * <p>Each card request sent to the SAM is transmitted as a single frame over the {@link
+ * SamTransport}. Several requests may be in flight at the same time, the responses are matched
+ * with their requests by an identifier.
+ *
+ * <p>The remote SAM is used by the transactions in place of the SAM provided by the card resource
+ * service when it is registered in the {@link
+ * org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting}.
+ *
+ * @since 2.0
+ */
+public interface RemoteSamReader {
+
+  /**
+   * Gets the name of the remote SAM reader.
+   *
+   * @return A not empty String.
+   * @since 2.0
+   */
+  String getName();
+
+  /**
+   * Gets the SAM data, built from the ATR retrieved from the server at the first call.
+   *
+   * @return A not null reference.
+   * @throws org.eclipse.keyple.card.calypso.transaction.CalypsoSamIOException If the
+   *     communication with the server failed.
+   * @since 2.0
+   */
+  SamSmartCard getSamSmartCard();
+
+  /**
+   * Closes the transport; the pending and subsequent requests fail.
+   *
+   * @since 2.0
+   */
+  void close();
+}
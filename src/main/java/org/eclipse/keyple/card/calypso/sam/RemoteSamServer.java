@@ -0,0 +1,35 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+/**
+ * Server side of a remote SAM: executes the card requests received from a {@link RemoteSamReader}
+ * on a local SAM reader.
+ *
+ * <p>The server is a {@link Runnable} to be run by a thread of the application; {@link #run()}
+ * returns when the transport is closed or when {@link #stop()} is called. The requests are
+ * executed in their order of arrival.
+ *
+ * <p>The secure session context of a SAM is held by the client transactions, a SAM served
+ * remotely must therefore be dedicated to a single client.
+ *
+ * @since 2.0
+ */
+public interface RemoteSamServer extends Runnable {
+
+  /**
+   * Stops the server and closes the transport.
+   *
+   * @since 2.0
+   */
+  void stop();
+}
@@ -74,4 +74,18 @@ public interface SamCardResourceProfileExtension extends KeypleCardResourceProfi
    * @since 2.0
    */
   SamCardResourceProfileExtension setSamUnlockData(String samUnlockData);
+
+  /**
+   * Gets the last SAM rejected in the provided reader because its unlocking failed.
+   *
+   * <p>The status and the cause of the failure are available through {@link
+   * SamSmartCard#getUnlockStatus()} and {@link SamSmartCard#getUnlockFailureCause()}. The entry is
+   * cleared once a SAM is matched in the reader.
+   *
+   * @param readerName The name of the SAM reader.
+   * @return null if no SAM has been rejected in this reader.
+   * @throws IllegalArgumentException If the reader name is null or empty.
+   * @since 2.0
+   */
+  SamSmartCard getLastRejectedSam(String readerName);
 }
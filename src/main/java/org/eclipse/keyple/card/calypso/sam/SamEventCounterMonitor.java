@@ -0,0 +1,127 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+import org.eclipse.keyple.core.service.Reader;
+
+/**
+ * Keeps track of the event counters and ceilings of a set of SAMs.
+ *
+ * <p>The actual values are read from the SAM by {@link #refresh(Reader, SamSmartCard)}, which
+ * groups all the Read Event Counter and Read Ceilings commands in a single card request and is
+ * intended to be called when the SAM is idle (e.g. between two transactions). The refresh can also
+ * be performed in the background with {@link #startIdleRefresh(Reader, SamSmartCard, long)}.
+ *
+ * <p>Between two refreshes, the monitor maintains a predicted value of the counters associated with
+ * the secure session and Stored Value operations. These predictions are updated locally each time
+ * a transaction using a SAM closes a session or completes an SV operation, without any additional
+ * exchange with the SAM.
+ *
+ * <p>The monitor is attached to the transactions through {@link
+ * org.eclipse.keyple.card.calypso.transaction.PoSecuritySetting}; it is thread-safe and may be
+ * shared by several transactions.
+ *
+ * @since 2.0
+ */
+public interface SamEventCounterMonitor {
+
+  /**
+   * Reads all the event counters and ceilings of the provided SAM and updates the cached values.
+   *
+   * <p>The local predictions made since the previous refresh are discarded.
+   *
+   * @param samReader The reader in which the SAM is inserted.
+   * @param samSmartCard The SAM data provided by the selection process.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @throws org.eclipse.keyple.card.calypso.transaction.CalypsoSamAnomalyException If the SAM
+   *     returned an unexpected response.
+   * @throws org.eclipse.keyple.card.calypso.transaction.CalypsoSamIOException If the
+   *     communication with the SAM or the SAM reader failed.
+   * @since 2.0
+   */
+  void refresh(Reader samReader, SamSmartCard samSmartCard);
+
+  /**
+   * Starts refreshing the values of the provided SAM in the background.
+   *
+   * <p>Once the period has elapsed since the previous refresh, a background thread waits until the
+   * SAM is idle in its {@link SamScheduler} (no transaction running, waiting or holding the SAM)
+   * and then performs {@link #refresh(Reader, SamSmartCard)}. A failed refresh is logged and
+   * retried at the next period.
+   *
+   * <p>Any background refresh previously started for the same reader is stopped.
+   *
+   * @param samReader The reader in which the SAM is inserted.
+   * @param samSmartCard The SAM data provided by the selection process.
+   * @param periodMillis The minimum time between two refreshes, in milliseconds.
+   * @throws IllegalArgumentException If one of the arguments is null or if the period is not
+   *     positive.
+   * @since 2.0
+   */
+  void startIdleRefresh(Reader samReader, SamSmartCard samSmartCard, long periodMillis);
+
+  /**
+   * Stops the background refresh of the SAM inserted in the provided reader, if any.
+   *
+   * <p>This method waits for the end of a refresh in progress.
+   *
+   * @param samReader The reader in which the SAM is inserted.
+   * @throws IllegalArgumentException If the reader is null.
+   * @since 2.0
+   */
+  void stopIdleRefresh(Reader samReader);
+
+  /**
+   * Tells if the values of the SAM having the provided serial number have been read at least once.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @return true if the SAM values are known.
+   * @since 2.0
+   */
+  boolean isKnown(byte[] samSerialNumber);
+
+  /**
+   * Gets the predicted value of an event counter, i.e. the last value read from the SAM increased
+   * by the operations performed since.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @param counterNumber The number of the counter (in range [0..26]).
+   * @return The predicted value or -1 if the SAM values are not known.
+   * @throws IllegalArgumentException If the counter number is out of range.
+   * @since 2.0
+   */
+  int getPredictedEventCounter(byte[] samSerialNumber, int counterNumber);
+
+  /**
+   * Gets the value of an event ceiling as last read from the SAM.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @param ceilingNumber The number of the ceiling (in range [0..26]).
+   * @return The ceiling value or -1 if the SAM values are not known.
+   * @throws IllegalArgumentException If the ceiling number is out of range.
+   * @since 2.0
+   */
+  int getEventCeiling(byte[] samSerialNumber, int ceilingNumber);
+
+  /**
+   * Tells if one of the counters used by the sessions or the SV operations is within the exhaustion
+   * threshold of its ceiling.
+   *
+   * <p>This method does not communicate with the SAM, it can be called on the application hot path
+   * to route the transactions to another SAM.
+   *
+   * @param samSerialNumber The SAM serial number.
+   * @return false if the SAM values are not known.
+   * @since 2.0
+   */
+  boolean isNearExhaustion(byte[] samSerialNumber);
+}
@@ -0,0 +1,78 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+/**
+ * Serializes the use of a SAM shared by several concurrent PO transactions and provides usage
+ * statistics.
+ *
+ * <p>All the commands sent to the SAM by a transaction are grouped into work units (challenge,
+ * digest batch, authentication, SV prepare and SV check, PIN ciphering) which are executed one at
+ * a time, in their order of arrival.
+ *
+ * <p><b>Secure sessions are serialized per SAM</b>: because the SAM keeps a single digest
+ * context, a transaction holds the SAM for its exclusive use from the session challenge to the
+ * authentication of the PO signature, and from an SV prepare to the corresponding SV check. The
+ * sessions of the other transactions wait meanwhile. Only the work units executed outside a
+ * session or an SV operation (PIN ciphering, event counters reading) are interleaved with the PO
+ * exchanges of the other transactions.
+ *
+ * <p>The exclusive use of the SAM ends when the session is closed or cancelled, when a PO
+ * transaction method fails, and at the latest after 10 seconds of inactivity.
+ *
+ * <p>There is one scheduler per SAM reader, it is obtained from {@link
+ * org.eclipse.keyple.card.calypso.CalypsoCardExtension#getSamScheduler(
+ * org.eclipse.keyple.core.service.Reader)}.
+ *
+ * @since 2.0
+ */
+public interface SamScheduler {
+
+  /**
+   * Gets the number of work units currently waiting for the SAM.
+   *
+   * @return A positive or zero int.
+   * @since 2.0
+   */
+  int getQueueDepth();
+
+  /**
+   * Gets the number of work units executed since the creation of the scheduler or the last reset.
+   *
+   * @return A positive or zero long.
+   * @since 2.0
+   */
+  long getProcessedUnitCount();
+
+  /**
+   * Gets the average time spent by a work unit waiting for the SAM.
+   *
+   * @return A duration in microseconds.
+   * @since 2.0
+   */
+  long getAverageWaitTime();
+
+  /**
+   * Gets the longest time spent by a work unit waiting for the SAM.
+   *
+   * @return A duration in microseconds.
+   * @since 2.0
+   */
+  long getMaxWaitTime();
+
+  /**
+   * Resets the statistics (processed unit count, average and max wait times).
+   *
+   * @since 2.0
+   */
+  void resetStatistics();
+}
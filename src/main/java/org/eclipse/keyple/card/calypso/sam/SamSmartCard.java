@@ -82,4 +82,21 @@ public interface SamSmartCard extends SmartCard {
    * @since 2.0
    */
   byte getSoftwareRevision();
+
+  /**
+   * Gets the result of the unlocking of the SAM, when an Unlock command has been prepared in the
+   * selection.
+   *
+   * @return {@link SamUnlockStatus#NOT_REQUIRED} if no Unlock command was prepared.
+   * @since 2.0
+   */
+  SamUnlockStatus getUnlockStatus();
+
+  /**
+   * Gets the cause of the failure of the unlocking.
+   *
+   * @return null if the status is not {@link SamUnlockStatus#FAILED}.
+   * @since 2.0
+   */
+  Exception getUnlockFailureCause();
 }
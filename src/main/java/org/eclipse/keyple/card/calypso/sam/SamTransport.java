@@ -0,0 +1,55 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Byte stream connecting a remote SAM reader to the SAM server (e.g. a TCP socket, a local domain
+ * socket or a pipe).
+ *
+ * <p>The transport is provided by the application, the framing of the exchanges is managed by the
+ * Calypso card extension.
+ *
+ * @since 2.0
+ */
+public interface SamTransport {
+
+  /**
+   * Gets the stream from which the data sent by the peer are read.
+   *
+   * @return A not null reference.
+   * @throws IOException If the stream cannot be opened.
+   * @since 2.0
+   */
+  InputStream getInputStream() throws IOException;
+
+  /**
+   * Gets the stream to which the data intended for the peer are written.
+   *
+   * @return A not null reference.
+   * @throws IOException If the stream cannot be opened.
+   * @since 2.0
+   */
+  OutputStream getOutputStream() throws IOException;
+
+  /**
+   * Closes the transport.
+   *
+   * <p>Any pending read or write must then fail.
+   *
+   * @since 2.0
+   */
+  void close();
+}
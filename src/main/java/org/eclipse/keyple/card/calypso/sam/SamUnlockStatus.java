@@ -0,0 +1,45 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.sam;
+
+/**
+ * Result of the unlocking of a SAM during its selection.
+ *
+ * @see SamSmartCard#getUnlockStatus()
+ * @since 2.0
+ */
+public enum SamUnlockStatus {
+  /**
+   * No unlock data is defined in the profile.
+   *
+   * @since 2.0
+   */
+  NOT_REQUIRED,
+  /**
+   * The SAM has been successfully unlocked by an Unlock command.
+   *
+   * @since 2.0
+   */
+  UNLOCKED,
+  /**
+   * The SAM was already unlocked: it rejected the Unlock command because it is not locked.
+   *
+   * @since 2.0
+   */
+  ALREADY_UNLOCKED,
+  /**
+   * The SAM has rejected the Unlock command or the command could not be transmitted.
+   *
+   * @since 2.0
+   */
+  FAILED
+}
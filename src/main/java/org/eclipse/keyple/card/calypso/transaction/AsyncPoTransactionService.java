@@ -0,0 +1,130 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous front-end of a {@link PoTransactionService}.
+ *
+ * <p>Each "process" method returns immediately; the processing is executed by the {@link
+ * java.util.concurrent.Executor} provided at creation time, so that a small pool of threads can
+ * drive a large number of readers without a thread being blocked per reader between two steps of
+ * a transaction.
+ *
+ * <p>The steps requested on the same instance are executed one after the other in their order of
+ * submission, it is therefore possible to submit the opening, the PO commands and the closing of a
+ * session without waiting for the completion of each of them. If a step fails, the steps submitted
+ * after it and not yet started are cancelled.
+ *
+ * <p>The outcome of a step is reported both through the returned {@link Future} (whose {@link
+ * Future#get()} throws an {@link java.util.concurrent.ExecutionException} wrapping the {@link
+ * CalypsoPoTransactionException} raised) and, when provided, through a {@link Callback} invoked
+ * by the executing thread.
+ *
+ * <p>The "prepare" methods are invoked on the underlying service ({@link
+ * #getPoTransactionService()}); they must not be invoked while a step is in progress or pending,
+ * i.e. only from a callback or once the previous steps are completed.
+ *
+ * @since 2.0
+ */
+public interface AsyncPoTransactionService {
+
+  /**
+   * Gets the underlying transaction service, on which the commands are prepared.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoTransactionService getPoTransactionService();
+
+  /**
+   * Submits the execution of {@link
+   * PoTransactionService#processOpening(PoTransactionService.SessionAccessLevel)}.
+   *
+   * @param sessionAccessLevel An {@link PoTransactionService.SessionAccessLevel} enum entry.
+   * @param callback The callback to notify (optional).
+   * @return A not null reference.
+   * @throws java.util.concurrent.RejectedExecutionException If the executor rejected the step.
+   * @since 2.0
+   */
+  Future<Void> processOpening(
+      PoTransactionService.SessionAccessLevel sessionAccessLevel, Callback callback);
+
+  /**
+   * Submits the execution of {@link PoTransactionService#processPoCommands()}.
+   *
+   * @param callback The callback to notify (optional).
+   * @return A not null reference.
+   * @throws java.util.concurrent.RejectedExecutionException If the executor rejected the step.
+   * @since 2.0
+   */
+  Future<Void> processPoCommands(Callback callback);
+
+  /**
+   * Submits the execution of {@link PoTransactionService#processClosing()}.
+   *
+   * @param callback The callback to notify (optional).
+   * @return A not null reference.
+   * @throws java.util.concurrent.RejectedExecutionException If the executor rejected the step.
+   * @since 2.0
+   */
+  Future<Void> processClosing(Callback callback);
+
+  /**
+   * Submits the execution of {@link PoTransactionService#processCancel()}.
+   *
+   * @param callback The callback to notify (optional).
+   * @return A not null reference.
+   * @throws java.util.concurrent.RejectedExecutionException If the executor rejected the step.
+   * @since 2.0
+   */
+  Future<Void> processCancel(Callback callback);
+
+  /**
+   * Submits the execution of {@link PoTransactionService#processVerifyPin(byte[])}.
+   *
+   * @param pin the PIN code value (4-byte long byte array).
+   * @param callback The callback to notify (optional).
+   * @return A not null reference.
+   * @throws java.util.concurrent.RejectedExecutionException If the executor rejected the step.
+   * @since 2.0
+   */
+  Future<Void> processVerifyPin(byte[] pin, Callback callback);
+
+  /**
+   * Completion callback of an asynchronous step.
+   *
+   * <p>The methods are invoked by a thread of the executor, they should return quickly.
+   *
+   * @since 2.0
+   */
+  interface Callback {
+
+    /**
+     * Invoked when the step has been successfully completed.
+     *
+     * @param poTransactionService The underlying transaction service.
+     * @since 2.0
+     */
+    void onSuccess(PoTransactionService poTransactionService);
+
+    /**
+     * Invoked when the step has failed.
+     *
+     * @param poTransactionService The underlying transaction service.
+     * @param exception The exception raised by the step.
+     * @since 2.0
+     */
+    void onFailure(PoTransactionService poTransactionService, RuntimeException exception);
+  }
+}
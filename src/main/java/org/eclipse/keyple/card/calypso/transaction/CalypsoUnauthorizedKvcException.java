@@ -11,11 +11,59 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso.transaction;
 
-/** Indicates that the current PO has an unauthorized KVC. */
+/**
+ * Indicates that the current PO has an unauthorized KVC.
+ *
+ * <p>This is an expected outcome with a misconfigured fleet: the stack trace is not filled in and
+ * the message is only formatted when requested.
+ */
 public class CalypsoUnauthorizedKvcException extends CalypsoPoTransactionException {
 
+  private final byte kvc;
+
   /** @param message the message to identify the exception context */
   public CalypsoUnauthorizedKvcException(String message) {
     super(message);
+    kvc = 0;
+  }
+
+  /**
+   * @param kvc the unauthorized KVC.
+   * @since 2.0
+   */
+  public CalypsoUnauthorizedKvcException(byte kvc) {
+    super(null);
+    this.kvc = kvc;
+  }
+
+  /**
+   * Gets the unauthorized KVC.
+   *
+   * @return 0 if the exception was created with a message only.
+   * @since 2.0
+   */
+  public byte getKvc() {
+    return kvc;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public String getMessage() {
+    String message = super.getMessage();
+    return message != null ? message : String.format("Unauthorized KVC error: PO KVC = %02X", kvc);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0
+   */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
   }
 }
@@ -0,0 +1,109 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Export stage writing a clearing record for each secure session successfully closed by the
+ * transactions.
+ *
+ * <p>The writer is attached to the transactions through {@link PoSecuritySetting}. The records are
+ * queued without blocking the transaction and are written by a dedicated thread, in batches, to
+ * files named clearing-&lt;index&gt;.dat; a new file is started when the maximum file size would be
+ * exceeded and each time a writer is created. When the queue is full, the records are dropped and
+ * counted by {@link #getDroppedRecordCount()}.
+ *
+ * <p>A record has a fixed size of 192 bytes, multi-byte values being coded most significant byte
+ * first:
+ *
+ * <ul>
+ *   <li>0: format version (1)
+ *   <li>1: session access level, ordinal of {@link PoTransactionService.SessionAccessLevel}
+ *   <li>2: KIF of the session key
+ *   <li>3: KVC of the session key
+ *   <li>4: flags: 01h SV operation, 02h SV load log present, 04h SV debit log present, 08h
+ *       counter list truncated
+ *   <li>5-7: RFU
+ *   <li>8-15: closing time, in milliseconds since the epoch
+ *   <li>16-23: PO application serial number
+ *   <li>24-27: SAM serial number
+ *   <li>28-29: SV TNum
+ *   <li>30-31: RFU
+ *   <li>32-35: SV balance
+ *   <li>36-44: terminal session signature (length, then 8 bytes)
+ *   <li>45-53: PO session signature (length, then 8 bytes)
+ *   <li>54-64: SV operation signature, from the postponed data (length, then 10 bytes)
+ *   <li>65: number of counters changed in the session (up to 16)
+ *   <li>66-145: counters changed: SFI, counter number and new value on 3 bytes
+ *   <li>146-167: SV load log record, as returned by the PO
+ *   <li>168-186: SV debit log record, as returned by the PO
+ *   <li>187-191: RFU
+ * </ul>
+ *
+ * <p>It is obtained from {@link
+ * org.eclipse.keyple.card.calypso.CalypsoCardExtension#createClearingRecordWriter(String, int,
+ * long)}.
+ *
+ * @since 2.0
+ */
+public interface ClearingRecordWriter {
+
+  /**
+   * Gets the number of records waiting to be written.
+   *
+   * @return A positive or zero int.
+   * @since 2.0
+   */
+  int getQueueSize();
+
+  /**
+   * Gets the highest number of records that have been waiting to be written.
+   *
+   * @return A positive or zero int.
+   * @since 2.0
+   */
+  int getMaxQueueSize();
+
+  /**
+   * Gets the number of records dropped because the queue was full or because they could not be
+   * written.
+   *
+   * @return A positive or zero long.
+   * @since 2.0
+   */
+  long getDroppedRecordCount();
+
+  /**
+   * Gets the number of records written.
+   *
+   * @return A positive or zero long.
+   * @since 2.0
+   */
+  long getWrittenRecordCount();
+
+  /**
+   * Gets the number of batches written, the average batch size being {@link
+   * #getWrittenRecordCount()} divided by this number.
+   *
+   * @return A positive or zero long.
+   * @since 2.0
+   */
+  long getBatchCount();
+
+  /**
+   * Writes the records still queued and stops the writer.
+   *
+   * <p>The records submitted afterwards are dropped.
+   *
+   * @since 2.0
+   */
+  void close();
+}
@@ -0,0 +1,35 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * List of revoked serial numbers, checked by the transactions on the PO before opening a secure
+ * session and on the SAM when it is allocated.
+ *
+ * <p>The lists are attached to the transactions through {@link PoSecuritySetting}. An
+ * implementation is called concurrently by all the transactions sharing it and must therefore be
+ * thread-safe; a default implementation backed by a file is provided by {@link
+ * org.eclipse.keyple.card.calypso.CalypsoCardExtension#createMappedDenyList(boolean)}.
+ *
+ * @since 2.0
+ */
+public interface DenyList {
+
+  /**
+   * Tells if the provided serial number is revoked.
+   *
+   * @param serialNumber The serial number of the PO (application serial number) or of the SAM.
+   * @return true if the serial number is in the list.
+   * @since 2.0
+   */
+  boolean isRevoked(byte[] serialNumber);
+}
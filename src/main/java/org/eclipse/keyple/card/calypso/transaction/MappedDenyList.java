@@ -0,0 +1,52 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+import java.io.IOException;
+
+/**
+ * {@link DenyList} loaded from a file.
+ *
+ * <p>The file is a plain sequence of serial numbers, each one coded on 8 bytes, most significant
+ * byte first; the shorter serial numbers (e.g. the 4 bytes of a SAM serial number) are right
+ * aligned and padded with zeros. The file is memory mapped while it is loaded and is no longer
+ * used afterwards.
+ *
+ * <p>A new file can be loaded at any time: the lookups in progress keep using the previous content
+ * until the new one is ready, then all the subsequent lookups use the new content. Lookups are
+ * never blocked.
+ *
+ * @since 2.0
+ */
+public interface MappedDenyList extends DenyList {
+
+  /**
+   * Loads the provided file, replacing the current content once the file is fully loaded.
+   *
+   * <p>The current content is kept if the loading fails.
+   *
+   * @param fileName The name of the file.
+   * @throws IllegalArgumentException If fileName is null or empty, or if the file size is not a
+   *     multiple of 8.
+   * @throws IOException If the file cannot be read.
+   * @since 2.0
+   */
+  void load(String fileName) throws IOException;
+
+  /**
+   * Gets the number of distinct serial numbers currently in the list.
+   *
+   * @return A positive or zero int.
+   * @since 2.0
+   */
+  int size();
+}
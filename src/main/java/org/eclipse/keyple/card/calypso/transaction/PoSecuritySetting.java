@@ -14,6 +14,8 @@
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
+import org.eclipse.keyple.card.calypso.sam.RemoteSamReader;
+import org.eclipse.keyple.card.calypso.sam.SamEventCounterMonitor;
 import org.eclipse.keyple.core.util.Assert;
 
 /**
@@ -40,6 +42,12 @@ public class PoSecuritySetting {
   private final byte pinCipheringKvc;
   private final boolean isLoadAndDebitSvLogRequired;
   private final boolean isSvNegativeBalanceAllowed;
+  private final SamEventCounterMonitor samEventCounterMonitor;
+  private final RemoteSamReader remoteSamReader;
+  private final DenyList poDenyList;
+  private final DenyList samDenyList;
+  private final SvJournal svJournal;
+  private final ClearingRecordWriter clearingRecordWriter;
 
   /**
    * (private)
@@ -59,6 +67,12 @@ private PoSecuritySetting(PoSecuritySettingBuilder builder) {
     this.pinCipheringKvc = builder.pinCipheringKvc;
     this.isLoadAndDebitSvLogRequired = builder.isLoadAndDebitSvLogRequired;
     this.isSvNegativeBalanceAllowed = builder.isSvNegativeBalanceAllowed;
+    this.samEventCounterMonitor = builder.samEventCounterMonitor;
+    this.remoteSamReader = builder.remoteSamReader;
+    this.poDenyList = builder.poDenyList;
+    this.samDenyList = builder.samDenyList;
+    this.svJournal = builder.svJournal;
+    this.clearingRecordWriter = builder.clearingRecordWriter;
   }
 
   /**
@@ -208,6 +222,68 @@ public boolean isSvNegativeBalanceAllowed() {
     return isSvNegativeBalanceAllowed;
   }
 
+  /**
+   * Gets the monitor to be notified of the SAM events (session closing, SV operations).
+   *
+   * <p>The default value is null.
+   *
+   * @return null if no monitor has been set.
+   * @since 2.0
+   */
+  public SamEventCounterMonitor getSamEventCounterMonitor() {
+    return samEventCounterMonitor;
+  }
+
+  /**
+   * Gets the remote SAM reader to use instead of the card resource service.
+   *
+   * @return Null if the SAM is provided by the card resource service.
+   * @since 2.0
+   */
+  public RemoteSamReader getRemoteSamReader() {
+    return remoteSamReader;
+  }
+
+  /**
+   * Gets the list of revoked POs.
+   *
+   * @return Null if the PO serial number is not checked.
+   * @since 2.0
+   */
+  public DenyList getPoDenyList() {
+    return poDenyList;
+  }
+
+  /**
+   * Gets the list of revoked SAMs.
+   *
+   * @return Null if the SAM serial number is not checked.
+   * @since 2.0
+   */
+  public DenyList getSamDenyList() {
+    return samDenyList;
+  }
+
+  /**
+   * Gets the journal of the SV operations.
+   *
+   * @return Null if the SV operations are not journaled.
+   * @since 2.0
+   */
+  public SvJournal getSvJournal() {
+    return svJournal;
+  }
+
+  /**
+   * Gets the writer of the clearing records.
+   *
+   * @return Null if no clearing record is produced.
+   * @since 2.0
+   */
+  public ClearingRecordWriter getClearingRecordWriter() {
+    return clearingRecordWriter;
+  }
+
   /**
    * Creates an instance of {@link PoSecuritySetting} builder to setup the security options for the
    * {@link PoTransactionService}.
@@ -245,6 +321,12 @@ public static class PoSecuritySettingBuilder {
     private byte pinCipheringKvc;
     private boolean isLoadAndDebitSvLogRequired;
     private boolean isSvNegativeBalanceAllowed;
+    private SamEventCounterMonitor samEventCounterMonitor;
+    private RemoteSamReader remoteSamReader;
+    private DenyList poDenyList;
+    private DenyList samDenyList;
+    private SvJournal svJournal;
+    private ClearingRecordWriter clearingRecordWriter;
 
     /**
      * Creates an instance of {@link PoSecuritySetting} to setup the security options for the {@link
@@ -426,6 +508,97 @@ public PoSecuritySettingBuilder isSvNegativeBalanceAllowed(boolean isSvNegativeB
       return this;
     }
 
+    /**
+     * Sets the monitor keeping track of the SAM event counters.
+     *
+     * <p>The monitor is notified each time a session is closed or an SV operation is checked with
+     * the SAM, in order to update its predictions.
+     *
+     * @param samEventCounterMonitor The monitor to notify.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder samEventCounterMonitor(
+        SamEventCounterMonitor samEventCounterMonitor) {
+      Assert.getInstance().notNull(samEventCounterMonitor, "samEventCounterMonitor");
+      this.samEventCounterMonitor = samEventCounterMonitor;
+      return this;
+    }
+
+    /**
+     * Sets a remote SAM reader to be used by the transactions in place of the SAM allocated by the
+     * card resource service.
+     *
+     * @param remoteSamReader The remote SAM reader.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder remoteSamReader(RemoteSamReader remoteSamReader) {
+      Assert.getInstance().notNull(remoteSamReader, "remoteSamReader");
+      this.remoteSamReader = remoteSamReader;
+      return this;
+    }
+
+    /**
+     * Sets the list of revoked POs, checked before opening a secure session.
+     *
+     * @param poDenyList The list of revoked PO application serial numbers.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder poDenyList(DenyList poDenyList) {
+      Assert.getInstance().notNull(poDenyList, "poDenyList");
+      this.poDenyList = poDenyList;
+      return this;
+    }
+
+    /**
+     * Sets the list of revoked SAMs, checked when the SAM is allocated to a transaction.
+     *
+     * @param samDenyList The list of revoked SAM serial numbers.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder samDenyList(DenyList samDenyList) {
+      Assert.getInstance().notNull(samDenyList, "samDenyList");
+      this.samDenyList = samDenyList;
+      return this;
+    }
+
+    /**
+     * Sets the journal in which the SV operations are recorded before being sent to the PO.
+     *
+     * @param svJournal The SV journal.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder svJournal(SvJournal svJournal) {
+      Assert.getInstance().notNull(svJournal, "svJournal");
+      this.svJournal = svJournal;
+      return this;
+    }
+
+    /**
+     * Sets the writer to which a clearing record is submitted each time a secure session is
+     * successfully closed.
+     *
+     * @param clearingRecordWriter The clearing record writer.
+     * @return The object instance.
+     * @throws IllegalArgumentException If the argument is null.
+     * @since 2.0
+     */
+    public PoSecuritySettingBuilder clearingRecordWriter(
+        ClearingRecordWriter clearingRecordWriter) {
+      Assert.getInstance().notNull(clearingRecordWriter, "clearingRecordWriter");
+      this.clearingRecordWriter = clearingRecordWriter;
+      return this;
+    }
+
     /**
      * Creates an instance of {@link PoSecuritySetting}.
      *
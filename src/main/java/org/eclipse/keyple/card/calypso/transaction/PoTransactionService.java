@@ -11,6 +11,7 @@
  ************************************************************************************** */
 package org.eclipse.keyple.card.calypso.transaction;
 
+import java.util.List;
 import org.eclipse.keyple.card.calypso.po.ElementaryFile;
 import org.eclipse.keyple.card.calypso.po.FileData;
 import org.eclipse.keyple.card.calypso.po.PoSmartCard;
@@ -125,12 +126,29 @@ public interface PoTransactionService {
    * @throws CalypsoPoTransactionIllegalStateException if no {@link PoSecuritySetting} is available
    * @throws CalypsoAtomicTransactionException if the PO session buffer were to overflow
    * @throws CalypsoUnauthorizedKvcException if the card KVC is not authorized
+   * @throws CalypsoPoRevokedException if the PO is in the PO deny-list of the security settings
    * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
    *     errors)
    * @since 2.0
    */
   void processOpening(SessionAccessLevel sessionAccessLevel);
 
+  /**
+   * Same as {@link #processOpening(SessionAccessLevel)}, but reports an unauthorized KVC or an
+   * invalidated DF as a result instead of an exception.
+   *
+   * <p>In both cases, no session remains open: the PO session opened with an unauthorized key is
+   * aborted and the SAM is released for the other transactions.
+   *
+   * @param sessionAccessLevel access level of the session (personalization, load or debit).
+   * @return A not null reference, with the status {@link ProcessResult.Status#SUCCESS}, {@link
+   *     ProcessResult.Status#UNAUTHORIZED_KVC} or {@link ProcessResult.Status#DF_INVALIDATED}.
+   * @throws CalypsoPoTransactionException if another functional error occurs (including PO and SAM
+   *     IO errors)
+   * @since 2.0
+   */
+  ProcessResult tryProcessOpening(SessionAccessLevel sessionAccessLevel);
+
   /**
    * Process all previously prepared PO commands outside or inside a Secure Session.
    *
@@ -169,6 +187,11 @@ public interface PoTransactionService {
    * <p>Thus, the session closing command containing the terminal signature is integrated into the
    * same APDU group sent to the PO via a final {@link CardRequest}.
    *
+   * <p>The responses to the Increase and Decrease commands are anticipated from the counter values
+   * known in {@link PoSmartCard}. The counters whose values are unknown are read beforehand in a
+   * single {@link CardRequest}, the counters of a same file being read with a single command; to
+   * avoid this additional exchange, they can be read when opening the session.
+   *
    * <p>Upon reception of the {@link CardRequest} PO, the signature of the PO is verified with the
    * SAM.
    *
@@ -224,6 +247,94 @@ public interface PoTransactionService {
    */
   void processCancel();
 
+  /**
+   * Executes a precompiled {@link TransactionPlan}.
+   *
+   * <p>The steps of the plan are executed in order, as the corresponding "process" methods would
+   * be. When all the sessions of the plan fit in the modifications buffer of the PO, the commands
+   * are sent without any further checking; otherwise they go through the regular processing
+   * (atomic mode error or session splitting, depending on {@link PoSecuritySetting}).
+   *
+   * @param transactionPlan The plan to execute.
+   * @param slotValues The record data of the data slots of the plan, in order.
+   * @throws IllegalArgumentException If the plan is null or if the slot values don't match the
+   *     plan.
+   * @throws CalypsoPoTransactionIllegalStateException If commands have been prepared before.
+   * @throws CalypsoPoTransactionException if a functional error occurs (including PO and SAM IO
+   *     errors)
+   * @since 2.0
+   */
+  void processPlan(TransactionPlan transactionPlan, byte[]... slotValues);
+
+  /**
+   * Estimates the cost of {@link #processOpening(SessionAccessLevel)} with the commands prepared
+   * so far, without any exchange with the PO or the SAM.
+   *
+   * <p>The estimate takes into account the grouping of the commands, the modifications buffer of
+   * the PO and the splitting into several sessions in multiple session mode. It can be logged or
+   * checked by the application to detect a configuration that no longer fits in a single session.
+   *
+   * @return A not null reference.
+   * @throws CalypsoPoTransactionIllegalStateException If no {@link PoSecuritySetting} is
+   *     available or if a session is already open.
+   * @since 2.0
+   */
+  TransactionCostEstimate explainOpening();
+
+  /**
+   * Estimates the cost of {@link #processPoCommands()} with the commands prepared so far, without
+   * any exchange with the PO or the SAM.
+   *
+   * @return A not null reference.
+   * @see #explainOpening()
+   * @since 2.0
+   */
+  TransactionCostEstimate explainPoCommands();
+
+  /**
+   * Estimates the cost of {@link #processClosing()} with the commands prepared so far, without any
+   * exchange with the PO or the SAM.
+   *
+   * @return A not null reference.
+   * @throws CalypsoPoTransactionIllegalStateException If no session is open.
+   * @see #explainOpening()
+   * @since 2.0
+   */
+  TransactionCostEstimate explainClosing();
+
+  /**
+   * Estimates the cost of {@link #processPlan(TransactionPlan, byte[]...)} for the provided plan,
+   * without any exchange with the PO or the SAM.
+   *
+   * <p>The plan is compiled for the current PO if it was not already.
+   *
+   * @param transactionPlan The plan.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the plan is null.
+   * @see #explainOpening()
+   * @since 2.0
+   */
+  TransactionCostEstimate explainPlan(TransactionPlan transactionPlan);
+
+  /**
+   * Rebinds the service to a new PO presented in the same reader and resets its state.
+   *
+   * <p>The internal buffers and the SAM used by the service are kept, so that a single instance
+   * can process all the successive PO of a reader (see {@link PoTransactionServiceProvider}).
+   *
+   * <p>The commands prepared and not processed are discarded. A secure session still open is
+   * abandoned without any command being sent: the previous PO is expected to be gone.
+   *
+   * <p>The service is not thread-safe: this method must not be invoked while a "process" method
+   * is in progress, and the previous {@link PoSmartCard} must no longer be used through this
+   * service afterwards.
+   *
+   * @param poSmartCard The initial data of the new PO provided by the selection process.
+   * @throws IllegalArgumentException If poSmartCard is null.
+   * @since 2.0
+   */
+  void reset(PoSmartCard poSmartCard);
+
   /**
    * Performs a PIN verification, in order to authenticate the card holder and/or unlock access to
    * certain PO files.
@@ -264,6 +375,22 @@ public interface PoTransactionService {
    */
   void processVerifyPin(String pin);
 
+  /**
+   * Same as {@link #processVerifyPin(byte[])}, but reports an incorrect or blocked PIN as a result
+   * instead of an exception.
+   *
+   * @param pin the PIN code value (4-byte long byte array).
+   * @return A not null reference, with the status {@link ProcessResult.Status#SUCCESS}, {@link
+   *     ProcessResult.Status#INCORRECT_PIN} or {@link ProcessResult.Status#PIN_BLOCKED}, detailed
+   *     by the number of remaining attempts.
+   * @throws CalypsoPoTransactionException if another functional error occurs (including PO and SAM
+   *     IO errors)
+   * @throws CalypsoPoTransactionIllegalStateException if the PIN feature is not available for this
+   *     PO or if commands have been prepared before invoking this process method.
+   * @since 2.0
+   */
+  ProcessResult tryProcessVerifyPin(byte[] pin);
+
   /**
    * Requests the closing of the PO channel.
    *
@@ -341,6 +468,72 @@ public interface PoTransactionService {
    */
   void prepareReadRecordFile(byte sfi, int firstRecordNumber, int numberOfRecords, int recordSize);
 
+  /**
+   * Schedules the execution of <b>Read Record Multiple</b> commands to read a part of each of the
+   * records of the indicated range.
+   *
+   * <p>Only the bytes from the provided offset and of the provided length are transferred for each
+   * record. The records are read with as few commands as possible, taking into account the
+   * transmission capacity of the PO.
+   *
+   * <p>Once this command is processed, the parts read are available in {@link PoSmartCard} at
+   * their offset in the records, the rest of the records being left unchanged (or padded with 0 if
+   * unknown).
+   *
+   * <p>This command requires a PO supporting the Calypso revision 3.2 extended mode.
+   *
+   * @param sfi the SFI of the EF.
+   * @param fromRecordNumber the number of the first record to read.
+   * @param toRecordNumber the number of the last record to read.
+   * @param offset the offset of the part to read in each record.
+   * @param nbBytesToRead the number of bytes to read in each record.
+   * @throws IllegalArgumentException if one of the provided argument is out of range
+   * @throws CalypsoPoTransactionIllegalStateException if the command is not available for this
+   *     PO.
+   * @since 2.0
+   */
+  void prepareReadRecordFilePartially(
+      byte sfi, int fromRecordNumber, int toRecordNumber, int offset, int nbBytesToRead);
+
+  /**
+   * Schedules the execution of a <b>Search Record Multiple</b> command to find the records of an
+   * EF containing the provided data.
+   *
+   * <p>Once this command is processed, the numbers of the matching records are available through
+   * {@link SearchCommandData#getMatchingRecordNumbers()} and, if requested, the content of the
+   * first matching record is available in {@link PoSmartCard}.
+   *
+   * <p>This command requires a PO supporting the Calypso revision 3.2 extended mode.
+   *
+   * @param data the search parameters, created with the card extension.
+   * @throws IllegalArgumentException if the data is null or if no search data is set
+   * @throws CalypsoPoTransactionIllegalStateException if the command is not available for this
+   *     PO.
+   * @since 2.0
+   */
+  void prepareSearchRecordMultiple(SearchCommandData data);
+
+  /**
+   * Schedules the execution of <b>Read Binary</b> commands to read the indicated part of a binary
+   * file.
+   *
+   * <p>The bytes are read with as few commands as possible, taking into account the transmission
+   * capacity of the PO. When the offset is above 255, the file is first selected by reading its
+   * first byte.
+   *
+   * <p>Once this command is processed, the bytes read are available in {@link PoSmartCard} as the
+   * content of record #1 of the file, at their offset.
+   *
+   * @param sfi the SFI of the EF.
+   * @param offset the offset of the first byte to read (in range [0..32767]).
+   * @param nbBytesToRead the number of bytes to read.
+   * @throws IllegalArgumentException if one of the provided argument is out of range
+   * @throws CalypsoPoTransactionIllegalStateException if the command is not available for this
+   *     PO.
+   * @since 2.0
+   */
+  void prepareReadBinary(byte sfi, int offset, int nbBytesToRead);
+
   /**
    * Schedules the execution of a <b>Read Records</b> command to reads a record of the indicated EF,
    * which should be a counter file.
@@ -412,11 +605,52 @@ public interface PoTransactionService {
    */
   void prepareWriteRecord(byte sfi, int recordNumber, byte[] recordData);
 
+  /**
+   * Schedules the execution of <b>Update Binary</b> commands to replace the content of a binary
+   * file with the provided data, from the indicated offset.
+   *
+   * <p>The data is split into as many commands as needed, taking into account the transmission
+   * capacity of the PO and, when the session buffer is counted in bytes, its size. When the offset
+   * is above 255, the file is first selected by reading its first byte.
+   *
+   * <p>Note: {@link PoSmartCard} is filled with the provided input data.
+   *
+   * @param sfi the SFI of the EF.
+   * @param offset the offset of the first byte to update (in range [0..32767]).
+   * @param data the new data.
+   * @throws IllegalArgumentException if one of the provided argument is out of range
+   * @throws CalypsoPoTransactionIllegalStateException if the command is not available for this
+   *     PO.
+   * @since 2.0
+   */
+  void prepareUpdateBinary(byte sfi, int offset, byte[] data);
+
+  /**
+   * Schedules the execution of <b>Write Binary</b> commands to combine the content of a binary file
+   * with the provided data using a binary OR operation, from the indicated offset.
+   *
+   * <p>The data is split the same way as for {@link #prepareUpdateBinary(byte, int, byte[])}.
+   *
+   * <p>Note: {@link PoSmartCard} is filled with the provided input data.
+   *
+   * @param sfi the SFI of the EF.
+   * @param offset the offset of the first byte to write (in range [0..32767]).
+   * @param data the data to combine with the content of the file.
+   * @throws IllegalArgumentException if one of the provided argument is out of range
+   * @throws CalypsoPoTransactionIllegalStateException if the command is not available for this
+   *     PO.
+   * @since 2.0
+   */
+  void prepareWriteBinary(byte sfi, int offset, byte[] data);
+
   /**
    * Schedules the execution of a <b>Increase command</b> command to increase the target counter.
    *
    * <p>Note: {@link PoSmartCard} is filled with the provided input data.
    *
+   * <p>If the PO supports the Calypso revision 3.2 extended mode, successive increase operations on
+   * different counters of a same file are merged into a single <b>Increase Multiple</b> command.
+   *
    * @param counterNumber {@code >=} 01h: Counters file, number of the counter. 00h: Simulated.
    *     Counter file.
    * @param sfi SFI of the file to select or 00h for current EF.
@@ -433,6 +667,9 @@ public interface PoTransactionService {
    *
    * <p>Note: {@link PoSmartCard} is filled with the provided input data.
    *
+   * <p>If the PO supports the Calypso revision 3.2 extended mode, successive decrease operations on
+   * different counters of a same file are merged into a single <b>Decrease Multiple</b> command.
+   *
    * @param counterNumber {@code >=} 01h: Counters file, number of the counter. 00h: Simulated.
    *     Counter file.
    * @param sfi SFI of the file to select or 00h for current EF.
@@ -598,6 +835,51 @@ void prepareSvReload(int amount, byte[] date, byte[] time, byte[] free)
    */
   void prepareSvDebit(int amount);
 
+  /**
+   * Same as {@link #prepareSvDebit(int)}, but reports a debit that would result in a negative
+   * balance not allowed by the security settings as a result instead of an exception.
+   *
+   * @param amount the amount to be subtracted or added, positive integer in the range 0..32767
+   *     when. subtracted and 0..32768 when added.
+   * @return A not null reference, with the status {@link ProcessResult.Status#SUCCESS} or {@link
+   *     ProcessResult.Status#NEGATIVE_SV_BALANCE}, detailed by the current SV balance.
+   * @since 2.0
+   */
+  ProcessResult tryPrepareSvDebit(int amount);
+
+  /**
+   * Executes a series of SV operations of the same type outside a secure session, pipelining the
+   * PO and SAM exchanges.
+   *
+   * <p>Each PO request carries the SV operation followed by the SV Get announcing the next one,
+   * and each SAM request carries the SV Check of the operation followed by the SV Prepare of the
+   * next one. A series of N operations thus costs N + 1 exchanges with each device instead of 2N.
+   *
+   * <p>The first SV Get is not sent if it has already been executed, e.g. during the selection.
+   * Once the batch is completed, a new operation of the same type can be prepared directly.
+   *
+   * <p>The batch stops at the first operation that fails; its result carries the error and the
+   * following operations are not reported.
+   *
+   * <p>Note: the optional SV additional data are set to zero.
+   *
+   * @param svOperation The type of the operations: debit or reload.
+   * @param svAction The type of action: DO a debit or UNDO an undebit. For a reload, the action
+   *     follows the sign of each amount.
+   * @param amounts The amounts of the operations, in order (see {@link #prepareSvReload(int)} and
+   *     {@link #prepareSvDebit(int)} for the allowed ranges).
+   * @return A not null list of the results of the operations attempted, in order.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @throws CalypsoPoTransactionIllegalStateException If no security settings are available, if
+   *     a session is open, if commands have been prepared before or if the SV feature is not
+   *     available for this PO.
+   * @throws CalypsoPoTransactionException if the first SV Get or SV Prepare fails (including PO and
+   *     SAM IO errors)
+   * @since 2.0
+   */
+  List<SvOperationResult> processSvBatch(
+      SvSettings.Operation svOperation, SvSettings.Action svAction, int... amounts);
+
   /**
    * Schedules the execution of <b>Read Records</b> commands to read all SV logs.
    *
@@ -0,0 +1,54 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+import org.eclipse.keyple.card.calypso.po.PoSmartCard;
+import org.eclipse.keyple.core.service.Reader;
+
+/**
+ * Provides one reusable {@link PoTransactionService} per PO reader.
+ *
+ * <p>The first call for a reader creates the service, the following calls rebind it to the new PO
+ * with {@link PoTransactionService#reset(PoSmartCard)}. In steady state, processing a new PO thus
+ * allocates no new transaction object. A new service is created if the reader instance has been
+ * replaced under the same name.
+ *
+ * <p><b>Threading contract:</b> the provider is thread-safe, the services it returns are not. A
+ * service must be used by one thread at a time, which is naturally the case when each reader is
+ * handled by a single thread (or by an {@link AsyncPoTransactionService}). The service returned
+ * for a reader must no longer be used for the previous PO once it has been requested for a new
+ * one.
+ *
+ * @since 2.0
+ */
+public interface PoTransactionServiceProvider {
+
+  /**
+   * Gets the transaction service of the provided reader, bound to the provided PO.
+   *
+   * @param poReader The reader through which the card communicates.
+   * @param poSmartCard The initial PO data provided by the selection process.
+   * @return A not null reference.
+   * @throws IllegalArgumentException If one of the arguments is null.
+   * @since 2.0
+   */
+  PoTransactionService getPoTransactionService(Reader poReader, PoSmartCard poSmartCard);
+
+  /**
+   * Discards the transaction service of the provided reader (e.g. when the reader is unplugged).
+   *
+   * @param poReader The PO reader.
+   * @throws IllegalArgumentException If poReader is null.
+   * @since 2.0
+   */
+  void release(Reader poReader);
+}
@@ -0,0 +1,104 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Outcome of a "try" variant of the processing methods of {@link PoTransactionService}.
+ *
+ * <p>The expected negative outcomes (wrong PIN, unauthorized KVC, invalidated DF, negative SV
+ * balance) are reported by a status instead of an exception, so that they remain cheap when they
+ * are frequent. Unexpected errors are still raised as exceptions.
+ *
+ * <p>Its {@link Object#toString()} method provides a JSON representation suitable for logging.
+ *
+ * @since 2.0
+ */
+public interface ProcessResult {
+
+  /**
+   * Status of the processing.
+   *
+   * @since 2.0
+   */
+  enum Status {
+    /**
+     * The processing succeeded.
+     *
+     * @since 2.0
+     */
+    SUCCESS,
+    /**
+     * The PIN presented is incorrect, some attempts remain.
+     *
+     * @since 2.0
+     */
+    INCORRECT_PIN,
+    /**
+     * The PIN is blocked.
+     *
+     * @since 2.0
+     */
+    PIN_BLOCKED,
+    /**
+     * The KVC of the session key is not in the authorized list of the security settings.
+     *
+     * @since 2.0
+     */
+    UNAUTHORIZED_KVC,
+    /**
+     * The access to the DF is forbidden because it has been invalidated.
+     *
+     * @since 2.0
+     */
+    DF_INVALIDATED,
+    /**
+     * The SV debit would result in a negative balance that is not allowed.
+     *
+     * @since 2.0
+     */
+    NEGATIVE_SV_BALANCE
+  }
+
+  /**
+   * Gets the status of the processing.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  Status getStatus();
+
+  /**
+   * Tells if the processing succeeded.
+   *
+   * @return true if the status is {@link Status#SUCCESS}.
+   * @since 2.0
+   */
+  boolean isSuccessful();
+
+  /**
+   * Gets the value detailing the status: the remaining PIN attempts for a PIN status, the rejected
+   * KVC for {@link Status#UNAUTHORIZED_KVC}, the current SV balance for {@link
+   * Status#NEGATIVE_SV_BALANCE}.
+   *
+   * @return 0 if the status has no detail.
+   * @since 2.0
+   */
+  int getDetail();
+
+  /**
+   * Gets a description of the status, only built when requested.
+   *
+   * @return A not null string.
+   * @since 2.0
+   */
+  String getMessage();
+}
@@ -0,0 +1,102 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+import java.util.List;
+
+/**
+ * Parameters and results of a <b>Search Record Multiple</b> command (see {@link
+ * PoTransactionService#prepareSearchRecordMultiple(SearchCommandData)}).
+ *
+ * <p>The search compares the provided data, masked, with the content of the records of an EF
+ * starting at a given offset. The numbers of the matching records are available after the
+ * processing of the command.
+ *
+ * @since 2.0
+ */
+public interface SearchCommandData {
+
+  /**
+   * Sets the SFI of the EF in which the search is performed.
+   *
+   * @param sfi The SFI of the EF.
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData setSfi(byte sfi);
+
+  /**
+   * Sets the number of the first record of the search (1 by default).
+   *
+   * @param recordNumber The record number (&gt;= 1).
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData startAtRecord(int recordNumber);
+
+  /**
+   * Sets the offset in the record of the data to compare (0 by default).
+   *
+   * @param offset The offset (&gt;= 0).
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData setOffset(int offset);
+
+  /**
+   * Enables the repeated offset mode: the search data is looked for at every offset of the record
+   * from the provided one, instead of at this offset only.
+   *
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData enableRepeatedOffset();
+
+  /**
+   * Sets the data to search.
+   *
+   * @param data The data to search (not empty).
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData setSearchData(byte[] data);
+
+  /**
+   * Sets the mask applied to the data of the records before their comparison with the search data.
+   *
+   * <p>By default all the bits are compared. A mask shorter than the search data is completed with
+   * FFh bytes.
+   *
+   * @param mask The mask.
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData setMask(byte[] mask);
+
+  /**
+   * Requests the content of the first matching record to be returned by the PO, the record being
+   * then available in {@link org.eclipse.keyple.card.calypso.po.PoSmartCard}.
+   *
+   * @return The object instance.
+   * @since 2.0
+   */
+  SearchCommandData fetchFirstMatchingResult();
+
+  /**
+   * Gets the numbers of the records matching the search, available after the processing of the
+   * command.
+   *
+   * @return A not null list, empty if no record matches or if the command was not processed.
+   * @since 2.0
+   */
+  List<Integer> getMatchingRecordNumbers();
+}
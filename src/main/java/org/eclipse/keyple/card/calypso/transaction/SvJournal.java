@@ -0,0 +1,74 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+import java.util.List;
+
+/**
+ * Write-ahead journal of the Stored Value operations.
+ *
+ * <p>When a journal is attached to the transactions through {@link PoSecuritySetting}, each SV
+ * reload, debit or undebit is recorded as an intent (PO serial number, SV TNum, amount, SAM serial
+ * number) as soon as it has been prepared by the SAM, i.e. before it is sent to the PO, and is
+ * confirmed once the SAM has successfully checked the PO response. An intent without confirmation
+ * denotes an operation whose outcome is unknown.
+ *
+ * <p>The journal is an append-only memory-mapped file: a record is safe from a crash of the
+ * process as soon as it is written. When the synchronous mode is enabled, the record is also
+ * flushed to the storage device before the transaction goes on; the flushes requested at the same
+ * time by concurrent transactions are grouped.
+ *
+ * <p>A journal is thread-safe and is meant to be shared by all the transactions of a terminal.
+ *
+ * <p>It is obtained from {@link
+ * org.eclipse.keyple.card.calypso.CalypsoCardExtension#openSvJournal(String, int, boolean)}.
+ *
+ * @since 2.0
+ */
+public interface SvJournal {
+
+  /**
+   * Gets the intents left without confirmation by the previous executions or by a failed exchange
+   * of the current execution (PO communication failure, SV check refused by the SAM...), in the
+   * order in which they were recorded.
+   *
+   * <p>An incomplete operation has been performed if the SV TNum of the PO is now greater than the
+   * one recorded in the entry; the entry should then be passed to {@link
+   * #resolve(SvJournalEntry)} once the application has taken it into account.
+   *
+   * @return A not null list, empty if there is no incomplete operation.
+   * @since 2.0
+   */
+  List<SvJournalEntry> getIncompleteEntries();
+
+  /**
+   * Records that an incomplete entry has been handled by the application.
+   *
+   * <p>The entry is no longer returned by {@link #getIncompleteEntries()}, nor at the next opening
+   * of the journal.
+   *
+   * @param entry An entry returned by {@link #getIncompleteEntries()}.
+   * @throws IllegalArgumentException If entry is null or unknown.
+   * @throws IllegalStateException If the journal is closed.
+   * @since 2.0
+   */
+  void resolve(SvJournalEntry entry);
+
+  /**
+   * Flushes and closes the journal.
+   *
+   * <p>The transactions using a closed journal fail when they prepare an SV operation.
+   *
+   * @since 2.0
+   */
+  void close();
+}
@@ -0,0 +1,84 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Stored Value operation recorded in an {@link SvJournal}.
+ *
+ * @since 2.0
+ */
+public interface SvJournalEntry {
+
+  /**
+   * Gets the sequence number of the entry in the journal.
+   *
+   * @return A positive long.
+   * @since 2.0
+   */
+  long getSequenceNumber();
+
+  /**
+   * Gets the time at which the intent was recorded.
+   *
+   * @return A number of milliseconds since the epoch.
+   * @since 2.0
+   */
+  long getTimestamp();
+
+  /**
+   * Gets the application serial number of the PO.
+   *
+   * @return A not null byte array.
+   * @since 2.0
+   */
+  byte[] getPoSerialNumber();
+
+  /**
+   * Gets the SV TNum read from the PO before the operation.
+   *
+   * @return An int in range [0..65535].
+   * @since 2.0
+   */
+  int getSvTNum();
+
+  /**
+   * Gets the SV operation.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoTransactionService.SvSettings.Operation getOperation();
+
+  /**
+   * Gets the SV action.
+   *
+   * @return A not null reference.
+   * @since 2.0
+   */
+  PoTransactionService.SvSettings.Action getAction();
+
+  /**
+   * Gets the amount of the operation.
+   *
+   * @return An int.
+   * @since 2.0
+   */
+  int getAmount();
+
+  /**
+   * Gets the serial number of the SAM that prepared the operation.
+   *
+   * @return A not null byte array.
+   * @since 2.0
+   */
+  byte[] getSamSerialNumber();
+}
@@ -0,0 +1,67 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Result of one SV operation of a batch processed by {@link
+ * PoTransactionService#processSvBatch(PoTransactionService.SvSettings.Operation,
+ * PoTransactionService.SvSettings.Action, int...)}.
+ *
+ * <p>Its {@link Object#toString()} method provides a JSON representation suitable for logging.
+ *
+ * @since 2.0
+ */
+public interface SvOperationResult {
+
+  /**
+   * Gets the amount of the operation, as provided to the batch.
+   *
+   * @return An int.
+   * @since 2.0
+   */
+  int getAmount();
+
+  /**
+   * Tells if the operation has been performed by the PO and successfully checked by the SAM.
+   *
+   * @return true if the operation is successful.
+   * @since 2.0
+   */
+  boolean isSuccessful();
+
+  /**
+   * Gets the error that stopped the batch at this operation.
+   *
+   * <p>When the PO exchange or the SV Check failed, the actual state of the PO is unknown and has
+   * to be checked with a new SV Get (see also {@link SvJournal}).
+   *
+   * @return null if the operation is successful.
+   * @since 2.0
+   */
+  CalypsoPoTransactionException getError();
+
+  /**
+   * Gets the SV balance read from the PO after the operation.
+   *
+   * @return The last balance known if the operation is not successful.
+   * @since 2.0
+   */
+  int getSvBalance();
+
+  /**
+   * Gets the SV transaction number read from the PO after the operation.
+   *
+   * @return The last transaction number known if the operation is not successful.
+   * @since 2.0
+   */
+  int getSvTNum();
+}
@@ -0,0 +1,109 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Estimated cost of the processing of the prepared commands, computed by simulating the
+ * processing without any exchange with the PO or the SAM.
+ *
+ * <p>The estimate follows the same rules as the processing itself: grouping of the commands,
+ * Digest commands sent to the SAM, use of the modifications buffer of the PO and automatic
+ * splitting into several secure sessions when the multiple session mode is enabled.
+ *
+ * <p>Its {@link Object#toString()} method provides a JSON representation suitable for logging.
+ *
+ * @since 2.0
+ */
+public interface TransactionCostEstimate {
+
+  /**
+   * Gets the number of APDUs sent to the PO.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getPoApduCount();
+
+  /**
+   * Gets the number of card requests sent to the PO (round trips).
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getPoRoundTripCount();
+
+  /**
+   * Gets the number of APDUs sent to the SAM.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getSamApduCount();
+
+  /**
+   * Gets the number of card requests sent to the SAM (round trips).
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getSamRoundTripCount();
+
+  /**
+   * Gets the number of secure sessions opened, including those resulting from a split.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getSessionCount();
+
+  /**
+   * Gets the highest use of the modifications buffer by a secure session.
+   *
+   * @return A number of bytes or of commands (see {@link #isSessionBufferSizeInBytes()}).
+   * @since 2.0
+   */
+  int getMaxSessionBufferUsage();
+
+  /**
+   * Gets the size of the modifications buffer of the PO.
+   *
+   * @return A number of bytes or of commands (see {@link #isSessionBufferSizeInBytes()}).
+   * @since 2.0
+   */
+  int getSessionBufferSize();
+
+  /**
+   * Tells if the modifications buffer size and usage are expressed in bytes or in number of
+   * commands.
+   *
+   * @return true if expressed in bytes.
+   * @since 2.0
+   */
+  boolean isSessionBufferSizeInBytes();
+
+  /**
+   * Tells if the secure session had to be split into several sessions.
+   *
+   * @return true if the processing involves more than one session per requested session.
+   * @since 2.0
+   */
+  boolean isSessionSplit();
+
+  /**
+   * Tells if the processing would fail because the modifications buffer would overflow while the
+   * multiple session mode is disabled ({@link CalypsoAtomicTransactionException}).
+   *
+   * @return true if the processing would fail.
+   * @since 2.0
+   */
+  boolean isAtomicTransactionOverflowed();
+}
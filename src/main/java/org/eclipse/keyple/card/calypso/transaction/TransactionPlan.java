@@ -0,0 +1,46 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Immutable description of a transaction scenario repeated on many PO (e.g. the validation
+ * sequence of a gate), built with a {@link TransactionPlanBuilder} and executed with {@link
+ * PoTransactionService#processPlan(TransactionPlan, byte[]...)}.
+ *
+ * <p>The plan is compiled at its first execution for each PO profile (revision, PO class,
+ * transmission capacity and modifications buffer): the command builders and their APDUs are
+ * created once, and the use of the modifications buffer by each secure session is computed in
+ * advance. The following executions for the same profile only create the commands whose data is
+ * provided at execution time (data slots).
+ *
+ * <p>A plan is thread-safe and may be shared by all the transactions of an application.
+ *
+ * @since 2.0
+ */
+public interface TransactionPlan {
+
+  /**
+   * Gets the number of data slots, i.e. the number of record data to provide at execution time.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getSlotCount();
+
+  /**
+   * Gets the number of PO profiles for which the plan has been compiled so far.
+   *
+   * @return A positive or null int.
+   * @since 2.0
+   */
+  int getCompiledProfileCount();
+}
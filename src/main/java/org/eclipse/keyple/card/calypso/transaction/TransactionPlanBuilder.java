@@ -0,0 +1,186 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://www.calypsonet-asso.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.card.calypso.transaction;
+
+/**
+ * Builder of {@link TransactionPlan}.
+ *
+ * <p>The methods are the counterparts of those of {@link PoTransactionService}: the "prepare"
+ * methods add commands to the current step and the "process" methods end it. The arguments are
+ * checked once here and no longer at execution time.
+ *
+ * <p>The record data of the "Slot" methods is provided at execution time, in the order in which
+ * these methods have been called; its length is fixed when the plan is built.
+ *
+ * @since 2.0
+ */
+public interface TransactionPlanBuilder {
+
+  /**
+   * Adds the reading of a single record.
+   *
+   * @param sfi the sfi top select.
+   * @param recordNumber the record number to read.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @see PoTransactionService#prepareReadRecordFile(byte, int)
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareReadRecordFile(byte sfi, int recordNumber);
+
+  /**
+   * Adds the reading of one or more records.
+   *
+   * @param sfi the sfi top select.
+   * @param firstRecordNumber the record number to read (or first record to read in case of several
+   *     records)
+   * @param numberOfRecords the number of records expected.
+   * @param recordSize the record length.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @see PoTransactionService#prepareReadRecordFile(byte, int, int, int)
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareReadRecordFile(
+      byte sfi, int firstRecordNumber, int numberOfRecords, int recordSize);
+
+  /**
+   * Adds the reading of a counter file.
+   *
+   * @param sfi the sfi top select.
+   * @param countersNumber the number of the last counter to be read.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @see PoTransactionService#prepareReadCounterFile(byte, int)
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareReadCounterFile(byte sfi, int countersNumber);
+
+  /**
+   * Adds the appending of a record with fixed data.
+   *
+   * @param sfi the sfi to select.
+   * @param recordData the new record data to write.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is null or out of range.
+   * @see PoTransactionService#prepareAppendRecord(byte, byte[])
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareAppendRecord(byte sfi, byte[] recordData);
+
+  /**
+   * Adds the appending of a record whose data is provided at execution time.
+   *
+   * @param sfi the sfi to select.
+   * @param recordLength the length of the data which will be provided.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareAppendRecordSlot(byte sfi, int recordLength);
+
+  /**
+   * Adds the update of a record with fixed data.
+   *
+   * @param sfi the sfi to select.
+   * @param recordNumber the record number to update.
+   * @param recordData the new record data.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is null or out of range.
+   * @see PoTransactionService#prepareUpdateRecord(byte, int, byte[])
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareUpdateRecord(byte sfi, int recordNumber, byte[] recordData);
+
+  /**
+   * Adds the update of a record whose data is provided at execution time.
+   *
+   * @param sfi the sfi to select.
+   * @param recordNumber the record number to update.
+   * @param recordLength the length of the data which will be provided.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareUpdateRecordSlot(byte sfi, int recordNumber, int recordLength);
+
+  /**
+   * Adds the increase of a counter.
+   *
+   * @param sfi SFI of the file to select.
+   * @param counterNumber the number of the counter (must be zero in case of a simulated counter).
+   * @param incValue Value to add to the counter.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @see PoTransactionService#prepareIncreaseCounter(byte, int, int)
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareIncreaseCounter(byte sfi, int counterNumber, int incValue);
+
+  /**
+   * Adds the decrease of a counter.
+   *
+   * @param sfi SFI of the file to select.
+   * @param counterNumber the number of the counter (must be zero in case of a simulated counter).
+   * @param decValue Value to subtract from the counter.
+   * @return The object instance.
+   * @throws IllegalArgumentException If one of the arguments is out of range.
+   * @see PoTransactionService#prepareDecreaseCounter(byte, int, int)
+   * @since 2.0
+   */
+  TransactionPlanBuilder prepareDecreaseCounter(byte sfi, int counterNumber, int decValue);
+
+  /**
+   * Ends the current step with the opening of a secure session.
+   *
+   * @param sessionAccessLevel An {@link PoTransactionService.SessionAccessLevel} enum entry.
+   * @return The object instance.
+   * @throws IllegalArgumentException If sessionAccessLevel is null.
+   * @throws IllegalStateException If a session is already open in the plan.
+   * @see PoTransactionService#processOpening(PoTransactionService.SessionAccessLevel)
+   * @since 2.0
+   */
+  TransactionPlanBuilder processOpening(PoTransactionService.SessionAccessLevel sessionAccessLevel);
+
+  /**
+   * Ends the current step with the processing of its commands, in or out of session.
+   *
+   * @return The object instance.
+   * @see PoTransactionService#processPoCommands()
+   * @since 2.0
+   */
+  TransactionPlanBuilder processPoCommands();
+
+  /**
+   * Ends the current step with the closing of the secure session.
+   *
+   * <p>The responses to the Increase and Decrease commands of the closing are anticipated from the
+   * counter values. When a counter is not read by a previous step of the plan, its reading is added
+   * to the opening step of the session, the counters of a same file being read with a single
+   * command.
+   *
+   * @return The object instance.
+   * @throws IllegalStateException If no session is open in the plan.
+   * @see PoTransactionService#processClosing()
+   * @since 2.0
+   */
+  TransactionPlanBuilder processClosing();
+
+  /**
+   * Creates the plan.
+   *
+   * @return A not null reference.
+   * @throws IllegalStateException If commands have been added after the last step.
+   * @since 2.0
+   */
+  TransactionPlan build();
+}